@@ -1,7 +1,6 @@
 package hr.fer.zemris.linearna;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
 
 /**
  * Implementation of IMatrix interface. Implements basic's matrix operations.
@@ -11,9 +10,6 @@ import java.text.DecimalFormatSymbols;
  */
 public abstract class AbstractMatrix implements IMatrix {
 
-    /** offset for double comparison **/
-    private final double delta = 1e-30;
-
     @Override
     public abstract int getRowsCount();
 
@@ -66,7 +62,10 @@ public abstract class AbstractMatrix implements IMatrix {
     }
 
     /**
-     * Adds provided matrix to this matrix.
+     * Adds provided matrix to this matrix. If provided matrix is
+     * {@link SparseMatrix}, {@link DiagonalMatrix},
+     * {@link ScaledIdentityMatrix} or {@link ZeroMatrix}, only its non-zero
+     * elements are read.
      * 
      * @param other
      *            matrix to be added.
@@ -83,6 +82,10 @@ public abstract class AbstractMatrix implements IMatrix {
 		    "Cannot add matrix with different size!" );
 	}
 
+	if ( addStructured( other, 1.0 ) || addArrays( other, 1.0 ) ) {
+	    return this;
+	}
+
 	for ( int row = 0, nRows = getRowsCount(); row < nRows; row++ ) {
 	    for ( int col = 0, nCols = getColsCount(); col < nCols; col++ ) {
 		set( row, col, get( row, col ) + other.get( row, col ) );
@@ -112,6 +115,9 @@ public abstract class AbstractMatrix implements IMatrix {
 
     /**
      * Subtract provided matrix from this matrix. Does not change this matrix.
+     * If provided matrix is {@link SparseMatrix}, {@link DiagonalMatrix},
+     * {@link ScaledIdentityMatrix} or {@link ZeroMatrix}, only its non-zero
+     * elements are read.
      * 
      * @param other
      *            matrix to be subtracted.
@@ -128,6 +134,10 @@ public abstract class AbstractMatrix implements IMatrix {
 		    "Cannot subtract matrix with different size!" );
 	}
 
+	if ( addStructured( other, -1.0 ) || addArrays( other, -1.0 ) ) {
+	    return this;
+	}
+
 	for ( int row = 0, nRows = getRowsCount(); row < nRows; row++ ) {
 	    for ( int col = 0, nCols = getColsCount(); col < nCols; col++ ) {
 		set( row, col, get( row, col ) - other.get( row, col ) );
@@ -156,6 +166,13 @@ public abstract class AbstractMatrix implements IMatrix {
 
     /**
      * Multiplies this matrix with provided matrix. Does not change this matrix.
+     * If both matrices and the result are stored in arrays, product is
+     * calculated with cache-blocked kernel that reads arrays directly. Product
+     * of matrix stored in array and {@link DirectMatrix} uses same kernel on
+     * tiles copied to heap. If provided matrix is {@link SparseMatrix}, only its stored elements are
+     * read. Products with {@link DiagonalMatrix} and
+     * {@link ScaledIdentityMatrix} scale columns of this matrix, and product
+     * with {@link ZeroMatrix} is new zero matrix, so they cost O(n^2).
      * 
      * @param other
      *            matrix to be multiplied
@@ -172,11 +189,30 @@ public abstract class AbstractMatrix implements IMatrix {
 		    "First matrix must have same number of columns as second matrix rows!" );
 	}
 
+	final IMatrix structured = multiplyStructured( other );
+	if ( structured != null ) {
+	    return structured;
+	}
+
 	final int nRows = getRowsCount();
 	final int nCols = other.getColsCount();
 
 	final IMatrix m = newInstance( nRows, nCols );
 
+	if ( (this instanceof ArrayBackedMatrix)
+		&& (other instanceof ArrayBackedMatrix)
+		&& (m instanceof ArrayBackedMatrix) ) {
+	    Gemm.multiply( (ArrayBackedMatrix) this, (ArrayBackedMatrix) other,
+		    (ArrayBackedMatrix) m );
+	    return m;
+	}
+
+	if ( (this instanceof ArrayBackedMatrix)
+		&& (other instanceof DirectMatrix) ) {
+	    DirectMatrix.multiply( this, other, m );
+	    return m;
+	}
+
 	final int nColsFirstM = getColsCount();
 
 	for ( int row = 0; row < nRows; row++ ) {
@@ -196,67 +232,118 @@ public abstract class AbstractMatrix implements IMatrix {
     }
 
     /**
-     * Calculates determinant of matrix. Calculation is implemented with
-     * diagonalization of matrix. Complexity of method is O(n^3).
-     * 
-     * @return determinant of matrix
+     * Adds multiple of provided matrix to this matrix if both matrices are
+     * stored in arrays. Rows are updated directly in arrays, with
+     * {@link VectorKernels} if elements of both rows are contiguous.
      * 
-     * @throws IncompatibleOperandException
-     *             if matrix is not square matrix.
+     * @param other
+     *            matrix of same size
+     * @param factor
+     *            multiple of provided matrix
+     * @return false if matrices are not stored in arrays and nothing is added
      */
-    @Override
-    public double determinant() throws IncompatibleOperandException {
+    private boolean addArrays( IMatrix other, double factor ) {
 
-	if ( !isSqareMatrix() ) {
-	    throw new IncompatibleOperandException( "Matrix has to be square" );
-	}
-
-	if ( getColsCount() == 1 ) {
-	    return get( 0, 0 );
+	if ( !(this instanceof ArrayBackedMatrix)
+		|| !(other instanceof ArrayBackedMatrix) ) {
+	    return false;
 	}
 
-	final IMatrix m = copy();
-
-	double determinant = 1;
-
-	for ( int row = 0, nRows = getRowsCount(); row < (nRows - 1); row++ ) {
-
-	    if ( Math.abs( m.get( row, row ) ) <= delta ) {
-		boolean isZero = true;
-
-		for ( int i = row + 1; i < nRows; i++ ) {
-		    if ( Math.abs( m.get( i, row ) ) > delta ) {
-			determinant *= -1;
-			isZero = false;
-			for ( int col = 0, nCols = m.getColsCount(); col < nCols; col++ ) {
-			    final double temp = m.get( row, col );
-			    m.set( row, col, m.get( i, col ) );
-			    m.set( i, col, temp );
-			}
-			break;
-		    }
-		}
+	final ArrayBackedMatrix target = (ArrayBackedMatrix) this;
+	final ArrayBackedMatrix source = (ArrayBackedMatrix) other;
+	final int rows = getRowsCount();
+	final int cols = getColsCount();
+	final int targetStride = target.colStride();
+	final int sourceStride = source.colStride();
 
-		if ( isZero ) {
-		    return 0.0;
+	for ( int row = 0; row < rows; row++ ) {
+	    final double[] y = target.rowArray( row );
+	    final int yOffset = target.rowOffset( row );
+	    final double[] x = source.rowArray( row );
+	    final int xOffset = source.rowOffset( row );
+
+	    if ( (targetStride == 1) && (sourceStride == 1) ) {
+		VectorKernels.axpy( factor, x, xOffset, y, yOffset, cols );
+	    } else {
+		for ( int col = 0; col < cols; col++ ) {
+		    y[yOffset + (col * targetStride)] += factor
+			    * x[xOffset + (col * sourceStride)];
 		}
 	    }
+	}
 
-	    for ( int i = row + 1; i < nRows; i++ ) {
+	return true;
+    }
 
-		final double C = m.get( i, row ) / m.get( row, row );
+    /**
+     * Adds multiple of provided matrix to this matrix if provided matrix has
+     * structure whose non-zero elements are known.
+     * 
+     * @param other
+     *            matrix of same size
+     * @param factor
+     *            multiple of provided matrix
+     * @return false if provided matrix has no known structure and nothing is
+     *         added
+     */
+    private boolean addStructured( IMatrix other, double factor ) {
+
+	if ( other instanceof SparseMatrix ) {
+	    ((SparseMatrix) other).addTo( this, factor );
+	} else if ( other instanceof DiagonalMatrix ) {
+	    ((DiagonalMatrix) other).addTo( this, factor );
+	} else if ( other instanceof ScaledIdentityMatrix ) {
+	    ((ScaledIdentityMatrix) other).addTo( this, factor );
+	} else if ( !(other instanceof ZeroMatrix) ) {
+	    return false;
+	}
 
-		for ( int col = 0, nCols = getColsCount(); col < nCols; col++ ) {
-		    m.set( i, col, m.get( i, col ) - (C * m.get( row, col )) );
-		}
-	    }
+	return true;
+    }
+
+    /**
+     * Multiplies this matrix with provided matrix if provided matrix has
+     * structure whose non-zero elements are known.
+     * 
+     * @param other
+     *            matrix with as many rows as this matrix has columns
+     * @return product, or <code>null</code> if provided matrix has no known
+     *         structure
+     */
+    private IMatrix multiplyStructured( IMatrix other ) {
+
+	if ( other instanceof SparseMatrix ) {
+	    return ((SparseMatrix) other).multiplyLeft( this );
+	} else if ( other instanceof DiagonalMatrix ) {
+	    return ((DiagonalMatrix) other).multiplyLeft( this );
+	} else if ( other instanceof ScaledIdentityMatrix ) {
+	    return nScalarMultiply( ((ScaledIdentityMatrix) other).getValue() );
+	} else if ( other instanceof ZeroMatrix ) {
+	    return newInstance( getRowsCount(), other.getColsCount() );
 	}
 
-	for ( int i = 0, dimension = getColsCount(); i < dimension; i++ ) {
-	    determinant *= m.get( i, i );
+	return null;
+    }
+
+    /**
+     * Calculates determinant of matrix. Calculation is implemented with LU
+     * decomposition with partial pivoting. Complexity of method is O(n^3).
+     * Use {@link LUDecomposition} directly if matrix is also used for solving
+     * systems or inversion.
+     * 
+     * @return determinant of matrix
+     * 
+     * @throws IncompatibleOperandException
+     *             if matrix is not square matrix.
+     */
+    @Override
+    public double determinant() throws IncompatibleOperandException {
+
+	if ( !isSqareMatrix() ) {
+	    throw new IncompatibleOperandException( "Matrix has to be square" );
 	}
 
-	return determinant;
+	return new LUDecomposition( this ).determinant();
     }
 
     /**
@@ -279,7 +366,11 @@ public abstract class AbstractMatrix implements IMatrix {
     }
 
     /**
-     * Inverts this matrix.
+     * Inverts this matrix. Matrix is decomposed with {@link LUDecomposition}
+     * and inverse is calculated from factors, so complexity of method is
+     * O(n^3) and it needs O(n^2) additional memory. Decomposition stops at
+     * first zero pivot, so singular matrices are rejected without further
+     * work.
      * 
      * @return inverted matrix.
      * @throws IncompatibleOperandException
@@ -293,37 +384,88 @@ public abstract class AbstractMatrix implements IMatrix {
 		    "Cannot inverse matrix that is not square matrix" );
 	}
 
-	final double det = determinant();
+	final LUDecomposition lu = new LUDecomposition( this );
 
-	if ( Math.abs( det ) <= delta ) {
+	if ( lu.isSingular() ) {
 	    throw new IncompatibleOperandException(
 		    "Cannot inverse singular matrix" );
 	}
 
-	final int cols = getColsCount();
-	final int rows = getRowsCount();
+	return lu.inverse();
+    }
 
-	if ( rows == 1 ) {
-	    final double[][] newElements = new double[1][1];
-	    newElements[0][0] = 1.0 / get( 0, 0 );
-	    return new Matrix( 1, 1, newElements, false );
-	}
+    /**
+     * Solves system A * X = B, where A is this matrix, without calculating
+     * inverse of A. Algorithm is chosen by structure of matrix: triangular
+     * systems are solved with substitution, symmetric positive definite
+     * systems with {@link CholeskyDecomposition} and all other systems with
+     * {@link LUDecomposition}. All columns of B are solved in one pass. Does
+     * not change this matrix or matrix B.
+     * 
+     * @param b
+     *            right hand sides of system stored in columns
+     * @return solutions of system stored in columns
+     * @throws IncompatibleOperandException
+     *             if this matrix is not square matrix, if B has not same
+     *             number of rows as this matrix, or if this matrix is singular
+     */
+    public IMatrix solve( IMatrix b ) {
 
-	final IMatrix inverse = new Matrix( rows, cols );
+	checkSystem( b.getRowsCount() );
 
-	for ( int row = 0; row < rows; row++ ) {
-	    for ( int col = 0; col < cols; col++ ) {
-		final IMatrix subMatrix = subMatrix( row, col, false );
-		double d = subMatrix.determinant();
-		if ( ((row + col) % 2) == 1 ) {
-		    d *= -1.0;
-		}
+	final int n = getRowsCount();
+	final int cols = b.getColsCount();
+	final double[] x = LinearSolver.solve(
+		FlatMatrix.valueOf( this ).elements, n,
+		FlatMatrix.valueOf( b ).elements, cols );
 
-		inverse.set( row, col, d );
-	    }
+	return LinAlgDefaults.defaultMatrix( n, cols, x );
+    }
+
+    /**
+     * Solves system A * x = b, where A is this matrix, without calculating
+     * inverse of A. Algorithm is chosen same as in {@link #solve(IMatrix)}.
+     * Does not change this matrix or vector b.
+     * 
+     * @param b
+     *            right hand side of system
+     * @return solution of system
+     * @throws IncompatibleOperandException
+     *             if this matrix is not square matrix, if b has not same
+     *             dimension as this matrix, or if this matrix is singular
+     */
+    public IVector solve( IVector b ) {
+
+	checkSystem( b.getDimension() );
+
+	final double[] x = LinearSolver.solve(
+		FlatMatrix.valueOf( this ).elements, getRowsCount(),
+		b.toArray(), 1 );
+
+	return new Vector( false, true, x );
+    }
+
+    /**
+     * Checks if system with this matrix and right hand side with provided
+     * number of rows can be solved.
+     * 
+     * @param rows
+     *            number of rows of right hand side
+     * @throws IncompatibleOperandException
+     *             if this matrix is not square matrix, or if number of rows is
+     *             not same as number of rows of this matrix
+     */
+    private void checkSystem( int rows ) {
+
+	if ( !isSqareMatrix() ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot solve system with matrix that is not square matrix" );
 	}
 
-	return inverse.scalarMultiply( 1.0 / det ).nTranspose( false );
+	if ( rows != getRowsCount() ) {
+	    throw new IncompatibleOperandException(
+		    "Right hand side must have same number of rows as matrix" );
+	}
     }
 
     /**
@@ -377,7 +519,8 @@ public abstract class AbstractMatrix implements IMatrix {
     }
 
     /**
-     * Multiplies this matrix with scalar. Does not changes this matrix.
+     * Multiplies this matrix with scalar. If matrix is stored in arrays,
+     * elements are multiplied directly in arrays.
      * 
      * @param value
      *            scalar with this matrix is multiplied
@@ -386,6 +529,27 @@ public abstract class AbstractMatrix implements IMatrix {
     @Override
     public IMatrix scalarMultiply( double value ) {
 
+	if ( this instanceof ArrayBackedMatrix ) {
+	    final ArrayBackedMatrix matrix = (ArrayBackedMatrix) this;
+	    final int cols = getColsCount();
+	    final int stride = matrix.colStride();
+
+	    for ( int row = 0, rows = getRowsCount(); row < rows; row++ ) {
+		final double[] array = matrix.rowArray( row );
+		final int offset = matrix.rowOffset( row );
+
+		if ( stride == 1 ) {
+		    VectorKernels.scale( array, offset, value, cols );
+		} else {
+		    for ( int col = 0; col < cols; col++ ) {
+			array[offset + (col * stride)] *= value;
+		    }
+		}
+	    }
+
+	    return this;
+	}
+
 	for ( int row = 0, rows = getRowsCount(); row < rows; row++ ) {
 	    for ( int col = 0, cols = getColsCount(); col < cols; col++ ) {
 		set( row, col, value * get( row, col ) );
@@ -409,6 +573,30 @@ public abstract class AbstractMatrix implements IMatrix {
 	    throw new IncompatibleOperandException(
 		    "Matrix is not square matrix" );
 	}
+
+	if ( this instanceof ArrayBackedMatrix ) {
+	    final ArrayBackedMatrix matrix = (ArrayBackedMatrix) this;
+	    final int cols = getColsCount();
+	    final int stride = matrix.colStride();
+
+	    for ( int row = 0, rows = getRowsCount(); row < rows; row++ ) {
+		final double[] array = matrix.rowArray( row );
+		final int offset = matrix.rowOffset( row );
+
+		if ( stride == 1 ) {
+		    Arrays.fill( array, offset, offset + cols, 0.0 );
+		} else {
+		    for ( int col = 0; col < cols; col++ ) {
+			array[offset + (col * stride)] = 0.0;
+		    }
+		}
+
+		array[offset + (row * stride)] = 1.0;
+	    }
+
+	    return this;
+	}
+
 	for ( int row = 0, rows = getRowsCount(); row < rows; row++ ) {
 	    for ( int col = 0, cols = getColsCount(); col < cols; col++ ) {
 		set( row, col, row == col ? 1.0 : 0.0 );
@@ -453,7 +641,8 @@ public abstract class AbstractMatrix implements IMatrix {
 
     /**
      * Checks if all elements of this matrix are same as elements of provided
-     * matrix.
+     * matrix. If both matrices are stored in arrays, elements are compared
+     * directly in arrays.
      * 
      * @param other
      *            provided matrix
@@ -468,6 +657,12 @@ public abstract class AbstractMatrix implements IMatrix {
 	    return false;
 	}
 
+	if ( (this instanceof ArrayBackedMatrix)
+		&& (other instanceof ArrayBackedMatrix) ) {
+	    return equalArrays( (ArrayBackedMatrix) this,
+		    (ArrayBackedMatrix) other, delta );
+	}
+
 	for ( int row = 0, rows = getRowsCount(); row < rows; row++ ) {
 	    for ( int col = 0, cols = getColsCount(); col < cols; col++ ) {
 		if ( Math.abs( get( row, col ) - other.get( row, col ) ) > delta ) {
@@ -480,41 +675,54 @@ public abstract class AbstractMatrix implements IMatrix {
     }
 
     /**
-     * Creates string representation of matrix.
+     * Checks if all elements of two matrices of same size, which are stored
+     * in arrays, are same.
      * 
-     * @param precision
-     *            number of digits after decimal point.
-     * @return string representation of matrix.
+     * @param first
+     *            first matrix
+     * @param second
+     *            second matrix
+     * @param delta
+     *            allowed difference between elements
+     * @return true if and only if matrices have same elements
      */
-    public String toString( int precision ) {
-
-	String pattern = "0.";
-	for ( int i = 0; i < precision; i++ ) {
-	    pattern += "0";
-	}
-
-	final DecimalFormatSymbols symbols = new DecimalFormatSymbols();
-	symbols.setDecimalSeparator( '.' );
-	final DecimalFormat df = new DecimalFormat( pattern, symbols );
+    private static boolean equalArrays( ArrayBackedMatrix first,
+	    ArrayBackedMatrix second, double delta ) {
 
-	final StringBuilder sb = new StringBuilder();
+	final int cols = first.getColsCount();
+	final int firstStride = first.colStride();
+	final int secondStride = second.colStride();
 
-	for ( int row = 0, rows = getRowsCount(); row < rows; row++ ) {
-
-	    sb.append( "[ " );
+	for ( int row = 0, rows = first.getRowsCount(); row < rows; row++ ) {
+	    final double[] a = first.rowArray( row );
+	    final double[] b = second.rowArray( row );
+	    final int aOffset = first.rowOffset( row );
+	    final int bOffset = second.rowOffset( row );
 
-	    for ( int col = 0, cols = getColsCount(); col < cols; col++ ) {
-		sb.append( df.format( get( row, col ) ) );
-		sb.append( ' ' );
+	    for ( int col = 0; col < cols; col++ ) {
+		if ( Math.abs( a[aOffset + (col * firstStride)]
+			- b[bOffset + (col * secondStride)] ) > delta ) {
+		    return false;
+		}
 	    }
-
-	    sb.append( "]\r\n" );
 	}
 
-	sb.deleteCharAt( sb.length() - 1 );
-	sb.deleteCharAt( sb.length() - 1 );
+	return true;
+    }
+
+    /**
+     * Creates string representation of matrix.
+     * 
+     * @param precision
+     *            number of digits after decimal point.
+     * @return string representation of matrix.
+     * @throws IllegalArgumentException
+     *             if precision is negative
+     * @see TextFormat
+     */
+    public String toString( int precision ) {
 
-	return sb.toString();
+	return TextFormat.getInstance( precision ).format( this );
     }
 
     @Override
@@ -1,8 +1,5 @@
 package hr.fer.zemris.linearna;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-
 /**
  * Implementation of n-dimansional vectors.
  *
@@ -49,7 +46,8 @@ public abstract class AbstractVector implements IVector {
     public abstract IVector newInstance( int dimension );
 
     /**
-     * Adds provided vector to this vector.
+     * Adds provided vector to this vector. If provided vector is
+     * {@link SparseVector}, only its stored elements are read.
      * 
      * @param other
      *            vector to be added.
@@ -65,6 +63,11 @@ public abstract class AbstractVector implements IVector {
 		    "Cannot add vector with different dimnesion" );
 	}
 
+	if ( other instanceof SparseVector ) {
+	    ((SparseVector) other).addTo( this, 1.0 );
+	    return this;
+	}
+
 	for ( int i = 0, dimension = getDimension(); i < dimension; i++ ) {
 	    set( i, get( i ) + other.get( i ) );
 	}
@@ -89,7 +92,8 @@ public abstract class AbstractVector implements IVector {
     }
 
     /**
-     * Subtract provided vector from this vector.
+     * Subtract provided vector from this vector. If provided vector is
+     * {@link SparseVector}, only its stored elements are read.
      * 
      * @param other
      *            vector to be subtracted.
@@ -105,6 +109,11 @@ public abstract class AbstractVector implements IVector {
 		    "Cannot subtract vector with different dimnesion" );
 	}
 
+	if ( other instanceof SparseVector ) {
+	    ((SparseVector) other).addTo( this, -1.0 );
+	    return this;
+	}
+
 	for ( int i = 0, dimension = getDimension(); i < dimension; i++ ) {
 	    set( i, get( i ) - other.get( i ) );
 	}
@@ -241,7 +250,9 @@ public abstract class AbstractVector implements IVector {
     }
 
     /**
-     * Calculates scalar product if of this and provided vectors.
+     * Calculates scalar product if of this and provided vectors. If provided
+     * vector is {@link SparseVector}, only elements of this vector at its
+     * stored indices are read.
      * 
      * @param other
      *            vector
@@ -259,6 +270,10 @@ public abstract class AbstractVector implements IVector {
 		    "Cannot calculate scalar product of vectors with different dimnesion" );
 	}
 
+	if ( other instanceof SparseVector ) {
+	    return other.scalarProduct( this );
+	}
+
 	double product = 0;
 
 	for ( int i = 0, dimension = getDimension(); i < dimension; i++ ) {
@@ -409,6 +424,10 @@ public abstract class AbstractVector implements IVector {
 
     protected static boolean isNulVector( IVector v, double delta ) {
 
+	if ( v instanceof SparseVector ) {
+	    return ((SparseVector) v).isNul( delta );
+	}
+
 	for ( int i = 0, dimension = v.getDimension(); i < dimension; i++ ) {
 	    if ( Math.abs( v.get( i ) ) > delta ) {
 		return false;
@@ -418,27 +437,20 @@ public abstract class AbstractVector implements IVector {
 	return true;
     }
 
+    /**
+     * Creates string representation of vector. Elements are separated with
+     * space.
+     * 
+     * @param precision
+     *            number of digits after decimal point.
+     * @return string representation of vector.
+     * @throws IllegalArgumentException
+     *             if precision is negative
+     * @see TextFormat
+     */
     public String toString( int precision ) {
 
-	String pattern = "0.";
-	for ( int i = 0; i < precision; i++ ) {
-	    pattern += "0";
-	}
-
-	final DecimalFormatSymbols symbols = new DecimalFormatSymbols();
-	symbols.setDecimalSeparator( '.' );
-	final DecimalFormat df = new DecimalFormat( pattern, symbols );
-
-	final StringBuilder sb = new StringBuilder();
-
-	for ( int i = 0; i < getDimension(); i++ ) {
-	    sb.append( df.format( get( i ) ) );
-	    sb.append( ' ' );
-	}
-
-	sb.deleteCharAt( sb.length() - 1 );
-
-	return sb.toString();
+	return TextFormat.getInstance( precision ).format( this );
     }
 
     @Override
@@ -0,0 +1,41 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Matrix whose rows are stored in arrays. Algorithms that know this interface
+ * can read and write elements directly from arrays, without calling
+ * {@link IMatrix#get(int, int)} and {@link IMatrix#set(int, int, double)} for
+ * every element. Element at position (row, col) is stored at index
+ * <code>rowOffset(row) + col * colStride()</code> of array
+ * <code>rowArray(row)</code>.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+interface ArrayBackedMatrix extends IMatrix {
+
+    /**
+     * Returns array in which elements of provided row are stored.
+     * 
+     * @param row
+     *            row of matrix
+     * @return array with elements of row
+     */
+    double[] rowArray( int row );
+
+    /**
+     * Returns index of first element of provided row in array returned by
+     * {@link #rowArray(int)}.
+     * 
+     * @param row
+     *            row of matrix
+     * @return index of element (row, 0)
+     */
+    int rowOffset( int row );
+
+    /**
+     * Returns distance between two neighbouring elements of same row.
+     * 
+     * @return distance between elements of row
+     */
+    int colStride();
+}
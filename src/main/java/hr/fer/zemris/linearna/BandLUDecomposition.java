@@ -0,0 +1,322 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * LU decomposition of band matrix with partial pivoting. Matrix with lower
+ * bandwidth kl and upper bandwidth ku is factored once to P * A = L * U, where
+ * L has at most kl non-zero elements below diagonal in every column and U has
+ * upper bandwidth kl + ku because of row interchanges. Factors are stored row
+ * by row in array with <code>2 * kl + ku + 1</code> elements per row, so
+ * decomposition costs O(n * kl * (kl + ku)) and every solved right hand side
+ * costs O(n * (2 * kl + ku)).
+ * <p>
+ * Row interchanges are applied to right hand sides in same order as during
+ * factorization, so multipliers of L are never moved after they are
+ * calculated. Pivot is treated as zero by same rule as in
+ * {@link LUDecomposition}.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class BandLUDecomposition {
+
+    /**
+     * Factors L and U stored row by row, element (i, j) at index
+     * <code>i * width + j - i + lower</code>
+     */
+    private final double[] lu;
+
+    /**
+     * Dimension of decomposed matrix
+     */
+    private final int dimension;
+
+    /**
+     * Lower bandwidth of decomposed matrix
+     */
+    private final int lower;
+
+    /**
+     * Upper bandwidth of factor U
+     */
+    private final int upper;
+
+    /**
+     * Number of stored elements of every row
+     */
+    private final int width;
+
+    /**
+     * Row which was swapped with row k in step k of factorization
+     */
+    private final int[] pivot;
+
+    /**
+     * 1 if even number of rows were swapped, -1 otherwise
+     */
+    private int pivotSign;
+
+    /**
+     * True if decomposed matrix is singular
+     */
+    private boolean singular;
+
+    /**
+     * Decomposes provided band matrix. Provided matrix is not changed.
+     * 
+     * @param matrix
+     *            matrix to be decomposed
+     */
+    public BandLUDecomposition(BandMatrix matrix) {
+
+	dimension = matrix.dimension;
+	lower = matrix.lower;
+	upper = matrix.lower + matrix.upper;
+	width = lower + upper + 1;
+	lu = new double[dimension * width];
+	pivot = new int[dimension];
+	pivotSign = 1;
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    System.arraycopy( matrix.band, row * matrix.width, lu, row * width,
+		    matrix.width );
+	}
+
+	decompose( columnTolerances( matrix ) );
+    }
+
+    /**
+     * Calculates tolerance for pivots of every column.
+     * 
+     * @param matrix
+     *            decomposed matrix
+     * @return tolerances for pivots
+     */
+    private double[] columnTolerances( BandMatrix matrix ) {
+
+	final int n = dimension;
+	final double[] tolerance = new double[n];
+
+	for ( int row = 0; row < n; row++ ) {
+	    final int last = Math.min( n - 1, row + matrix.upper );
+
+	    for ( int col = Math.max( 0, row - lower ); col <= last; col++ ) {
+		tolerance[col] = Math.max( tolerance[col],
+			Math.abs( matrix.band[matrix.index( row, col )] ) );
+	    }
+	}
+
+	final double factor = n * Math.ulp( 1.0 );
+	for ( int col = 0; col < n; col++ ) {
+	    tolerance[col] *= factor;
+	}
+
+	return tolerance;
+    }
+
+    /**
+     * Index of element in array of factors.
+     * 
+     * @param row
+     *            row of element
+     * @param col
+     *            column of element, inside of band of row
+     * @return index of element
+     */
+    private int index( int row, int col ) {
+
+	return (row * width) + (col - row) + lower;
+    }
+
+    /**
+     * Factors band in place.
+     * 
+     * @param tolerance
+     *            tolerances for pivots of every column
+     */
+    private void decompose( double[] tolerance ) {
+
+	final int n = dimension;
+
+	for ( int k = 0; k < n; k++ ) {
+	    final int lastRow = Math.min( n - 1, k + lower );
+	    final int lastCol = Math.min( n - 1, k + upper );
+
+	    int max = k;
+	    for ( int i = k + 1; i <= lastRow; i++ ) {
+		if ( Math.abs( lu[index( i, k )] ) > Math.abs( lu[index( max, k )] ) ) {
+		    max = i;
+		}
+	    }
+
+	    pivot[k] = max;
+
+	    if ( max != k ) {
+		for ( int j = k; j <= lastCol; j++ ) {
+		    final double temp = lu[index( k, j )];
+		    lu[index( k, j )] = lu[index( max, j )];
+		    lu[index( max, j )] = temp;
+		}
+
+		pivotSign = -pivotSign;
+	    }
+
+	    final int diagonal = index( k, k );
+	    final double pivotValue = lu[diagonal];
+
+	    if ( !(Math.abs( pivotValue ) > tolerance[k]) ) {
+		singular = true;
+		return;
+	    }
+
+	    for ( int i = k + 1; i <= lastRow; i++ ) {
+		final int rowK = index( i, k );
+		final double factor = lu[rowK] / pivotValue;
+		lu[rowK] = factor;
+
+		if ( factor == 0.0 ) {
+		    continue;
+		}
+
+		for ( int j = 1; j <= (lastCol - k); j++ ) {
+		    lu[rowK + j] -= factor * lu[diagonal + j];
+		}
+	    }
+	}
+    }
+
+    /**
+     * Dimension getter.
+     * 
+     * @return dimension of decomposed matrix
+     */
+    public int getDimension() {
+
+	return dimension;
+    }
+
+    /**
+     * Checks if decomposed matrix is singular.
+     * 
+     * @return true if and only if decomposed matrix is singular.
+     */
+    public boolean isSingular() {
+
+	return singular;
+    }
+
+    /**
+     * Calculates determinant of decomposed matrix as product of pivots.
+     * 
+     * @return determinant of decomposed matrix, 0 if matrix is singular
+     */
+    public double determinant() {
+
+	if ( singular ) {
+	    return 0.0;
+	}
+
+	double determinant = pivotSign;
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    determinant *= lu[index( i, i )];
+	}
+
+	return determinant;
+    }
+
+    /**
+     * Solves system A * x = b, where A is decomposed matrix.
+     * 
+     * @param b
+     *            right hand side of system
+     * @return solution of system
+     * @throws IncompatibleOperandException
+     *             if dimension of vector is not same as dimension of matrix,
+     *             or if matrix is singular
+     */
+    public IVector solve( IVector b ) {
+
+	if ( b.getDimension() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Vector must have same dimension as matrix" );
+	}
+
+	final double[] x = b.toArray();
+	solveInPlace( x, 1 );
+
+	return new Vector( false, true, x );
+    }
+
+    /**
+     * Solves system A * X = B for all columns of B in one pass, where A is
+     * decomposed matrix.
+     * 
+     * @param b
+     *            right hand sides of system stored in columns
+     * @return solutions of system stored in columns
+     * @throws IncompatibleOperandException
+     *             if matrix B has not same number of rows as decomposed
+     *             matrix, or if matrix is singular
+     */
+    public IMatrix solve( IMatrix b ) {
+
+	if ( b.getRowsCount() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Matrix must have same number of rows as decomposed matrix" );
+	}
+
+	final int cols = b.getColsCount();
+	final double[] x = FlatMatrix.valueOf( b ).elements;
+
+	solveInPlace( x, cols );
+
+	return LinAlgDefaults.defaultMatrix( dimension, cols, x );
+    }
+
+    /**
+     * Solves system P^T * L * U * X = B in place.
+     * 
+     * @param x
+     *            right hand sides stored row by row, replaced with solutions
+     * @param cols
+     *            number of right hand sides
+     * @throws IncompatibleOperandException
+     *             if matrix is singular
+     */
+    void solveInPlace( double[] x, int cols ) {
+
+	if ( singular ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot solve system with singular matrix" );
+	}
+
+	final int n = dimension;
+
+	for ( int k = 0; k < n; k++ ) {
+	    if ( pivot[k] != k ) {
+		for ( int j = 0, a = k * cols, b = pivot[k] * cols; j < cols; j++, a++, b++ ) {
+		    final double temp = x[a];
+		    x[a] = x[b];
+		    x[b] = temp;
+		}
+	    }
+
+	    final int lastRow = Math.min( n - 1, k + lower );
+	    for ( int i = k + 1; i <= lastRow; i++ ) {
+		Substitution.subtractRow( x, i * cols, k * cols, cols,
+			lu[index( i, k )] );
+	    }
+	}
+
+	for ( int i = n - 1; i >= 0; i-- ) {
+	    final int lastCol = Math.min( n - 1, i + upper );
+
+	    for ( int j = i + 1; j <= lastCol; j++ ) {
+		Substitution.subtractRow( x, i * cols, j * cols, cols,
+			lu[index( i, j )] );
+	    }
+
+	    Substitution.divideRow( x, i * cols, cols, lu[index( i, i )] );
+	}
+    }
+}
@@ -0,0 +1,693 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Arrays;
+
+/**
+ * Square band matrix which stores only elements on diagonals inside its band.
+ * Matrix with lower bandwidth kl and upper bandwidth ku has non-zero elements
+ * only at positions (i, j) with <code>i - kl <= j <= i + ku</code>. Band is
+ * stored row by row in one array of <code>n * (kl + ku + 1)</code> elements,
+ * element (i, j) is stored at index <code>i * (kl + ku + 1) + j - i + kl
+ * </code>. Positions of band outside of matrix are not used.
+ * <p>
+ * Elements outside of band are always 0 and cannot be changed. Products,
+ * determinant and solutions of systems are calculated only from band, so
+ * their complexity depends on bandwidths instead of dimension of matrix.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class BandMatrix extends AbstractMatrix {
+
+    /**
+     * Dimension of matrix
+     */
+    protected final int dimension;
+
+    /**
+     * Number of diagonals below main diagonal
+     */
+    protected final int lower;
+
+    /**
+     * Number of diagonals above main diagonal
+     */
+    protected final int upper;
+
+    /**
+     * Number of stored elements of every row
+     */
+    protected final int width;
+
+    /**
+     * Elements of band stored row by row
+     */
+    protected final double[] band;
+
+    /**
+     * Creates new band matrix. All elements of new matrix are 0.
+     * 
+     * @param dimension
+     *            dimension of matrix
+     * @param lower
+     *            number of diagonals below main diagonal
+     * @param upper
+     *            number of diagonals above main diagonal
+     */
+    public BandMatrix(int dimension, int lower, int upper) {
+
+	this( dimension, lower, upper, new double[dimension
+		* (lower + upper + 1)] );
+    }
+
+    /**
+     * Creates new band matrix from band stored row by row. Array is not
+     * copied.
+     * 
+     * @param dimension
+     *            dimension of matrix
+     * @param lower
+     *            number of diagonals below main diagonal
+     * @param upper
+     *            number of diagonals above main diagonal
+     * @param band
+     *            elements of band, element (i, j) at index
+     *            <code>i * (lower + upper + 1) + j - i + lower</code>
+     * @throws IllegalArgumentException
+     *             if bandwidths are negative or array has wrong size
+     */
+    public BandMatrix(int dimension, int lower, int upper, double[] band) {
+
+	if ( (dimension < 0) || (lower < 0) || (upper < 0)
+		|| (band.length != (dimension * (lower + upper + 1))) ) {
+	    throw new IllegalArgumentException( "wrong size of band" );
+	}
+
+	this.dimension = dimension;
+	this.lower = lower;
+	this.upper = upper;
+	this.band = band;
+	width = lower + upper + 1;
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows
+     */
+    @Override
+    public int getRowsCount() {
+
+	return dimension;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns
+     */
+    @Override
+    public int getColsCount() {
+
+	return dimension;
+    }
+
+    /**
+     * Lower bandwidth getter.
+     * 
+     * @return number of diagonals below main diagonal
+     */
+    public int getLowerBandwidth() {
+
+	return lower;
+    }
+
+    /**
+     * Upper bandwidth getter.
+     * 
+     * @return number of diagonals above main diagonal
+     */
+    public int getUpperBandwidth() {
+
+	return upper;
+    }
+
+    /**
+     * Checks if position is inside of band.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return true if element at position is stored
+     */
+    protected boolean inBand( int row, int col ) {
+
+	return (col >= (row - lower)) && (col <= (row + upper));
+    }
+
+    /**
+     * Calculates index of element inside of band in array.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return index of element in array
+     */
+    protected int index( int row, int col ) {
+
+	return (row * width) + (col - row) + lower;
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return element at specified row and column
+     */
+    @Override
+    public double get( int row, int col ) {
+
+	if ( (row >= dimension) || (col >= dimension) || (row < 0)
+		|| (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	return inBand( row, col ) ? band[index( row, col )] : 0.0;
+    }
+
+    /**
+     * Element setter. Elements outside of band can only be set to 0.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @param value
+     *            new value of element
+     * @return this matrix
+     * @throws UnmodifiableObjectException
+     *             if non-zero value is set outside of band
+     */
+    @Override
+    public IMatrix set( int row, int col, double value ) {
+
+	if ( (row >= dimension) || (col >= dimension) || (row < 0)
+		|| (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	if ( inBand( row, col ) ) {
+	    band[index( row, col )] = value;
+	} else if ( value != 0.0 ) {
+	    throw new UnmodifiableObjectException( "Element " + row + " "
+		    + col + " is outside of band" );
+	}
+
+	return this;
+    }
+
+    /**
+     * Adds provided matrix to this matrix. Provided matrix is checked before
+     * any element is changed, so this matrix is not changed if sum does not
+     * fit in band. Band, sparse, scaled identity and zero matrices are added
+     * in time proportional to their stored elements, and only band of dense
+     * matrix is added after its other elements are checked.
+     * 
+     * @param other
+     *            matrix to be added
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     * @throws UnmodifiableObjectException
+     *             if provided matrix has non-zero element outside of band
+     */
+    @Override
+    public IMatrix add( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add matrix with different size!" );
+	}
+
+	addToBand( other, 1.0 );
+
+	return this;
+    }
+
+    /**
+     * Subtracts provided matrix from this matrix. Provided matrix is checked
+     * before any element is changed, so this matrix is not changed if
+     * difference does not fit in band. Operands are handled as in
+     * {@link #add(IMatrix)}.
+     * 
+     * @param other
+     *            matrix to be subtracted
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     * @throws UnmodifiableObjectException
+     *             if provided matrix has non-zero element outside of band
+     */
+    @Override
+    public IMatrix sub( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot subtract matrix with different size!" );
+	}
+
+	addToBand( other, -1.0 );
+
+	return this;
+    }
+
+    /**
+     * Adds multiple of provided matrix to band. Structure of provided matrix
+     * is checked before band is changed.
+     * 
+     * @param other
+     *            matrix of same size
+     * @param factor
+     *            multiple of provided matrix
+     * @throws UnmodifiableObjectException
+     *             if provided matrix has non-zero element outside of band
+     */
+    private void addToBand( IMatrix other, double factor ) {
+
+	if ( other instanceof BandMatrix ) {
+	    addBand( (BandMatrix) other, factor );
+	} else if ( other instanceof SparseMatrix ) {
+	    addSparse( (SparseMatrix) other, factor );
+	} else if ( other instanceof ScaledIdentityMatrix ) {
+	    ((ScaledIdentityMatrix) other).addTo( this, factor );
+	} else if ( !(other instanceof ZeroMatrix) ) {
+	    addDense( other, factor );
+	}
+    }
+
+    /**
+     * Adds multiple of provided band matrix by merging bands row by row. Only
+     * diagonals of provided matrix outside of this band are checked.
+     * 
+     * @param other
+     *            band matrix of same size
+     * @param factor
+     *            multiple of provided matrix
+     * @throws UnmodifiableObjectException
+     *             if provided matrix has non-zero element outside of band
+     */
+    private void addBand( BandMatrix other, double factor ) {
+
+	if ( (other.lower > lower) || (other.upper > upper) ) {
+	    for ( int row = 0; row < dimension; row++ ) {
+		final int first = Math.max( 0, row - other.lower );
+		final int last = Math.min( dimension - 1, row + other.upper );
+
+		for ( int col = first; col <= last; col++ ) {
+		    if ( !inBand( row, col ) ) {
+			checkZero( row, col, other.band[other.index( row, col )] );
+		    }
+		}
+	    }
+	}
+
+	final int commonLower = Math.min( lower, other.lower );
+	final int commonUpper = Math.min( upper, other.upper );
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    final int first = Math.max( 0, row - commonLower );
+	    final int last = Math.min( dimension - 1, row + commonUpper );
+
+	    VectorKernels.axpy( factor, other.band, other.index( row, first ),
+		    band, index( row, first ), (last - first) + 1 );
+	}
+    }
+
+    /**
+     * Adds multiple of provided sparse matrix. Only stored elements of sparse
+     * matrix are read.
+     * 
+     * @param other
+     *            sparse matrix of same size
+     * @param factor
+     *            multiple of provided matrix
+     * @throws UnmodifiableObjectException
+     *             if provided matrix has non-zero element outside of band
+     */
+    private void addSparse( SparseMatrix other, double factor ) {
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    for ( int i = other.rowPointers[row]; i < other.rowPointers[row + 1]; i++ ) {
+		if ( !inBand( row, other.columnIndices[i] ) ) {
+		    checkZero( row, other.columnIndices[i], other.values[i] );
+		}
+	    }
+	}
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    for ( int i = other.rowPointers[row]; i < other.rowPointers[row + 1]; i++ ) {
+		final int col = other.columnIndices[i];
+
+		if ( inBand( row, col ) ) {
+		    band[index( row, col )] += factor * other.values[i];
+		}
+	    }
+	}
+    }
+
+    /**
+     * Adds multiple of provided matrix with unknown structure. Elements
+     * outside of band are checked, and only elements inside of band are
+     * added.
+     * 
+     * @param other
+     *            matrix of same size
+     * @param factor
+     *            multiple of provided matrix
+     * @throws UnmodifiableObjectException
+     *             if provided matrix has non-zero element outside of band
+     */
+    private void addDense( IMatrix other, double factor ) {
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    for ( int col = 0; col < dimension; col++ ) {
+		if ( !inBand( row, col ) ) {
+		    checkZero( row, col, other.get( row, col ) );
+		}
+	    }
+	}
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    final int first = Math.max( 0, row - lower );
+	    final int last = Math.min( dimension - 1, row + upper );
+
+	    for ( int col = first, index = index( row, first ); col <= last; col++, index++ ) {
+		band[index] += factor * other.get( row, col );
+	    }
+	}
+    }
+
+    /**
+     * Checks that element outside of band is 0.
+     * 
+     * @param row
+     *            row of element
+     * @param col
+     *            column of element
+     * @param value
+     *            value of element
+     * @throws UnmodifiableObjectException
+     *             if element is not 0
+     */
+    private static void checkZero( int row, int col, double value ) {
+
+	if ( value != 0.0 ) {
+	    throw new UnmodifiableObjectException( "Element " + row + " " + col
+		    + " is outside of band" );
+	}
+    }
+
+    /**
+     * Change this matrix to unit matrix. Only band is written.
+     * 
+     * @return this matrix
+     */
+    @Override
+    public IMatrix makeIdentity() {
+
+	Arrays.fill( band, 0.0 );
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    band[index( i, i )] = 1.0;
+	}
+
+	return this;
+    }
+
+    /**
+     * Creates new matrix of same type and with same bandwidths as this matrix.
+     * All elements of new matrix are 0.
+     * 
+     * @return new band matrix
+     */
+    BandMatrix newBand() {
+
+	return new BandMatrix( dimension, lower, upper );
+    }
+
+    /**
+     * Copies this matrix. Changes on copy does not take affect on this matrix.
+     * 
+     * @return new band matrix with same elements
+     */
+    @Override
+    public IMatrix copy() {
+
+	return new BandMatrix( dimension, lower, upper, band.clone() );
+    }
+
+    /**
+     * Returns new dense matrix created by {@link LinAlgDefaults}, because
+     * results of generic operations do not have to fit in band of this
+     * matrix.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     */
+    @Override
+    public IMatrix newInstance( int rows, int cols ) {
+
+	return LinAlgDefaults.defaultMatrix( rows, cols );
+    }
+
+    /**
+     * Creates transposed matrix. Transposed copy is band matrix with swapped
+     * bandwidths.
+     * 
+     * @param liveView
+     *            true if changes on transposed matrix should change this
+     *            matrix
+     * @return transposed matrix
+     */
+    @Override
+    public IMatrix nTranspose( boolean liveView ) {
+
+	if ( liveView ) {
+	    return super.nTranspose( true );
+	}
+
+	final BandMatrix transposed = new BandMatrix( dimension, upper, lower );
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    final int last = Math.min( dimension - 1, row + upper );
+
+	    for ( int col = Math.max( 0, row - lower ); col <= last; col++ ) {
+		transposed.band[transposed.index( col, row )] = band[index( row,
+			col )];
+	    }
+	}
+
+	return transposed;
+    }
+
+    /**
+     * Multiplies this matrix with provided matrix. Does not change this matrix.
+     * Product of two band matrices is band matrix whose bandwidths are sums of
+     * bandwidths of factors. Product with any other matrix is dense matrix
+     * whose every row is sum of at most <code>kl + ku + 1</code> rows of
+     * provided matrix.
+     * 
+     * @param other
+     *            matrix to be multiplied
+     * @return multiplied matrix
+     * @throws IncompatibleOperandException
+     *             if this matrix hasn't number of columns as provided matrix
+     *             rows
+     */
+    @Override
+    public IMatrix nMultiply( IMatrix other ) {
+
+	if ( dimension != other.getRowsCount() ) {
+	    throw new IncompatibleOperandException(
+		    "First matrix must have same number of columns as second matrix rows!" );
+	}
+
+	if ( other instanceof BandMatrix ) {
+	    return multiplyBand( (BandMatrix) other );
+	}
+
+	final int cols = other.getColsCount();
+	final double[] dense = FlatMatrix.valueOf( other ).elements;
+	final double[] product = new double[dimension * cols];
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    final int last = Math.min( dimension - 1, row + upper );
+
+	    for ( int k = Math.max( 0, row - lower ); k <= last; k++ ) {
+		final double value = band[index( row, k )];
+
+		for ( int col = 0; col < cols; col++ ) {
+		    product[(row * cols) + col] += value * dense[(k * cols) + col];
+		}
+	    }
+	}
+
+	return LinAlgDefaults.defaultMatrix( dimension, cols, product );
+    }
+
+    /**
+     * Multiplies this matrix with other band matrix.
+     * 
+     * @param other
+     *            band matrix with same dimension
+     * @return band product
+     */
+    private BandMatrix multiplyBand( BandMatrix other ) {
+
+	final int n = dimension;
+	final BandMatrix product = new BandMatrix( n, Math.min(
+		Math.max( n - 1, 0 ), lower + other.lower ), Math.min(
+		Math.max( n - 1, 0 ), upper + other.upper ) );
+
+	for ( int row = 0; row < n; row++ ) {
+	    final int last = Math.min( n - 1, row + upper );
+
+	    for ( int k = Math.max( 0, row - lower ); k <= last; k++ ) {
+		final double value = band[index( row, k )];
+		final int lastCol = Math.min( n - 1, k + other.upper );
+
+		for ( int col = Math.max( 0, k - other.lower ); col <= lastCol; col++ ) {
+		    product.band[product.index( row, col )] += value
+			    * other.band[other.index( k, col )];
+		}
+	    }
+	}
+
+	return product;
+    }
+
+    /**
+     * Multiplies this matrix with column vector. Only elements of band are
+     * read, so complexity of method is O(n * (kl + ku + 1)).
+     * 
+     * @param vector
+     *            vector with same dimension as this matrix
+     * @return new vector with product
+     * @throws IncompatibleOperandException
+     *             if vector has not same dimension as this matrix
+     */
+    public IVector nMultiply( IVector vector ) {
+
+	if ( vector.getDimension() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Vector must have same dimension as matrix" );
+	}
+
+	final double[] x = vector.toArray();
+	final double[] product = new double[dimension];
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    final int first = Math.max( 0, row - lower );
+	    final int last = Math.min( dimension - 1, row + upper );
+	    double sum = 0.0;
+
+	    for ( int col = first, index = index( row, first ); col <= last; col++, index++ ) {
+		sum += band[index] * x[col];
+	    }
+
+	    product[row] = sum;
+	}
+
+	return new Vector( false, true, product );
+    }
+
+    /**
+     * Multiplies all elements of band with scalar.
+     * 
+     * @param value
+     *            scalar with which this matrix is multiplied
+     * @return this matrix
+     */
+    @Override
+    public IMatrix scalarMultiply( double value ) {
+
+	for ( int i = 0; i < band.length; i++ ) {
+	    band[i] *= value;
+	}
+
+	return this;
+    }
+
+    /**
+     * Calculates determinant of matrix with banded LU decomposition in O(n *
+     * kl * (kl + ku)).
+     * 
+     * @return determinant of matrix
+     */
+    @Override
+    public double determinant() {
+
+	return new BandLUDecomposition( this ).determinant();
+    }
+
+    /**
+     * Inverts this matrix. Inverse of band matrix is generally dense matrix,
+     * which is calculated column by column from banded LU decomposition.
+     * 
+     * @return inverted matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is singular
+     */
+    @Override
+    public IMatrix nInvert() {
+
+	final BandLUDecomposition lu = new BandLUDecomposition( this );
+
+	if ( lu.isSingular() ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot inverse singular matrix" );
+	}
+
+	return lu.solve( newInstance( dimension, dimension ).makeIdentity() );
+    }
+
+    /**
+     * Solves system A * X = B with banded LU decomposition. Every column of B
+     * costs O(n * (2 * kl + ku + 1)).
+     * 
+     * @param b
+     *            right hand sides of system stored in columns
+     * @return solutions of system stored in columns
+     * @throws IncompatibleOperandException
+     *             if B has not same number of rows as this matrix, or if this
+     *             matrix is singular
+     */
+    @Override
+    public IMatrix solve( IMatrix b ) {
+
+	return new BandLUDecomposition( this ).solve( b );
+    }
+
+    /**
+     * Solves system A * x = b with banded LU decomposition.
+     * 
+     * @param b
+     *            right hand side of system
+     * @return solution of system
+     * @throws IncompatibleOperandException
+     *             if b has not same dimension as this matrix, or if this
+     *             matrix is singular
+     */
+    @Override
+    public IVector solve( IVector b ) {
+
+	return new BandLUDecomposition( this ).solve( b );
+    }
+}
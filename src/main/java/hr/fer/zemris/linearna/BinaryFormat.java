@@ -0,0 +1,794 @@
+package hr.fer.zemris.linearna;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary format of matrices and vectors. Elements are written without any
+ * conversion to text, so they are never rounded, and reading is limited only
+ * by speed of input. Same format is used by files of {@link MappedMatrix}.
+ * <p>
+ * Data starts with header of {@value #HEADER_SIZE} bytes, followed by elements
+ * stored as little endian doubles. All numbers in header are little endian:
+ * <ul>
+ * <li>bytes 0 - 3: magic number <code>LAMX</code></li>
+ * <li>bytes 4 - 7: version of format, currently {@value #VERSION}</li>
+ * <li>bytes 8 - 11: number of rows</li>
+ * <li>bytes 12 - 15: number of columns</li>
+ * <li>bytes 16 - 19: type of elements, {@value #FLOAT64} for doubles</li>
+ * <li>bytes 20 - 23: flags, {@value #COLUMN_MAJOR} if elements are stored
+ * column by column, {@value #VECTOR} if data is vector stored as column</li>
+ * <li>bytes 24 - 31: position of first element from start of header</li>
+ * </ul>
+ * Remaining bytes of header are 0. Readers read exactly one matrix or vector,
+ * so more of them can be written to same stream.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public final class BinaryFormat {
+
+    /**
+     * Magic number at the start of header, bytes <code>LAMX</code>
+     */
+    static final int MAGIC = 0x584D414C;
+
+    /**
+     * Version of format
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Size of header in bytes
+     */
+    static final int HEADER_SIZE = 64;
+
+    /**
+     * Type of elements for 8 byte floating point numbers
+     */
+    static final int FLOAT64 = 1;
+
+    /**
+     * Flag of data whose elements are stored column by column
+     */
+    static final int COLUMN_MAJOR = 1;
+
+    /**
+     * Flag of vectors
+     */
+    static final int VECTOR = 2;
+
+    /**
+     * Size of buffer used for conversion of elements
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Decoded header.
+     */
+    static final class Header {
+
+	/**
+	 * Number of rows
+	 */
+	final int rows;
+
+	/**
+	 * Number of columns
+	 */
+	final int cols;
+
+	/**
+	 * Type of elements
+	 */
+	final int type;
+
+	/**
+	 * Flags of data
+	 */
+	final int flags;
+
+	/**
+	 * Position of first element from start of header
+	 */
+	final long dataOffset;
+
+	/**
+	 * Creates new header.
+	 * 
+	 * @param rows
+	 *            number of rows
+	 * @param cols
+	 *            number of columns
+	 * @param type
+	 *            type of elements
+	 * @param flags
+	 *            flags of data
+	 * @param dataOffset
+	 *            position of first element from start of header
+	 */
+	Header(int rows, int cols, int type, int flags, long dataOffset) {
+
+	    this.rows = rows;
+	    this.cols = cols;
+	    this.type = type;
+	    this.flags = flags;
+	    this.dataOffset = dataOffset;
+	}
+
+	/**
+	 * Checks if elements are stored column by column.
+	 * 
+	 * @return true if flag {@link BinaryFormat#COLUMN_MAJOR} is set
+	 */
+	boolean isColumnMajor() {
+
+	    return (flags & COLUMN_MAJOR) != 0;
+	}
+
+	/**
+	 * Encodes this header.
+	 * 
+	 * @return buffer with {@link BinaryFormat#HEADER_SIZE} bytes, ready to
+	 *         be written
+	 */
+	ByteBuffer encode() {
+
+	    final ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE ).order(
+		    ByteOrder.LITTLE_ENDIAN );
+
+	    header.putInt( MAGIC ).putInt( VERSION ).putInt( rows )
+		    .putInt( cols ).putInt( type ).putInt( flags )
+		    .putLong( dataOffset );
+	    header.clear();
+
+	    return header;
+	}
+
+	/**
+	 * Decodes header.
+	 * 
+	 * @param header
+	 *            buffer with {@link BinaryFormat#HEADER_SIZE} bytes of
+	 *            header
+	 * @return decoded header
+	 * @throws IOException
+	 *             if header is not valid header of supported version
+	 */
+	static Header decode( ByteBuffer header ) throws IOException {
+
+	    header.order( ByteOrder.LITTLE_ENDIAN );
+
+	    if ( header.getInt() != MAGIC ) {
+		throw new IOException( "Not a matrix data" );
+	    }
+
+	    final int version = header.getInt();
+	    if ( version != VERSION ) {
+		throw new IOException( "Unsupported version of matrix data: "
+			+ version );
+	    }
+
+	    final Header decoded = new Header( header.getInt(),
+		    header.getInt(), header.getInt(), header.getInt(),
+		    header.getLong() );
+
+	    if ( (decoded.rows < 0) || (decoded.cols < 0)
+		    || (decoded.dataOffset < HEADER_SIZE)
+		    || ((decoded.dataOffset % Double.BYTES) != 0) ) {
+		throw new IOException( "Corrupted matrix header" );
+	    }
+
+	    if ( decoded.type != FLOAT64 ) {
+		throw new IOException( "Unsupported type of elements: "
+			+ decoded.type );
+	    }
+
+	    return decoded;
+	}
+    }
+
+    /**
+     * Destination of written bytes.
+     */
+    private abstract static class Output {
+
+	/**
+	 * Buffer for conversion of elements
+	 */
+	final ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE ).order(
+		ByteOrder.LITTLE_ENDIAN );
+
+	/**
+	 * Writes bytes from buffer between 0 and its position, and clears
+	 * buffer.
+	 * 
+	 * @throws IOException
+	 *             if bytes cannot be written
+	 */
+	abstract void flush() throws IOException;
+
+	/**
+	 * Writes header.
+	 * 
+	 * @param header
+	 *            header to be written
+	 * @throws IOException
+	 *             if header cannot be written
+	 */
+	void writeHeader( Header header ) throws IOException {
+
+	    buffer.put( header.encode() );
+	}
+
+	/**
+	 * Writes elements from array.
+	 * 
+	 * @param elements
+	 *            array with elements
+	 * @param offset
+	 *            index of first element
+	 * @param length
+	 *            number of elements
+	 * @throws IOException
+	 *             if elements cannot be written
+	 */
+	void writeDoubles( double[] elements, int offset, int length )
+		throws IOException {
+
+	    while ( length > 0 ) {
+		final int count = Math.min( length, buffer.remaining()
+			/ Double.BYTES );
+
+		buffer.asDoubleBuffer().put( elements, offset, count );
+		buffer.position( buffer.position() + (count * Double.BYTES) );
+
+		offset += count;
+		length -= count;
+
+		if ( buffer.remaining() < Double.BYTES ) {
+		    flush();
+		}
+	    }
+	}
+    }
+
+    /**
+     * Source of read bytes. Source never reads more bytes than requested.
+     */
+    private abstract static class Input {
+
+	/**
+	 * Buffer for conversion of elements
+	 */
+	final ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE ).order(
+		ByteOrder.LITTLE_ENDIAN );
+
+	/**
+	 * Fills buffer between its position and limit.
+	 * 
+	 * @throws IOException
+	 *             if bytes cannot be read or input ends
+	 */
+	abstract void fill() throws IOException;
+
+	/**
+	 * Reads header.
+	 * 
+	 * @return decoded header
+	 * @throws IOException
+	 *             if header cannot be read or is not valid
+	 */
+	Header readHeader() throws IOException {
+
+	    buffer.clear();
+	    buffer.limit( HEADER_SIZE );
+	    fill();
+	    buffer.flip();
+
+	    final Header header = Header.decode( buffer );
+	    long skip = header.dataOffset - HEADER_SIZE;
+
+	    while ( skip > 0 ) {
+		buffer.clear();
+		buffer.limit( (int) Math.min( skip, BUFFER_SIZE ) );
+		fill();
+		skip -= buffer.limit();
+	    }
+
+	    return header;
+	}
+
+	/**
+	 * Reads elements to array.
+	 * 
+	 * @param elements
+	 *            array for elements
+	 * @param offset
+	 *            index of first element
+	 * @param length
+	 *            number of elements
+	 * @throws IOException
+	 *             if elements cannot be read or input ends
+	 */
+	void readDoubles( double[] elements, int offset, int length )
+		throws IOException {
+
+	    while ( length > 0 ) {
+		final int count = Math.min( length, BUFFER_SIZE / Double.BYTES );
+
+		buffer.clear();
+		buffer.limit( count * Double.BYTES );
+		fill();
+		buffer.flip();
+		buffer.asDoubleBuffer().get( elements, offset, count );
+
+		offset += count;
+		length -= count;
+	    }
+	}
+    }
+
+    /**
+     * Output to stream.
+     */
+    private static final class StreamOutput extends Output {
+
+	/**
+	 * Stream to which bytes are written
+	 */
+	private final OutputStream stream;
+
+	/**
+	 * Creates new output.
+	 * 
+	 * @param stream
+	 *            stream to which bytes are written
+	 */
+	StreamOutput(OutputStream stream) {
+
+	    this.stream = stream;
+	}
+
+	/**
+	 * Writes bytes from buffer to stream.
+	 * 
+	 * @throws IOException
+	 *             if bytes cannot be written
+	 */
+	@Override
+	void flush() throws IOException {
+
+	    stream.write( buffer.array(), 0, buffer.position() );
+	    buffer.clear();
+	}
+    }
+
+    /**
+     * Output to channel.
+     */
+    private static final class ChannelOutput extends Output {
+
+	/**
+	 * Channel to which bytes are written
+	 */
+	private final WritableByteChannel channel;
+
+	/**
+	 * Creates new output.
+	 * 
+	 * @param channel
+	 *            channel to which bytes are written
+	 */
+	ChannelOutput(WritableByteChannel channel) {
+
+	    this.channel = channel;
+	}
+
+	/**
+	 * Writes bytes from buffer to channel.
+	 * 
+	 * @throws IOException
+	 *             if bytes cannot be written
+	 */
+	@Override
+	void flush() throws IOException {
+
+	    buffer.flip();
+
+	    while ( buffer.hasRemaining() ) {
+		channel.write( buffer );
+	    }
+
+	    buffer.clear();
+	}
+    }
+
+    /**
+     * Input from stream.
+     */
+    private static final class StreamInput extends Input {
+
+	/**
+	 * Stream from which bytes are read
+	 */
+	private final InputStream stream;
+
+	/**
+	 * Creates new input.
+	 * 
+	 * @param stream
+	 *            stream from which bytes are read
+	 */
+	StreamInput(InputStream stream) {
+
+	    this.stream = stream;
+	}
+
+	/**
+	 * Reads bytes from stream to buffer.
+	 * 
+	 * @throws IOException
+	 *             if bytes cannot be read or stream ends
+	 */
+	@Override
+	void fill() throws IOException {
+
+	    while ( buffer.hasRemaining() ) {
+		final int read = stream.read( buffer.array(), buffer.position(),
+			buffer.remaining() );
+
+		if ( read < 0 ) {
+		    throw new EOFException( "Unexpected end of matrix data" );
+		}
+
+		buffer.position( buffer.position() + read );
+	    }
+	}
+    }
+
+    /**
+     * Input from channel.
+     */
+    private static final class ChannelInput extends Input {
+
+	/**
+	 * Channel from which bytes are read
+	 */
+	private final ReadableByteChannel channel;
+
+	/**
+	 * Creates new input.
+	 * 
+	 * @param channel
+	 *            channel from which bytes are read
+	 */
+	ChannelInput(ReadableByteChannel channel) {
+
+	    this.channel = channel;
+	}
+
+	/**
+	 * Reads bytes from channel to buffer.
+	 * 
+	 * @throws IOException
+	 *             if bytes cannot be read or channel ends
+	 */
+	@Override
+	void fill() throws IOException {
+
+	    while ( buffer.hasRemaining() ) {
+		if ( channel.read( buffer ) < 0 ) {
+		    throw new EOFException( "Unexpected end of matrix data" );
+		}
+	    }
+	}
+    }
+
+    /**
+     * Class has only static methods.
+     */
+    private BinaryFormat() {
+
+    }
+
+    /**
+     * Writes matrix to stream. Stream is not closed.
+     * 
+     * @param matrix
+     *            matrix to be written
+     * @param stream
+     *            stream to which matrix is written
+     * @throws IOException
+     *             if matrix cannot be written
+     */
+    public static void writeMatrix( IMatrix matrix, OutputStream stream )
+	    throws IOException {
+
+	writeMatrix( matrix, new StreamOutput( stream ) );
+    }
+
+    /**
+     * Writes matrix to channel at its current position. Channel is not
+     * closed.
+     * 
+     * @param matrix
+     *            matrix to be written
+     * @param channel
+     *            channel to which matrix is written
+     * @throws IOException
+     *             if matrix cannot be written
+     */
+    public static void writeMatrix( IMatrix matrix, WritableByteChannel channel )
+	    throws IOException {
+
+	writeMatrix( matrix, new ChannelOutput( channel ) );
+    }
+
+    /**
+     * Writes matrix to file. Existing file is overwritten.
+     * 
+     * @param matrix
+     *            matrix to be written
+     * @param path
+     *            path of file
+     * @throws IOException
+     *             if matrix cannot be written
+     */
+    public static void writeMatrix( IMatrix matrix, Path path )
+	    throws IOException {
+
+	try (FileChannel channel = FileChannel.open( path,
+		StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+		StandardOpenOption.WRITE )) {
+	    writeMatrix( matrix, channel );
+	}
+    }
+
+    /**
+     * Writes vector to stream. Stream is not closed.
+     * 
+     * @param vector
+     *            vector to be written
+     * @param stream
+     *            stream to which vector is written
+     * @throws IOException
+     *             if vector cannot be written
+     */
+    public static void writeVector( IVector vector, OutputStream stream )
+	    throws IOException {
+
+	writeVector( vector, new StreamOutput( stream ) );
+    }
+
+    /**
+     * Writes vector to channel at its current position. Channel is not
+     * closed.
+     * 
+     * @param vector
+     *            vector to be written
+     * @param channel
+     *            channel to which vector is written
+     * @throws IOException
+     *             if vector cannot be written
+     */
+    public static void writeVector( IVector vector, WritableByteChannel channel )
+	    throws IOException {
+
+	writeVector( vector, new ChannelOutput( channel ) );
+    }
+
+    /**
+     * Reads matrix from stream. Exactly one matrix is read, stream is not
+     * closed.
+     * 
+     * @param stream
+     *            stream from which matrix is read
+     * @return new matrix
+     * @throws IOException
+     *             if matrix cannot be read or data is not valid
+     */
+    public static FlatMatrix readMatrix( InputStream stream ) throws IOException {
+
+	return readMatrix( new StreamInput( stream ) );
+    }
+
+    /**
+     * Reads matrix from channel at its current position. Exactly one matrix
+     * is read, channel is not closed.
+     * 
+     * @param channel
+     *            channel from which matrix is read
+     * @return new matrix
+     * @throws IOException
+     *             if matrix cannot be read or data is not valid
+     */
+    public static FlatMatrix readMatrix( ReadableByteChannel channel )
+	    throws IOException {
+
+	return readMatrix( new ChannelInput( channel ) );
+    }
+
+    /**
+     * Reads matrix from file.
+     * 
+     * @param path
+     *            path of file
+     * @return new matrix
+     * @throws IOException
+     *             if matrix cannot be read or file is not valid
+     */
+    public static FlatMatrix readMatrix( Path path ) throws IOException {
+
+	try (FileChannel channel = FileChannel.open( path,
+		StandardOpenOption.READ )) {
+	    return readMatrix( channel );
+	}
+    }
+
+    /**
+     * Reads vector from stream. Exactly one vector is read, stream is not
+     * closed. Matrix with one column is also read as vector.
+     * 
+     * @param stream
+     *            stream from which vector is read
+     * @return new vector
+     * @throws IOException
+     *             if vector cannot be read or data is not valid
+     */
+    public static Vector readVector( InputStream stream ) throws IOException {
+
+	return readVector( new StreamInput( stream ) );
+    }
+
+    /**
+     * Reads vector from channel at its current position. Exactly one vector
+     * is read, channel is not closed. Matrix with one column is also read as
+     * vector.
+     * 
+     * @param channel
+     *            channel from which vector is read
+     * @return new vector
+     * @throws IOException
+     *             if vector cannot be read or data is not valid
+     */
+    public static Vector readVector( ReadableByteChannel channel )
+	    throws IOException {
+
+	return readVector( new ChannelInput( channel ) );
+    }
+
+    /**
+     * Writes matrix row by row.
+     * 
+     * @param matrix
+     *            matrix to be written
+     * @param output
+     *            destination of bytes
+     * @throws IOException
+     *             if matrix cannot be written
+     */
+    private static void writeMatrix( IMatrix matrix, Output output )
+	    throws IOException {
+
+	final int rows = matrix.getRowsCount();
+	final int cols = matrix.getColsCount();
+
+	output.writeHeader( new Header( rows, cols, FLOAT64, 0, HEADER_SIZE ) );
+
+	if ( (matrix instanceof ArrayBackedMatrix)
+		&& (((ArrayBackedMatrix) matrix).colStride() == 1) ) {
+	    final ArrayBackedMatrix source = (ArrayBackedMatrix) matrix;
+
+	    for ( int row = 0; row < rows; row++ ) {
+		output.writeDoubles( source.rowArray( row ),
+			source.rowOffset( row ), cols );
+	    }
+	} else {
+	    final double[] elements = new double[cols];
+
+	    for ( int row = 0; row < rows; row++ ) {
+		for ( int col = 0; col < cols; col++ ) {
+		    elements[col] = matrix.get( row, col );
+		}
+
+		output.writeDoubles( elements, 0, cols );
+	    }
+	}
+
+	output.flush();
+    }
+
+    /**
+     * Writes vector as matrix with one column.
+     * 
+     * @param vector
+     *            vector to be written
+     * @param output
+     *            destination of bytes
+     * @throws IOException
+     *             if vector cannot be written
+     */
+    private static void writeVector( IVector vector, Output output )
+	    throws IOException {
+
+	final double[] elements = vector.toArray();
+
+	output.writeHeader( new Header( elements.length, 1, FLOAT64, VECTOR,
+		HEADER_SIZE ) );
+	output.writeDoubles( elements, 0, elements.length );
+	output.flush();
+    }
+
+    /**
+     * Reads matrix to array stored row by row.
+     * 
+     * @param input
+     *            source of bytes
+     * @return new matrix
+     * @throws IOException
+     *             if matrix cannot be read or data is not valid
+     */
+    private static FlatMatrix readMatrix( Input input ) throws IOException {
+
+	final Header header = input.readHeader();
+	final int rows = header.rows;
+	final int cols = header.cols;
+
+	if ( ((long) rows * cols) > Integer.MAX_VALUE ) {
+	    throw new IOException( "Matrix is too large for array: " + rows
+		    + " x " + cols );
+	}
+
+	final double[] elements = new double[rows * cols];
+
+	if ( !header.isColumnMajor() ) {
+	    input.readDoubles( elements, 0, elements.length );
+	} else {
+	    final double[] column = new double[rows];
+
+	    for ( int col = 0; col < cols; col++ ) {
+		input.readDoubles( column, 0, rows );
+
+		for ( int row = 0, index = col; row < rows; row++, index += cols ) {
+		    elements[index] = column[row];
+		}
+	    }
+	}
+
+	return new FlatMatrix( rows, cols, elements, true );
+    }
+
+    /**
+     * Reads vector stored as matrix with one column or one row.
+     * 
+     * @param input
+     *            source of bytes
+     * @return new vector
+     * @throws IOException
+     *             if vector cannot be read or data is not valid
+     */
+    private static Vector readVector( Input input ) throws IOException {
+
+	final Header header = input.readHeader();
+
+	if ( (header.cols != 1) && (header.rows != 1) ) {
+	    throw new IOException( "Data is not a vector: " + header.rows
+		    + " x " + header.cols );
+	}
+
+	final double[] elements = new double[header.rows * header.cols];
+	input.readDoubles( elements, 0, elements.length );
+
+	return new Vector( false, true, elements );
+    }
+}
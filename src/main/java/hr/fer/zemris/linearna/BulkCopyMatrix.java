@@ -0,0 +1,23 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Matrix whose elements can be copied to heap array in one bulk operation,
+ * faster than by calling {@link IMatrix#get(int, int)} for every element.
+ * Implemented by matrices stored outside of Java heap, in other precision or
+ * in compressed form, so algorithms that need elements in array can read them
+ * without knowing how matrix is stored.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+interface BulkCopyMatrix extends IMatrix {
+
+    /**
+     * Copies elements of this matrix to provided array. Previous elements of
+     * array are overwritten.
+     * 
+     * @param target
+     *            array with space for all elements stored row by row
+     */
+    void copyTo( double[] target );
+}
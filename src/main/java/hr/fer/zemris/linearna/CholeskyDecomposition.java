@@ -0,0 +1,447 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Cholesky decomposition of symmetric positive definite matrix. Matrix is
+ * factored once to A = L * L^T, where L is lower triangular matrix with
+ * positive diagonal. Only lower triangle of decomposed matrix is read, so
+ * symmetry of matrix is not checked.
+ *
+ * Factorization is done by blocks of columns. Rows of factor already
+ * calculated for one block stay in cache while all rows below are updated, and
+ * every update is scalar product of two rows which are read sequentially.
+ * Decomposition needs half of operations of LU decomposition and no pivoting.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class CholeskyDecomposition {
+
+    /**
+     * Number of columns factored in one block
+     */
+    private static final int BLOCK = 64;
+
+    /**
+     * Number of already factored columns used in one pass of block update
+     */
+    private static final int DEPTH = 256;
+
+    /**
+     * Factor L stored row by row in lower triangle of array
+     */
+    private final double[] l;
+
+    /**
+     * Index of element (0, 0) of factor in array
+     */
+    private final int offset;
+
+    /**
+     * Distance between first elements of two neighbouring rows in array
+     */
+    private final int stride;
+
+    /**
+     * Dimension of decomposed matrix
+     */
+    private final int dimension;
+
+    /**
+     * True if decomposed matrix is positive definite
+     */
+    private final boolean positiveDefinite;
+
+    /**
+     * Decomposes provided matrix. Provided matrix is not changed.
+     * 
+     * @param matrix
+     *            matrix to be decomposed
+     * @throws IncompatibleOperandException
+     *             if matrix is not square matrix
+     */
+    public CholeskyDecomposition(IMatrix matrix) {
+
+	this( LUDecomposition.elementsOfSquare( matrix ), matrix.getRowsCount() );
+    }
+
+    /**
+     * Decomposes provided matrix. If decomposition is done in place, lower
+     * triangle of matrix is replaced with factor L and its upper triangle is
+     * not changed. If matrix is not positive definite, its lower triangle is
+     * left partially factored.
+     * 
+     * @param matrix
+     *            matrix to be decomposed
+     * @param inPlace
+     *            true if elements of matrix should be used as storage of
+     *            factor, false if matrix should be copied
+     * @throws IncompatibleOperandException
+     *             if matrix is not square matrix
+     */
+    public CholeskyDecomposition(FlatMatrix matrix, boolean inPlace) {
+
+	if ( matrix.getRowsCount() != matrix.getColsCount() ) {
+	    throw new IncompatibleOperandException( "Matrix has to be square" );
+	}
+
+	dimension = matrix.getRowsCount();
+
+	if ( inPlace ) {
+	    l = matrix.elements;
+	    offset = matrix.offset;
+	    stride = matrix.stride;
+	} else {
+	    l = matrix.toFlatArray();
+	    offset = 0;
+	    stride = dimension;
+	}
+
+	positiveDefinite = decompose();
+    }
+
+    /**
+     * Decomposes matrix stored row by row in provided array. Lower triangle of
+     * array is replaced with factor, upper triangle is not changed.
+     * 
+     * @param elements
+     *            elements of matrix stored row by row
+     * @param dimension
+     *            dimension of matrix
+     */
+    CholeskyDecomposition(double[] elements, int dimension) {
+
+	this.dimension = dimension;
+	l = elements;
+	offset = 0;
+	stride = dimension;
+	positiveDefinite = decompose();
+    }
+
+    /**
+     * Factors lower triangle of {@link #l} in place, one block of columns at
+     * a time. Positive diagonal is checked before factorization starts, and
+     * factorization stops on first pivot which is not positive.
+     * 
+     * @return true if matrix is positive definite
+     */
+    private boolean decompose() {
+
+	final int n = dimension;
+
+	for ( int i = 0; i < n; i++ ) {
+	    if ( !(l[offset + (i * stride) + i] > 0.0) ) {
+		return false;
+	    }
+	}
+
+	for ( int k0 = 0; k0 < n; k0 += BLOCK ) {
+	    final int k1 = Math.min( k0 + BLOCK, n );
+
+	    updateBlock( k0, k1 );
+
+	    if ( !factorDiagonalBlock( k0, k1 ) ) {
+		return false;
+	    }
+
+	    solveBelowDiagonalBlock( k0, k1 );
+	}
+
+	return true;
+    }
+
+    /**
+     * Subtracts contribution of all previously factored columns from columns
+     * in interval [k0, k1) on and below diagonal.
+     * 
+     * @param k0
+     *            first column of block
+     * @param k1
+     *            column after last column of block
+     */
+    private void updateBlock( int k0, int k1 ) {
+
+	final int n = dimension;
+
+	for ( int p0 = 0; p0 < k0; p0 += DEPTH ) {
+	    final int p1 = Math.min( p0 + DEPTH, k0 );
+
+	    for ( int i = k0; i < n; i++ ) {
+		final int rowI = offset + (i * stride);
+		final int last = Math.min( i + 1, k1 );
+
+		for ( int j = k0; j < last; j++ ) {
+		    final int rowJ = offset + (j * stride);
+		    l[rowI + j] -= dot( rowI, rowJ, p0, p1 );
+		}
+	    }
+	}
+    }
+
+    /**
+     * Factors diagonal block of columns in interval [k0, k1). Contribution of
+     * columns before k0 has to be already subtracted.
+     * 
+     * @param k0
+     *            first column of block
+     * @param k1
+     *            column after last column of block
+     * @return false if pivot which is not positive is found
+     */
+    private boolean factorDiagonalBlock( int k0, int k1 ) {
+
+	for ( int i = k0; i < k1; i++ ) {
+	    final int rowI = offset + (i * stride);
+
+	    for ( int j = k0; j <= i; j++ ) {
+		final int rowJ = offset + (j * stride);
+		final double sum = l[rowI + j] - dot( rowI, rowJ, k0, j );
+
+		if ( i == j ) {
+		    if ( !(sum > 0.0) ) {
+			return false;
+		    }
+
+		    l[rowI + i] = Math.sqrt( sum );
+		} else {
+		    l[rowI + j] = sum / l[rowJ + j];
+		}
+	    }
+	}
+
+	return true;
+    }
+
+    /**
+     * Calculates columns in interval [k0, k1) of all rows below diagonal
+     * block, using already factored diagonal block.
+     * 
+     * @param k0
+     *            first column of block
+     * @param k1
+     *            column after last column of block
+     */
+    private void solveBelowDiagonalBlock( int k0, int k1 ) {
+
+	for ( int i = k1; i < dimension; i++ ) {
+	    final int rowI = offset + (i * stride);
+
+	    for ( int j = k0; j < k1; j++ ) {
+		final int rowJ = offset + (j * stride);
+		l[rowI + j] = (l[rowI + j] - dot( rowI, rowJ, k0, j ))
+			/ l[rowJ + j];
+	    }
+	}
+    }
+
+    /**
+     * Calculates scalar product of parts of two rows of factor.
+     * 
+     * @param rowI
+     *            index of first element of first row
+     * @param rowJ
+     *            index of first element of second row
+     * @param from
+     *            first column of product
+     * @param to
+     *            column after last column of product
+     * @return scalar product
+     */
+    private double dot( int rowI, int rowJ, int from, int to ) {
+
+	double sum0 = 0.0;
+	double sum1 = 0.0;
+	int k = from;
+
+	for ( ; k < (to - 1); k += 2 ) {
+	    sum0 += l[rowI + k] * l[rowJ + k];
+	    sum1 += l[rowI + k + 1] * l[rowJ + k + 1];
+	}
+
+	if ( k < to ) {
+	    sum0 += l[rowI + k] * l[rowJ + k];
+	}
+
+	return sum0 + sum1;
+    }
+
+    /**
+     * Dimension getter.
+     * 
+     * @return dimension of decomposed matrix
+     */
+    public int getDimension() {
+
+	return dimension;
+    }
+
+    /**
+     * Checks if decomposed matrix is positive definite. Other queries are
+     * possible only for positive definite matrices.
+     * 
+     * @return true if and only if decomposition succeeded
+     */
+    public boolean isPositiveDefinite() {
+
+	return positiveDefinite;
+    }
+
+    /**
+     * Creates lower triangular factor L.
+     * 
+     * @return new triangular matrix with factor L
+     * @throws IncompatibleOperandException
+     *             if matrix is not positive definite
+     */
+    public TriangularMatrix getL() {
+
+	checkPositiveDefinite();
+
+	return TriangularMatrix.valueOf( l, offset, stride, dimension, false,
+		false );
+    }
+
+    /**
+     * Calculates determinant of decomposed matrix.
+     * 
+     * @return determinant of decomposed matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is not positive definite
+     */
+    public double determinant() {
+
+	checkPositiveDefinite();
+
+	double determinant = 1.0;
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    final double diagonal = l[offset + (i * stride) + i];
+	    determinant *= diagonal * diagonal;
+	}
+
+	return determinant;
+    }
+
+    /**
+     * Calculates natural logarithm of determinant of decomposed matrix. Unlike
+     * {@link #determinant()}, result does not overflow or underflow for large
+     * matrices.
+     * 
+     * @return logarithm of determinant of decomposed matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is not positive definite
+     */
+    public double logDeterminant() {
+
+	checkPositiveDefinite();
+
+	double sum = 0.0;
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    sum += Math.log( l[offset + (i * stride) + i] );
+	}
+
+	return 2.0 * sum;
+    }
+
+    /**
+     * Solves system A * x = b, where A is decomposed matrix.
+     * 
+     * @param b
+     *            right hand side of system
+     * @return solution of system
+     * @throws IncompatibleOperandException
+     *             if dimension of vector is not same as dimension of matrix,
+     *             or if matrix is not positive definite
+     */
+    public IVector solve( IVector b ) {
+
+	if ( b.getDimension() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Vector must have same dimension as matrix" );
+	}
+
+	final double[] x = b.toArray();
+	solveInPlace( x, 1 );
+
+	return new Vector( false, true, x );
+    }
+
+    /**
+     * Solves system A * X = B for all columns of B in one pass, where A is
+     * decomposed matrix.
+     * 
+     * @param b
+     *            right hand sides of system stored in columns
+     * @return solutions of system stored in columns
+     * @throws IncompatibleOperandException
+     *             if matrix B has not same number of rows as decomposed
+     *             matrix, or if matrix is not positive definite
+     */
+    public IMatrix solve( IMatrix b ) {
+
+	if ( b.getRowsCount() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Matrix must have same number of rows as decomposed matrix" );
+	}
+
+	final int cols = b.getColsCount();
+	final double[] x = FlatMatrix.valueOf( b ).elements;
+
+	solveInPlace( x, cols );
+
+	return LinAlgDefaults.defaultMatrix( dimension, cols, x );
+    }
+
+    /**
+     * Calculates inverse of decomposed matrix by solving system A * X = I.
+     * 
+     * @return inverse of decomposed matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is not positive definite
+     */
+    public IMatrix inverse() {
+
+	final double[] x = new double[dimension * dimension];
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    x[(i * dimension) + i] = 1.0;
+	}
+
+	solveInPlace( x, dimension );
+
+	return LinAlgDefaults.defaultMatrix( dimension, dimension, x );
+    }
+
+    /**
+     * Solves system L * L^T * X = B in place.
+     * 
+     * @param x
+     *            right hand sides stored row by row, replaced with solutions
+     * @param cols
+     *            number of right hand sides
+     * @throws IncompatibleOperandException
+     *             if matrix is not positive definite
+     */
+    void solveInPlace( double[] x, int cols ) {
+
+	checkPositiveDefinite();
+
+	Substitution.solveLower( l, offset, stride, dimension, false, x, cols );
+	Substitution.solveLowerTransposed( l, offset, stride, dimension, x,
+		cols );
+    }
+
+    /**
+     * Checks if decomposed matrix is positive definite.
+     * 
+     * @throws IncompatibleOperandException
+     *             if matrix is not positive definite
+     */
+    private void checkPositiveDefinite() {
+
+	if ( !positiveDefinite ) {
+	    throw new IncompatibleOperandException(
+		    "Matrix is not positive definite" );
+	}
+    }
+}
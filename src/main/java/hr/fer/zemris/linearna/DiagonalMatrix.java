@@ -0,0 +1,337 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Diagonal matrix, band matrix without diagonals outside of main diagonal.
+ * Only n elements of diagonal are stored. Products with other matrices scale
+ * their rows or columns in O(n^2), and determinant, inverse and solutions of
+ * systems are calculated in O(n).
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class DiagonalMatrix extends BandMatrix {
+
+    /**
+     * Creates new diagonal matrix. All elements of new matrix are 0.
+     * 
+     * @param dimension
+     *            dimension of matrix
+     */
+    public DiagonalMatrix(int dimension) {
+
+	super( dimension, 0, 0 );
+    }
+
+    /**
+     * Creates new diagonal matrix with provided elements on diagonal.
+     * 
+     * @param diagonal
+     *            elements of diagonal
+     */
+    public DiagonalMatrix(double ... diagonal) {
+
+	super( diagonal.length, 0, 0, diagonal.clone() );
+    }
+
+    /**
+     * Creates new diagonal matrix. All elements of new matrix are 0.
+     * 
+     * @return new diagonal matrix
+     */
+    @Override
+    BandMatrix newBand() {
+
+	return new DiagonalMatrix( dimension );
+    }
+
+    /**
+     * Copies this matrix. Changes on copy does not take affect on this matrix.
+     * 
+     * @return new diagonal matrix with same elements
+     */
+    @Override
+    public IMatrix copy() {
+
+	return new DiagonalMatrix( band );
+    }
+
+    /**
+     * Creates transposed matrix, which is same as this matrix.
+     * 
+     * @param liveView
+     *            true if changes on transposed matrix should change this
+     *            matrix
+     * @return this matrix if live view is requested, copy otherwise
+     */
+    @Override
+    public IMatrix nTranspose( boolean liveView ) {
+
+	return liveView ? this : copy();
+    }
+
+    /**
+     * Adds provided matrix to this matrix. Diagonal of other diagonal matrix
+     * is added in O(n), other matrices are added as to band matrix.
+     * 
+     * @param other
+     *            matrix to be added
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     * @throws UnmodifiableObjectException
+     *             if provided matrix has non-zero element outside of diagonal
+     */
+    @Override
+    public IMatrix add( IMatrix other ) {
+
+	if ( !(other instanceof DiagonalMatrix) ) {
+	    return super.add( other );
+	}
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add matrix with different size!" );
+	}
+
+	VectorKernels.axpy( 1.0, ((DiagonalMatrix) other).band, 0, band, 0,
+		dimension );
+
+	return this;
+    }
+
+    /**
+     * Subtracts provided matrix from this matrix. Diagonal of other diagonal
+     * matrix is subtracted in O(n), other matrices are subtracted as from band
+     * matrix.
+     * 
+     * @param other
+     *            matrix to be subtracted
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     * @throws UnmodifiableObjectException
+     *             if provided matrix has non-zero element outside of diagonal
+     */
+    @Override
+    public IMatrix sub( IMatrix other ) {
+
+	if ( !(other instanceof DiagonalMatrix) ) {
+	    return super.sub( other );
+	}
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot subtract matrix with different size!" );
+	}
+
+	VectorKernels.axpy( -1.0, ((DiagonalMatrix) other).band, 0, band, 0,
+		dimension );
+
+	return this;
+    }
+
+    /**
+     * Adds provided matrix to this matrix. Does not change this matrix. Sum
+     * with band, scaled identity or zero matrix is band matrix of same
+     * structure as wider operand, sum with other matrices is dense matrix.
+     * 
+     * @param other
+     *            matrix to be added
+     * @return new matrix with sum
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     */
+    @Override
+    public IMatrix nAdd( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add matrix with different size!" );
+	}
+
+	return newSum( other ).add( other );
+    }
+
+    /**
+     * Subtracts provided matrix from this matrix. Does not change this
+     * matrix. Difference has same structure as sum in {@link #nAdd(IMatrix)}.
+     * 
+     * @param other
+     *            matrix to be subtracted
+     * @return new matrix with difference
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     */
+    @Override
+    public IMatrix nSub( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot subtract matrix with different size!" );
+	}
+
+	return newSum( other ).sub( other );
+    }
+
+    /**
+     * Creates matrix to which provided matrix is added, with copy of this
+     * matrix. Structure of new matrix can hold sum of both matrices.
+     * 
+     * @param other
+     *            matrix of same size
+     * @return new matrix with elements of this matrix
+     */
+    private IMatrix newSum( IMatrix other ) {
+
+	final IMatrix result;
+
+	if ( other instanceof BandMatrix ) {
+	    result = ((BandMatrix) other).newBand();
+	} else if ( (other instanceof ScaledIdentityMatrix)
+		|| (other instanceof ZeroMatrix) ) {
+	    result = newBand();
+	} else {
+	    result = newInstance( dimension, dimension );
+	}
+
+	addTo( result, 1.0 );
+
+	return result;
+    }
+
+    /**
+     * Multiplies this matrix with provided matrix. Every row of provided matrix
+     * is scaled with element of diagonal, and product of two diagonal matrices
+     * is calculated only from diagonals. Product is new dense matrix, same as
+     * product of any matrix with diagonal matrix, so it can be changed.
+     * 
+     * @param other
+     *            matrix to be multiplied
+     * @return multiplied matrix
+     * @throws IncompatibleOperandException
+     *             if this matrix hasn't number of columns as provided matrix
+     *             rows
+     */
+    @Override
+    public IMatrix nMultiply( IMatrix other ) {
+
+	if ( dimension != other.getRowsCount() ) {
+	    throw new IncompatibleOperandException(
+		    "First matrix must have same number of columns as second matrix rows!" );
+	}
+
+	if ( other instanceof DiagonalMatrix ) {
+	    final double[] product = new double[dimension * dimension];
+
+	    for ( int i = 0; i < dimension; i++ ) {
+		product[(i * dimension) + i] = band[i]
+			* ((DiagonalMatrix) other).band[i];
+	    }
+
+	    return LinAlgDefaults.defaultMatrix( dimension, dimension, product );
+	}
+
+	final int cols = other.getColsCount();
+	final double[] product = FlatMatrix.valueOf( other ).elements;
+
+	for ( int row = 0, index = 0; row < dimension; row++ ) {
+	    for ( int col = 0; col < cols; col++, index++ ) {
+		product[index] *= band[row];
+	    }
+	}
+
+	return LinAlgDefaults.defaultMatrix( dimension, cols, product );
+    }
+
+    /**
+     * Creates diagonal matrix on provided array without copying it.
+     * 
+     * @param dimension
+     *            dimension of matrix
+     * @param diagonal
+     *            elements of diagonal
+     */
+    private DiagonalMatrix(int dimension, double[] diagonal) {
+
+	super( dimension, 0, 0, diagonal );
+    }
+
+    /**
+     * Multiplies provided matrix with this matrix. Every column of provided
+     * matrix is scaled with element of diagonal.
+     * 
+     * @param other
+     *            matrix with which this matrix is multiplied from left, must
+     *            have as many columns as this matrix has rows
+     * @return product of provided matrix and this matrix
+     */
+    IMatrix multiplyLeft( IMatrix other ) {
+
+	final int rows = other.getRowsCount();
+	final double[] product = FlatMatrix.valueOf( other ).elements;
+
+	for ( int row = 0, index = 0; row < rows; row++ ) {
+	    for ( int col = 0; col < dimension; col++, index++ ) {
+		product[index] *= band[col];
+	    }
+	}
+
+	return LinAlgDefaults.defaultMatrix( rows, dimension, product );
+    }
+
+    /**
+     * Adds multiple of this matrix to diagonal of provided matrix.
+     * 
+     * @param target
+     *            square matrix of same size
+     * @param factor
+     *            multiple of this matrix
+     */
+    void addTo( IMatrix target, double factor ) {
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    target.set( i, i, target.get( i, i ) + (factor * band[i]) );
+	}
+    }
+
+    /**
+     * Calculates determinant as product of diagonal elements.
+     * 
+     * @return determinant of matrix
+     */
+    @Override
+    public double determinant() {
+
+	double determinant = 1.0;
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    determinant *= band[i];
+	}
+
+	return determinant;
+    }
+
+    /**
+     * Inverts this matrix by inverting every diagonal element.
+     * 
+     * @return inverted diagonal matrix
+     * @throws IncompatibleOperandException
+     *             if there is zero on diagonal
+     */
+    @Override
+    public IMatrix nInvert() {
+
+	final double[] inverse = new double[dimension];
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    if ( band[i] == 0.0 ) {
+		throw new IncompatibleOperandException(
+			"Cannot inverse singular matrix" );
+	    }
+
+	    inverse[i] = 1.0 / band[i];
+	}
+
+	return new DiagonalMatrix( dimension, inverse );
+    }
+}
@@ -0,0 +1,464 @@
+package hr.fer.zemris.linearna;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+
+/**
+ * Matrix whose elements are stored row by row in direct memory outside of Java
+ * heap. Large matrices therefore do not make garbage collection longer.
+ * Memory is allocated with {@link DirectMemory} and should be freed with
+ * {@link #close()} as soon as matrix is not needed, otherwise it is freed only
+ * after matrix is collected. Matrix cannot be used after it is closed.
+ * <p>
+ * Results of operations that create new matrices are also direct matrices.
+ * Matrix is not thread safe, and must not be closed while other thread uses
+ * it.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class DirectMatrix extends AbstractMatrix implements BulkCopyMatrix,
+	AutoCloseable {
+
+    /**
+     * Number of bytes of heap used by tiles of product and operands, enough
+     * for three tiles with 256 rows and columns
+     */
+    private static final long TILE_BUDGET = 3L * 256 * 256 * Double.BYTES;
+
+    /**
+     * Number of rows
+     */
+    private final int rows;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * Direct memory with elements
+     */
+    private ByteBuffer memory;
+
+    /**
+     * Elements of matrix stored row by row, <code>null</code> if matrix is
+     * closed
+     */
+    private DoubleBuffer elements;
+
+    /**
+     * Allocated block of direct memory
+     */
+    private final DirectMemory.Block block;
+
+    /**
+     * Creates new matrix. All elements of new matrix are 0.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @throws IllegalArgumentException
+     *             if matrix is too large for one direct buffer
+     */
+    public DirectMatrix(int rows, int cols) {
+
+	if ( (rows < 0) || (cols < 0) ) {
+	    throw new IllegalArgumentException( "wrong size of matrix" );
+	}
+
+	this.rows = rows;
+	this.cols = cols;
+
+	memory = DirectMemory.allocate( (long) rows * cols * Double.BYTES );
+	elements = memory.asDoubleBuffer();
+	block = DirectMemory.register( memory );
+    }
+
+    /**
+     * Creates direct matrix with same elements as provided matrix.
+     * 
+     * @param matrix
+     *            matrix to be copied
+     * @return new direct matrix
+     */
+    public static DirectMatrix valueOf( IMatrix matrix ) {
+
+	if ( matrix instanceof DirectMatrix ) {
+	    return (DirectMatrix) matrix.copy();
+	}
+
+	final int rows = matrix.getRowsCount();
+	final int cols = matrix.getColsCount();
+
+	final DirectMatrix direct = new DirectMatrix( rows, cols );
+	final double[] row = new double[cols];
+
+	for ( int i = 0; i < rows; i++ ) {
+	    for ( int j = 0; j < cols; j++ ) {
+		row[j] = matrix.get( i, j );
+	    }
+
+	    direct.write( i * cols, row, 0, cols );
+	}
+
+	return direct;
+    }
+
+    /**
+     * Returns elements of open matrix.
+     * 
+     * @return buffer with elements
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    private DoubleBuffer elements() {
+
+	if ( elements == null ) {
+	    throw new IllegalStateException( "Matrix is closed" );
+	}
+
+	return elements;
+    }
+
+    /**
+     * Reads consecutive elements to array.
+     * 
+     * @param index
+     *            index of first element in buffer
+     * @param target
+     *            array for elements
+     * @param offset
+     *            index of first element in array
+     * @param length
+     *            number of elements
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    void read( int index, double[] target, int offset, int length ) {
+
+	final DoubleBuffer buffer = elements().duplicate();
+	buffer.position( index );
+	buffer.get( target, offset, length );
+    }
+
+    /**
+     * Writes consecutive elements from array.
+     * 
+     * @param index
+     *            index of first element in buffer
+     * @param source
+     *            array with elements
+     * @param offset
+     *            index of first element in array
+     * @param length
+     *            number of elements
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    void write( int index, double[] source, int offset, int length ) {
+
+	final DoubleBuffer buffer = elements().duplicate();
+	buffer.position( index );
+	buffer.put( source, offset, length );
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows
+     */
+    @Override
+    public int getRowsCount() {
+
+	return rows;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns
+     */
+    @Override
+    public int getColsCount() {
+
+	return cols;
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return element at specified row and column
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    @Override
+    public double get( int row, int col ) {
+
+	if ( (row >= rows) || (col >= cols) || (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	return elements().get( (row * cols) + col );
+    }
+
+    /**
+     * Element setter.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @param value
+     *            new value of element
+     * @return this matrix
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    @Override
+    public IMatrix set( int row, int col, double value ) {
+
+	if ( (row >= rows) || (col >= cols) || (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	elements().put( (row * cols) + col, value );
+
+	return this;
+    }
+
+    /**
+     * Copies this matrix to new direct memory. Changes on copy does not take
+     * affect on this matrix.
+     * 
+     * @return new direct matrix with same elements
+     */
+    @Override
+    public IMatrix copy() {
+
+	final DirectMatrix copy = new DirectMatrix( rows, cols );
+	final DoubleBuffer source = elements().duplicate();
+
+	source.clear();
+	copy.elements.duplicate().put( source );
+
+	return copy;
+    }
+
+    /**
+     * Creates new direct matrix.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     */
+    @Override
+    public IMatrix newInstance( int rows, int cols ) {
+
+	return new DirectMatrix( rows, cols );
+    }
+
+    /**
+     * Adds provided matrix to this matrix. Elements of other direct matrix
+     * are read directly from its memory.
+     * 
+     * @param other
+     *            matrix to be added
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have different dimensions
+     */
+    @Override
+    public IMatrix add( IMatrix other ) {
+
+	if ( other instanceof DirectMatrix ) {
+	    return addScaled( (DirectMatrix) other, 1.0 );
+	}
+
+	return super.add( other );
+    }
+
+    /**
+     * Subtracts provided matrix from this matrix. Elements of other direct
+     * matrix are read directly from its memory.
+     * 
+     * @param other
+     *            matrix to be subtracted
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have different dimensions
+     */
+    @Override
+    public IMatrix sub( IMatrix other ) {
+
+	if ( other instanceof DirectMatrix ) {
+	    return addScaled( (DirectMatrix) other, -1.0 );
+	}
+
+	return super.sub( other );
+    }
+
+    /**
+     * Adds multiple of other direct matrix to this matrix.
+     * 
+     * @param other
+     *            direct matrix of same dimensions
+     * @param factor
+     *            multiple of other matrix
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have different dimensions
+     */
+    private IMatrix addScaled( DirectMatrix other, double factor ) {
+
+	if ( (rows != other.rows) || (cols != other.cols) ) {
+	    throw new IncompatibleOperandException(
+		    "Matrices must have same dimensions" );
+	}
+
+	final DoubleBuffer a = elements();
+	final DoubleBuffer b = other.elements();
+
+	for ( int i = 0, size = rows * cols; i < size; i++ ) {
+	    a.put( i, a.get( i ) + (factor * b.get( i )) );
+	}
+
+	return this;
+    }
+
+    /**
+     * Multiplies all elements of this matrix with provided value.
+     * 
+     * @param value
+     *            scalar
+     * @return this matrix
+     */
+    @Override
+    public IMatrix scalarMultiply( double value ) {
+
+	final DoubleBuffer a = elements();
+
+	for ( int i = 0, size = rows * cols; i < size; i++ ) {
+	    a.put( i, a.get( i ) * value );
+	}
+
+	return this;
+    }
+
+    /**
+     * Multiplies this matrix with provided direct or dense matrix. Tiles of
+     * both matrices are copied to heap and multiplied with {@link Gemm} by
+     * {@link #multiply(IMatrix, IMatrix, IMatrix)}.
+     * 
+     * @param other
+     *            matrix to be multiplied
+     * @return new direct matrix with product
+     * @throws IncompatibleOperandException
+     *             if this matrix hasn't number of columns as provided matrix
+     *             rows
+     */
+    @Override
+    public IMatrix nMultiply( IMatrix other ) {
+
+	if ( !(other instanceof DirectMatrix)
+		&& !(other instanceof ArrayBackedMatrix) ) {
+	    return super.nMultiply( other );
+	}
+
+	if ( cols != other.getRowsCount() ) {
+	    throw new IncompatibleOperandException(
+		    "First matrix must have same number of columns as second matrix rows!" );
+	}
+
+	final DirectMatrix product = new DirectMatrix( rows,
+		other.getColsCount() );
+
+	multiply( this, other, product );
+
+	return product;
+    }
+
+    /**
+     * Multiplies matrices of which at least one is direct matrix. Tiles of
+     * operands are copied to heap arrays with bulk reads, multiplied with
+     * {@link Gemm} as flat matrices and written to result, so heap needs only
+     * three tiles. Result must not share storage with operands.
+     * 
+     * @param a
+     *            first matrix
+     * @param b
+     *            second matrix
+     * @param c
+     *            matrix for product
+     * @throws IncompatibleOperandException
+     *             if first matrix hasn't number of columns as second matrix
+     *             rows, or if result has wrong dimensions
+     */
+    static void multiply( IMatrix a, IMatrix b, IMatrix c ) {
+
+	new TiledMultiplication( TILE_BUDGET ).multiply( a, b, c );
+    }
+
+    /**
+     * Copies elements of this matrix to heap array.
+     * 
+     * @return new array with elements stored row by row
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    public double[] toFlatArray() {
+
+	final double[] array = new double[rows * cols];
+	copyTo( array );
+
+	return array;
+    }
+
+    /**
+     * Copies elements of this matrix to provided heap array.
+     * 
+     * @param target
+     *            array for elements stored row by row
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    @Override
+    public void copyTo( double[] target ) {
+
+	read( 0, target, 0, rows * cols );
+    }
+
+    /**
+     * Checks if matrix is closed.
+     * 
+     * @return true if memory of matrix is freed
+     */
+    public boolean isClosed() {
+
+	return elements == null;
+    }
+
+    /**
+     * Frees direct memory of this matrix. Matrix cannot be used after it is
+     * closed, and closing closed matrix has no effect.
+     */
+    @Override
+    public void close() {
+
+	if ( elements == null ) {
+	    return;
+	}
+
+	final ByteBuffer freed = memory;
+
+	elements = null;
+	memory = null;
+	block.free( freed );
+    }
+}
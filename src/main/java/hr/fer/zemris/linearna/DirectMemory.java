@@ -0,0 +1,262 @@
+package hr.fer.zemris.linearna;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocator of direct memory used by {@link DirectMatrix} and
+ * {@link DirectVector}. Memory is allocated outside of Java heap, so it is not
+ * copied or scanned by garbage collector. Every allocated block is counted
+ * until it is freed, either explicitly by its owner or by garbage collector
+ * when owner is not reachable any more.
+ * <p>
+ * Explicit free releases memory immediately if platform allows it, otherwise
+ * memory is released when garbage collector collects buffer. Buffer must not
+ * be used after it is freed.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public final class DirectMemory {
+
+    /**
+     * Number of bytes in allocated blocks which are not freed
+     */
+    private static final AtomicLong ALLOCATED = new AtomicLong();
+
+    /**
+     * Largest value of allocated bytes
+     */
+    private static final AtomicLong PEAK = new AtomicLong();
+
+    /**
+     * Blocks which are not freed. Set keeps references reachable until they
+     * are enqueued.
+     */
+    private static final Set<Block> BLOCKS = Collections
+	    .newSetFromMap( new ConcurrentHashMap<Block, Boolean>() );
+
+    /**
+     * Queue of blocks whose buffers are collected without explicit free
+     */
+    private static final ReferenceQueue<ByteBuffer> COLLECTED = new ReferenceQueue<>();
+
+    /**
+     * Instance of <code>sun.misc.Unsafe</code>, or <code>null</code> if it
+     * is not available
+     */
+    private static final Object UNSAFE;
+
+    /**
+     * Method <code>invokeCleaner</code> of <code>sun.misc.Unsafe</code>, or
+     * <code>null</code> if platform does not have it
+     */
+    private static final Method INVOKE_CLEANER;
+
+    static {
+	Object unsafe = null;
+	Method invokeCleaner = null;
+
+	try {
+	    final Class<?> unsafeClass = Class.forName( "sun.misc.Unsafe" );
+	    final Field field = unsafeClass.getDeclaredField( "theUnsafe" );
+	    field.setAccessible( true );
+
+	    invokeCleaner = unsafeClass.getMethod( "invokeCleaner",
+		    ByteBuffer.class );
+	    unsafe = field.get( null );
+	} catch ( final ReflectiveOperationException | RuntimeException e ) {
+	    invokeCleaner = null;
+	}
+
+	UNSAFE = unsafe;
+	INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * Allocated block of direct memory. Reference is enqueued when its buffer
+     * is collected.
+     */
+    static final class Block extends PhantomReference<ByteBuffer> {
+
+	/**
+	 * Number of bytes in block
+	 */
+	private final long bytes;
+
+	/**
+	 * Creates new block and counts its bytes as allocated.
+	 * 
+	 * @param buffer
+	 *            allocated buffer
+	 */
+	private Block(ByteBuffer buffer) {
+
+	    super( buffer, COLLECTED );
+	    bytes = buffer.capacity();
+
+	    BLOCKS.add( this );
+
+	    final long allocated = ALLOCATED.addAndGet( bytes );
+	    long peak;
+
+	    while ( (peak = PEAK.get()) < allocated ) {
+		if ( PEAK.compareAndSet( peak, allocated ) ) {
+		    break;
+		}
+	    }
+	}
+
+	/**
+	 * Stops counting bytes of block. Bytes are counted only once, no matter
+	 * how many times block is released.
+	 * 
+	 * @return true if block was counted before this call
+	 */
+	private boolean release() {
+
+	    if ( BLOCKS.remove( this ) ) {
+		ALLOCATED.addAndGet( -bytes );
+		return true;
+	    }
+
+	    return false;
+	}
+
+	/**
+	 * Frees block. Memory of buffer is released immediately if platform
+	 * allows it. Block which is already freed is not changed.
+	 * 
+	 * @param buffer
+	 *            buffer of this block, must not be used any more
+	 */
+	void free( ByteBuffer buffer ) {
+
+	    if ( !release() ) {
+		return;
+	    }
+
+	    clear();
+	    unmap( buffer );
+	}
+    }
+
+    /**
+     * Class has only static methods.
+     */
+    private DirectMemory() {
+
+    }
+
+    /**
+     * Allocates direct buffer with native byte order. All bytes of buffer are
+     * 0.
+     * 
+     * @param bytes
+     *            number of bytes
+     * @return new buffer
+     * @throws IllegalArgumentException
+     *             if number of bytes is negative or greater than maximum size
+     *             of buffer
+     */
+    static ByteBuffer allocate( long bytes ) {
+
+	if ( (bytes < 0) || (bytes > Integer.MAX_VALUE) ) {
+	    throw new IllegalArgumentException( "wrong size of direct buffer: "
+		    + bytes );
+	}
+
+	releaseCollected();
+
+	return ByteBuffer.allocateDirect( (int) bytes ).order(
+		ByteOrder.nativeOrder() );
+    }
+
+    /**
+     * Starts counting bytes of allocated buffer.
+     * 
+     * @param buffer
+     *            buffer returned by {@link #allocate(long)}
+     * @return block which frees buffer
+     */
+    static Block register( ByteBuffer buffer ) {
+
+	return new Block( buffer );
+    }
+
+    /**
+     * Releases memory of direct or mapped buffer immediately if platform
+     * allows it, otherwise memory is released when garbage collector collects
+     * buffer. Buffer and all its views must not be used after this call.
+     * 
+     * @param buffer
+     *            direct or mapped buffer
+     */
+    static void unmap( ByteBuffer buffer ) {
+
+	if ( INVOKE_CLEANER == null ) {
+	    return;
+	}
+
+	try {
+	    INVOKE_CLEANER.invoke( UNSAFE, buffer );
+	} catch ( final ReflectiveOperationException | RuntimeException e ) {
+	    // buffer is released by garbage collector
+	}
+    }
+
+    /**
+     * Stops counting blocks whose buffers are collected by garbage collector.
+     */
+    private static void releaseCollected() {
+
+	Reference<? extends ByteBuffer> reference;
+
+	while ( (reference = COLLECTED.poll()) != null ) {
+	    ((Block) reference).release();
+	}
+    }
+
+    /**
+     * Calculates number of bytes in allocated blocks which are not freed.
+     * 
+     * @return number of allocated bytes
+     */
+    public static long getAllocatedBytes() {
+
+	releaseCollected();
+
+	return ALLOCATED.get();
+    }
+
+    /**
+     * Returns largest number of bytes which were allocated at the same time.
+     * 
+     * @return peak number of allocated bytes
+     */
+    public static long getPeakBytes() {
+
+	return PEAK.get();
+    }
+
+    /**
+     * Calculates number of allocated blocks which are not freed.
+     * 
+     * @return number of allocated blocks
+     */
+    public static int getAllocatedBlocks() {
+
+	releaseCollected();
+
+	return BLOCKS.size();
+    }
+}
@@ -0,0 +1,332 @@
+package hr.fer.zemris.linearna;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+
+/**
+ * Vector whose elements are stored in direct memory outside of Java heap.
+ * Memory is allocated with {@link DirectMemory} and should be freed with
+ * {@link #close()} as soon as vector is not needed, otherwise it is freed only
+ * after vector is collected. Vector cannot be used after it is closed.
+ * <p>
+ * Results of operations that create new vectors are also direct vectors.
+ * Vector is not thread safe, and must not be closed while other thread uses
+ * it.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class DirectVector extends AbstractVector implements AutoCloseable {
+
+    /**
+     * Dimension of vector
+     */
+    private final int dimension;
+
+    /**
+     * Direct memory with elements
+     */
+    private ByteBuffer memory;
+
+    /**
+     * Elements of vector, <code>null</code> if vector is closed
+     */
+    private DoubleBuffer elements;
+
+    /**
+     * Allocated block of direct memory
+     */
+    private final DirectMemory.Block block;
+
+    /**
+     * Creates new vector. All elements of new vector are 0.
+     * 
+     * @param dimension
+     *            dimension of vector
+     * @throws IllegalArgumentException
+     *             if vector is too large for one direct buffer
+     */
+    public DirectVector(int dimension) {
+
+	if ( dimension < 0 ) {
+	    throw new IllegalArgumentException( "wrong size of vector" );
+	}
+
+	this.dimension = dimension;
+
+	memory = DirectMemory.allocate( (long) dimension * Double.BYTES );
+	elements = memory.asDoubleBuffer();
+	block = DirectMemory.register( memory );
+    }
+
+    /**
+     * Creates direct vector with same elements as provided vector.
+     * 
+     * @param vector
+     *            vector to be copied
+     * @return new direct vector
+     */
+    public static DirectVector valueOf( IVector vector ) {
+
+	final DirectVector direct = new DirectVector( vector.getDimension() );
+
+	if ( vector instanceof DirectVector ) {
+	    direct.elements.duplicate().put(
+		    (DoubleBuffer) ((DirectVector) vector).elements().duplicate()
+			    .clear() );
+	} else {
+	    direct.elements.duplicate().put( vector.toArray() );
+	}
+
+	return direct;
+    }
+
+    /**
+     * Returns elements of open vector.
+     * 
+     * @return buffer with elements
+     * @throws IllegalStateException
+     *             if vector is closed
+     */
+    private DoubleBuffer elements() {
+
+	if ( elements == null ) {
+	    throw new IllegalStateException( "Vector is closed" );
+	}
+
+	return elements;
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param index
+     *            index of element
+     * @throws IllegalStateException
+     *             if vector is closed
+     */
+    @Override
+    public double get( int index ) {
+
+	return elements().get( index );
+    }
+
+    /**
+     * Element setter.
+     * 
+     * @param index
+     *            index of element
+     * @param value
+     *            new value of element
+     * @return this vector
+     * @throws IllegalStateException
+     *             if vector is closed
+     */
+    @Override
+    public IVector set( int index, double value ) {
+
+	elements().put( index, value );
+
+	return this;
+    }
+
+    /**
+     * Dimension getter.
+     * 
+     * @return dimension of vector
+     */
+    @Override
+    public int getDimension() {
+
+	return dimension;
+    }
+
+    /**
+     * Copies this vector to new direct memory. Changes on copy does not take
+     * affect on this vector.
+     * 
+     * @return new direct vector with same elements
+     */
+    @Override
+    public IVector copy() {
+
+	return valueOf( this );
+    }
+
+    /**
+     * Creates new direct vector.
+     * 
+     * @param dimension
+     *            dimension of vector
+     */
+    @Override
+    public IVector newInstance( int dimension ) {
+
+	return new DirectVector( dimension );
+    }
+
+    /**
+     * Adds provided vector to this vector. Elements of other direct vector
+     * are read directly from its memory.
+     * 
+     * @param other
+     *            vector to be added
+     * @return this vector
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are different
+     */
+    @Override
+    public IVector add( IVector other ) throws IncompatibleOperandException {
+
+	if ( other instanceof DirectVector ) {
+	    return addScaled( (DirectVector) other, 1.0 );
+	}
+
+	return super.add( other );
+    }
+
+    /**
+     * Subtracts provided vector from this vector. Elements of other direct
+     * vector are read directly from its memory.
+     * 
+     * @param other
+     *            vector to be subtracted
+     * @return this vector
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are different
+     */
+    @Override
+    public IVector sub( IVector other ) throws IncompatibleOperandException {
+
+	if ( other instanceof DirectVector ) {
+	    return addScaled( (DirectVector) other, -1.0 );
+	}
+
+	return super.sub( other );
+    }
+
+    /**
+     * Adds multiple of other direct vector to this vector.
+     * 
+     * @param other
+     *            direct vector of same dimension
+     * @param factor
+     *            multiple of other vector
+     * @return this vector
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are different
+     */
+    private IVector addScaled( DirectVector other, double factor ) {
+
+	if ( dimension != other.dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add vector with different dimnesion" );
+	}
+
+	final DoubleBuffer a = elements();
+	final DoubleBuffer b = other.elements();
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    a.put( i, a.get( i ) + (factor * b.get( i )) );
+	}
+
+	return this;
+    }
+
+    /**
+     * Multiplies all elements of this vector with provided value.
+     * 
+     * @param byValue
+     *            scalar
+     * @return this vector
+     */
+    @Override
+    public IVector scalarMultiply( double byValue ) {
+
+	final DoubleBuffer a = elements();
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    a.put( i, a.get( i ) * byValue );
+	}
+
+	return this;
+    }
+
+    /**
+     * Calculates scalar product of this and provided vector. Elements of
+     * other direct vector are read directly from its memory.
+     * 
+     * @param other
+     *            vector
+     * @return scalar product of vectors
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are not same
+     */
+    @Override
+    public double scalarProduct( IVector other )
+	    throws IncompatibleOperandException {
+
+	if ( !(other instanceof DirectVector) ) {
+	    return super.scalarProduct( other );
+	}
+
+	if ( dimension != other.getDimension() ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot calculate scalar product of vectors with different dimnesion" );
+	}
+
+	final DoubleBuffer a = elements();
+	final DoubleBuffer b = ((DirectVector) other).elements();
+	double product = 0;
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    product += a.get( i ) * b.get( i );
+	}
+
+	return product;
+    }
+
+    /**
+     * Copies elements of this vector to heap array.
+     * 
+     * @return new array with elements
+     * @throws IllegalStateException
+     *             if vector is closed
+     */
+    @Override
+    public double[] toArray() {
+
+	final double[] array = new double[dimension];
+	elements().duplicate().get( array );
+
+	return array;
+    }
+
+    /**
+     * Checks if vector is closed.
+     * 
+     * @return true if memory of vector is freed
+     */
+    public boolean isClosed() {
+
+	return elements == null;
+    }
+
+    /**
+     * Frees direct memory of this vector. Vector cannot be used after it is
+     * closed, and closing closed vector has no effect.
+     */
+    @Override
+    public void close() {
+
+	if ( elements == null ) {
+	    return;
+	}
+
+	final ByteBuffer freed = memory;
+
+	elements = null;
+	memory = null;
+	block.free( freed );
+    }
+}
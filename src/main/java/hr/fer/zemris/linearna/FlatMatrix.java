@@ -0,0 +1,500 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Dense matrix whose elements are stored row by row in one contiguous array.
+ * Element at position (row, col) is stored at index
+ * <code>offset + row * stride + col</code> of array, so the matrix can also be
+ * a window on bigger array. Copies of matrix are made with bulk array copies.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class FlatMatrix extends AbstractMatrix implements
+	ArrayBackedMatrix {
+
+    /**
+     * Elements of matrix
+     */
+    protected double[] elements;
+
+    /**
+     * Index of first element of matrix in array of elements
+     */
+    protected int offset;
+
+    /**
+     * Distance between first elements of two neighbouring rows
+     */
+    protected int stride;
+
+    /**
+     * Number of rows
+     */
+    protected int rows;
+
+    /**
+     * Number of columns
+     */
+    protected int cols;
+
+    /**
+     * Creates new matrix. All elements of new matrix are 0.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @throws IllegalArgumentException
+     *             if matrix has more elements than array can hold
+     */
+    public FlatMatrix(int rows, int cols) {
+
+	this( rows, cols, new double[arraySize( rows, cols )], 0, cols );
+    }
+
+    /**
+     * Creates new matrix from elements stored row by row.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @param elements
+     *            elements of matrix stored row by row
+     * @param shallowCopy
+     *            true if changes on matrix change provided elements.
+     * @throws IllegalArgumentException
+     *             if there is less than <code>rows * cols</code> elements
+     */
+    public FlatMatrix(int rows, int cols, double[] elements, boolean shallowCopy) {
+
+	this( rows, cols, shallowCopy ? elements : copyOf( elements, rows
+		* cols ), 0, cols );
+    }
+
+    /**
+     * Creates new matrix that is window on provided array. Changes on matrix
+     * change provided array.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @param elements
+     *            array with elements
+     * @param offset
+     *            index of element (0, 0) in array
+     * @param stride
+     *            distance between first elements of two neighbouring rows
+     * @throws IllegalArgumentException
+     *             if window does not fit in provided array
+     */
+    public FlatMatrix(int rows, int cols, double[] elements, int offset,
+	    int stride) {
+
+	if ( (rows < 0) || (cols < 0) || (offset < 0) || (stride < cols) ) {
+	    throw new IllegalArgumentException( "wrong size of elements" );
+	}
+
+	if ( (rows > 0) && (cols > 0)
+		&& ((offset + ((long) (rows - 1) * stride) + cols) > elements.length) ) {
+	    throw new IllegalArgumentException( "wrong size of elements" );
+	}
+
+	this.rows = rows;
+	this.cols = cols;
+	this.elements = elements;
+	this.offset = offset;
+	this.stride = stride;
+    }
+
+    /**
+     * Creates new matrix with same elements as provided matrix. Matrices
+     * stored in arrays and matrices that implement {@link BulkCopyMatrix} are
+     * copied without reading elements one by one.
+     * 
+     * @param matrix
+     *            matrix to be copied
+     * @return new matrix
+     * @throws IllegalArgumentException
+     *             if matrix has more elements than array can hold
+     */
+    public static FlatMatrix valueOf( IMatrix matrix ) {
+
+	if ( matrix instanceof FlatMatrix ) {
+	    return (FlatMatrix) matrix.copy();
+	}
+
+	final int rows = matrix.getRowsCount();
+	final int cols = matrix.getColsCount();
+
+	final double[] elements = new double[arraySize( rows, cols )];
+
+	if ( matrix instanceof ArrayBackedMatrix ) {
+	    final ArrayBackedMatrix source = (ArrayBackedMatrix) matrix;
+	    final int stride = source.colStride();
+
+	    for ( int row = 0, index = 0; row < rows; row++ ) {
+		final double[] array = source.rowArray( row );
+		final int offset = source.rowOffset( row );
+
+		if ( stride == 1 ) {
+		    System.arraycopy( array, offset, elements, index, cols );
+		    index += cols;
+		} else {
+		    for ( int col = 0; col < cols; col++, index++ ) {
+			elements[index] = array[offset + (col * stride)];
+		    }
+		}
+	    }
+	} else if ( matrix instanceof BulkCopyMatrix ) {
+	    ((BulkCopyMatrix) matrix).copyTo( elements );
+	} else {
+	    for ( int row = 0, index = 0; row < rows; row++ ) {
+		for ( int col = 0; col < cols; col++, index++ ) {
+		    elements[index] = matrix.get( row, col );
+		}
+	    }
+	}
+
+	return new FlatMatrix( rows, cols, elements, true );
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows
+     */
+    @Override
+    public int getRowsCount() {
+
+	return rows;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns
+     */
+    @Override
+    public int getColsCount() {
+
+	return cols;
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return element at specified row and column
+     */
+    @Override
+    public double get( int row, int col ) {
+
+	if ( (row >= rows) || (col >= cols) || (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	return elements[offset + (row * stride) + col];
+    }
+
+    /**
+     * Element setter.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return this matrix
+     */
+    @Override
+    public IMatrix set( int row, int col, double value ) {
+
+	if ( (row >= rows) || (col >= cols) || (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	elements[offset + (row * stride) + col] = value;
+
+	return this;
+    }
+
+    /**
+     * Copies this matrix. Changes on copy does not take affect on this matrix.
+     * Copy is always stored in new array without gaps between rows.
+     * 
+     * @return new matrix with same elements.
+     */
+    @Override
+    public IMatrix copy() {
+
+	return new FlatMatrix( rows, cols, toFlatArray(), true );
+    }
+
+    /**
+     * Returns new instance of this matrix. All elements of new instance are 0.
+     * 
+     * @param rows
+     *            number of rows.
+     * @param cols
+     *            number of columns.
+     */
+    @Override
+    public IMatrix newInstance( int rows, int cols ) {
+
+	return new FlatMatrix( rows, cols );
+    }
+
+    /**
+     * Returns array in which elements of provided row are stored. Changes on
+     * array change this matrix.
+     * 
+     * @param row
+     *            row of matrix
+     * @return array with elements of row
+     */
+    @Override
+    public double[] rowArray( int row ) {
+
+	return elements;
+    }
+
+    /**
+     * Returns index of first element of provided row in array of row.
+     * 
+     * @param row
+     *            row of matrix
+     * @return index of element (row, 0)
+     */
+    @Override
+    public int rowOffset( int row ) {
+
+	return offset + (row * stride);
+    }
+
+    /**
+     * Returns distance between two neighbouring elements of same row.
+     * 
+     * @return distance between elements of row
+     */
+    @Override
+    public int colStride() {
+
+	return 1;
+    }
+
+    /**
+     * Creates view on array of this matrix.
+     * 
+     * @return view with same elements as this matrix
+     */
+    private StridedMatrixView view() {
+
+	return new StridedMatrixView( rows, cols, elements, offset, stride, 1 );
+    }
+
+    /**
+     * Creates transposed matrix. Live view is {@link StridedMatrixView} on
+     * array of this matrix.
+     * 
+     * @param liveView
+     *            true if changes on transposed matrix should change this
+     *            matrix.
+     * @return transposed matrix
+     */
+    @Override
+    public IMatrix nTranspose( boolean liveView ) {
+
+	return view().nTranspose( liveView );
+    }
+
+    /**
+     * Creates matrix without provided row and column. Live view is view on
+     * array of this matrix.
+     * 
+     * @param row
+     *            row that is removed
+     * @param col
+     *            column that is removed
+     * @param liveView
+     *            true if changes on new matrix should change this matrix
+     * @return matrix without provided row and column
+     * @throws IndexOutOfBoundsException
+     *             if row or column is not in matrix
+     */
+    @Override
+    public IMatrix subMatrix( int row, int col, boolean liveView ) {
+
+	return view().subMatrix( row, col, liveView );
+    }
+
+    /**
+     * Creates vector from matrix with one row or one column. Live view is
+     * {@link StridedVectorView} on array of this matrix.
+     * 
+     * @param liveView
+     *            true if changes on vector should change this matrix
+     * @return vector with elements of matrix
+     * @throws IncompatibleOperandException
+     *             if matrix has more than one row and more than one column
+     */
+    @Override
+    public IVector toVector( boolean liveView ) {
+
+	return view().toVector( liveView );
+    }
+
+    /**
+     * Returns two dimensional array with elements of matrix.
+     * 
+     * @return elements of matrix
+     */
+    @Override
+    public double[][] toArray() {
+
+	final double[][] array = new double[rows][cols];
+
+	for ( int row = 0; row < rows; row++ ) {
+	    System.arraycopy( elements, offset + (row * stride), array[row], 0,
+		    cols );
+	}
+
+	return array;
+    }
+
+    /**
+     * Returns elements of matrix stored row by row in new array.
+     * 
+     * @return elements of matrix
+     */
+    public double[] toFlatArray() {
+
+	final int size = rows * cols;
+	final double[] array = new double[size];
+
+	if ( stride == cols ) {
+	    System.arraycopy( elements, offset, array, 0, size );
+	    return array;
+	}
+
+	for ( int row = 0; row < rows; row++ ) {
+	    System.arraycopy( elements, offset + (row * stride), array, row
+		    * cols, cols );
+	}
+
+	return array;
+    }
+
+    /**
+     * Calculates number of elements of matrix stored in one array.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @return number of elements
+     * @throws IllegalArgumentException
+     *             if matrix has more elements than array can hold
+     */
+    static int arraySize( int rows, int cols ) {
+
+	if ( ((long) rows * cols) > Integer.MAX_VALUE ) {
+	    throw new IllegalArgumentException( "Matrix is too large for array: "
+		    + rows + " x " + cols );
+	}
+
+	return rows * cols;
+    }
+
+    /**
+     * Copies first <code>size</code> elements of array to new array. Missing
+     * elements are rejected.
+     * 
+     * @param elements
+     *            array to be copied
+     * @param size
+     *            number of copied elements
+     * @return copied elements
+     */
+    private static double[] copyOf( double[] elements, int size ) {
+
+	if ( elements.length < size ) {
+	    throw new IllegalArgumentException( "wrong size of elements" );
+	}
+
+	final double[] array = new double[size];
+	System.arraycopy( elements, 0, array, 0, size );
+	return array;
+    }
+
+    /**
+     * Returns hash code of matrix. Hash codes of matrices with same values of
+     * elements are equal.
+     * 
+     * @return hash code of matrix.
+     */
+    @Override
+    public int hashCode() {
+
+	final int prime = 31;
+	int result = 1;
+	result = (prime * result) + cols;
+
+	for ( int row = 0; row < rows; row++ ) {
+	    for ( int col = 0, index = offset + (row * stride); col < cols; col++, index++ ) {
+		final long bits = Double.doubleToLongBits( elements[index] );
+		result = (prime * result) + (int) (bits ^ (bits >>> 32));
+	    }
+	}
+
+	result = (prime * result) + rows;
+	return result;
+    }
+
+    /**
+     * Checks if matrices are equal. Matrices are considered equal if they have
+     * same values of elements.
+     * 
+     * @return <code>true</code> if and only is matrices have same size, and
+     *          values of elements are same.
+     */
+    @Override
+    public boolean equals( Object obj ) {
+
+	if ( this == obj ) {
+	    return true;
+	}
+	if ( obj == null ) {
+	    return false;
+	}
+	if ( !(obj instanceof FlatMatrix) ) {
+	    return false;
+	}
+	final FlatMatrix other = (FlatMatrix) obj;
+	if ( cols != other.cols ) {
+	    return false;
+	}
+
+	if ( rows != other.rows ) {
+	    return false;
+	}
+
+	for ( int row = 0; row < rows; row++ ) {
+	    final int index = offset + (row * stride);
+	    final int otherIndex = other.offset + (row * other.stride);
+
+	    for ( int col = 0; col < cols; col++ ) {
+		if ( Double.doubleToLongBits( elements[index + col] ) != Double
+			.doubleToLongBits( other.elements[otherIndex + col] ) ) {
+		    return false;
+		}
+	    }
+	}
+
+	return true;
+    }
+
+}
@@ -0,0 +1,624 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Dense matrix whose elements are stored row by row in one array of single
+ * precision numbers. Matrix needs half of memory of {@link FlatMatrix}, so
+ * operations which are limited by memory bandwidth are up to two times
+ * faster. Elements are rounded to float when they are set, but sums of
+ * products are accumulated in double precision, so error of product does not
+ * grow with number of columns.
+ * <p>
+ * Results of operations that create new matrices are also float matrices.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class FloatMatrix extends AbstractMatrix implements BulkCopyMatrix {
+
+    /**
+     * Number of elements of second matrix read in one panel, and number of
+     * sums in double precision kept for one block of rows of product
+     */
+    private static final int PANEL = 1 << 14;
+
+    /**
+     * Minimal number of multiplications calculated by one parallel task
+     */
+    private static final long MIN_TASK_WORK = 64 * 64 * 64;
+
+    /**
+     * Elements of matrix stored row by row
+     */
+    private final float[] elements;
+
+    /**
+     * Number of rows
+     */
+    private final int rows;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * Creates new matrix. All elements of new matrix are 0.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @throws IllegalArgumentException
+     *             if matrix has more elements than array can hold
+     */
+    public FloatMatrix(int rows, int cols) {
+
+	this( rows, cols, new float[FlatMatrix.arraySize( rows, cols )], true );
+    }
+
+    /**
+     * Creates new matrix from elements stored row by row.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @param elements
+     *            elements of matrix stored row by row
+     * @param shallowCopy
+     *            true if changes on matrix change provided elements.
+     * @throws IllegalArgumentException
+     *             if number of elements is not <code>rows * cols</code>
+     */
+    public FloatMatrix(int rows, int cols, float[] elements,
+	    boolean shallowCopy) {
+
+	if ( (rows < 0) || (cols < 0)
+		|| (elements.length != ((long) rows * cols)) ) {
+	    throw new IllegalArgumentException( "wrong size of elements" );
+	}
+
+	this.rows = rows;
+	this.cols = cols;
+	this.elements = shallowCopy ? elements : elements.clone();
+    }
+
+    /**
+     * Creates float matrix with elements of provided matrix rounded to
+     * single precision.
+     * 
+     * @param matrix
+     *            matrix to be converted
+     * @return new float matrix
+     * @throws IllegalArgumentException
+     *             if matrix has more elements than array can hold
+     */
+    public static FloatMatrix valueOf( IMatrix matrix ) {
+
+	if ( matrix instanceof FloatMatrix ) {
+	    return (FloatMatrix) matrix.copy();
+	}
+
+	final int rows = matrix.getRowsCount();
+	final int cols = matrix.getColsCount();
+	final float[] elements = new float[FlatMatrix.arraySize( rows, cols )];
+
+	if ( matrix instanceof ArrayBackedMatrix ) {
+	    final ArrayBackedMatrix source = (ArrayBackedMatrix) matrix;
+	    final int stride = source.colStride();
+
+	    for ( int row = 0, index = 0; row < rows; row++ ) {
+		final double[] array = source.rowArray( row );
+		final int offset = source.rowOffset( row );
+
+		for ( int col = 0; col < cols; col++, index++ ) {
+		    elements[index] = (float) array[offset + (col * stride)];
+		}
+	    }
+	} else {
+	    for ( int row = 0, index = 0; row < rows; row++ ) {
+		for ( int col = 0; col < cols; col++, index++ ) {
+		    elements[index] = (float) matrix.get( row, col );
+		}
+	    }
+	}
+
+	return new FloatMatrix( rows, cols, elements, true );
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows
+     */
+    @Override
+    public int getRowsCount() {
+
+	return rows;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns
+     */
+    @Override
+    public int getColsCount() {
+
+	return cols;
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return element at specified row and column
+     */
+    @Override
+    public double get( int row, int col ) {
+
+	if ( (row >= rows) || (col >= cols) || (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	return elements[(row * cols) + col];
+    }
+
+    /**
+     * Element setter. Value is rounded to single precision.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return this matrix
+     */
+    @Override
+    public IMatrix set( int row, int col, double value ) {
+
+	if ( (row >= rows) || (col >= cols) || (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	elements[(row * cols) + col] = (float) value;
+
+	return this;
+    }
+
+    /**
+     * Copies this matrix. Changes on copy does not take affect on this matrix.
+     * 
+     * @return new float matrix with same elements.
+     */
+    @Override
+    public IMatrix copy() {
+
+	return new FloatMatrix( rows, cols, elements.clone(), true );
+    }
+
+    /**
+     * Returns new float matrix. All elements of new instance are 0.
+     * 
+     * @param rows
+     *            number of rows.
+     * @param cols
+     *            number of columns.
+     */
+    @Override
+    public IMatrix newInstance( int rows, int cols ) {
+
+	return new FloatMatrix( rows, cols );
+    }
+
+    /**
+     * Adds provided matrix to this matrix. Elements of other float matrix are
+     * added directly from its array.
+     * 
+     * @param other
+     *            matrix to be added
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have different dimensions
+     */
+    @Override
+    public IMatrix add( IMatrix other ) {
+
+	if ( other instanceof FloatMatrix ) {
+	    return addScaled( (FloatMatrix) other, 1.0f );
+	}
+
+	return super.add( other );
+    }
+
+    /**
+     * Subtracts provided matrix from this matrix. Elements of other float
+     * matrix are subtracted directly from its array.
+     * 
+     * @param other
+     *            matrix to be subtracted
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have different dimensions
+     */
+    @Override
+    public IMatrix sub( IMatrix other ) {
+
+	if ( other instanceof FloatMatrix ) {
+	    return addScaled( (FloatMatrix) other, -1.0f );
+	}
+
+	return super.sub( other );
+    }
+
+    /**
+     * Adds multiple of other float matrix to this matrix.
+     * 
+     * @param other
+     *            float matrix of same dimensions
+     * @param factor
+     *            multiple of other matrix
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have different dimensions
+     */
+    private IMatrix addScaled( FloatMatrix other, float factor ) {
+
+	if ( (rows != other.rows) || (cols != other.cols) ) {
+	    throw new IncompatibleOperandException(
+		    "Matrices must have same dimensions" );
+	}
+
+	VectorKernels.axpy( factor, other.elements, 0, elements, 0,
+		elements.length );
+
+	return this;
+    }
+
+    /**
+     * Multiplies all elements of this matrix with provided value.
+     * 
+     * @param value
+     *            scalar
+     * @return this matrix
+     */
+    @Override
+    public IMatrix scalarMultiply( double value ) {
+
+	VectorKernels.scale( elements, 0, (float) value, elements.length );
+
+	return this;
+    }
+
+    /**
+     * Multiplies this matrix with provided matrix. Product with other float
+     * matrix is calculated from panels of rows of second matrix, which are
+     * read in single precision and converted to double precision by kernel.
+     * Every block of rows of product is accumulated in double precision over
+     * all panels and rounded to single precision only once. Products with at
+     * least {@link LinAlgDefaults#getParallelThreshold()} multiplications are
+     * split by rows and calculated in pool returned by
+     * {@link LinAlgDefaults#getMultiplicationPool()}.
+     * 
+     * @param other
+     *            matrix to be multiplied
+     * @return new float matrix with product
+     * @throws IncompatibleOperandException
+     *             if this matrix hasn't number of columns as provided matrix
+     *             rows
+     */
+    @Override
+    public IMatrix nMultiply( IMatrix other ) {
+
+	if ( !(other instanceof FloatMatrix) ) {
+	    return super.nMultiply( other );
+	}
+
+	if ( cols != other.getRowsCount() ) {
+	    throw new IncompatibleOperandException(
+		    "First matrix must have same number of columns as second matrix rows!" );
+	}
+
+	final FloatMatrix b = (FloatMatrix) other;
+	final FloatMatrix product = new FloatMatrix( rows, b.cols );
+	final int panelRows = Math.max( 1, Math.min( cols, PANEL
+		/ Math.max( b.cols, 1 ) ) );
+
+	final ForkJoinPool pool = LinAlgDefaults.getMultiplicationPool();
+	final long work = (long) rows * cols * b.cols;
+
+	if ( (pool == null) || (pool.getParallelism() < 2)
+		|| (work < LinAlgDefaults.getParallelThreshold()) ) {
+	    multiply( b, panelRows, product, 0, rows );
+	} else {
+	    final long rowWork = Math.max( 1L, (long) cols * b.cols );
+	    final int grain = (int) Math.max( 1L, Math.max( MIN_TASK_WORK
+		    / rowWork, rows / (4L * pool.getParallelism()) ) );
+
+	    pool.invoke( new MultiplicationTask( this, b, panelRows, product, 0,
+		    rows, grain ) );
+	}
+
+	return product;
+    }
+
+    /**
+     * Multiplies rows <code>from</code> to <code>to</code> (exclusive) of
+     * this matrix with second matrix and stores them to same rows of product.
+     * Rows are calculated in blocks whose sums in double precision fit in
+     * {@link #PANEL} elements, and rows of second matrix are read in panels
+     * of same size.
+     * 
+     * @param b
+     *            second matrix
+     * @param panelRows
+     *            number of rows of second matrix in one panel
+     * @param product
+     *            matrix to which product is stored
+     * @param from
+     *            first row that is calculated
+     * @param to
+     *            row after last row that is calculated
+     */
+    private void multiply( FloatMatrix b, int panelRows, FloatMatrix product,
+	    int from, int to ) {
+
+	final int n = product.cols;
+	final float[] bElements = b.elements;
+	final float[] cElements = product.elements;
+	final int blockRows = Math.max( 1, PANEL / Math.max( n, 1 ) );
+	final double[] sum = new double[Math.min( blockRows, to - from ) * n];
+
+	for ( int i0 = from; i0 < to; i0 += blockRows ) {
+	    final int i1 = Math.min( i0 + blockRows, to );
+
+	    Arrays.fill( sum, 0.0 );
+
+	    for ( int k0 = 0; k0 < cols; k0 += panelRows ) {
+		final int k1 = Math.min( k0 + panelRows, cols );
+
+		for ( int i = i0; i < i1; i++ ) {
+		    final int rowA = i * cols;
+		    final int rowSum = (i - i0) * n;
+
+		    for ( int k = k0; k < k1; k++ ) {
+			final double value = elements[rowA + k];
+
+			if ( value == 0.0 ) {
+			    continue;
+			}
+
+			VectorKernels.axpy( value, bElements, k * n, sum, rowSum,
+				n );
+		    }
+		}
+	    }
+
+	    for ( int index = 0, target = i0 * n, end = (i1 - i0) * n; index < end; index++, target++ ) {
+		cElements[target] = (float) sum[index];
+	    }
+	}
+    }
+
+    /**
+     * Multiplies this matrix with provided vector. Every element of result is
+     * scalar product of one row and vector, accumulated in double precision.
+     * 
+     * @param vector
+     *            vector to be multiplied
+     * @return new float vector with product
+     * @throws IncompatibleOperandException
+     *             if dimension of vector is not same as number of columns
+     */
+    public FloatVector multiply( FloatVector vector ) {
+
+	if ( vector.getDimension() != cols ) {
+	    throw new IncompatibleOperandException(
+		    "Vector must have same dimension as number of matrix columns" );
+	}
+
+	final float[] x = vector.elements;
+	final float[] y = new float[rows];
+
+	for ( int row = 0; row < rows; row++ ) {
+	    y[row] = (float) VectorKernels.dot( elements, row * cols, x, 0, cols );
+	}
+
+	return new FloatVector( true, y );
+    }
+
+    /**
+     * Creates matrix with elements of this matrix in double precision.
+     * 
+     * @return new matrix
+     */
+    public Matrix toMatrix() {
+
+	final double[][] array = toArray();
+	return new Matrix( rows, cols, array, true );
+    }
+
+    /**
+     * Returns two dimensional array with elements of matrix.
+     * 
+     * @return elements of matrix
+     */
+    @Override
+    public double[][] toArray() {
+
+	final double[][] array = new double[rows][cols];
+
+	for ( int row = 0, index = 0; row < rows; row++ ) {
+	    final double[] target = array[row];
+
+	    for ( int col = 0; col < cols; col++, index++ ) {
+		target[col] = elements[index];
+	    }
+	}
+
+	return array;
+    }
+
+    /**
+     * Returns elements of matrix stored row by row in new array.
+     * 
+     * @return elements of matrix
+     */
+    public float[] toFlatArray() {
+
+	return elements.clone();
+    }
+
+    /**
+     * Copies elements of this matrix to array in double precision.
+     * 
+     * @param target
+     *            array with space for all elements stored row by row
+     */
+    @Override
+    public void copyTo( double[] target ) {
+
+	for ( int i = 0; i < elements.length; i++ ) {
+	    target[i] = elements[i];
+	}
+    }
+
+    /**
+     * Returns hash code of matrix. Hash codes of matrices with same values of
+     * elements are equal.
+     * 
+     * @return hash code of matrix.
+     */
+    @Override
+    public int hashCode() {
+
+	final int prime = 31;
+	int result = 1;
+	result = (prime * result) + cols;
+	result = (prime * result) + Arrays.hashCode( elements );
+	result = (prime * result) + rows;
+	return result;
+    }
+
+    /**
+     * Checks if matrices are equal. Matrices are considered equal if they are
+     * float matrices with same values of elements.
+     * 
+     * @return <code>true</code> if and only is matrices have same size, and
+     *          values of elements are same.
+     */
+    @Override
+    public boolean equals( Object obj ) {
+
+	if ( this == obj ) {
+	    return true;
+	}
+	if ( !(obj instanceof FloatMatrix) ) {
+	    return false;
+	}
+	final FloatMatrix other = (FloatMatrix) obj;
+
+	return (rows == other.rows) && (cols == other.cols)
+		&& Arrays.equals( elements, other.elements );
+    }
+
+    /**
+     * Parallel task which multiplies block of rows.
+     */
+    private static class MultiplicationTask extends RecursiveAction {
+
+	/**
+	 * Serial version UID
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * First matrix
+	 */
+	private final FloatMatrix a;
+
+	/**
+	 * Second matrix
+	 */
+	private final FloatMatrix b;
+
+	/**
+	 * Number of rows of second matrix in one panel
+	 */
+	private final int panelRows;
+
+	/**
+	 * Matrix to which product is stored
+	 */
+	private final FloatMatrix product;
+
+	/**
+	 * First row of block
+	 */
+	private final int from;
+
+	/**
+	 * Row after last row of block
+	 */
+	private final int to;
+
+	/**
+	 * Maximal number of rows calculated without splitting
+	 */
+	private final int grain;
+
+	/**
+	 * Creates new task.
+	 * 
+	 * @param a
+	 *            first matrix
+	 * @param b
+	 *            second matrix
+	 * @param panelRows
+	 *            number of rows of second matrix in one panel
+	 * @param product
+	 *            matrix to which product is stored
+	 * @param from
+	 *            first row of block
+	 * @param to
+	 *            row after last row of block
+	 * @param grain
+	 *            maximal number of rows calculated without splitting
+	 */
+	MultiplicationTask(FloatMatrix a, FloatMatrix b, int panelRows,
+		FloatMatrix product, int from, int to, int grain) {
+
+	    this.a = a;
+	    this.b = b;
+	    this.panelRows = panelRows;
+	    this.product = product;
+	    this.from = from;
+	    this.to = to;
+	    this.grain = grain;
+	}
+
+	/**
+	 * Multiplies block of rows, or splits it in two halves.
+	 */
+	@Override
+	protected void compute() {
+
+	    if ( (to - from) <= grain ) {
+		a.multiply( b, panelRows, product, from, to );
+		return;
+	    }
+
+	    final int middle = (from + to) >>> 1;
+
+	    invokeAll( new MultiplicationTask( a, b, panelRows, product, from,
+		    middle, grain ), new MultiplicationTask( a, b, panelRows,
+		    product, middle, to, grain ) );
+	}
+    }
+}
@@ -0,0 +1,323 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Arrays;
+
+/**
+ * Vector whose elements are stored in array of single precision numbers.
+ * Elements are rounded to float when they are set, but scalar products and
+ * norms are accumulated in double precision.
+ * <p>
+ * Results of operations that create new vectors are also float vectors.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class FloatVector extends AbstractVector {
+
+    /**
+     * Elements of vector
+     */
+    final float[] elements;
+
+    /**
+     * Creates new vector from specified elements.
+     * 
+     * @param elements
+     *            elements of vector.
+     */
+    public FloatVector(float ... elements) {
+
+	this( false, elements );
+    }
+
+    /**
+     * Creates new vector from specified elements.
+     * 
+     * @param shallowCopy
+     *            true if changes on this vector sholud take effect on provided
+     *            elements
+     * @param elements
+     *            elements of vector.
+     */
+    public FloatVector(boolean shallowCopy, float ... elements) {
+
+	this.elements = shallowCopy ? elements : elements.clone();
+    }
+
+    /**
+     * Creates float vector with elements of provided vector rounded to single
+     * precision.
+     * 
+     * @param vector
+     *            vector to be converted
+     * @return new float vector
+     */
+    public static FloatVector valueOf( IVector vector ) {
+
+	if ( vector instanceof FloatVector ) {
+	    return (FloatVector) vector.copy();
+	}
+
+	final float[] elements = new float[vector.getDimension()];
+
+	for ( int i = 0; i < elements.length; i++ ) {
+	    elements[i] = (float) vector.get( i );
+	}
+
+	return new FloatVector( true, elements );
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param index
+     *            index of element.
+     */
+    @Override
+    public double get( int index ) {
+
+	return elements[index];
+    }
+
+    /**
+     * Element setter. Value is rounded to single precision.
+     * 
+     * @param index
+     *            index of element.
+     * @param value
+     *            new value of element.
+     * @return this vector
+     */
+    @Override
+    public IVector set( int index, double value ) {
+
+	elements[index] = (float) value;
+	return this;
+    }
+
+    /**
+     * Dimension getter.
+     * 
+     * @return dimension of vector
+     */
+    @Override
+    public int getDimension() {
+
+	return elements.length;
+    }
+
+    /**
+     * Copies this vector.
+     * 
+     * @return new float vector with same elements
+     */
+    @Override
+    public IVector copy() {
+
+	return new FloatVector( true, elements.clone() );
+    }
+
+    /**
+     * Returns new float vector. All elements of new instance are 0.
+     * 
+     * @param dimension
+     *            dimension of new vector.
+     */
+    @Override
+    public IVector newInstance( int dimension ) {
+
+	return new FloatVector( true, new float[dimension] );
+    }
+
+    /**
+     * Adds provided vector to this vector. Elements of other float vector are
+     * added directly from its array.
+     * 
+     * @param other
+     *            vector to be added
+     * @return this vector
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are different
+     */
+    @Override
+    public IVector add( IVector other ) throws IncompatibleOperandException {
+
+	if ( other instanceof FloatVector ) {
+	    return addScaled( (FloatVector) other, 1.0f );
+	}
+
+	return super.add( other );
+    }
+
+    /**
+     * Subtracts provided vector from this vector. Elements of other float
+     * vector are subtracted directly from its array.
+     * 
+     * @param other
+     *            vector to be subtracted
+     * @return this vector
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are different
+     */
+    @Override
+    public IVector sub( IVector other ) throws IncompatibleOperandException {
+
+	if ( other instanceof FloatVector ) {
+	    return addScaled( (FloatVector) other, -1.0f );
+	}
+
+	return super.sub( other );
+    }
+
+    /**
+     * Adds multiple of other float vector to this vector.
+     * 
+     * @param other
+     *            float vector of same dimension
+     * @param factor
+     *            multiple of other vector
+     * @return this vector
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are different
+     */
+    private IVector addScaled( FloatVector other, float factor ) {
+
+	if ( elements.length != other.elements.length ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add vector with different dimnesion" );
+	}
+
+	VectorKernels.axpy( factor, other.elements, 0, elements, 0,
+		elements.length );
+
+	return this;
+    }
+
+    /**
+     * Multiplies all elements of this vector with provided value.
+     * 
+     * @param byValue
+     *            scalar
+     * @return this vector
+     */
+    @Override
+    public IVector scalarMultiply( double byValue ) {
+
+	VectorKernels.scale( elements, 0, (float) byValue, elements.length );
+
+	return this;
+    }
+
+    /**
+     * Calculates scalar product of this and provided vector. Product with
+     * other float vector is accumulated in double precision directly from
+     * arrays.
+     * 
+     * @param other
+     *            vector
+     * @return scalar product of vectors
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are not same
+     */
+    @Override
+    public double scalarProduct( IVector other )
+	    throws IncompatibleOperandException {
+
+	if ( !(other instanceof FloatVector) ) {
+	    return super.scalarProduct( other );
+	}
+
+	if ( elements.length != other.getDimension() ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot calculate scalar product of vectors with different dimnesion" );
+	}
+
+	return VectorKernels.dot( elements, 0, ((FloatVector) other).elements, 0,
+		elements.length );
+    }
+
+    /**
+     * Calculates norm of this vector. Squares of elements are accumulated in
+     * double precision.
+     * 
+     * @return norm of vector
+     */
+    @Override
+    public double norm() {
+
+	return Math.sqrt( VectorKernels.dot( elements, 0, elements, 0,
+		elements.length ) );
+    }
+
+    /**
+     * Returns array with elements of vector in double precision.
+     * 
+     * @return array of elements
+     */
+    @Override
+    public double[] toArray() {
+
+	final double[] array = new double[elements.length];
+
+	for ( int i = 0; i < array.length; i++ ) {
+	    array[i] = elements[i];
+	}
+
+	return array;
+    }
+
+    /**
+     * Creates vector with elements of this vector in double precision.
+     * 
+     * @return new vector
+     */
+    public Vector toVector() {
+
+	return new Vector( false, true, toArray() );
+    }
+
+    /**
+     * Returns array with elements of vector.
+     * 
+     * @return new array of elements
+     */
+    public float[] toFloatArray() {
+
+	return elements.clone();
+    }
+
+    /**
+     * Returns hash code of vector. Hash codes of vectors with same values of
+     * elements are equal.
+     * 
+     * @return hash code of vector.
+     */
+    @Override
+    public int hashCode() {
+
+	return Arrays.hashCode( elements );
+    }
+
+    /**
+     * Checks if vectors are equal. Vectors are considered equal if they are
+     * float vectors with same values of elements.
+     * 
+     * @param obj
+     *            vector to be compared with
+     * 
+     * @return true if and only is vectors have same size, and values of
+     *         elements are same.
+     */
+    @Override
+    public boolean equals( Object obj ) {
+
+	if ( this == obj ) {
+	    return true;
+	}
+	if ( !(obj instanceof FloatVector) ) {
+	    return false;
+	}
+
+	return Arrays.equals( elements, ((FloatVector) obj).elements );
+    }
+}
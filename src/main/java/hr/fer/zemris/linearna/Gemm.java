@@ -0,0 +1,569 @@
+package hr.fer.zemris.linearna;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multiplication kernel for matrices stored in arrays. Matrices are split in
+ * blocks that fit in processor caches. Blocks are copied (packed) in small
+ * contiguous panels, so the innermost loop reads both operands sequentially
+ * and keeps block of 4x4 results in registers.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+final class Gemm {
+
+    /**
+     * Number of rows of block of results kept in registers
+     */
+    private static final int MR = 4;
+
+    /**
+     * Number of columns of block of results kept in registers
+     */
+    private static final int NR = 4;
+
+    /**
+     * Number of rows of packed block of first matrix
+     */
+    private static final int MC = 96;
+
+    /**
+     * Number of columns of first matrix (rows of second matrix) in packed
+     * blocks
+     */
+    private static final int KC = 256;
+
+    /**
+     * Number of columns of packed block of second matrix
+     */
+    private static final int NC = 2048;
+
+    /**
+     * Products with less multiplications are computed without packing
+     */
+    private static final long SMALL_PRODUCT = 32 * 32 * 32;
+
+    /**
+     * Minimal number of multiplications calculated by one parallel task
+     */
+    private static final long MIN_TASK_WORK = 64 * 64 * 64;
+
+    /**
+     * Number of parallel tasks created for every thread of pool, so threads
+     * that finish early can steal work from others
+     */
+    private static final int TASKS_PER_THREAD = 4;
+
+    /**
+     * Kernel has only static methods.
+     */
+    private Gemm() {
+
+    }
+
+    /**
+     * Multiplies matrices and adds product to third matrix. Products with at
+     * least {@link LinAlgDefaults#getParallelThreshold()} multiplications are
+     * split in blocks that are calculated in pool returned by
+     * {@link LinAlgDefaults#getMultiplicationPool()}.
+     * 
+     * @param a
+     *            first matrix
+     * @param b
+     *            second matrix
+     * @param c
+     *            matrix to which product is added
+     */
+    static void multiply( ArrayBackedMatrix a, ArrayBackedMatrix b,
+	    ArrayBackedMatrix c ) {
+
+	multiply( a, b, c, LinAlgDefaults.getMultiplicationPool(),
+		LinAlgDefaults.getParallelThreshold() );
+    }
+
+    /**
+     * Multiplies matrices and adds product to third matrix. Products with at
+     * least <code>threshold</code> multiplications are split in blocks that
+     * are calculated in provided pool.
+     * 
+     * @param a
+     *            first matrix
+     * @param b
+     *            second matrix
+     * @param c
+     *            matrix to which product is added
+     * @param pool
+     *            pool in which blocks are calculated, or <code>null</code> if
+     *            product should be calculated in current thread
+     * @param threshold
+     *            minimal number of multiplications for parallel calculation
+     */
+    static void multiply( ArrayBackedMatrix a, ArrayBackedMatrix b,
+	    ArrayBackedMatrix c, ForkJoinPool pool, long threshold ) {
+
+	final int rows = a.getRowsCount();
+	final int cols = b.getColsCount();
+	final long work = (long) rows * cols * a.getColsCount();
+
+	if ( (pool == null) || (pool.getParallelism() < 2)
+		|| (work < threshold) ) {
+	    multiply( a, b, c, 0, rows, 0, cols );
+	    return;
+	}
+
+	final long grain = Math.max( MIN_TASK_WORK, work
+		/ (TASKS_PER_THREAD * pool.getParallelism()) );
+
+	pool.invoke( new MultiplicationTask( a, b, c, 0, rows, 0, cols, grain ) );
+    }
+
+    /**
+     * Multiplies block of rows <code>rowFrom</code> to <code>rowTo</code>
+     * (exclusive) of first matrix with block of columns <code>colFrom</code>
+     * to <code>colTo</code> (exclusive) of second matrix and adds product to
+     * same block of third matrix.
+     * 
+     * @param a
+     *            first matrix
+     * @param b
+     *            second matrix
+     * @param c
+     *            matrix to which product is added
+     * @param rowFrom
+     *            first row that is calculated
+     * @param rowTo
+     *            row after last row that is calculated
+     * @param colFrom
+     *            first column that is calculated
+     * @param colTo
+     *            column after last column that is calculated
+     */
+    static void multiply( ArrayBackedMatrix a, ArrayBackedMatrix b,
+	    ArrayBackedMatrix c, int rowFrom, int rowTo, int colFrom, int colTo ) {
+
+	final int m = rowTo - rowFrom;
+	final int n = colTo - colFrom;
+	final int k = a.getColsCount();
+
+	if ( (m <= 0) || (n <= 0) || (k == 0) ) {
+	    return;
+	}
+
+	if ( ((long) m * n * k) < SMALL_PRODUCT ) {
+	    multiplySmall( a, b, c, rowFrom, rowTo, colFrom, colTo );
+	    return;
+	}
+
+	final double[] packedA = new double[roundUp( Math.min( MC, m ), MR )
+		* Math.min( KC, k )];
+	final double[] packedB = new double[roundUp( Math.min( NC, n ), NR )
+		* Math.min( KC, k )];
+
+	for ( int jc = colFrom; jc < colTo; jc += NC ) {
+	    final int nc = Math.min( NC, colTo - jc );
+
+	    for ( int pc = 0; pc < k; pc += KC ) {
+		final int kc = Math.min( KC, k - pc );
+
+		packB( b, pc, kc, jc, nc, packedB );
+
+		for ( int ic = rowFrom; ic < rowTo; ic += MC ) {
+		    final int mc = Math.min( MC, rowTo - ic );
+
+		    packA( a, ic, mc, pc, kc, packedA );
+		    multiplyBlock( packedA, packedB, mc, nc, kc, c, ic, jc );
+		}
+	    }
+	}
+    }
+
+    /**
+     * Multiplies matrices row by row without packing. Used for small matrices
+     * where packing costs more than it saves.
+     * 
+     * @param a
+     *            first matrix
+     * @param b
+     *            second matrix
+     * @param c
+     *            matrix to which product is added
+     * @param rowFrom
+     *            first row that is calculated
+     * @param rowTo
+     *            row after last row that is calculated
+     * @param colFrom
+     *            first column that is calculated
+     * @param colTo
+     *            column after last column that is calculated
+     */
+    private static void multiplySmall( ArrayBackedMatrix a,
+	    ArrayBackedMatrix b, ArrayBackedMatrix c, int rowFrom, int rowTo,
+	    int colFrom, int colTo ) {
+
+	final int k = a.getColsCount();
+
+	final int aStride = a.colStride();
+	final int bStride = b.colStride();
+	final int cStride = c.colStride();
+
+	for ( int row = rowFrom; row < rowTo; row++ ) {
+	    final double[] aRow = a.rowArray( row );
+	    final int aOffset = a.rowOffset( row );
+	    final double[] cRow = c.rowArray( row );
+	    final int cOffset = c.rowOffset( row ) + (colFrom * cStride);
+
+	    for ( int i = 0; i < k; i++ ) {
+		final double value = aRow[aOffset + (i * aStride)];
+		final double[] bRow = b.rowArray( i );
+		final int bOffset = b.rowOffset( i ) + (colFrom * bStride);
+		final int n = colTo - colFrom;
+
+		if ( (bStride == 1) && (cStride == 1) ) {
+		    VectorKernels.axpy( value, bRow, bOffset, cRow, cOffset, n );
+		    continue;
+		}
+
+		for ( int col = 0; col < n; col++ ) {
+		    cRow[cOffset + (col * cStride)] += value
+			    * bRow[bOffset + (col * bStride)];
+		}
+	    }
+	}
+    }
+
+    /**
+     * Copies block of first matrix in panels of {@link #MR} rows. Elements of
+     * one panel are stored column by column. Missing rows of last panel are
+     * filled with zeros.
+     * 
+     * @param a
+     *            first matrix
+     * @param rowFrom
+     *            first row of block
+     * @param rows
+     *            number of rows of block
+     * @param colFrom
+     *            first column of block
+     * @param cols
+     *            number of columns of block
+     * @param packed
+     *            array in which block is copied
+     */
+    private static void packA( ArrayBackedMatrix a, int rowFrom, int rows,
+	    int colFrom, int cols, double[] packed ) {
+
+	final int stride = a.colStride();
+
+	for ( int panel = 0; panel < rows; panel += MR ) {
+	    final int panelOffset = panel * cols;
+
+	    for ( int r = 0; r < MR; r++ ) {
+		int index = panelOffset + r;
+
+		if ( (panel + r) < rows ) {
+		    final int row = rowFrom + panel + r;
+		    final double[] array = a.rowArray( row );
+		    int source = a.rowOffset( row ) + (colFrom * stride);
+
+		    for ( int col = 0; col < cols; col++, index += MR, source += stride ) {
+			packed[index] = array[source];
+		    }
+		} else {
+		    for ( int col = 0; col < cols; col++, index += MR ) {
+			packed[index] = 0.0;
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Copies block of second matrix in panels of {@link #NR} columns. Elements
+     * of one panel are stored row by row. Missing columns of last panel are
+     * filled with zeros.
+     * 
+     * @param b
+     *            second matrix
+     * @param rowFrom
+     *            first row of block
+     * @param rows
+     *            number of rows of block
+     * @param colFrom
+     *            first column of block
+     * @param cols
+     *            number of columns of block
+     * @param packed
+     *            array in which block is copied
+     */
+    private static void packB( ArrayBackedMatrix b, int rowFrom, int rows,
+	    int colFrom, int cols, double[] packed ) {
+
+	final int stride = b.colStride();
+	final int panelSize = rows * NR;
+
+	for ( int r = 0; r < rows; r++ ) {
+	    final double[] array = b.rowArray( rowFrom + r );
+	    int source = b.rowOffset( rowFrom + r ) + (colFrom * stride);
+
+	    for ( int panel = 0, index = r * NR; panel < cols; panel += NR, index += panelSize ) {
+		for ( int c = 0; c < NR; c++ ) {
+		    if ( (panel + c) < cols ) {
+			packed[index + c] = array[source];
+			source += stride;
+		    } else {
+			packed[index + c] = 0.0;
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Multiplies packed blocks and adds product to matrix.
+     * 
+     * @param packedA
+     *            packed block of first matrix
+     * @param packedB
+     *            packed block of second matrix
+     * @param rows
+     *            number of rows of block of first matrix
+     * @param cols
+     *            number of columns of block of second matrix
+     * @param depth
+     *            number of columns of block of first matrix
+     * @param c
+     *            matrix to which product is added
+     * @param row
+     *            row of matrix c where product starts
+     * @param col
+     *            column of matrix c where product starts
+     */
+    private static void multiplyBlock( double[] packedA, double[] packedB,
+	    int rows, int cols, int depth, ArrayBackedMatrix c, int row,
+	    int col ) {
+
+	final double[] result = new double[MR * NR];
+
+	for ( int j = 0; j < cols; j += NR ) {
+	    for ( int i = 0; i < rows; i += MR ) {
+		multiplyPanels( packedA, i * depth, packedB, j * depth, depth,
+			c, row + i, col + j, Math.min( MR, rows - i ),
+			Math.min( NR, cols - j ), result );
+	    }
+	}
+    }
+
+    /**
+     * Multiplies one panel of first matrix with one panel of second matrix.
+     * Block of 4x4 results is calculated by {@link VectorKernels} and added
+     * to matrix at the end.
+     * 
+     * @param packedA
+     *            packed block of first matrix
+     * @param aIndex
+     *            index of panel in packed block of first matrix
+     * @param packedB
+     *            packed block of second matrix
+     * @param bIndex
+     *            index of panel in packed block of second matrix
+     * @param depth
+     *            length of panels
+     * @param c
+     *            matrix to which product is added
+     * @param row
+     *            row of matrix c where product starts
+     * @param col
+     *            column of matrix c where product starts
+     * @param rows
+     *            number of rows that are added to matrix c
+     * @param cols
+     *            number of columns that are added to matrix c
+     * @param result
+     *            array for 4x4 results
+     */
+    private static void multiplyPanels( double[] packedA, int aIndex,
+	    double[] packedB, int bIndex, int depth, ArrayBackedMatrix c,
+	    int row, int col, int rows, int cols, double[] result ) {
+
+	VectorKernels.multiplyPanels( packedA, aIndex, packedB, bIndex, depth,
+		result );
+
+	for ( int r = 0; r < rows; r++ ) {
+	    addToRow( c, row + r, col, cols, result[r * NR],
+		    result[(r * NR) + 1], result[(r * NR) + 2],
+		    result[(r * NR) + 3] );
+	}
+    }
+
+    /**
+     * Adds up to four values to neighbouring elements of one row.
+     * 
+     * @param c
+     *            matrix
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of first element
+     * @param cols
+     *            number of values that are added
+     * @param v0
+     *            first value
+     * @param v1
+     *            second value
+     * @param v2
+     *            third value
+     * @param v3
+     *            fourth value
+     */
+    private static void addToRow( ArrayBackedMatrix c, int row, int col,
+	    int cols, double v0, double v1, double v2, double v3 ) {
+
+	final double[] array = c.rowArray( row );
+	final int stride = c.colStride();
+	final int index = c.rowOffset( row ) + (col * stride);
+
+	array[index] += v0;
+
+	if ( cols > 1 ) {
+	    array[index + stride] += v1;
+	}
+	if ( cols > 2 ) {
+	    array[index + (2 * stride)] += v2;
+	}
+	if ( cols > 3 ) {
+	    array[index + (3 * stride)] += v3;
+	}
+    }
+
+    /**
+     * Task that calculates one block of product. Task splits its block in
+     * halves along longer side until number of multiplications drops under
+     * the grain, so tall and wide products are split equally well.
+     * 
+     * @author Nikola Sekulić
+     * 
+     */
+    private static class MultiplicationTask extends RecursiveAction {
+
+	/**
+	 * Serial version UID
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * First matrix
+	 */
+	private final ArrayBackedMatrix a;
+
+	/**
+	 * Second matrix
+	 */
+	private final ArrayBackedMatrix b;
+
+	/**
+	 * Matrix to which product is added
+	 */
+	private final ArrayBackedMatrix c;
+
+	/**
+	 * First row of block
+	 */
+	private final int rowFrom;
+
+	/**
+	 * Row after last row of block
+	 */
+	private final int rowTo;
+
+	/**
+	 * First column of block
+	 */
+	private final int colFrom;
+
+	/**
+	 * Column after last column of block
+	 */
+	private final int colTo;
+
+	/**
+	 * Maximal number of multiplications calculated without splitting
+	 */
+	private final long grain;
+
+	/**
+	 * Creates new task.
+	 * 
+	 * @param a
+	 *            first matrix
+	 * @param b
+	 *            second matrix
+	 * @param c
+	 *            matrix to which product is added
+	 * @param rowFrom
+	 *            first row of block
+	 * @param rowTo
+	 *            row after last row of block
+	 * @param colFrom
+	 *            first column of block
+	 * @param colTo
+	 *            column after last column of block
+	 * @param grain
+	 *            maximal number of multiplications calculated without
+	 *            splitting
+	 */
+	MultiplicationTask(ArrayBackedMatrix a, ArrayBackedMatrix b,
+		ArrayBackedMatrix c, int rowFrom, int rowTo, int colFrom,
+		int colTo, long grain) {
+
+	    this.a = a;
+	    this.b = b;
+	    this.c = c;
+	    this.rowFrom = rowFrom;
+	    this.rowTo = rowTo;
+	    this.colFrom = colFrom;
+	    this.colTo = colTo;
+	    this.grain = grain;
+	}
+
+	@Override
+	protected void compute() {
+
+	    final int rows = rowTo - rowFrom;
+	    final int cols = colTo - colFrom;
+	    final long work = (long) rows * cols * a.getColsCount();
+
+	    if ( (work <= grain) || ((rows <= MR) && (cols <= NR)) ) {
+		multiply( a, b, c, rowFrom, rowTo, colFrom, colTo );
+		return;
+	    }
+
+	    if ( (rows > MR) && ((cols <= NR) || ((rows / MR) >= (cols / NR))) ) {
+		final int middle = rowFrom + roundUp( rows / 2, MR );
+		invokeAll( new MultiplicationTask( a, b, c, rowFrom, middle,
+			colFrom, colTo, grain ), new MultiplicationTask( a, b,
+			c, middle, rowTo, colFrom, colTo, grain ) );
+	    } else {
+		final int middle = colFrom + roundUp( cols / 2, NR );
+		invokeAll( new MultiplicationTask( a, b, c, rowFrom, rowTo,
+			colFrom, middle, grain ), new MultiplicationTask( a, b,
+			c, rowFrom, rowTo, middle, colTo, grain ) );
+	    }
+	}
+    }
+
+    /**
+     * Rounds number up to multiple of provided factor.
+     * 
+     * @param value
+     *            number to be rounded
+     * @param factor
+     *            factor
+     * @return smallest multiple of factor not less than value
+     */
+    private static int roundUp( int value, int factor ) {
+
+	return ((value + factor) - 1) / factor * factor;
+    }
+}
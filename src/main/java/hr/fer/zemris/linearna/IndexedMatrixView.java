@@ -0,0 +1,288 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * View on elements stored in one array, whose rows and columns are selected
+ * by index maps. Element at position (row, col) is stored at index
+ * <code>rowOffsets[row] + colOffsets[col]</code> of array. Removing rows and
+ * columns and transposing only create new index maps, so element of any
+ * composition of views is accessed with one index computation. Any change on
+ * view changes array.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class IndexedMatrixView extends AbstractMatrix {
+
+    /**
+     * Array with elements
+     */
+    private final double[] elements;
+
+    /**
+     * Index of first element of every row in array
+     */
+    private final int[] rowOffsets;
+
+    /**
+     * Distance of element of every column from first element of its row
+     */
+    private final int[] colOffsets;
+
+    /**
+     * Creates new view. Index maps are not copied.
+     * 
+     * @param elements
+     *            array with elements
+     * @param rowOffsets
+     *            index of first element of every row in array
+     * @param colOffsets
+     *            distance of element of every column from first element of
+     *            its row
+     */
+    private IndexedMatrixView(double[] elements, int[] rowOffsets,
+	    int[] colOffsets) {
+
+	this.elements = elements;
+	this.rowOffsets = rowOffsets;
+	this.colOffsets = colOffsets;
+    }
+
+    /**
+     * Creates view on array with provided index maps. If rows and columns are
+     * equally spaced in array, {@link StridedMatrixView} is returned. Index
+     * maps are not copied.
+     * 
+     * @param elements
+     *            array with elements
+     * @param rowOffsets
+     *            index of first element of every row in array
+     * @param colOffsets
+     *            distance of element of every column from first element of
+     *            its row
+     * @return view on array
+     */
+    static IMatrix view( double[] elements, int[] rowOffsets, int[] colOffsets ) {
+
+	final int rowStride = stride( rowOffsets );
+	final int colStride = stride( colOffsets );
+
+	if ( (rowStride < 0) || (colStride < 0) ) {
+	    return new IndexedMatrixView( elements, rowOffsets, colOffsets );
+	}
+
+	final int rows = rowOffsets.length;
+	final int cols = colOffsets.length;
+	final int offset = (rows == 0) || (cols == 0) ? 0 : rowOffsets[0]
+		+ colOffsets[0];
+
+	return new StridedMatrixView( rows, cols, elements, offset, rowStride,
+		colStride );
+    }
+
+    /**
+     * Calculates offsets of equally spaced rows or columns, without one of
+     * them.
+     * 
+     * @param first
+     *            offset of first row or column
+     * @param stride
+     *            distance between two neighbouring rows or columns
+     * @param count
+     *            number of rows or columns
+     * @param removed
+     *            row or column that is removed
+     * @return offsets of remaining rows or columns
+     */
+    static int[] offsetsWithout( int first, int stride, int count, int removed ) {
+
+	final int[] offsets = new int[count - 1];
+
+	for ( int i = 0; i < offsets.length; i++ ) {
+	    offsets[i] = first + ((i < removed ? i : i + 1) * stride);
+	}
+
+	return offsets;
+    }
+
+    /**
+     * Copies offsets without one of them.
+     * 
+     * @param offsets
+     *            offsets of rows or columns
+     * @param removed
+     *            index of offset that is removed
+     * @return remaining offsets
+     */
+    private static int[] without( int[] offsets, int removed ) {
+
+	final int[] result = new int[offsets.length - 1];
+
+	System.arraycopy( offsets, 0, result, 0, removed );
+	System.arraycopy( offsets, removed + 1, result, removed, result.length
+		- removed );
+
+	return result;
+    }
+
+    /**
+     * Checks if offsets are equally spaced.
+     * 
+     * @param offsets
+     *            offsets of rows or columns
+     * @return distance between neighbouring offsets, or -1 if offsets are not
+     *         equally spaced or distance is negative
+     */
+    private static int stride( int[] offsets ) {
+
+	if ( offsets.length < 2 ) {
+	    return 0;
+	}
+
+	final int stride = offsets[1] - offsets[0];
+
+	for ( int i = 2; i < offsets.length; i++ ) {
+	    if ( (offsets[i] - offsets[i - 1]) != stride ) {
+		return -1;
+	    }
+	}
+
+	return stride;
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows
+     */
+    @Override
+    public int getRowsCount() {
+
+	return rowOffsets.length;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns
+     */
+    @Override
+    public int getColsCount() {
+
+	return colOffsets.length;
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return element at specified row and column
+     */
+    @Override
+    public double get( int row, int col ) {
+
+	return elements[rowOffsets[row] + colOffsets[col]];
+    }
+
+    /**
+     * Element setter. Change of element on this view changes array.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return this matrix
+     */
+    @Override
+    public IMatrix set( int row, int col, double value ) {
+
+	elements[rowOffsets[row] + colOffsets[col]] = value;
+	return this;
+    }
+
+    /**
+     * Copies this matrix. Changes on copy does not take affect on this view.
+     * 
+     * @return new flat matrix with same elements.
+     */
+    @Override
+    public IMatrix copy() {
+
+	final int rows = rowOffsets.length;
+	final int cols = colOffsets.length;
+	final double[] array = new double[rows * cols];
+
+	for ( int row = 0, index = 0; row < rows; row++ ) {
+	    final int first = rowOffsets[row];
+
+	    for ( int col = 0; col < cols; col++, index++ ) {
+		array[index] = elements[first + colOffsets[col]];
+	    }
+	}
+
+	return new FlatMatrix( rows, cols, array, true );
+    }
+
+    /**
+     * Returns new instance of this matrix. All elements of new instance are 0.
+     * 
+     * @param rows
+     *            number of rows.
+     * @param cols
+     *            number of columns.
+     */
+    @Override
+    public IMatrix newInstance( int rows, int cols ) {
+
+	return new FlatMatrix( rows, cols );
+    }
+
+    /**
+     * Creates transposed matrix. Live view is view on same array with swapped
+     * index maps.
+     * 
+     * @param liveView
+     *            true if changes on transposed matrix should change this
+     *            matrix.
+     * @return transposed matrix
+     */
+    @Override
+    public IMatrix nTranspose( boolean liveView ) {
+
+	final IMatrix transposed = new IndexedMatrixView( elements, colOffsets,
+		rowOffsets );
+
+	return liveView ? transposed : transposed.copy();
+    }
+
+    /**
+     * Creates matrix without provided row and column. Live view is view on
+     * same array.
+     * 
+     * @param row
+     *            row that is removed
+     * @param col
+     *            column that is removed
+     * @param liveView
+     *            true if changes on new matrix should change this matrix
+     * @return matrix without provided row and column
+     * @throws IndexOutOfBoundsException
+     *             if row or column is not in matrix
+     */
+    @Override
+    public IMatrix subMatrix( int row, int col, boolean liveView ) {
+
+	if ( (row >= rowOffsets.length) || (col >= colOffsets.length)
+		|| (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	final IMatrix view = view( elements, without( rowOffsets, row ),
+		without( colOffsets, col ) );
+
+	return liveView ? view : view.copy();
+    }
+
+}
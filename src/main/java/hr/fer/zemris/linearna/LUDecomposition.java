@@ -0,0 +1,401 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * LU decomposition of square matrix with partial pivoting. Matrix is factored
+ * once to P * A = L * U, where P is permutation, L is lower triangular matrix
+ * with ones on diagonal and U is upper triangular matrix. Factors are stored
+ * row by row in one array and can be used for any number of determinant,
+ * solve and inverse queries. Determinant costs O(n) and every solved right
+ * hand side costs O(n^2).
+ * <p>
+ * Pivot is treated as zero if its absolute value is not greater than
+ * <code>n * ulp(1) * max|a(i, k)|</code>, where maximum is taken over column
+ * k of decomposed matrix. Factorization stops at first such pivot and matrix
+ * is considered singular.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class LUDecomposition {
+
+    /**
+     * Factors L and U stored row by row. Ones on diagonal of L are not stored.
+     */
+    private final double[] lu;
+
+    /**
+     * Dimension of decomposed matrix
+     */
+    private final int dimension;
+
+    /**
+     * Row of decomposed matrix that is in row i of factors
+     */
+    private final int[] pivot;
+
+    /**
+     * 1 if even number of rows were swapped, -1 otherwise
+     */
+    private int pivotSign;
+
+    /**
+     * True if decomposed matrix is singular
+     */
+    private boolean singular;
+
+    /**
+     * Decomposes provided matrix. Provided matrix is not changed.
+     * 
+     * @param matrix
+     *            matrix to be decomposed
+     * @throws IncompatibleOperandException
+     *             if matrix is not square matrix
+     */
+    public LUDecomposition(IMatrix matrix) {
+
+	this( elementsOfSquare( matrix ), matrix.getRowsCount() );
+    }
+
+    /**
+     * Decomposes matrix stored row by row in provided array. Array is
+     * replaced with factors.
+     * 
+     * @param elements
+     *            elements of matrix stored row by row
+     * @param dimension
+     *            dimension of matrix
+     */
+    LUDecomposition(double[] elements, int dimension) {
+
+	this.dimension = dimension;
+	lu = elements;
+	pivot = new int[dimension];
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    pivot[i] = i;
+	}
+
+	pivotSign = 1;
+	decompose();
+    }
+
+    /**
+     * Copies elements of square matrix row by row to new array.
+     * 
+     * @param matrix
+     *            square matrix
+     * @return elements of matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is not square matrix
+     */
+    static double[] elementsOfSquare( IMatrix matrix ) {
+
+	if ( matrix.getRowsCount() != matrix.getColsCount() ) {
+	    throw new IncompatibleOperandException( "Matrix has to be square" );
+	}
+
+	return FlatMatrix.valueOf( matrix ).elements;
+    }
+
+    /**
+     * Factors matrix stored in {@link #lu} in place.
+     */
+    private void decompose() {
+
+	final int n = dimension;
+	final double[] tolerance = columnTolerances();
+
+	for ( int k = 0; k < n; k++ ) {
+
+	    int max = k;
+	    for ( int i = k + 1; i < n; i++ ) {
+		if ( Math.abs( lu[(i * n) + k] ) > Math.abs( lu[(max * n) + k] ) ) {
+		    max = i;
+		}
+	    }
+
+	    if ( max != k ) {
+		swapRows( max, k );
+	    }
+
+	    final int pivotRow = k * n;
+	    final double pivotValue = lu[pivotRow + k];
+
+	    if ( !(Math.abs( pivotValue ) > tolerance[k]) ) {
+		singular = true;
+		return;
+	    }
+
+	    for ( int i = k + 1; i < n; i++ ) {
+		final int row = i * n;
+		final double factor = lu[row + k] / pivotValue;
+		lu[row + k] = factor;
+
+		if ( factor != 0.0 ) {
+		    for ( int j = k + 1; j < n; j++ ) {
+			lu[row + j] -= factor * lu[pivotRow + j];
+		    }
+		}
+	    }
+	}
+    }
+
+    /**
+     * Calculates tolerance for pivots of every column.
+     * 
+     * @return tolerances for pivots
+     */
+    private double[] columnTolerances() {
+
+	final int n = dimension;
+	final double[] tolerance = new double[n];
+
+	for ( int row = 0, index = 0; row < n; row++ ) {
+	    for ( int col = 0; col < n; col++, index++ ) {
+		tolerance[col] = Math.max( tolerance[col], Math.abs( lu[index] ) );
+	    }
+	}
+
+	final double factor = n * Math.ulp( 1.0 );
+	for ( int col = 0; col < n; col++ ) {
+	    tolerance[col] *= factor;
+	}
+
+	return tolerance;
+    }
+
+    /**
+     * Swaps two rows of factors.
+     * 
+     * @param first
+     *            first row
+     * @param second
+     *            second row
+     */
+    private void swapRows( int first, int second ) {
+
+	final int n = dimension;
+
+	for ( int j = 0, a = first * n, b = second * n; j < n; j++, a++, b++ ) {
+	    final double temp = lu[a];
+	    lu[a] = lu[b];
+	    lu[b] = temp;
+	}
+
+	final int temp = pivot[first];
+	pivot[first] = pivot[second];
+	pivot[second] = temp;
+
+	pivotSign = -pivotSign;
+    }
+
+    /**
+     * Dimension getter.
+     * 
+     * @return dimension of decomposed matrix
+     */
+    public int getDimension() {
+
+	return dimension;
+    }
+
+    /**
+     * Checks if decomposed matrix is singular.
+     * 
+     * @return true if and only if decomposed matrix is singular.
+     */
+    public boolean isSingular() {
+
+	return singular;
+    }
+
+    /**
+     * Creates lower triangular factor L with ones on diagonal.
+     * 
+     * @return new triangular matrix with factor L
+     * @throws IncompatibleOperandException
+     *             if matrix is singular
+     */
+    public TriangularMatrix getL() {
+
+	checkNotSingular();
+
+	return TriangularMatrix.valueOf( lu, 0, dimension, dimension, false,
+		true );
+    }
+
+    /**
+     * Creates upper triangular factor U.
+     * 
+     * @return new triangular matrix with factor U
+     * @throws IncompatibleOperandException
+     *             if matrix is singular
+     */
+    public TriangularMatrix getU() {
+
+	checkNotSingular();
+
+	return TriangularMatrix.valueOf( lu, 0, dimension, dimension, true,
+		false );
+    }
+
+    /**
+     * Creates permutation of rows. Row i of P * A is row
+     * <code>pivot[i]</code> of decomposed matrix.
+     * 
+     * @return new array with permutation of rows
+     */
+    public int[] getPivot() {
+
+	return pivot.clone();
+    }
+
+    /**
+     * Calculates determinant of decomposed matrix as product of pivots.
+     * 
+     * @return determinant of decomposed matrix, 0 if matrix is singular
+     */
+    public double determinant() {
+
+	if ( singular ) {
+	    return 0.0;
+	}
+
+	double determinant = pivotSign;
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    determinant *= lu[(i * dimension) + i];
+	}
+
+	return determinant;
+    }
+
+    /**
+     * Solves system A * x = b, where A is decomposed matrix.
+     * 
+     * @param b
+     *            right hand side of system
+     * @return solution of system
+     * @throws IncompatibleOperandException
+     *             if dimension of vector is not same as dimension of matrix,
+     *             or if matrix is singular
+     */
+    public IVector solve( IVector b ) {
+
+	if ( b.getDimension() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Vector must have same dimension as matrix" );
+	}
+
+	final double[] x = new double[dimension];
+	for ( int i = 0; i < dimension; i++ ) {
+	    x[i] = b.get( pivot[i] );
+	}
+
+	solveInPlace( x, 1 );
+
+	return new Vector( false, true, x );
+    }
+
+    /**
+     * Solves system A * X = B for all columns of B in one pass, where A is
+     * decomposed matrix.
+     * 
+     * @param b
+     *            right hand sides of system stored in columns
+     * @return solutions of system stored in columns
+     * @throws IncompatibleOperandException
+     *             if matrix B has not same number of rows as decomposed
+     *             matrix, or if matrix is singular
+     */
+    public IMatrix solve( IMatrix b ) {
+
+	if ( b.getRowsCount() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Matrix must have same number of rows as decomposed matrix" );
+	}
+
+	final int cols = b.getColsCount();
+	final double[] x = permute( FlatMatrix.valueOf( b ).elements, cols );
+
+	solveInPlace( x, cols );
+
+	return LinAlgDefaults.defaultMatrix( dimension, cols, x );
+    }
+
+    /**
+     * Permutes rows of right hand sides in same order as rows of factors.
+     * 
+     * @param b
+     *            right hand sides stored row by row
+     * @param cols
+     *            number of right hand sides
+     * @return new array with permuted rows
+     */
+    double[] permute( double[] b, int cols ) {
+
+	final double[] x = new double[b.length];
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    System.arraycopy( b, pivot[i] * cols, x, i * cols, cols );
+	}
+
+	return x;
+    }
+
+    /**
+     * Calculates inverse of decomposed matrix.
+     * 
+     * @return inverse of decomposed matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is singular
+     */
+    public IMatrix inverse() {
+
+	final int n = dimension;
+	final double[] x = new double[n * n];
+
+	for ( int i = 0; i < n; i++ ) {
+	    x[(i * n) + pivot[i]] = 1.0;
+	}
+
+	solveInPlace( x, n );
+
+	return LinAlgDefaults.defaultMatrix( n, n, x );
+    }
+
+    /**
+     * Solves system L * U * X = B in place. Rows of B must already be
+     * permuted with {@link #permute(double[], int)}. Every step updates whole
+     * row of right hand sides, so all columns are solved in one pass over
+     * factors.
+     * 
+     * @param x
+     *            right hand sides stored row by row, replaced with solutions
+     * @param cols
+     *            number of right hand sides
+     * @throws IncompatibleOperandException
+     *             if matrix is singular
+     */
+    void solveInPlace( double[] x, int cols ) {
+
+	checkNotSingular();
+
+	Substitution.solveLower( lu, 0, dimension, dimension, true, x, cols );
+	Substitution.solveUpper( lu, 0, dimension, dimension, false, x, cols );
+    }
+
+    /**
+     * Checks if decomposed matrix is not singular.
+     * 
+     * @throws IncompatibleOperandException
+     *             if matrix is singular
+     */
+    private void checkNotSingular() {
+
+	if ( singular ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot solve system with singular matrix" );
+	}
+    }
+}
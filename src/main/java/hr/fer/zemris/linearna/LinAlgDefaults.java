@@ -1,5 +1,7 @@
 package hr.fer.zemris.linearna;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Service for creating default vectors and matrices
  *
@@ -8,6 +10,134 @@ package hr.fer.zemris.linearna;
  */
 public class LinAlgDefaults {
 
+    /**
+     * True if default matrices are stored in one contiguous array. Initial
+     * value is read from system property <code>linalg.flatStorage</code>.
+     */
+    private static volatile boolean flatStorage = Boolean
+	    .getBoolean( "linalg.flatStorage" );
+
+    /**
+     * Pool in which big matrix products are calculated, null if products are
+     * calculated in calling thread
+     */
+    private static volatile ForkJoinPool multiplicationPool = ForkJoinPool
+	    .commonPool();
+
+    /**
+     * Minimal number of multiplications for product calculated in parallel
+     */
+    private static volatile long parallelThreshold = 128 * 128 * 128;
+
+    /**
+     * True if kernels should use SIMD instructions when they are available.
+     * Initial value is false if system property
+     * <code>linalg.scalarKernels</code> is true.
+     */
+    private static volatile boolean vectorizedKernels = !Boolean
+	    .getBoolean( "linalg.scalarKernels" );
+
+    /**
+     * Selects storage of default matrices.
+     * 
+     * @param flatStorage
+     *            true if default matrices should be {@link FlatMatrix}
+     *            instances, false if they should be {@link Matrix} instances.
+     */
+    public static void setFlatStorage( boolean flatStorage ) {
+
+	LinAlgDefaults.flatStorage = flatStorage;
+    }
+
+    /**
+     * Checks which storage is used for default matrices.
+     * 
+     * @return true if default matrices are {@link FlatMatrix} instances.
+     */
+    public static boolean isFlatStorage() {
+
+	return flatStorage;
+    }
+
+    /**
+     * Selects pool in which big products of array-backed matrices are
+     * calculated. Default pool is {@link ForkJoinPool#commonPool()}.
+     * 
+     * @param pool
+     *            pool for parallel multiplication, or <code>null</code> if all
+     *            products should be calculated in calling thread.
+     */
+    public static void setMultiplicationPool( ForkJoinPool pool ) {
+
+	multiplicationPool = pool;
+    }
+
+    /**
+     * Returns pool in which big products of array-backed matrices are
+     * calculated.
+     * 
+     * @return pool for parallel multiplication, or <code>null</code> if
+     *         products are calculated in calling thread.
+     */
+    public static ForkJoinPool getMultiplicationPool() {
+
+	return multiplicationPool;
+    }
+
+    /**
+     * Sets minimal size of product that is calculated in parallel. Size of
+     * product of m x k and k x n matrices is m * n * k.
+     * 
+     * @param threshold
+     *            minimal number of multiplications for parallel calculation
+     * @throws IllegalArgumentException
+     *             if threshold is negative
+     */
+    public static void setParallelThreshold( long threshold ) {
+
+	if ( threshold < 0 ) {
+	    throw new IllegalArgumentException( "Threshold cannot be negative" );
+	}
+
+	parallelThreshold = threshold;
+    }
+
+    /**
+     * Returns minimal size of product that is calculated in parallel.
+     * 
+     * @return minimal number of multiplications for parallel calculation
+     */
+    public static long getParallelThreshold() {
+
+	return parallelThreshold;
+    }
+
+    /**
+     * Enables or disables SIMD kernels. Kernels are vectorized only on Java 17
+     * or newer with module <code>jdk.incubator.vector</code> added, otherwise
+     * scalar kernels are always used.
+     * 
+     * @param vectorizedKernels
+     *            false if scalar kernels should be used even if SIMD kernels
+     *            are available, for example for comparison
+     */
+    public static void setVectorizedKernels( boolean vectorizedKernels ) {
+
+	LinAlgDefaults.vectorizedKernels = vectorizedKernels;
+    }
+
+    /**
+     * Checks if SIMD kernels are enabled. Use
+     * {@link VectorKernels#isVectorized()} to check if they are also
+     * available.
+     * 
+     * @return true if SIMD kernels are used when they are available
+     */
+    public static boolean isVectorizedKernels() {
+
+	return vectorizedKernels;
+    }
+
     /**
      * Creates matrix with specified number of rows an columns. All elements of
      * matrix are 0.
@@ -20,9 +150,41 @@ public class LinAlgDefaults {
      */
     public static IMatrix defaultMatrix( int rows, int cols ) {
 
+	if ( flatStorage ) {
+	    return new FlatMatrix( rows, cols );
+	}
+
 	return new Matrix( rows, cols );
     }
 
+    /**
+     * Creates matrix with provided elements stored row by row. Provided array
+     * is used as storage of matrix if default matrices are {@link FlatMatrix}
+     * instances, so caller must not use it after this call.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns.
+     * @param elements
+     *            elements of matrix stored row by row
+     * @return new matrix
+     */
+    static IMatrix defaultMatrix( int rows, int cols, double[] elements ) {
+
+	if ( flatStorage ) {
+	    return new FlatMatrix( rows, cols, elements, true );
+	}
+
+	final Matrix matrix = new Matrix( rows, cols );
+
+	for ( int row = 0; row < rows; row++ ) {
+	    System.arraycopy( elements, row * cols, matrix.elements[row], 0, cols );
+	}
+
+	return matrix;
+    }
+
     /**
      * Creates vector with specified dimension. All elements of vector are 0.
      * 
@@ -0,0 +1,151 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Solver of systems A * X = B that chooses algorithm by structure of matrix
+ * A. Triangular systems are solved with substitution in O(n^2), symmetric
+ * positive definite systems with Cholesky decomposition and all other systems
+ * with LU decomposition with partial pivoting.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+final class LinearSolver {
+
+    /**
+     * Class has only static methods.
+     */
+    private LinearSolver() {
+
+    }
+
+    /**
+     * Solves system A * X = B in place.
+     * 
+     * @param a
+     *            n x n matrix stored row by row, content of array is destroyed
+     * @param n
+     *            dimension of matrix
+     * @param x
+     *            right hand sides stored row by row, replaced with solutions
+     * @param cols
+     *            number of right hand sides
+     * @return solutions, same array as <code>x</code> or new array
+     * @throws IncompatibleOperandException
+     *             if matrix is singular
+     */
+    static double[] solve( double[] a, int n, double[] x, int cols ) {
+
+	if ( isLowerTriangular( a, n ) ) {
+	    Substitution.solveLower( a, 0, n, n, false, x, cols );
+	    return x;
+	}
+
+	if ( isUpperTriangular( a, n ) ) {
+	    Substitution.solveUpper( a, 0, n, n, false, x, cols );
+	    return x;
+	}
+
+	if ( isSymmetricWithPositiveDiagonal( a, n ) ) {
+	    final double[] diagonal = new double[n];
+	    for ( int i = 0; i < n; i++ ) {
+		diagonal[i] = a[(i * n) + i];
+	    }
+
+	    final CholeskyDecomposition cholesky = new CholeskyDecomposition(
+		    a, n );
+
+	    if ( cholesky.isPositiveDefinite() ) {
+		cholesky.solveInPlace( x, cols );
+		return x;
+	    }
+
+	    // decomposition changed only lower triangle
+	    for ( int i = 0; i < n; i++ ) {
+		a[(i * n) + i] = diagonal[i];
+
+		for ( int j = 0; j < i; j++ ) {
+		    a[(i * n) + j] = a[(j * n) + i];
+		}
+	    }
+	}
+
+	final LUDecomposition lu = new LUDecomposition( a, n );
+	final double[] permuted = lu.permute( x, cols );
+	lu.solveInPlace( permuted, cols );
+
+	return permuted;
+    }
+
+    /**
+     * Checks if all elements above diagonal are zero.
+     * 
+     * @param a
+     *            matrix stored row by row
+     * @param n
+     *            dimension of matrix
+     * @return true if matrix is lower triangular
+     */
+    private static boolean isLowerTriangular( double[] a, int n ) {
+
+	for ( int i = 0; i < n; i++ ) {
+	    for ( int j = i + 1, index = (i * n) + j; j < n; j++, index++ ) {
+		if ( a[index] != 0.0 ) {
+		    return false;
+		}
+	    }
+	}
+
+	return true;
+    }
+
+    /**
+     * Checks if all elements below diagonal are zero.
+     * 
+     * @param a
+     *            matrix stored row by row
+     * @param n
+     *            dimension of matrix
+     * @return true if matrix is upper triangular
+     */
+    private static boolean isUpperTriangular( double[] a, int n ) {
+
+	for ( int i = 1; i < n; i++ ) {
+	    for ( int j = 0, index = i * n; j < i; j++, index++ ) {
+		if ( a[index] != 0.0 ) {
+		    return false;
+		}
+	    }
+	}
+
+	return true;
+    }
+
+    /**
+     * Checks if matrix is symmetric and all elements on its diagonal are
+     * positive, which is necessary for positive definite matrices.
+     * 
+     * @param a
+     *            matrix stored row by row
+     * @param n
+     *            dimension of matrix
+     * @return true if matrix can be positive definite
+     */
+    private static boolean isSymmetricWithPositiveDiagonal( double[] a, int n ) {
+
+	for ( int i = 0; i < n; i++ ) {
+	    if ( !(a[(i * n) + i] > 0.0) ) {
+		return false;
+	    }
+	}
+
+	for ( int i = 1; i < n; i++ ) {
+	    for ( int j = 0; j < i; j++ ) {
+		if ( a[(i * n) + j] != a[(j * n) + i] ) {
+		    return false;
+		}
+	    }
+	}
+
+	return true;
+    }
+}
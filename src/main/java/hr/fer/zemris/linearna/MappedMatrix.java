@@ -0,0 +1,627 @@
+package hr.fer.zemris.linearna;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Matrix stored in memory mapped file. Elements are not loaded when matrix is
+ * opened, operating system reads pages of file when they are accessed, so
+ * matrix can be larger than available memory. File can be reopened later
+ * without reading or parsing its content.
+ * <p>
+ * File has format described in {@link BinaryFormat}: header followed by
+ * little endian doubles stored row by row or column by column. File larger
+ * than 2 GB is mapped in more chunks, because one mapped buffer cannot be
+ * larger.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class MappedMatrix extends AbstractMatrix implements BulkCopyMatrix,
+	AutoCloseable {
+
+    /**
+     * Base 2 logarithm of number of elements mapped in one chunk, chunk has 1
+     * GB
+     */
+    private static final int CHUNK_SHIFT = 27;
+
+    /**
+     * Number of rows
+     */
+    private final int rows;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * True if elements are stored column by column
+     */
+    private final boolean columnMajor;
+
+    /**
+     * True if matrix cannot be changed
+     */
+    private final boolean readOnly;
+
+    /**
+     * Base 2 logarithm of number of elements in one chunk
+     */
+    private final int chunkShift;
+
+    /**
+     * Mapped chunks of file, <code>null</code> if matrix is closed
+     */
+    private MappedByteBuffer[] mapped;
+
+    /**
+     * Elements in mapped chunks
+     */
+    private DoubleBuffer[] chunks;
+
+    /**
+     * Creates matrix from mapped file.
+     * 
+     * @param channel
+     *            channel of file, closed after mapping
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @param columnMajor
+     *            true if elements are stored column by column
+     * @param dataOffset
+     *            position of first element in file
+     * @param order
+     *            byte order of elements
+     * @param readOnly
+     *            true if matrix cannot be changed
+     * @param chunkShift
+     *            base 2 logarithm of number of elements in one chunk
+     * @throws IOException
+     *             if file cannot be mapped
+     */
+    private MappedMatrix(FileChannel channel, int rows, int cols,
+	    boolean columnMajor, long dataOffset, ByteOrder order,
+	    boolean readOnly, int chunkShift) throws IOException {
+
+	this.rows = rows;
+	this.cols = cols;
+	this.columnMajor = columnMajor;
+	this.readOnly = readOnly;
+	this.chunkShift = chunkShift;
+
+	final long size = (long) rows * cols;
+	final long chunkSize = 1L << chunkShift;
+	final int count = (int) ((size + chunkSize - 1) >>> chunkShift);
+
+	mapped = new MappedByteBuffer[count];
+	chunks = new DoubleBuffer[count];
+
+	final FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY
+		: FileChannel.MapMode.READ_WRITE;
+
+	for ( int i = 0; i < count; i++ ) {
+	    final long first = (long) i << chunkShift;
+	    final long length = Math.min( chunkSize, size - first );
+
+	    mapped[i] = channel.map( mode, dataOffset + (first * Double.BYTES),
+		    length * Double.BYTES );
+	    mapped[i].order( order );
+	    chunks[i] = mapped[i].asDoubleBuffer();
+	}
+    }
+
+    /**
+     * Creates new file with matrix whose elements are stored row by row. All
+     * elements of new matrix are 0. Existing file is overwritten.
+     * 
+     * @param path
+     *            path of file
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @return new matrix opened for reading and writing
+     * @throws IOException
+     *             if file cannot be created
+     */
+    public static MappedMatrix create( Path path, int rows, int cols )
+	    throws IOException {
+
+	return create( path, rows, cols, false );
+    }
+
+    /**
+     * Creates new file with matrix. All elements of new matrix are 0.
+     * Existing file is overwritten.
+     * 
+     * @param path
+     *            path of file
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @param columnMajor
+     *            true if elements should be stored column by column
+     * @return new matrix opened for reading and writing
+     * @throws IOException
+     *             if file cannot be created
+     */
+    public static MappedMatrix create( Path path, int rows, int cols,
+	    boolean columnMajor ) throws IOException {
+
+	return create( path, rows, cols, columnMajor, CHUNK_SHIFT );
+    }
+
+    /**
+     * Creates new file with matrix, mapped in chunks of provided size.
+     * 
+     * @param path
+     *            path of file
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @param columnMajor
+     *            true if elements should be stored column by column
+     * @param chunkShift
+     *            base 2 logarithm of number of elements in one chunk
+     * @return new matrix opened for reading and writing
+     * @throws IOException
+     *             if file cannot be created
+     */
+    static MappedMatrix create( Path path, int rows, int cols,
+	    boolean columnMajor, int chunkShift ) throws IOException {
+
+	if ( (rows < 0) || (cols < 0) ) {
+	    throw new IllegalArgumentException( "wrong size of matrix" );
+	}
+
+	final ByteBuffer header = new BinaryFormat.Header( rows, cols,
+		BinaryFormat.FLOAT64, columnMajor ? BinaryFormat.COLUMN_MAJOR : 0,
+		BinaryFormat.HEADER_SIZE ).encode();
+
+	try (FileChannel channel = FileChannel.open( path,
+		StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+		StandardOpenOption.READ, StandardOpenOption.WRITE )) {
+	    while ( header.hasRemaining() ) {
+		channel.write( header );
+	    }
+
+	    final long length = BinaryFormat.HEADER_SIZE
+		    + ((long) rows * cols * Double.BYTES);
+
+	    if ( length > BinaryFormat.HEADER_SIZE ) {
+		// file is extended with zeros
+		channel.write( ByteBuffer.allocate( 1 ), length - 1 );
+	    }
+
+	    return new MappedMatrix( channel, rows, cols, columnMajor,
+		    BinaryFormat.HEADER_SIZE, ByteOrder.LITTLE_ENDIAN, false,
+		    chunkShift );
+	}
+    }
+
+    /**
+     * Opens existing matrix file. Matrix cannot be changed.
+     * 
+     * @param path
+     *            path of file
+     * @return opened matrix
+     * @throws IOException
+     *             if file cannot be read or is not valid matrix file
+     */
+    public static MappedMatrix openReadOnly( Path path ) throws IOException {
+
+	return open( path, true, CHUNK_SHIFT );
+    }
+
+    /**
+     * Opens existing matrix file for reading and writing. Changes are written
+     * to file.
+     * 
+     * @param path
+     *            path of file
+     * @return opened matrix
+     * @throws IOException
+     *             if file cannot be read or is not valid matrix file
+     */
+    public static MappedMatrix openReadWrite( Path path ) throws IOException {
+
+	return open( path, false, CHUNK_SHIFT );
+    }
+
+    /**
+     * Opens existing matrix file, mapped in chunks of provided size.
+     * 
+     * @param path
+     *            path of file
+     * @param readOnly
+     *            true if matrix cannot be changed
+     * @param chunkShift
+     *            base 2 logarithm of number of elements in one chunk
+     * @return opened matrix
+     * @throws IOException
+     *             if file cannot be read or is not valid matrix file
+     */
+    static MappedMatrix open( Path path, boolean readOnly, int chunkShift )
+	    throws IOException {
+
+	final StandardOpenOption[] options = readOnly ? new StandardOpenOption[] { StandardOpenOption.READ }
+		: new StandardOpenOption[] { StandardOpenOption.READ,
+			StandardOpenOption.WRITE };
+
+	try (FileChannel channel = FileChannel.open( path, options )) {
+	    final ByteBuffer buffer = ByteBuffer
+		    .allocate( BinaryFormat.HEADER_SIZE );
+
+	    while ( buffer.hasRemaining() ) {
+		if ( channel.read( buffer ) < 0 ) {
+		    throw new IOException( "Not a matrix file: " + path );
+		}
+	    }
+
+	    buffer.flip();
+
+	    final BinaryFormat.Header header = BinaryFormat.Header
+		    .decode( buffer );
+
+	    if ( channel.size() < (header.dataOffset + ((long) header.rows
+		    * header.cols * Double.BYTES)) ) {
+		throw new IOException( "Corrupted matrix file: " + path );
+	    }
+
+	    return new MappedMatrix( channel, header.rows, header.cols,
+		    header.isColumnMajor(), header.dataOffset,
+		    ByteOrder.LITTLE_ENDIAN, readOnly, chunkShift );
+	}
+    }
+
+    /**
+     * Maps doubles stored in file of other format as read only matrix.
+     * 
+     * @param channel
+     *            channel of file, can be closed after mapping
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @param columnMajor
+     *            true if elements are stored column by column
+     * @param dataOffset
+     *            position of first element in file
+     * @param order
+     *            byte order of elements
+     * @return mapped matrix
+     * @throws IOException
+     *             if file is too short or cannot be mapped
+     */
+    static MappedMatrix map( FileChannel channel, int rows, int cols,
+	    boolean columnMajor, long dataOffset, ByteOrder order )
+	    throws IOException {
+
+	if ( channel.size() < (dataOffset + ((long) rows * cols * Double.BYTES)) ) {
+	    throw new IOException( "File is too short for " + rows + " x "
+		    + cols + " matrix" );
+	}
+
+	return new MappedMatrix( channel, rows, cols, columnMajor, dataOffset,
+		order, true, CHUNK_SHIFT );
+    }
+
+    /**
+     * Calculates position of element among all elements of file.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return index of element in file
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    private long index( int row, int col ) {
+
+	if ( (row >= rows) || (col >= cols) || (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	if ( chunks == null ) {
+	    throw new IllegalStateException( "Matrix is closed" );
+	}
+
+	return columnMajor ? ((long) col * rows) + row : ((long) row * cols)
+		+ col;
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows
+     */
+    @Override
+    public int getRowsCount() {
+
+	return rows;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns
+     */
+    @Override
+    public int getColsCount() {
+
+	return cols;
+    }
+
+    /**
+     * Checks if elements are stored column by column.
+     * 
+     * @return true if elements are stored column by column, false if row by
+     *         row
+     */
+    public boolean isColumnMajor() {
+
+	return columnMajor;
+    }
+
+    /**
+     * Checks if matrix can be changed.
+     * 
+     * @return true if matrix is opened read only
+     */
+    public boolean isReadOnly() {
+
+	return readOnly;
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return element at specified row and column
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    @Override
+    public double get( int row, int col ) {
+
+	final long index = index( row, col );
+
+	return chunks[(int) (index >>> chunkShift)].get( (int) (index & ((1L << chunkShift) - 1)) );
+    }
+
+    /**
+     * Element setter. Change is written to file.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @param value
+     *            new value of element
+     * @return this matrix
+     * @throws UnmodifiableObjectException
+     *             if matrix is opened read only
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    @Override
+    public IMatrix set( int row, int col, double value ) {
+
+	if ( readOnly ) {
+	    throw new UnmodifiableObjectException( "Matrix is read only" );
+	}
+
+	final long index = index( row, col );
+
+	chunks[(int) (index >>> chunkShift)].put(
+		(int) (index & ((1L << chunkShift) - 1)), value );
+
+	return this;
+    }
+
+    /**
+     * Reads consecutive elements of file to array. Elements can be in more
+     * chunks.
+     * 
+     * @param index
+     *            index of first element in file
+     * @param target
+     *            array for elements
+     * @param offset
+     *            index of first element in array
+     * @param length
+     *            number of elements
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    void read( long index, double[] target, int offset, int length ) {
+
+	if ( chunks == null ) {
+	    throw new IllegalStateException( "Matrix is closed" );
+	}
+
+	final long chunkSize = 1L << chunkShift;
+
+	while ( length > 0 ) {
+	    final DoubleBuffer chunk = chunks[(int) (index >>> chunkShift)]
+		    .duplicate();
+	    final int position = (int) (index & (chunkSize - 1));
+	    final int count = Math.min( length, chunk.limit() - position );
+
+	    chunk.position( position );
+	    chunk.get( target, offset, count );
+
+	    index += count;
+	    offset += count;
+	    length -= count;
+	}
+    }
+
+    /**
+     * Writes consecutive elements from array to file. Elements can be in more
+     * chunks.
+     * 
+     * @param index
+     *            index of first element in file
+     * @param source
+     *            array with elements
+     * @param offset
+     *            index of first element in array
+     * @param length
+     *            number of elements
+     * @throws UnmodifiableObjectException
+     *             if matrix is opened read only
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    void write( long index, double[] source, int offset, int length ) {
+
+	if ( readOnly ) {
+	    throw new UnmodifiableObjectException( "Matrix is read only" );
+	}
+
+	if ( chunks == null ) {
+	    throw new IllegalStateException( "Matrix is closed" );
+	}
+
+	final long chunkSize = 1L << chunkShift;
+
+	while ( length > 0 ) {
+	    final DoubleBuffer chunk = chunks[(int) (index >>> chunkShift)]
+		    .duplicate();
+	    final int position = (int) (index & (chunkSize - 1));
+	    final int count = Math.min( length, chunk.limit() - position );
+
+	    chunk.position( position );
+	    chunk.put( source, offset, count );
+
+	    index += count;
+	    offset += count;
+	    length -= count;
+	}
+    }
+
+    /**
+     * Copies elements of this matrix to provided heap array.
+     * 
+     * @param target
+     *            array for elements stored row by row
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    @Override
+    public void copyTo( double[] target ) {
+
+	if ( !columnMajor ) {
+	    read( 0, target, 0, rows * cols );
+	    return;
+	}
+
+	final double[] column = new double[rows];
+
+	for ( int col = 0; col < cols; col++ ) {
+	    read( (long) col * rows, column, 0, rows );
+
+	    for ( int row = 0, index = col; row < rows; row++, index += cols ) {
+		target[index] = column[row];
+	    }
+	}
+    }
+
+    /**
+     * Copies this matrix to heap. Changes on copy does not take affect on
+     * this matrix or file.
+     * 
+     * @return new dense matrix with same elements
+     * @throws IllegalArgumentException
+     *             if matrix has more elements than array can hold
+     */
+    @Override
+    public IMatrix copy() {
+
+	return FlatMatrix.valueOf( this );
+    }
+
+    /**
+     * Returns new dense matrix created by {@link LinAlgDefaults}. Results of
+     * operations are not written to files.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     */
+    @Override
+    public IMatrix newInstance( int rows, int cols ) {
+
+	return LinAlgDefaults.defaultMatrix( rows, cols );
+    }
+
+    /**
+     * Writes all changes of matrix to storage device.
+     * 
+     * @throws IllegalStateException
+     *             if matrix is closed
+     */
+    public void flush() {
+
+	if ( mapped == null ) {
+	    throw new IllegalStateException( "Matrix is closed" );
+	}
+
+	if ( !readOnly ) {
+	    for ( final MappedByteBuffer buffer : mapped ) {
+		buffer.force();
+	    }
+	}
+    }
+
+    /**
+     * Checks if matrix is closed.
+     * 
+     * @return true if file of matrix is unmapped
+     */
+    public boolean isClosed() {
+
+	return mapped == null;
+    }
+
+    /**
+     * Writes changes to file and unmaps it. Matrix cannot be used after it is
+     * closed, and closing closed matrix has no effect.
+     */
+    @Override
+    public void close() {
+
+	if ( mapped == null ) {
+	    return;
+	}
+
+	flush();
+
+	final MappedByteBuffer[] unmapped = mapped;
+
+	mapped = null;
+	chunks = null;
+
+	for ( final MappedByteBuffer buffer : unmapped ) {
+	    DirectMemory.unmap( buffer );
+	}
+    }
+}
@@ -9,7 +9,7 @@ import java.util.Arrays;
  * @author Nikola Sekulić
  *
  */
-public class Matrix extends AbstractMatrix {
+public class Matrix extends AbstractMatrix implements ArrayBackedMatrix {
 
     /**
      * Elements of matrix
@@ -67,7 +67,7 @@ public class Matrix extends AbstractMatrix {
 	    }
 
 	    for ( int i = 0; i < rows; i++ ) {
-		if ( elements[i].length > rows ) {
+		if ( elements[i].length < cols ) {
 		    throw new IllegalArgumentException(
 			    "wrong size of elements" );
 		}
@@ -164,7 +164,14 @@ public class Matrix extends AbstractMatrix {
     @Override
     public IMatrix copy() {
 
-	return new Matrix( rows, cols, elements, false );
+	final Matrix matrix = new Matrix( rows, cols );
+
+	for ( int row = 0; row < rows; row++ ) {
+	    System.arraycopy( elements[row], 0, matrix.elements[row], 0,
+		    Math.min( cols, elements[row].length ) );
+	}
+
+	return matrix;
     }
 
     /**
@@ -183,37 +190,60 @@ public class Matrix extends AbstractMatrix {
     }
 
     /**
-     * Creates matrix from string representation. Elements in string are
-     * separated with one or more spaces. Rows are separated with '|'
+     * Returns array in which elements of provided row are stored. Changes on
+     * array change this matrix.
      * 
-     * @param matrix
-     *            string representation of amtrix.
-     * @return new matrix
+     * @param row
+     *            row of matrix
+     * @return array with elements of row
      */
-    public static Matrix parseSimple( String matrix ) {
+    @Override
+    public double[] rowArray( int row ) {
 
-	final String[] rows = matrix.split( "\\|" );
+	return elements[row];
+    }
 
-	final double[][] elements = new double[rows.length][0];
+    /**
+     * Returns index of first element of provided row in array of row.
+     * 
+     * @param row
+     *            row of matrix
+     * @return index of element (row, 0)
+     */
+    @Override
+    public int rowOffset( int row ) {
 
-	int maxCol = 0;
+	return 0;
+    }
 
-	for ( int row = 0; row < rows.length; row++ ) {
-	    final String[] colStr = rows[row].trim().split( "\\s+" );
-	    final double[] col = new double[colStr.length];
+    /**
+     * Returns distance between two neighbouring elements of same row.
+     * 
+     * @return distance between elements of row
+     */
+    @Override
+    public int colStride() {
 
-	    for ( int j = 0; j < colStr.length; j++ ) {
-		col[j] = Double.parseDouble( colStr[j] );
-	    }
+	return 1;
+    }
 
-	    if ( col.length > maxCol ) {
-		maxCol = col.length;
-	    }
+    /**
+     * Creates matrix from string representation. Elements in string are
+     * separated with one or more spaces. Rows are separated with '|'. Shorter
+     * rows are padded with zeros.
+     * 
+     * @param matrix
+     *            string representation of amtrix.
+     * @return new matrix
+     * @throws NumberFormatException
+     *             if string contains invalid number or empty row
+     * @see TextParser
+     */
+    public static Matrix parseSimple( String matrix ) {
 
-	    elements[row] = col;
-	}
+	final TextParser.Rows rows = TextParser.parseSimple( matrix, true );
 
-	return new Matrix( elements.length, maxCol, elements, false );
+	return new Matrix( rows.count, rows.maxLength, rows.toArray(), true );
     }
 
     /**
@@ -129,6 +129,54 @@ public class MatrixSubMatrixView extends AbstractMatrix {
 	return this;
     }
 
+    /**
+     * Creates matrix without provided row and column. Live view is view on
+     * viewed matrix, so views do not stack.
+     * 
+     * @param row
+     *            row that is removed
+     * @param col
+     *            column that is removed
+     * @param liveView
+     *            true if changes on new matrix should change this matrix
+     * @return matrix without provided row and column
+     * @throws IndexOutOfBoundsException
+     *             if row or column is not in matrix
+     */
+    @Override
+    public IMatrix subMatrix( int row, int col, boolean liveView ) {
+
+	if ( (row >= rows.length) || (col >= cols.length) || (row < 0)
+		|| (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	final IMatrix view = new MatrixSubMatrixView( matrix, without( rows,
+		row ), without( cols, col ) );
+
+	return liveView ? view : view.copy();
+    }
+
+    /**
+     * Copies indices without one of them.
+     * 
+     * @param indices
+     *            indices of rows or columns
+     * @param removed
+     *            index that is removed
+     * @return remaining indices
+     */
+    private static int[] without( int[] indices, int removed ) {
+
+	final int[] result = new int[indices.length - 1];
+
+	System.arraycopy( indices, 0, result, 0, removed );
+	System.arraycopy( indices, removed + 1, result, removed, result.length
+		- removed );
+
+	return result;
+    }
+
     /**
      * Copies this matrix. Changes on copy does not take affect on this matrix
      * or viewed matrix.
@@ -79,6 +79,38 @@ public class MatrixTransposeView extends AbstractMatrix {
 	return this;
     }
 
+    /**
+     * Creates transposed matrix. Live view is viewed matrix.
+     * 
+     * @param liveView
+     *            true if changes on transposed matrix should change this
+     *            matrix.
+     * @return transposed matrix
+     */
+    @Override
+    public IMatrix nTranspose( boolean liveView ) {
+
+	return liveView ? matrix : matrix.copy();
+    }
+
+    /**
+     * Creates matrix without provided row and column. Live view is transposed
+     * view on submatrix of viewed matrix, so views do not stack.
+     * 
+     * @param row
+     *            row that is removed
+     * @param col
+     *            column that is removed
+     * @param liveView
+     *            true if changes on new matrix should change this matrix
+     * @return matrix without provided row and column
+     */
+    @Override
+    public IMatrix subMatrix( int row, int col, boolean liveView ) {
+
+	return matrix.subMatrix( col, row, true ).nTranspose( liveView );
+    }
+
     /**
      * Copies this matrix. Changes on copy does not take affect on this matrix
      * or viewed matrix.
@@ -100,6 +100,37 @@ public class MatrixVectorView extends AbstractMatrix {
 	return this;
     }
 
+    /**
+     * Creates transposed matrix. Live view is view on same vector.
+     * 
+     * @param liveView
+     *            true if changes on transposed matrix should change this
+     *            matrix.
+     * @return transposed matrix
+     */
+    @Override
+    public IMatrix nTranspose( boolean liveView ) {
+
+	if ( liveView ) {
+	    return new MatrixVectorView( vector, !asRowMatrix );
+	}
+
+	return super.nTranspose( liveView );
+    }
+
+    /**
+     * Creates vector from this matrix. Live view is viewed vector.
+     * 
+     * @param liveView
+     *            true if changes on vector should change this matrix
+     * @return vector with elements of matrix
+     */
+    @Override
+    public IVector toVector( boolean liveView ) {
+
+	return liveView ? vector : vector.copy();
+    }
+
     /**
      * Copies this matrix. Changes on copy does not take affect on this matrix
      * or viewed vector.
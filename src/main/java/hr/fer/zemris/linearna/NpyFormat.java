@@ -0,0 +1,770 @@
+package hr.fer.zemris.linearna;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Reader and writer of NumPy <code>.npy</code> files and <code>.npz</code>
+ * archives. Arrays of 8 and 4 byte floating point numbers with any byte order
+ * are read, in C (row by row) and Fortran (column by column) order. Array with
+ * one dimension is read as matrix with one column, and array with no
+ * dimensions as 1 x 1 matrix. Written arrays are always little endian and in
+ * C order.
+ * <p>
+ * File with 8 byte floating point numbers can be mapped as read only
+ * {@link MappedMatrix}, so its elements are not copied or converted when it
+ * is loaded.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public final class NpyFormat {
+
+    /**
+     * Magic string at the start of file
+     */
+    private static final byte[] MAGIC = { (byte) 0x93, 'N', 'U', 'M', 'P',
+	    'Y' };
+
+    /**
+     * Alignment of data in written files
+     */
+    private static final int ALIGNMENT = 64;
+
+    /**
+     * Size of buffer used for conversion of elements
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Extension of arrays in archive
+     */
+    private static final String EXTENSION = ".npy";
+
+    /**
+     * Pattern of type of elements in header
+     */
+    private static final Pattern DESCR = Pattern
+	    .compile( "['\"]descr['\"]\\s*:\\s*['\"]([<>=|]?)([a-z])(\\d+)['\"]" );
+
+    /**
+     * Pattern of order of elements in header
+     */
+    private static final Pattern FORTRAN_ORDER = Pattern
+	    .compile( "['\"]fortran_order['\"]\\s*:\\s*(True|False)" );
+
+    /**
+     * Pattern of shape of array in header
+     */
+    private static final Pattern SHAPE = Pattern
+	    .compile( "['\"]shape['\"]\\s*:\\s*\\(([^)]*)\\)" );
+
+    /**
+     * Decoded header of array.
+     */
+    private static final class Header {
+
+	/**
+	 * Number of rows
+	 */
+	int rows;
+
+	/**
+	 * Number of columns
+	 */
+	int cols;
+
+	/**
+	 * Number of dimensions of array
+	 */
+	int dimensions;
+
+	/**
+	 * True if elements are stored column by column
+	 */
+	boolean columnMajor;
+
+	/**
+	 * True if elements are 4 byte floating point numbers
+	 */
+	boolean float32;
+
+	/**
+	 * Byte order of elements
+	 */
+	ByteOrder order;
+
+	/**
+	 * Position of first element in file
+	 */
+	long dataOffset;
+    }
+
+    /**
+     * Class has only static methods.
+     */
+    private NpyFormat() {
+
+    }
+
+    /**
+     * Reads matrix from <code>.npy</code> stream. Exactly one array is read,
+     * stream is not closed.
+     * 
+     * @param stream
+     *            stream from which array is read
+     * @return new matrix
+     * @throws IOException
+     *             if array cannot be read, is not valid or has unsupported
+     *             type or more than two dimensions
+     */
+    public static FlatMatrix readMatrix( InputStream stream ) throws IOException {
+
+	final Header header = readHeader( stream );
+	final int rows = header.rows;
+	final int cols = header.cols;
+	final double[] elements = new double[rows * cols];
+
+	if ( !header.columnMajor ) {
+	    readElements( stream, header, elements, 0, elements.length );
+	} else {
+	    final double[] column = new double[rows];
+
+	    for ( int col = 0; col < cols; col++ ) {
+		readElements( stream, header, column, 0, rows );
+
+		for ( int row = 0, index = col; row < rows; row++, index += cols ) {
+		    elements[index] = column[row];
+		}
+	    }
+	}
+
+	return new FlatMatrix( rows, cols, elements, true );
+    }
+
+    /**
+     * Reads matrix from <code>.npy</code> file.
+     * 
+     * @param path
+     *            path of file
+     * @return new matrix
+     * @throws IOException
+     *             if array cannot be read, is not valid or has unsupported
+     *             type or more than two dimensions
+     */
+    public static FlatMatrix readMatrix( Path path ) throws IOException {
+
+	try (InputStream stream = Files.newInputStream( path )) {
+	    return readMatrix( stream );
+	}
+    }
+
+    /**
+     * Reads vector from <code>.npy</code> stream. Array must have one
+     * dimension, or two dimensions of which one is 1. Exactly one array is
+     * read, stream is not closed.
+     * 
+     * @param stream
+     *            stream from which array is read
+     * @return new vector
+     * @throws IOException
+     *             if array cannot be read, is not valid or is not vector
+     */
+    public static Vector readVector( InputStream stream ) throws IOException {
+
+	final Header header = readHeader( stream );
+
+	if ( (header.rows != 1) && (header.cols != 1) ) {
+	    throw new IOException( "Array is not a vector: " + header.rows
+		    + " x " + header.cols );
+	}
+
+	final double[] elements = new double[header.rows * header.cols];
+	readElements( stream, header, elements, 0, elements.length );
+
+	return new Vector( false, true, elements );
+    }
+
+    /**
+     * Maps <code>.npy</code> file with 8 byte floating point numbers as read
+     * only matrix. Elements are read from file when they are accessed.
+     * 
+     * @param path
+     *            path of file
+     * @return mapped matrix
+     * @throws IOException
+     *             if file cannot be mapped, is not valid or does not contain
+     *             8 byte floating point numbers
+     */
+    public static MappedMatrix map( Path path ) throws IOException {
+
+	try (FileChannel channel = FileChannel.open( path,
+		StandardOpenOption.READ )) {
+	    final Header header = readHeader( Channels.newInputStream( channel ) );
+
+	    if ( header.float32 ) {
+		throw new IOException(
+			"Only arrays of 8 byte floating point numbers can be mapped" );
+	    }
+
+	    return MappedMatrix.map( channel, header.rows, header.cols,
+		    header.columnMajor, header.dataOffset, header.order );
+	}
+    }
+
+    /**
+     * Writes matrix to stream as <code>.npy</code> array of 8 byte floating
+     * point numbers. Stream is not closed.
+     * 
+     * @param matrix
+     *            matrix to be written
+     * @param stream
+     *            stream to which array is written
+     * @throws IOException
+     *             if array cannot be written
+     */
+    public static void writeMatrix( IMatrix matrix, OutputStream stream )
+	    throws IOException {
+
+	writeMatrix( matrix, stream, false );
+    }
+
+    /**
+     * Writes matrix to stream as <code>.npy</code> array. Stream is not
+     * closed.
+     * 
+     * @param matrix
+     *            matrix to be written
+     * @param stream
+     *            stream to which array is written
+     * @param float32
+     *            true if elements should be written as 4 byte floating point
+     *            numbers
+     * @throws IOException
+     *             if array cannot be written
+     */
+    public static void writeMatrix( IMatrix matrix, OutputStream stream,
+	    boolean float32 ) throws IOException {
+
+	final int rows = matrix.getRowsCount();
+	final int cols = matrix.getColsCount();
+
+	writeHeader( stream, "(" + rows + ", " + cols + ")", float32 );
+
+	final ByteBuffer buffer = newBuffer();
+	final double[] row = new double[cols];
+
+	for ( int i = 0; i < rows; i++ ) {
+	    for ( int j = 0; j < cols; j++ ) {
+		row[j] = matrix.get( i, j );
+	    }
+
+	    writeElements( stream, buffer, row, float32 );
+	}
+
+	flush( stream, buffer );
+    }
+
+    /**
+     * Writes matrix to <code>.npy</code> file of 8 byte floating point
+     * numbers. Existing file is overwritten.
+     * 
+     * @param matrix
+     *            matrix to be written
+     * @param path
+     *            path of file
+     * @throws IOException
+     *             if array cannot be written
+     */
+    public static void writeMatrix( IMatrix matrix, Path path )
+	    throws IOException {
+
+	try (OutputStream stream = Files.newOutputStream( path )) {
+	    writeMatrix( matrix, stream );
+	}
+    }
+
+    /**
+     * Writes vector to stream as <code>.npy</code> array with one dimension.
+     * Stream is not closed.
+     * 
+     * @param vector
+     *            vector to be written
+     * @param stream
+     *            stream to which array is written
+     * @param float32
+     *            true if elements should be written as 4 byte floating point
+     *            numbers
+     * @throws IOException
+     *             if array cannot be written
+     */
+    public static void writeVector( IVector vector, OutputStream stream,
+	    boolean float32 ) throws IOException {
+
+	final double[] elements = vector.toArray();
+
+	writeHeader( stream, "(" + elements.length + ",)", float32 );
+
+	final ByteBuffer buffer = newBuffer();
+
+	writeElements( stream, buffer, elements, float32 );
+	flush( stream, buffer );
+    }
+
+    /**
+     * Reads all arrays from <code>.npz</code> archive. Stream is read to the
+     * end of archive, but not closed.
+     * 
+     * @param stream
+     *            stream from which archive is read
+     * @return arrays mapped by their names without extension, in order of
+     *         archive
+     * @throws IOException
+     *             if archive or any of its arrays cannot be read
+     */
+    public static Map<String, FlatMatrix> readArchive( InputStream stream )
+	    throws IOException {
+
+	final Map<String, FlatMatrix> arrays = new LinkedHashMap<>();
+	final ZipInputStream zip = new ZipInputStream( stream );
+
+	ZipEntry entry;
+	while ( (entry = zip.getNextEntry()) != null ) {
+	    String name = entry.getName();
+
+	    if ( name.endsWith( EXTENSION ) ) {
+		name = name.substring( 0, name.length() - EXTENSION.length() );
+	    }
+
+	    arrays.put( name, readMatrix( zip ) );
+	    zip.closeEntry();
+	}
+
+	return arrays;
+    }
+
+    /**
+     * Reads all arrays from <code>.npz</code> file.
+     * 
+     * @param path
+     *            path of file
+     * @return arrays mapped by their names without extension, in order of
+     *         archive
+     * @throws IOException
+     *             if archive or any of its arrays cannot be read
+     */
+    public static Map<String, FlatMatrix> readArchive( Path path )
+	    throws IOException {
+
+	try (InputStream stream = Files.newInputStream( path )) {
+	    return readArchive( stream );
+	}
+    }
+
+    /**
+     * Writes matrices to stream as <code>.npz</code> archive of 8 byte
+     * floating point arrays. Stream is not closed.
+     * 
+     * @param arrays
+     *            matrices mapped by names of arrays
+     * @param stream
+     *            stream to which archive is written
+     * @throws IOException
+     *             if archive cannot be written
+     */
+    public static void writeArchive( Map<String, ? extends IMatrix> arrays,
+	    OutputStream stream ) throws IOException {
+
+	final ZipOutputStream zip = new ZipOutputStream( stream );
+
+	for ( final Map.Entry<String, ? extends IMatrix> array : arrays
+		.entrySet() ) {
+	    zip.putNextEntry( new ZipEntry( array.getKey() + EXTENSION ) );
+	    writeMatrix( array.getValue(), zip );
+	    zip.closeEntry();
+	}
+
+	zip.finish();
+    }
+
+    /**
+     * Writes matrices to <code>.npz</code> file. Existing file is
+     * overwritten.
+     * 
+     * @param arrays
+     *            matrices mapped by names of arrays
+     * @param path
+     *            path of file
+     * @throws IOException
+     *             if archive cannot be written
+     */
+    public static void writeArchive( Map<String, ? extends IMatrix> arrays,
+	    Path path ) throws IOException {
+
+	try (OutputStream stream = Files.newOutputStream( path )) {
+	    writeArchive( arrays, stream );
+	}
+    }
+
+    /**
+     * Reads and decodes header of array.
+     * 
+     * @param stream
+     *            stream positioned at the start of array
+     * @return decoded header
+     * @throws IOException
+     *             if header cannot be read, is not valid or describes
+     *             unsupported array
+     */
+    private static Header readHeader( InputStream stream ) throws IOException {
+
+	final byte[] prefix = new byte[MAGIC.length + 2];
+	readFully( stream, prefix, prefix.length );
+
+	for ( int i = 0; i < MAGIC.length; i++ ) {
+	    if ( prefix[i] != MAGIC[i] ) {
+		throw new IOException( "Not a .npy array" );
+	    }
+	}
+
+	final int major = prefix[MAGIC.length];
+	final int lengthSize = major == 1 ? 2 : 4;
+
+	if ( (major < 1) || (major > 3) ) {
+	    throw new IOException( "Unsupported version of .npy array: "
+		    + major );
+	}
+
+	final byte[] length = new byte[lengthSize];
+	readFully( stream, length, lengthSize );
+
+	final long headerLength = lengthSize == 2 ? ByteBuffer.wrap( length )
+		.order( ByteOrder.LITTLE_ENDIAN ).getShort() & 0xFFFF
+		: ByteBuffer.wrap( length ).order( ByteOrder.LITTLE_ENDIAN )
+			.getInt() & 0xFFFFFFFFL;
+
+	if ( headerLength > (1 << 20) ) {
+	    throw new IOException( "Header of .npy array is too long" );
+	}
+
+	final byte[] bytes = new byte[(int) headerLength];
+	readFully( stream, bytes, bytes.length );
+
+	final String dictionary = new String( bytes,
+		major == 3 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1 );
+
+	final Header header = new Header();
+	header.dataOffset = prefix.length + lengthSize + headerLength;
+
+	decodeDescr( dictionary, header );
+	decodeShape( dictionary, header );
+
+	final Matcher fortranOrder = FORTRAN_ORDER.matcher( dictionary );
+	if ( !fortranOrder.find() ) {
+	    throw new IOException( "Header of .npy array has no order" );
+	}
+
+	header.columnMajor = (header.dimensions == 2)
+		&& "True".equals( fortranOrder.group( 1 ) );
+
+	return header;
+    }
+
+    /**
+     * Decodes type and byte order of elements.
+     * 
+     * @param dictionary
+     *            header of array
+     * @param header
+     *            header to which type is stored
+     * @throws IOException
+     *             if type is missing or is not supported
+     */
+    private static void decodeDescr( String dictionary, Header header )
+	    throws IOException {
+
+	final Matcher descr = DESCR.matcher( dictionary );
+
+	if ( !descr.find() || !"f".equals( descr.group( 2 ) )
+		|| !("8".equals( descr.group( 3 ) ) || "4".equals( descr
+			.group( 3 ) )) ) {
+	    throw new IOException(
+		    "Only arrays of floating point numbers are supported: "
+			    + dictionary.trim() );
+	}
+
+	final String order = descr.group( 1 );
+
+	header.float32 = "4".equals( descr.group( 3 ) );
+	header.order = ">".equals( order ) ? ByteOrder.BIG_ENDIAN : "<"
+		.equals( order ) ? ByteOrder.LITTLE_ENDIAN : ByteOrder
+		.nativeOrder();
+    }
+
+    /**
+     * Decodes shape of array to number of rows and columns.
+     * 
+     * @param dictionary
+     *            header of array
+     * @param header
+     *            header to which shape is stored
+     * @throws IOException
+     *             if shape is missing or array has more than two dimensions
+     */
+    private static void decodeShape( String dictionary, Header header )
+	    throws IOException {
+
+	final Matcher shape = SHAPE.matcher( dictionary );
+
+	if ( !shape.find() ) {
+	    throw new IOException( "Header of .npy array has no shape" );
+	}
+
+	final long[] sizes = new long[2];
+	int dimensions = 0;
+
+	for ( final String size : shape.group( 1 ).split( "," ) ) {
+	    if ( size.trim().isEmpty() ) {
+		continue;
+	    }
+
+	    if ( dimensions == 2 ) {
+		throw new IOException(
+			"Arrays with more than two dimensions are not supported" );
+	    }
+
+	    try {
+		sizes[dimensions++] = Long.parseLong( size.trim() );
+	    } catch ( final NumberFormatException e ) {
+		throw new IOException( "Wrong shape of .npy array: "
+			+ shape.group( 1 ) );
+	    }
+	}
+
+	final long rows = dimensions == 0 ? 1 : sizes[0];
+	final long cols = dimensions == 2 ? sizes[1] : 1;
+
+	if ( (rows < 0) || (cols < 0) || ((rows * cols) > Integer.MAX_VALUE) ) {
+	    throw new IOException( "Array is too large for matrix: "
+		    + shape.group( 1 ) );
+	}
+
+	header.rows = (int) rows;
+	header.cols = (int) cols;
+	header.dimensions = dimensions;
+    }
+
+    /**
+     * Reads elements of array and converts them to doubles.
+     * 
+     * @param stream
+     *            stream from which elements are read
+     * @param header
+     *            header with type of elements
+     * @param target
+     *            array for elements
+     * @param offset
+     *            index of first element in array
+     * @param length
+     *            number of elements
+     * @throws IOException
+     *             if elements cannot be read or stream ends
+     */
+    private static void readElements( InputStream stream, Header header,
+	    double[] target, int offset, int length ) throws IOException {
+
+	final int size = header.float32 ? Float.BYTES : Double.BYTES;
+	final byte[] bytes = new byte[bufferSize( length, size )];
+	final ByteBuffer buffer = ByteBuffer.wrap( bytes ).order( header.order );
+
+	while ( length > 0 ) {
+	    final int count = Math.min( length, bytes.length / size );
+	    readFully( stream, bytes, count * size );
+
+	    if ( header.float32 ) {
+		final FloatBuffer floats = buffer.asFloatBuffer();
+
+		for ( int i = 0; i < count; i++ ) {
+		    target[offset + i] = floats.get( i );
+		}
+	    } else {
+		buffer.asDoubleBuffer().get( target, offset, count );
+	    }
+
+	    offset += count;
+	    length -= count;
+	}
+    }
+
+    /**
+     * Calculates size of buffer for reading elements. Buffer is never bigger
+     * than {@link #BUFFER_SIZE}, even if array has more than 2 GB.
+     * 
+     * @param length
+     *            number of elements
+     * @param size
+     *            size of one element in bytes
+     * @return size of buffer in bytes
+     */
+    static int bufferSize( int length, int size ) {
+
+	return (int) Math.min( BUFFER_SIZE, (long) length * size );
+    }
+
+    /**
+     * Reads exact number of bytes.
+     * 
+     * @param stream
+     *            stream from which bytes are read
+     * @param bytes
+     *            array for bytes
+     * @param length
+     *            number of bytes
+     * @throws IOException
+     *             if bytes cannot be read or stream ends
+     */
+    private static void readFully( InputStream stream, byte[] bytes, int length )
+	    throws IOException {
+
+	for ( int offset = 0; offset < length; ) {
+	    final int read = stream.read( bytes, offset, length - offset );
+
+	    if ( read < 0 ) {
+		throw new EOFException( "Unexpected end of .npy array" );
+	    }
+
+	    offset += read;
+	}
+    }
+
+    /**
+     * Writes header of little endian array in C order. Header is padded so
+     * elements are aligned to {@value #ALIGNMENT} bytes.
+     * 
+     * @param stream
+     *            stream to which header is written
+     * @param shape
+     *            shape of array as Python tuple
+     * @param float32
+     *            true if elements are 4 byte floating point numbers
+     * @throws IOException
+     *             if header cannot be written
+     */
+    private static void writeHeader( OutputStream stream, String shape,
+	    boolean float32 ) throws IOException {
+
+	final StringBuilder dictionary = new StringBuilder( "{'descr': '<f" )
+		.append( float32 ? 4 : 8 )
+		.append( "', 'fortran_order': False, 'shape': " ).append( shape )
+		.append( ", }" );
+
+	final int prefix = MAGIC.length + 4;
+	while ( ((prefix + dictionary.length() + 1) % ALIGNMENT) != 0 ) {
+	    dictionary.append( ' ' );
+	}
+	dictionary.append( '\n' );
+
+	final ByteBuffer header = ByteBuffer
+		.allocate( prefix + dictionary.length() ).order(
+			ByteOrder.LITTLE_ENDIAN );
+
+	header.put( MAGIC ).put( (byte) 1 ).put( (byte) 0 )
+		.putShort( (short) dictionary.length() )
+		.put( dictionary.toString().getBytes( StandardCharsets.ISO_8859_1 ) );
+
+	stream.write( header.array() );
+    }
+
+    /**
+     * Creates buffer for conversion of written elements.
+     * 
+     * @return new little endian buffer
+     */
+    private static ByteBuffer newBuffer() {
+
+	return ByteBuffer.allocate( BUFFER_SIZE ).order(
+		ByteOrder.LITTLE_ENDIAN );
+    }
+
+    /**
+     * Converts elements to bytes in buffer, and writes full buffer to
+     * stream.
+     * 
+     * @param stream
+     *            stream to which bytes are written
+     * @param buffer
+     *            buffer for conversion
+     * @param elements
+     *            elements to be written
+     * @param float32
+     *            true if elements should be written as 4 byte floating point
+     *            numbers
+     * @throws IOException
+     *             if bytes cannot be written
+     */
+    private static void writeElements( OutputStream stream, ByteBuffer buffer,
+	    double[] elements, boolean float32 ) throws IOException {
+
+	final int size = float32 ? Float.BYTES : Double.BYTES;
+
+	for ( int offset = 0; offset < elements.length; ) {
+	    final int count = Math.min( elements.length - offset,
+		    buffer.remaining() / size );
+
+	    if ( float32 ) {
+		final FloatBuffer floats = buffer.asFloatBuffer();
+
+		for ( int i = 0; i < count; i++ ) {
+		    floats.put( i, (float) elements[offset + i] );
+		}
+	    } else {
+		final DoubleBuffer doubles = buffer.asDoubleBuffer();
+		doubles.put( elements, offset, count );
+	    }
+
+	    buffer.position( buffer.position() + (count * size) );
+	    offset += count;
+
+	    if ( buffer.remaining() < size ) {
+		flush( stream, buffer );
+	    }
+	}
+    }
+
+    /**
+     * Writes bytes from buffer between 0 and its position, and clears
+     * buffer.
+     * 
+     * @param stream
+     *            stream to which bytes are written
+     * @param buffer
+     *            buffer with bytes
+     * @throws IOException
+     *             if bytes cannot be written
+     */
+    private static void flush( OutputStream stream, ByteBuffer buffer )
+	    throws IOException {
+
+	stream.write( buffer.array(), 0, buffer.position() );
+	buffer.clear();
+    }
+}
@@ -0,0 +1,303 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Cholesky decomposition of symmetric positive definite matrix stored as
+ * packed upper triangle. Matrix is factored once to A = U^T * U, where U is
+ * upper triangular matrix with positive diagonal, stored in same packed form
+ * as {@link SymmetricMatrix}. Factor needs <code>n * (n + 1) / 2</code>
+ * elements, so decomposition of large matrix never needs dense storage.
+ * <p>
+ * Factorization is done row by row. When row k of factor is calculated, its
+ * multiple is subtracted from every row below it, and every such update reads
+ * two contiguous parts of packed array with {@link VectorKernels}. Zero
+ * elements of factor are skipped, so sparse or banded matrices are factored
+ * faster.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class PackedCholeskyDecomposition {
+
+    /**
+     * Factor U stored as packed upper triangle, <code>null</code> if matrix
+     * is not positive definite
+     */
+    private double[] u;
+
+    /**
+     * Dimension of decomposed matrix
+     */
+    private final int dimension;
+
+    /**
+     * True if decomposed matrix is positive definite
+     */
+    private final boolean positiveDefinite;
+
+    /**
+     * Decomposes provided matrix. Provided matrix is not changed.
+     * 
+     * @param matrix
+     *            matrix to be decomposed
+     */
+    public PackedCholeskyDecomposition(SymmetricMatrix matrix) {
+
+	this( matrix.elements.clone(), matrix.getRowsCount() );
+    }
+
+    /**
+     * Decomposes matrix stored as packed upper triangle in provided array.
+     * Array is replaced with factor. If matrix is not positive definite, array
+     * is left partially factored and is not referenced by decomposition.
+     * 
+     * @param elements
+     *            upper triangle stored row by row
+     * @param dimension
+     *            dimension of matrix
+     */
+    PackedCholeskyDecomposition(double[] elements, int dimension) {
+
+	this.dimension = dimension;
+	u = elements;
+	positiveDefinite = decompose();
+
+	if ( !positiveDefinite ) {
+	    u = null;
+	}
+    }
+
+    /**
+     * Factors packed triangle in place. Factorization stops on first pivot
+     * which is not positive.
+     * 
+     * @return true if matrix is positive definite
+     */
+    private boolean decompose() {
+
+	final int n = dimension;
+
+	for ( int k = 0, rowK = 0; k < n; rowK += n - k, k++ ) {
+	    final double pivot = u[rowK];
+
+	    if ( !(pivot > 0.0) ) {
+		return false;
+	    }
+
+	    final double diagonal = Math.sqrt( pivot );
+	    u[rowK] = diagonal;
+	    VectorKernels.scale( u, rowK + 1, 1.0 / diagonal, n - k - 1 );
+
+	    for ( int i = k + 1, rowI = rowK + (n - k); i < n; rowI += n - i, i++ ) {
+		final double factor = u[rowK + (i - k)];
+
+		if ( factor != 0.0 ) {
+		    VectorKernels.axpy( -factor, u, rowK + (i - k), u, rowI, n
+			    - i );
+		}
+	    }
+	}
+
+	return true;
+    }
+
+    /**
+     * Dimension getter.
+     * 
+     * @return dimension of decomposed matrix
+     */
+    public int getDimension() {
+
+	return dimension;
+    }
+
+    /**
+     * Checks if decomposed matrix is positive definite. Other queries are
+     * possible only for positive definite matrices.
+     * 
+     * @return true if and only if decomposition succeeded
+     */
+    public boolean isPositiveDefinite() {
+
+	return positiveDefinite;
+    }
+
+    /**
+     * Creates upper triangular factor U.
+     * 
+     * @return new triangular matrix with factor U
+     * @throws IncompatibleOperandException
+     *             if matrix is not positive definite
+     */
+    public TriangularMatrix getU() {
+
+	checkPositiveDefinite();
+
+	return new TriangularMatrix( dimension, true, false, u.clone() );
+    }
+
+    /**
+     * Calculates determinant of decomposed matrix.
+     * 
+     * @return determinant of decomposed matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is not positive definite
+     */
+    public double determinant() {
+
+	checkPositiveDefinite();
+
+	double determinant = 1.0;
+
+	for ( int i = 0, index = 0; i < dimension; index += dimension - i, i++ ) {
+	    determinant *= u[index] * u[index];
+	}
+
+	return determinant;
+    }
+
+    /**
+     * Calculates natural logarithm of determinant of decomposed matrix. Unlike
+     * {@link #determinant()}, result does not overflow or underflow for large
+     * matrices.
+     * 
+     * @return logarithm of determinant of decomposed matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is not positive definite
+     */
+    public double logDeterminant() {
+
+	checkPositiveDefinite();
+
+	double sum = 0.0;
+
+	for ( int i = 0, index = 0; i < dimension; index += dimension - i, i++ ) {
+	    sum += Math.log( u[index] );
+	}
+
+	return 2.0 * sum;
+    }
+
+    /**
+     * Solves system A * x = b, where A is decomposed matrix.
+     * 
+     * @param b
+     *            right hand side of system
+     * @return solution of system
+     * @throws IncompatibleOperandException
+     *             if dimension of vector is not same as dimension of matrix,
+     *             or if matrix is not positive definite
+     */
+    public IVector solve( IVector b ) {
+
+	if ( b.getDimension() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Vector must have same dimension as matrix" );
+	}
+
+	final double[] x = b.toArray();
+	solveInPlace( x, 1 );
+
+	return new Vector( false, true, x );
+    }
+
+    /**
+     * Solves system A * X = B for all columns of B in one pass, where A is
+     * decomposed matrix.
+     * 
+     * @param b
+     *            right hand sides of system stored in columns
+     * @return solutions of system stored in columns
+     * @throws IncompatibleOperandException
+     *             if matrix B has not same number of rows as decomposed
+     *             matrix, or if matrix is not positive definite
+     */
+    public IMatrix solve( IMatrix b ) {
+
+	if ( b.getRowsCount() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Matrix must have same number of rows as decomposed matrix" );
+	}
+
+	final int cols = b.getColsCount();
+	final double[] x = FlatMatrix.valueOf( b ).elements;
+
+	solveInPlace( x, cols );
+
+	return LinAlgDefaults.defaultMatrix( dimension, cols, x );
+    }
+
+    /**
+     * Calculates inverse of decomposed matrix by solving system A * X = I.
+     * 
+     * @return inverse of decomposed matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is not positive definite
+     */
+    public IMatrix inverse() {
+
+	final double[] x = new double[dimension * dimension];
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    x[(i * dimension) + i] = 1.0;
+	}
+
+	solveInPlace( x, dimension );
+
+	return LinAlgDefaults.defaultMatrix( dimension, dimension, x );
+    }
+
+    /**
+     * Solves system U^T * U * X = B in place. Both substitutions read factor
+     * row by row.
+     * 
+     * @param x
+     *            right hand sides stored row by row, replaced with solutions
+     * @param cols
+     *            number of right hand sides
+     * @throws IncompatibleOperandException
+     *             if matrix is not positive definite
+     */
+    void solveInPlace( double[] x, int cols ) {
+
+	checkPositiveDefinite();
+
+	final int n = dimension;
+
+	for ( int k = 0, rowK = 0; k < n; rowK += n - k, k++ ) {
+	    final int source = k * cols;
+
+	    Substitution.divideRow( x, source, cols, u[rowK] );
+
+	    for ( int j = k + 1; j < n; j++ ) {
+		Substitution.subtractRow( x, j * cols, source, cols, u[rowK
+			+ (j - k)] );
+	    }
+	}
+
+	for ( int i = n - 1, rowI = (int) (((long) n * (n + 1)) / 2) - 1; i >= 0; i-- ) {
+	    final int target = i * cols;
+
+	    for ( int j = i + 1; j < n; j++ ) {
+		Substitution.subtractRow( x, target, j * cols, cols, u[rowI
+			+ (j - i)] );
+	    }
+
+	    Substitution.divideRow( x, target, cols, u[rowI] );
+	    rowI -= n - i + 1;
+	}
+    }
+
+    /**
+     * Checks if decomposed matrix is positive definite.
+     * 
+     * @throws IncompatibleOperandException
+     *             if matrix is not positive definite
+     */
+    private void checkPositiveDefinite() {
+
+	if ( !positiveDefinite ) {
+	    throw new IncompatibleOperandException(
+		    "Matrix is not positive definite" );
+	}
+    }
+}
@@ -0,0 +1,477 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Arrays;
+
+/**
+ * Householder QR decomposition of m x n matrix. Matrix is factored once to A =
+ * Q * R, where Q is orthogonal matrix and R is upper triangular matrix, and
+ * then used for least squares solutions of overdetermined systems. Normal
+ * equations A^T * A * x = A^T * b are never formed, so condition number of
+ * matrix is not squared.
+ * <p>
+ * Columns are factored in blocks. Reflectors of one block are accumulated in
+ * compact WY form I - V * T * V^T, so rest of matrix is updated with two
+ * matrix products calculated by same kernel as
+ * {@link AbstractMatrix#nMultiply(IMatrix)}.
+ * <p>
+ * Matrix is considered rank deficient if absolute value of some diagonal
+ * element of R is not greater than <code>max(m, n) * ulp(1) * max|a(i, k)|
+ * </code>, where maximum is taken over column k of decomposed matrix.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class QRDecomposition {
+
+    /**
+     * Number of columns factored in one block
+     */
+    private static final int BLOCK = 32;
+
+    /**
+     * R stored on and above diagonal, Householder vectors stored below
+     * diagonal, row by row
+     */
+    private final double[] qr;
+
+    /**
+     * Scalar factors of Householder reflectors
+     */
+    private final double[] tau;
+
+    /**
+     * Number of rows of decomposed matrix
+     */
+    private final int rows;
+
+    /**
+     * Number of columns of decomposed matrix
+     */
+    private final int cols;
+
+    /**
+     * True if decomposed matrix has full column rank
+     */
+    private boolean fullRank;
+
+    /**
+     * Decomposes provided matrix. Provided matrix is not changed.
+     * 
+     * @param matrix
+     *            matrix to be decomposed
+     */
+    public QRDecomposition(IMatrix matrix) {
+
+	rows = matrix.getRowsCount();
+	cols = matrix.getColsCount();
+	qr = FlatMatrix.valueOf( matrix ).elements;
+	tau = new double[Math.min( rows, cols )];
+
+	final double[] tolerance = columnTolerances();
+	decompose();
+
+	fullRank = rows >= cols;
+	for ( int k = 0; k < tau.length; k++ ) {
+	    if ( !(Math.abs( qr[(k * cols) + k] ) > tolerance[k]) ) {
+		fullRank = false;
+	    }
+	}
+    }
+
+    /**
+     * Calculates tolerance for diagonal elements of R for every column.
+     * 
+     * @return tolerances for diagonal elements
+     */
+    private double[] columnTolerances() {
+
+	final double[] tolerance = new double[cols];
+
+	for ( int row = 0, index = 0; row < rows; row++ ) {
+	    for ( int col = 0; col < cols; col++, index++ ) {
+		tolerance[col] = Math.max( tolerance[col], Math.abs( qr[index] ) );
+	    }
+	}
+
+	final double factor = Math.max( rows, cols ) * Math.ulp( 1.0 );
+	for ( int col = 0; col < cols; col++ ) {
+	    tolerance[col] *= factor;
+	}
+
+	return tolerance;
+    }
+
+    /**
+     * Factors matrix in place, one block of columns at a time.
+     */
+    private void decompose() {
+
+	final int p = tau.length;
+	final double[] work = new double[cols];
+
+	for ( int k0 = 0; k0 < p; k0 += BLOCK ) {
+	    final int k1 = Math.min( k0 + BLOCK, p );
+
+	    for ( int k = k0; k < k1; k++ ) {
+		makeReflector( k );
+		applyReflector( k, qr, cols, k + 1, k1, work );
+	    }
+
+	    if ( k1 < cols ) {
+		updateTrailingColumns( k0, k1 );
+	    }
+	}
+    }
+
+    /**
+     * Calculates Householder reflector which annulls elements of column k
+     * below diagonal. Reflector is H = I - tau * v * v^T, where v(k) = 1 and
+     * other elements of v are stored below diagonal in place of annulled
+     * elements. Column is scaled with its largest element, so squares of its
+     * elements do not overflow.
+     * 
+     * @param k
+     *            index of column
+     */
+    private void makeReflector( int k ) {
+
+	final int diagonal = (k * cols) + k;
+	double scale = 0.0;
+
+	for ( int i = k, index = diagonal; i < rows; i++, index += cols ) {
+	    scale = Math.max( scale, Math.abs( qr[index] ) );
+	}
+
+	double sum = 0.0;
+
+	if ( scale > 0.0 ) {
+	    int index = diagonal + cols;
+	    for ( int i = k + 1; i < rows; i++, index += cols ) {
+		final double value = qr[index] / scale;
+		sum += value * value;
+	    }
+	}
+
+	if ( sum == 0.0 ) {
+	    tau[k] = 0.0;
+	    return;
+	}
+
+	final double alpha = qr[diagonal];
+	final double scaledAlpha = alpha / scale;
+	final double norm = scale * Math.sqrt( (scaledAlpha * scaledAlpha) + sum );
+	final double beta = alpha >= 0.0 ? -norm : norm;
+	final double factor = 1.0 / (alpha - beta);
+
+	int index = diagonal + cols;
+	for ( int i = k + 1; i < rows; i++, index += cols ) {
+	    qr[index] *= factor;
+	}
+
+	tau[k] = (beta - alpha) / beta;
+	qr[diagonal] = beta;
+    }
+
+    /**
+     * Applies reflector of column k to columns <code>from</code> to
+     * <code>to</code> (exclusive) of matrix stored row by row. Matrix is read
+     * row by row.
+     * 
+     * @param k
+     *            index of reflector
+     * @param target
+     *            matrix with at least as many rows as decomposed matrix
+     * @param width
+     *            number of columns of target matrix
+     * @param from
+     *            first column that is changed
+     * @param to
+     *            column after last column that is changed
+     * @param work
+     *            array with at least <code>to</code> elements
+     */
+    private void applyReflector( int k, double[] target, int width, int from,
+	    int to, double[] work ) {
+
+	if ( (tau[k] == 0.0) || (from >= to) ) {
+	    return;
+	}
+
+	final int first = k * width;
+	System.arraycopy( target, first + from, work, from, to - from );
+
+	for ( int i = k + 1; i < rows; i++ ) {
+	    final double v = qr[(i * cols) + k];
+	    final int row = i * width;
+
+	    for ( int j = from; j < to; j++ ) {
+		work[j] += v * target[row + j];
+	    }
+	}
+
+	for ( int j = from; j < to; j++ ) {
+	    work[j] *= tau[k];
+	    target[first + j] -= work[j];
+	}
+
+	for ( int i = k + 1; i < rows; i++ ) {
+	    final double v = qr[(i * cols) + k];
+	    final int row = i * width;
+
+	    for ( int j = from; j < to; j++ ) {
+		target[row + j] -= v * work[j];
+	    }
+	}
+    }
+
+    /**
+     * Applies reflectors of columns <code>k0</code> to <code>k1</code>
+     * (exclusive) to all columns after them. Reflectors are accumulated to
+     * H(k0) * ... * H(k1 - 1) = I - V * T * V^T, and columns are updated with
+     * A = A - V * (T^T * (V^T * A)).
+     * 
+     * @param k0
+     *            first reflector of block
+     * @param k1
+     *            reflector after last reflector of block
+     */
+    private void updateTrailingColumns( int k0, int k1 ) {
+
+	final int size = k1 - k0;
+	final int height = rows - k0;
+	final int width = cols - k1;
+
+	final FlatMatrix v = new FlatMatrix( height, size );
+	final FlatMatrix vt = new FlatMatrix( size, height );
+
+	for ( int i = 0; i < height; i++ ) {
+	    for ( int j = 0; j < size && j <= i; j++ ) {
+		final double value = i == j ? 1.0 : qr[((k0 + i) * cols) + k0 + j];
+		v.elements[(i * size) + j] = value;
+		vt.elements[(j * height) + i] = value;
+	    }
+	}
+
+	final double[] t = triangularFactor( v, k0, size );
+	final FlatMatrix trailing = new FlatMatrix( height, width, qr,
+		(k0 * cols) + k1, cols );
+	final FlatMatrix w = new FlatMatrix( size, width );
+
+	Gemm.multiply( vt, trailing, w );
+
+	// w = -T^T * w, row j depends only on rows before it
+	final double[] product = w.elements;
+	for ( int j = size - 1; j >= 0; j-- ) {
+	    final int row = j * width;
+
+	    for ( int col = 0; col < width; col++ ) {
+		product[row + col] *= -t[(j * size) + j];
+	    }
+
+	    for ( int i = 0; i < j; i++ ) {
+		Substitution.subtractRow( product, row, i * width, width,
+			t[(i * size) + j] );
+	    }
+	}
+
+	Gemm.multiply( v, w, trailing );
+    }
+
+    /**
+     * Calculates upper triangular matrix T of compact WY form of block of
+     * reflectors.
+     * 
+     * @param v
+     *            Householder vectors of block stored in columns
+     * @param k0
+     *            first reflector of block
+     * @param size
+     *            number of reflectors in block
+     * @return matrix T stored row by row
+     */
+    private double[] triangularFactor( FlatMatrix v, int k0, int size ) {
+
+	final double[] t = new double[size * size];
+	final double[] products = new double[size];
+	final double[] elements = v.elements;
+	final int height = v.getRowsCount();
+
+	for ( int j = 0; j < size; j++ ) {
+	    final double factor = tau[k0 + j];
+	    t[(j * size) + j] = factor;
+
+	    if ( factor == 0.0 ) {
+		continue;
+	    }
+
+	    // products(i) = v(i)^T * v(j), v(j) is zero above row j
+	    Arrays.fill( products, 0, j, 0.0 );
+	    for ( int r = j; r < height; r++ ) {
+		final int row = r * size;
+		final double value = elements[row + j];
+
+		for ( int i = 0; i < j; i++ ) {
+		    products[i] += elements[row + i] * value;
+		}
+	    }
+
+	    // T(0:j, j) = -tau(j) * T(0:j, 0:j) * products
+	    for ( int i = 0; i < j; i++ ) {
+		double sum = 0.0;
+
+		for ( int p = i; p < j; p++ ) {
+		    sum += t[(i * size) + p] * products[p];
+		}
+
+		t[(i * size) + j] = -factor * sum;
+	    }
+	}
+
+	return t;
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows of decomposed matrix
+     */
+    public int getRowsCount() {
+
+	return rows;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns of decomposed matrix
+     */
+    public int getColsCount() {
+
+	return cols;
+    }
+
+    /**
+     * Checks if decomposed matrix has full column rank. Least squares
+     * solutions are possible only for such matrices.
+     * 
+     * @return true if columns of matrix are linearly independent
+     */
+    public boolean isFullRank() {
+
+	return fullRank;
+    }
+
+    /**
+     * Creates orthogonal factor Q with min(m, n) columns. Factor is calculated
+     * from stored reflectors on every call.
+     * 
+     * @return new m x min(m, n) matrix with orthonormal columns
+     */
+    public IMatrix getQ() {
+
+	final int p = tau.length;
+	final double[] q = new double[rows * p];
+	final double[] work = new double[p];
+
+	for ( int i = 0; i < p; i++ ) {
+	    q[(i * p) + i] = 1.0;
+	}
+
+	for ( int k = p - 1; k >= 0; k-- ) {
+	    applyReflector( k, q, p, k, p, work );
+	}
+
+	return LinAlgDefaults.defaultMatrix( rows, p, q );
+    }
+
+    /**
+     * Creates upper triangular factor R with min(m, n) rows.
+     * 
+     * @return new min(m, n) x n upper triangular matrix
+     */
+    public IMatrix getR() {
+
+	final int p = tau.length;
+	final double[] r = new double[p * cols];
+
+	for ( int i = 0; i < p; i++ ) {
+	    System.arraycopy( qr, (i * cols) + i, r, (i * cols) + i, cols - i );
+	}
+
+	return LinAlgDefaults.defaultMatrix( p, cols, r );
+    }
+
+    /**
+     * Finds vector x which minimizes norm of A * x - b, where A is decomposed
+     * matrix.
+     * 
+     * @param b
+     *            right hand side of system
+     * @return least squares solution of system
+     * @throws IncompatibleOperandException
+     *             if dimension of vector is not same as number of rows of
+     *             matrix, or if matrix does not have full column rank
+     */
+    public IVector solve( IVector b ) {
+
+	if ( b.getDimension() != rows ) {
+	    throw new IncompatibleOperandException(
+		    "Vector must have same dimension as number of rows of matrix" );
+	}
+
+	return new Vector( false, true, solveInPlace( b.toArray(), 1 ) );
+    }
+
+    /**
+     * Finds least squares solutions for all columns of B in one pass, where A
+     * is decomposed matrix.
+     * 
+     * @param b
+     *            right hand sides of system stored in columns
+     * @return least squares solutions of system stored in columns
+     * @throws IncompatibleOperandException
+     *             if matrix B has not same number of rows as decomposed
+     *             matrix, or if matrix does not have full column rank
+     */
+    public IMatrix solve( IMatrix b ) {
+
+	if ( b.getRowsCount() != rows ) {
+	    throw new IncompatibleOperandException(
+		    "Matrix must have same number of rows as decomposed matrix" );
+	}
+
+	final int width = b.getColsCount();
+	final double[] x = solveInPlace( FlatMatrix.valueOf( b ).elements, width );
+
+	return LinAlgDefaults.defaultMatrix( cols, width, x );
+    }
+
+    /**
+     * Calculates R^-1 * Q^T * B. Right hand sides are overwritten with Q^T *
+     * B.
+     * 
+     * @param x
+     *            right hand sides stored row by row
+     * @param width
+     *            number of right hand sides
+     * @return solutions stored row by row
+     * @throws IncompatibleOperandException
+     *             if matrix does not have full column rank
+     */
+    private double[] solveInPlace( double[] x, int width ) {
+
+	if ( !fullRank ) {
+	    throw new IncompatibleOperandException(
+		    "Matrix does not have full column rank" );
+	}
+
+	final double[] work = new double[width];
+	for ( int k = 0; k < tau.length; k++ ) {
+	    applyReflector( k, x, width, 0, width, work );
+	}
+
+	Substitution.solveUpper( qr, 0, cols, cols, false, x, width );
+
+	return Arrays.copyOf( x, cols * width );
+    }
+}
@@ -0,0 +1,280 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Scalar implementations of loops of {@link VectorKernels}. They are used on
+ * every Java version when SIMD kernels are not available or are disabled.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+final class ScalarKernels {
+
+    /**
+     * Class has only static methods.
+     */
+    private ScalarKernels() {
+
+    }
+
+    /**
+     * Calculates scalar product of parts of two arrays. Four independent
+     * partial sums are used, so additions do not wait for each other.
+     * 
+     * @param a
+     *            first array
+     * @param aOffset
+     *            index of first element of first array
+     * @param b
+     *            second array
+     * @param bOffset
+     *            index of first element of second array
+     * @param length
+     *            number of multiplied elements
+     * @return scalar product
+     */
+    static double dot( double[] a, int aOffset, double[] b, int bOffset,
+	    int length ) {
+
+	double sum0 = 0.0;
+	double sum1 = 0.0;
+	double sum2 = 0.0;
+	double sum3 = 0.0;
+	int i = 0;
+
+	for ( ; i < (length - 3); i += 4 ) {
+	    sum0 += a[aOffset + i] * b[bOffset + i];
+	    sum1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+	    sum2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+	    sum3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+	}
+
+	for ( ; i < length; i++ ) {
+	    sum0 += a[aOffset + i] * b[bOffset + i];
+	}
+
+	return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    /**
+     * Calculates scalar product of parts of two arrays in double precision.
+     * 
+     * @param a
+     *            first array
+     * @param aOffset
+     *            index of first element of first array
+     * @param b
+     *            second array
+     * @param bOffset
+     *            index of first element of second array
+     * @param length
+     *            number of multiplied elements
+     * @return scalar product
+     */
+    static double dot( float[] a, int aOffset, float[] b, int bOffset,
+	    int length ) {
+
+	double sum0 = 0.0;
+	double sum1 = 0.0;
+	double sum2 = 0.0;
+	double sum3 = 0.0;
+	int i = 0;
+
+	for ( ; i < (length - 3); i += 4 ) {
+	    sum0 += (double) a[aOffset + i] * b[bOffset + i];
+	    sum1 += (double) a[aOffset + i + 1] * b[bOffset + i + 1];
+	    sum2 += (double) a[aOffset + i + 2] * b[bOffset + i + 2];
+	    sum3 += (double) a[aOffset + i + 3] * b[bOffset + i + 3];
+	}
+
+	for ( ; i < length; i++ ) {
+	    sum0 += (double) a[aOffset + i] * b[bOffset + i];
+	}
+
+	return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    /**
+     * Adds multiple of part of first array to part of second array.
+     * 
+     * @param factor
+     *            multiple of first array
+     * @param x
+     *            array which is added
+     * @param xOffset
+     *            index of first added element
+     * @param y
+     *            array which is changed
+     * @param yOffset
+     *            index of first changed element
+     * @param length
+     *            number of added elements
+     */
+    static void axpy( double factor, double[] x, int xOffset, double[] y,
+	    int yOffset, int length ) {
+
+	for ( int i = 0; i < length; i++ ) {
+	    y[yOffset + i] += factor * x[xOffset + i];
+	}
+    }
+
+    /**
+     * Adds multiple of part of first array to part of second array.
+     * 
+     * @param factor
+     *            multiple of first array
+     * @param x
+     *            array which is added
+     * @param xOffset
+     *            index of first added element
+     * @param y
+     *            array which is changed
+     * @param yOffset
+     *            index of first changed element
+     * @param length
+     *            number of added elements
+     */
+    static void axpy( float factor, float[] x, int xOffset, float[] y,
+	    int yOffset, int length ) {
+
+	for ( int i = 0; i < length; i++ ) {
+	    y[yOffset + i] += factor * x[xOffset + i];
+	}
+    }
+
+    /**
+     * Adds multiple of part of array of floats to part of array of doubles.
+     * Floats are converted to doubles before multiplication, so sums are
+     * accumulated in double precision without copy of first array.
+     * 
+     * @param factor
+     *            multiple of first array
+     * @param x
+     *            array which is added
+     * @param xOffset
+     *            index of first added element
+     * @param y
+     *            array which is changed
+     * @param yOffset
+     *            index of first changed element
+     * @param length
+     *            number of added elements
+     */
+    static void axpy( double factor, float[] x, int xOffset, double[] y,
+	    int yOffset, int length ) {
+
+	for ( int i = 0; i < length; i++ ) {
+	    y[yOffset + i] += factor * x[xOffset + i];
+	}
+    }
+
+    /**
+     * Multiplies part of array with provided value.
+     * 
+     * @param x
+     *            array which is changed
+     * @param offset
+     *            index of first changed element
+     * @param factor
+     *            scalar
+     * @param length
+     *            number of changed elements
+     */
+    static void scale( double[] x, int offset, double factor, int length ) {
+
+	for ( int i = offset, end = offset + length; i < end; i++ ) {
+	    x[i] *= factor;
+	}
+    }
+
+    /**
+     * Multiplies part of array with provided value.
+     * 
+     * @param x
+     *            array which is changed
+     * @param offset
+     *            index of first changed element
+     * @param factor
+     *            scalar
+     * @param length
+     *            number of changed elements
+     */
+    static void scale( float[] x, int offset, float factor, int length ) {
+
+	for ( int i = offset, end = offset + length; i < end; i++ ) {
+	    x[i] *= factor;
+	}
+    }
+
+    /**
+     * Multiplies panel of four rows of first matrix, stored column by column,
+     * with panel of four columns of second matrix, stored row by row. Block
+     * of 4x4 results is accumulated in local variables.
+     * 
+     * @param packedA
+     *            packed block of first matrix
+     * @param aIndex
+     *            index of panel in packed block of first matrix
+     * @param packedB
+     *            packed block of second matrix
+     * @param bIndex
+     *            index of panel in packed block of second matrix
+     * @param depth
+     *            length of panels
+     * @param result
+     *            array in which 4x4 results are stored row by row
+     */
+    static void multiplyPanels( double[] packedA, int aIndex,
+	    double[] packedB, int bIndex, int depth, double[] result ) {
+
+	double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+	double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+	double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+	double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+
+	for ( int p = 0, a = aIndex, b = bIndex; p < depth; p++, a += 4, b += 4 ) {
+	    final double a0 = packedA[a];
+	    final double a1 = packedA[a + 1];
+	    final double a2 = packedA[a + 2];
+	    final double a3 = packedA[a + 3];
+
+	    final double b0 = packedB[b];
+	    final double b1 = packedB[b + 1];
+	    final double b2 = packedB[b + 2];
+	    final double b3 = packedB[b + 3];
+
+	    c00 += a0 * b0;
+	    c01 += a0 * b1;
+	    c02 += a0 * b2;
+	    c03 += a0 * b3;
+	    c10 += a1 * b0;
+	    c11 += a1 * b1;
+	    c12 += a1 * b2;
+	    c13 += a1 * b3;
+	    c20 += a2 * b0;
+	    c21 += a2 * b1;
+	    c22 += a2 * b2;
+	    c23 += a2 * b3;
+	    c30 += a3 * b0;
+	    c31 += a3 * b1;
+	    c32 += a3 * b2;
+	    c33 += a3 * b3;
+	}
+
+	result[0] = c00;
+	result[1] = c01;
+	result[2] = c02;
+	result[3] = c03;
+	result[4] = c10;
+	result[5] = c11;
+	result[6] = c12;
+	result[7] = c13;
+	result[8] = c20;
+	result[9] = c21;
+	result[10] = c22;
+	result[11] = c23;
+	result[12] = c30;
+	result[13] = c31;
+	result[14] = c32;
+	result[15] = c33;
+    }
+}
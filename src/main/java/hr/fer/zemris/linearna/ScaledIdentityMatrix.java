@@ -0,0 +1,450 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Identity matrix multiplied with scalar. Only dimension and scalar are
+ * stored. Elements cannot be changed one by one, but matrix can be scaled,
+ * added to other scaled identity matrices or reset to identity.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class ScaledIdentityMatrix extends AbstractMatrix {
+
+    /**
+     * Dimension of matrix
+     */
+    private final int dimension;
+
+    /**
+     * Value of every element on diagonal
+     */
+    private double value;
+
+    /**
+     * Creates new identity matrix.
+     * 
+     * @param dimension
+     *            dimension of matrix
+     */
+    public ScaledIdentityMatrix(int dimension) {
+
+	this( dimension, 1.0 );
+    }
+
+    /**
+     * Creates new scaled identity matrix.
+     * 
+     * @param dimension
+     *            dimension of matrix
+     * @param value
+     *            value of every element on diagonal
+     */
+    public ScaledIdentityMatrix(int dimension, double value) {
+
+	if ( dimension < 0 ) {
+	    throw new IllegalArgumentException( "wrong dimension" );
+	}
+
+	this.dimension = dimension;
+	this.value = value;
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows
+     */
+    @Override
+    public int getRowsCount() {
+
+	return dimension;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns
+     */
+    @Override
+    public int getColsCount() {
+
+	return dimension;
+    }
+
+    /**
+     * Value of diagonal elements getter.
+     * 
+     * @return value of every element on diagonal
+     */
+    public double getValue() {
+
+	return value;
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return element at specified row and column
+     */
+    @Override
+    public double get( int row, int col ) {
+
+	if ( (row >= dimension) || (col >= dimension) || (row < 0)
+		|| (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	return row == col ? value : 0.0;
+    }
+
+    /**
+     * Element setter. Only values equal to current value of element are
+     * accepted.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @param value
+     *            new value of element
+     * @return this matrix
+     * @throws UnmodifiableObjectException
+     *             if value of element would be changed
+     */
+    @Override
+    public IMatrix set( int row, int col, double value ) {
+
+	if ( get( row, col ) != value ) {
+	    throw new UnmodifiableObjectException(
+		    "Elements of scaled identity matrix cannot be changed" );
+	}
+
+	return this;
+    }
+
+    /**
+     * Copies this matrix.
+     * 
+     * @return new scaled identity matrix
+     */
+    @Override
+    public IMatrix copy() {
+
+	return new ScaledIdentityMatrix( dimension, value );
+    }
+
+    /**
+     * Returns new dense matrix created by {@link LinAlgDefaults}.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     */
+    @Override
+    public IMatrix newInstance( int rows, int cols ) {
+
+	return LinAlgDefaults.defaultMatrix( rows, cols );
+    }
+
+    /**
+     * Creates transposed matrix, which is same as this matrix.
+     * 
+     * @param liveView
+     *            true if changes on transposed matrix should change this
+     *            matrix
+     * @return this matrix if live view is requested, copy otherwise
+     */
+    @Override
+    public IMatrix nTranspose( boolean liveView ) {
+
+	return liveView ? this : copy();
+    }
+
+    /**
+     * Adds provided scaled identity matrix to this matrix.
+     * 
+     * @param other
+     *            scaled identity matrix
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     * @throws UnmodifiableObjectException
+     *             if provided matrix is not scaled identity matrix
+     */
+    @Override
+    public IMatrix add( IMatrix other ) {
+
+	if ( !(other instanceof ScaledIdentityMatrix) ) {
+	    return super.add( other );
+	}
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add matrix with different size!" );
+	}
+
+	value += ((ScaledIdentityMatrix) other).value;
+
+	return this;
+    }
+
+    /**
+     * Subtracts provided scaled identity matrix from this matrix.
+     * 
+     * @param other
+     *            scaled identity matrix
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     * @throws UnmodifiableObjectException
+     *             if provided matrix is not scaled identity matrix
+     */
+    @Override
+    public IMatrix sub( IMatrix other ) {
+
+	if ( !(other instanceof ScaledIdentityMatrix) ) {
+	    return super.sub( other );
+	}
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot subtract matrix with different size!" );
+	}
+
+	value -= ((ScaledIdentityMatrix) other).value;
+
+	return this;
+    }
+
+    /**
+     * Adds provided matrix to this matrix. Does not change this matrix. Sum
+     * with scaled identity or zero matrix is scaled identity matrix, sum with
+     * band matrix is band matrix of same structure, sum with other matrices is
+     * dense matrix.
+     * 
+     * @param other
+     *            matrix to be added
+     * @return new matrix with sum
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     */
+    @Override
+    public IMatrix nAdd( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add matrix with different size!" );
+	}
+
+	return newSum( other ).add( other );
+    }
+
+    /**
+     * Subtracts provided matrix from this matrix. Does not change this
+     * matrix. Difference has same structure as sum in {@link #nAdd(IMatrix)}.
+     * 
+     * @param other
+     *            matrix to be subtracted
+     * @return new matrix with difference
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     */
+    @Override
+    public IMatrix nSub( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot subtract matrix with different size!" );
+	}
+
+	return newSum( other ).sub( other );
+    }
+
+    /**
+     * Creates matrix to which provided matrix is added, with copy of this
+     * matrix. Structure of new matrix can hold sum of both matrices.
+     * 
+     * @param other
+     *            matrix of same size
+     * @return new matrix with elements of this matrix
+     */
+    private IMatrix newSum( IMatrix other ) {
+
+	if ( (other instanceof ScaledIdentityMatrix)
+		|| (other instanceof ZeroMatrix) ) {
+	    return copy();
+	}
+
+	final IMatrix result = other instanceof BandMatrix ? ((BandMatrix) other)
+		.newBand() : newInstance( dimension, dimension );
+
+	addTo( result, 1.0 );
+
+	return result;
+    }
+
+    /**
+     * Adds multiple of this matrix to diagonal of provided matrix.
+     * 
+     * @param target
+     *            square matrix of same size
+     * @param factor
+     *            multiple of this matrix
+     */
+    void addTo( IMatrix target, double factor ) {
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    target.set( i, i, target.get( i, i ) + (factor * value) );
+	}
+    }
+
+    /**
+     * Multiplies this matrix with provided matrix, which scales provided
+     * matrix. Product is new dense matrix, same as product of any matrix with
+     * scaled identity matrix, so it can be changed.
+     * 
+     * @param other
+     *            matrix to be multiplied
+     * @return new dense matrix with scaled elements of provided matrix
+     * @throws IncompatibleOperandException
+     *             if this matrix hasn't number of columns as provided matrix
+     *             rows
+     */
+    @Override
+    public IMatrix nMultiply( IMatrix other ) {
+
+	if ( dimension != other.getRowsCount() ) {
+	    throw new IncompatibleOperandException(
+		    "First matrix must have same number of columns as second matrix rows!" );
+	}
+
+	final int cols = other.getColsCount();
+	final double[] product = FlatMatrix.valueOf( other ).elements;
+
+	VectorKernels.scale( product, 0, value, product.length );
+
+	return LinAlgDefaults.defaultMatrix( dimension, cols, product );
+    }
+
+    /**
+     * Multiplies this matrix with scalar.
+     * 
+     * @param value
+     *            scalar with which this matrix is multiplied
+     * @return this matrix
+     */
+    @Override
+    public IMatrix scalarMultiply( double value ) {
+
+	this.value *= value;
+
+	return this;
+    }
+
+    /**
+     * Change this matrix to unit matrix.
+     * 
+     * @return this matrix
+     */
+    @Override
+    public IMatrix makeIdentity() {
+
+	value = 1.0;
+
+	return this;
+    }
+
+    /**
+     * Calculates determinant as n-th power of value on diagonal.
+     * 
+     * @return determinant of matrix
+     */
+    @Override
+    public double determinant() {
+
+	return Math.pow( value, dimension );
+    }
+
+    /**
+     * Inverts this matrix.
+     * 
+     * @return new scaled identity matrix with inverted value
+     * @throws IncompatibleOperandException
+     *             if value on diagonal is 0
+     */
+    @Override
+    public IMatrix nInvert() {
+
+	if ( value == 0.0 ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot inverse singular matrix" );
+	}
+
+	return new ScaledIdentityMatrix( dimension, 1.0 / value );
+    }
+
+    /**
+     * Solves system A * X = B by scaling B.
+     * 
+     * @param b
+     *            right hand sides of system stored in columns
+     * @return solutions of system stored in columns
+     * @throws IncompatibleOperandException
+     *             if B has not same number of rows as this matrix, or if this
+     *             matrix is singular
+     */
+    @Override
+    public IMatrix solve( IMatrix b ) {
+
+	if ( b.getRowsCount() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Right hand side must have same number of rows as matrix" );
+	}
+
+	checkRegular();
+
+	return b.nScalarMultiply( 1.0 / value );
+    }
+
+    /**
+     * Solves system A * x = b by scaling b.
+     * 
+     * @param b
+     *            right hand side of system
+     * @return solution of system
+     * @throws IncompatibleOperandException
+     *             if b has not same dimension as this matrix, or if this
+     *             matrix is singular
+     */
+    @Override
+    public IVector solve( IVector b ) {
+
+	if ( b.getDimension() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Right hand side must have same number of rows as matrix" );
+	}
+
+	checkRegular();
+
+	return b.nScalarMultiply( 1.0 / value );
+    }
+
+    /**
+     * Checks if value on diagonal is not zero.
+     * 
+     * @throws IncompatibleOperandException
+     *             if matrix is singular
+     */
+    private void checkRegular() {
+
+	if ( value == 0.0 ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot solve system with singular matrix" );
+	}
+    }
+}
@@ -0,0 +1,756 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Arrays;
+
+/**
+ * Sparse matrix stored in compressed sparse row (CSR) format. Only non-zero
+ * elements are stored: values and column indices of elements of row i are
+ * stored at indices <code>rowPointers[i]</code> to
+ * <code>rowPointers[i + 1]</code> (exclusive) of arrays <code>values</code>
+ * and <code>columnIndices</code>, sorted by column.
+ * <p>
+ * Element access is slower than for dense matrices: {@link #get(int, int)}
+ * uses binary search in row and costs O(log k), where k is number of non-zero
+ * elements in row. {@link #set(int, int, double)} costs same if element is
+ * already stored, and O(nnz + rows) if element has to be inserted or removed,
+ * where nnz is number of stored elements. Matrices should therefore be filled
+ * row by row, or created from arrays in CSR format.
+ * <p>
+ * Products, transposition, addition and subtraction are calculated by kernels
+ * that read only stored elements.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class SparseMatrix extends AbstractMatrix implements BulkCopyMatrix {
+
+    /**
+     * Number of rows
+     */
+    protected int rows;
+
+    /**
+     * Number of columns
+     */
+    protected int cols;
+
+    /**
+     * Index of first stored element of every row, last element is number of
+     * stored elements
+     */
+    protected int[] rowPointers;
+
+    /**
+     * Column indices of stored elements
+     */
+    protected int[] columnIndices;
+
+    /**
+     * Values of stored elements
+     */
+    protected double[] values;
+
+    /**
+     * Creates new matrix. All elements of new matrix are 0.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     */
+    public SparseMatrix(int rows, int cols) {
+
+	this( rows, cols, new int[rows + 1], new int[0], new double[0] );
+    }
+
+    /**
+     * Creates new matrix from arrays in CSR format. Arrays are not copied.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @param rowPointers
+     *            index of first stored element of every row, followed by
+     *            number of stored elements
+     * @param columnIndices
+     *            column indices of stored elements, increasing in every row
+     * @param values
+     *            values of stored elements
+     * @throws IllegalArgumentException
+     *             if arrays are not in CSR format
+     */
+    public SparseMatrix(int rows, int cols, int[] rowPointers,
+	    int[] columnIndices, double[] values) {
+
+	if ( (rows < 0) || (cols < 0) || (rowPointers.length != (rows + 1))
+		|| (rowPointers[0] != 0)
+		|| (rowPointers[rows] > columnIndices.length)
+		|| (rowPointers[rows] > values.length) ) {
+	    throw new IllegalArgumentException( "wrong sparse structure" );
+	}
+
+	for ( int row = 0; row < rows; row++ ) {
+	    if ( rowPointers[row] > rowPointers[row + 1] ) {
+		throw new IllegalArgumentException( "wrong sparse structure" );
+	    }
+
+	    int previous = -1;
+
+	    for ( int i = rowPointers[row]; i < rowPointers[row + 1]; i++ ) {
+		if ( (columnIndices[i] <= previous) || (columnIndices[i] >= cols) ) {
+		    throw new IllegalArgumentException(
+			    "wrong sparse structure" );
+		}
+
+		previous = columnIndices[i];
+	    }
+	}
+
+	this.rows = rows;
+	this.cols = cols;
+	this.rowPointers = rowPointers;
+	this.columnIndices = columnIndices;
+	this.values = values;
+    }
+
+    /**
+     * Creates sparse copy of provided matrix. Elements equal to zero are not
+     * stored.
+     * 
+     * @param matrix
+     *            matrix to be copied
+     * @return new sparse matrix
+     */
+    public static SparseMatrix valueOf( IMatrix matrix ) {
+
+	if ( matrix instanceof SparseMatrix ) {
+	    return (SparseMatrix) matrix.copy();
+	}
+
+	final int rows = matrix.getRowsCount();
+	final int cols = matrix.getColsCount();
+	final int[] pointers = new int[rows + 1];
+
+	int[] indices = new int[Math.max( 16, rows )];
+	double[] values = new double[indices.length];
+	int size = 0;
+
+	for ( int row = 0; row < rows; row++ ) {
+	    for ( int col = 0; col < cols; col++ ) {
+		final double value = matrix.get( row, col );
+
+		if ( value != 0.0 ) {
+		    if ( size == indices.length ) {
+			indices = Arrays.copyOf( indices, grow( size ) );
+			values = Arrays.copyOf( values, indices.length );
+		    }
+
+		    indices[size] = col;
+		    values[size] = value;
+		    size++;
+		}
+	    }
+
+	    pointers[row + 1] = size;
+	}
+
+	return new SparseMatrix( rows, cols, pointers, indices, values );
+    }
+
+    /**
+     * Calculates new capacity of arrays with stored elements.
+     * 
+     * @param size
+     *            current capacity
+     * @return new capacity
+     */
+    private static int grow( int size ) {
+
+	return Math.max( 16, size + (size >> 1) );
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows
+     */
+    @Override
+    public int getRowsCount() {
+
+	return rows;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns
+     */
+    @Override
+    public int getColsCount() {
+
+	return cols;
+    }
+
+    /**
+     * Number of stored elements getter.
+     * 
+     * @return number of stored elements
+     */
+    public int getNonZerosCount() {
+
+	return rowPointers[rows];
+    }
+
+    /**
+     * Element getter. Element is found with binary search in its row.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return element at specified row and column
+     */
+    @Override
+    public double get( int row, int col ) {
+
+	final int index = find( row, col );
+
+	return index < 0 ? 0.0 : values[index];
+    }
+
+    /**
+     * Element setter. Setting element which is not stored inserts it, and
+     * setting stored element to zero removes it, which moves all stored
+     * elements after it.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @param value
+     *            new value of element
+     * @return this matrix
+     */
+    @Override
+    public IMatrix set( int row, int col, double value ) {
+
+	final int index = find( row, col );
+
+	if ( index >= 0 ) {
+	    if ( value != 0.0 ) {
+		values[index] = value;
+	    } else {
+		remove( row, index );
+	    }
+	} else if ( value != 0.0 ) {
+	    insert( row, -(index + 1), col, value );
+	}
+
+	return this;
+    }
+
+    /**
+     * Finds index of stored element.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return index of element if it is stored, otherwise
+     *         <code>(-(insertion point) - 1)</code>
+     */
+    private int find( int row, int col ) {
+
+	if ( (row >= rows) || (col >= cols) || (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	return Arrays.binarySearch( columnIndices, rowPointers[row],
+		rowPointers[row + 1], col );
+    }
+
+    /**
+     * Inserts element to arrays of stored elements.
+     * 
+     * @param row
+     *            row of element
+     * @param index
+     *            index at which element is inserted
+     * @param col
+     *            column of element
+     * @param value
+     *            value of element
+     */
+    private void insert( int row, int index, int col, double value ) {
+
+	final int size = rowPointers[rows];
+
+	if ( (size == columnIndices.length) || (size == values.length) ) {
+	    columnIndices = Arrays.copyOf( columnIndices, grow( size ) );
+	    values = Arrays.copyOf( values, columnIndices.length );
+	}
+
+	System.arraycopy( columnIndices, index, columnIndices, index + 1, size
+		- index );
+	System.arraycopy( values, index, values, index + 1, size - index );
+	columnIndices[index] = col;
+	values[index] = value;
+
+	for ( int i = row + 1; i <= rows; i++ ) {
+	    rowPointers[i]++;
+	}
+    }
+
+    /**
+     * Removes element from arrays of stored elements.
+     * 
+     * @param row
+     *            row of element
+     * @param index
+     *            index of element
+     */
+    private void remove( int row, int index ) {
+
+	final int size = rowPointers[rows];
+
+	System.arraycopy( columnIndices, index + 1, columnIndices, index, size
+		- index - 1 );
+	System.arraycopy( values, index + 1, values, index, size - index - 1 );
+
+	for ( int i = row + 1; i <= rows; i++ ) {
+	    rowPointers[i]--;
+	}
+    }
+
+    /**
+     * Copies this matrix. Changes on copy does not take affect on this matrix.
+     * 
+     * @return new matrix with same elements
+     */
+    @Override
+    public IMatrix copy() {
+
+	final int size = rowPointers[rows];
+
+	return new SparseMatrix( rows, cols, rowPointers.clone(),
+		Arrays.copyOf( columnIndices, size ), Arrays.copyOf( values, size ) );
+    }
+
+    /**
+     * Returns new instance of this matrix. All elements of new instance are 0.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     */
+    @Override
+    public IMatrix newInstance( int rows, int cols ) {
+
+	return new SparseMatrix( rows, cols );
+    }
+
+    /**
+     * Creates transposed matrix. Transposed copy is calculated by counting
+     * elements in every column, so complexity of method is O(nnz + rows +
+     * cols).
+     * 
+     * @param liveView
+     *            true if changes on transposed matrix should change this
+     *            matrix
+     * @return transposed matrix
+     */
+    @Override
+    public IMatrix nTranspose( boolean liveView ) {
+
+	if ( liveView ) {
+	    return super.nTranspose( true );
+	}
+
+	final int size = rowPointers[rows];
+	final int[] pointers = new int[cols + 1];
+	final int[] indices = new int[size];
+	final double[] transposed = new double[size];
+
+	for ( int i = 0; i < size; i++ ) {
+	    pointers[columnIndices[i] + 1]++;
+	}
+
+	for ( int col = 0; col < cols; col++ ) {
+	    pointers[col + 1] += pointers[col];
+	}
+
+	final int[] next = Arrays.copyOf( pointers, cols );
+
+	for ( int row = 0; row < rows; row++ ) {
+	    for ( int i = rowPointers[row]; i < rowPointers[row + 1]; i++ ) {
+		final int index = next[columnIndices[i]]++;
+		indices[index] = row;
+		transposed[index] = values[i];
+	    }
+	}
+
+	return new SparseMatrix( cols, rows, pointers, indices, transposed );
+    }
+
+    /**
+     * Adds provided matrix to this matrix. Rows of both matrices are merged,
+     * so result is sparse matrix with union of stored elements.
+     * 
+     * @param other
+     *            matrix to be added
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if this matrices have not same size
+     */
+    @Override
+    public IMatrix add( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add matrix with different size!" );
+	}
+
+	merge( other, 1.0 );
+
+	return this;
+    }
+
+    /**
+     * Subtracts provided matrix from this matrix. Rows of both matrices are
+     * merged, so result is sparse matrix with union of stored elements.
+     * 
+     * @param other
+     *            matrix to be subtracted
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if this matrices have not same size
+     */
+    @Override
+    public IMatrix sub( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot subtract matrix with different size!" );
+	}
+
+	merge( other, -1.0 );
+
+	return this;
+    }
+
+    /**
+     * Replaces this matrix with this + factor * other. Sums equal to zero are
+     * not stored.
+     * 
+     * @param other
+     *            matrix of same size
+     * @param factor
+     *            multiple of other matrix
+     */
+    private void merge( IMatrix other, double factor ) {
+
+	final SparseMatrix second = other instanceof SparseMatrix
+		? (SparseMatrix) other : SparseMatrix.valueOf( other );
+
+	final int capacity = rowPointers[rows] + second.rowPointers[rows];
+	final int[] pointers = new int[rows + 1];
+	final int[] indices = new int[capacity];
+	final double[] sums = new double[capacity];
+	int size = 0;
+
+	for ( int row = 0; row < rows; row++ ) {
+	    int i = rowPointers[row];
+	    int j = second.rowPointers[row];
+	    final int iEnd = rowPointers[row + 1];
+	    final int jEnd = second.rowPointers[row + 1];
+
+	    while ( (i < iEnd) || (j < jEnd) ) {
+		final int colI = i < iEnd ? columnIndices[i] : cols;
+		final int colJ = j < jEnd ? second.columnIndices[j] : cols;
+		double value;
+
+		if ( colI < colJ ) {
+		    indices[size] = colI;
+		    value = values[i++];
+		} else if ( colJ < colI ) {
+		    indices[size] = colJ;
+		    value = factor * second.values[j++];
+		} else {
+		    indices[size] = colI;
+		    value = values[i++] + (factor * second.values[j++]);
+		}
+
+		if ( value != 0.0 ) {
+		    sums[size++] = value;
+		}
+	    }
+
+	    pointers[row + 1] = size;
+	}
+
+	rowPointers = pointers;
+	columnIndices = indices;
+	values = sums;
+    }
+
+    /**
+     * Multiplies this matrix with provided matrix. Does not change this matrix.
+     * Product of two sparse matrices is sparse matrix calculated row by row
+     * with dense accumulator (Gustavson's algorithm). Product with any other
+     * matrix is dense matrix created by {@link LinAlgDefaults}, whose every
+     * row is sum of rows of provided matrix selected by stored elements of
+     * this matrix.
+     * 
+     * @param other
+     *            matrix to be multiplied
+     * @return multiplied matrix
+     * @throws IncompatibleOperandException
+     *             if this matrix hasn't number of columns as provided matrix
+     *             rows
+     */
+    @Override
+    public IMatrix nMultiply( IMatrix other ) {
+
+	if ( cols != other.getRowsCount() ) {
+	    throw new IncompatibleOperandException(
+		    "First matrix must have same number of columns as second matrix rows!" );
+	}
+
+	if ( other instanceof SparseMatrix ) {
+	    return multiplySparse( (SparseMatrix) other );
+	}
+
+	final int nCols = other.getColsCount();
+	final ArrayBackedMatrix dense = other instanceof ArrayBackedMatrix
+		? (ArrayBackedMatrix) other : FlatMatrix.valueOf( other );
+	final int stride = dense.colStride();
+	final double[] product = new double[rows * nCols];
+
+	for ( int row = 0; row < rows; row++ ) {
+	    final int target = row * nCols;
+
+	    for ( int i = rowPointers[row]; i < rowPointers[row + 1]; i++ ) {
+		final double value = values[i];
+		final double[] source = dense.rowArray( columnIndices[i] );
+		final int offset = dense.rowOffset( columnIndices[i] );
+
+		for ( int col = 0; col < nCols; col++ ) {
+		    product[target + col] += value
+			    * source[offset + (col * stride)];
+		}
+	    }
+	}
+
+	return LinAlgDefaults.defaultMatrix( rows, nCols, product );
+    }
+
+    /**
+     * Multiplies provided dense matrix with this matrix. Every row of product
+     * is sum of rows of this matrix, so this matrix is read row by row.
+     * 
+     * @param other
+     *            matrix with which this matrix is multiplied from left, must
+     *            have as many columns as this matrix has rows
+     * @return product of provided matrix and this matrix
+     */
+    IMatrix multiplyLeft( IMatrix other ) {
+
+	final int nRows = other.getRowsCount();
+	final double[] dense = FlatMatrix.valueOf( other ).elements;
+	final double[] product = new double[nRows * cols];
+
+	for ( int row = 0; row < nRows; row++ ) {
+	    final int target = row * cols;
+
+	    for ( int k = 0; k < rows; k++ ) {
+		final double value = dense[(row * rows) + k];
+
+		if ( value == 0.0 ) {
+		    continue;
+		}
+
+		for ( int i = rowPointers[k]; i < rowPointers[k + 1]; i++ ) {
+		    product[target + columnIndices[i]] += value * values[i];
+		}
+	    }
+	}
+
+	return LinAlgDefaults.defaultMatrix( nRows, cols, product );
+    }
+
+    /**
+     * Multiplies this matrix with other sparse matrix using Gustavson's
+     * algorithm. Complexity of method is proportional to number of
+     * multiplications of stored elements.
+     * 
+     * @param other
+     *            sparse matrix to be multiplied
+     * @return sparse product
+     */
+    private SparseMatrix multiplySparse( SparseMatrix other ) {
+
+	final int nCols = other.cols;
+	final double[] accumulator = new double[nCols];
+	final int[] marker = new int[nCols];
+	Arrays.fill( marker, -1 );
+
+	final int[] pointers = new int[rows + 1];
+	int[] indices = new int[Math.max( 16, rowPointers[rows] )];
+	double[] products = new double[indices.length];
+	int size = 0;
+
+	for ( int row = 0; row < rows; row++ ) {
+	    final int start = size;
+
+	    for ( int i = rowPointers[row]; i < rowPointers[row + 1]; i++ ) {
+		final int k = columnIndices[i];
+		final double value = values[i];
+
+		for ( int j = other.rowPointers[k]; j < other.rowPointers[k + 1]; j++ ) {
+		    final int col = other.columnIndices[j];
+
+		    if ( marker[col] != row ) {
+			marker[col] = row;
+			accumulator[col] = 0.0;
+
+			if ( size == indices.length ) {
+			    indices = Arrays.copyOf( indices, grow( size ) );
+			    products = Arrays.copyOf( products, indices.length );
+			}
+
+			indices[size++] = col;
+		    }
+
+		    accumulator[col] += value * other.values[j];
+		}
+	    }
+
+	    Arrays.sort( indices, start, size );
+
+	    int end = start;
+	    for ( int i = start; i < size; i++ ) {
+		final double value = accumulator[indices[i]];
+
+		if ( value != 0.0 ) {
+		    indices[end] = indices[i];
+		    products[end++] = value;
+		}
+	    }
+
+	    size = end;
+	    pointers[row + 1] = size;
+	}
+
+	return new SparseMatrix( rows, nCols, pointers, indices, products );
+    }
+
+    /**
+     * Adds multiple of this matrix to provided matrix. Only stored elements of
+     * this matrix are read.
+     * 
+     * @param target
+     *            matrix of same size to which this matrix is added
+     * @param factor
+     *            multiple of this matrix
+     */
+    void addTo( IMatrix target, double factor ) {
+
+	for ( int row = 0; row < rows; row++ ) {
+	    for ( int i = rowPointers[row]; i < rowPointers[row + 1]; i++ ) {
+		final int col = columnIndices[i];
+		target.set( row, col, target.get( row, col )
+			+ (factor * values[i]) );
+	    }
+	}
+    }
+
+    /**
+     * Copies elements of this matrix to dense array. Array is cleared and only
+     * stored elements are written.
+     * 
+     * @param target
+     *            array with space for all elements stored row by row
+     */
+    @Override
+    public void copyTo( double[] target ) {
+
+	Arrays.fill( target, 0, rows * cols, 0.0 );
+
+	for ( int row = 0; row < rows; row++ ) {
+	    for ( int i = rowPointers[row]; i < rowPointers[row + 1]; i++ ) {
+		target[(row * cols) + columnIndices[i]] += values[i];
+	    }
+	}
+    }
+
+    /**
+     * Multiplies this matrix with scalar. Only stored elements are changed.
+     * 
+     * @param value
+     *            scalar with which this matrix is multiplied
+     * @return this matrix
+     */
+    @Override
+    public IMatrix scalarMultiply( double value ) {
+
+	if ( value == 0.0 ) {
+	    Arrays.fill( rowPointers, 0 );
+	    return this;
+	}
+
+	for ( int i = 0, size = rowPointers[rows]; i < size; i++ ) {
+	    values[i] *= value;
+	}
+
+	return this;
+    }
+
+    /**
+     * Change this matrix to unit matrix.
+     * 
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is not square matrix
+     */
+    @Override
+    public IMatrix makeIdentity() {
+
+	if ( !isSqareMatrix() ) {
+	    throw new IncompatibleOperandException(
+		    "Matrix is not square matrix" );
+	}
+
+	rowPointers = new int[rows + 1];
+	columnIndices = new int[rows];
+	values = new double[rows];
+
+	for ( int row = 0; row < rows; row++ ) {
+	    rowPointers[row + 1] = row + 1;
+	    columnIndices[row] = row;
+	    values[row] = 1.0;
+	}
+
+	return this;
+    }
+
+    /**
+     * Returns two dimensional array with elements of matrix.
+     * 
+     * @return elements of matrix
+     */
+    @Override
+    public double[][] toArray() {
+
+	final double[][] array = new double[rows][cols];
+
+	for ( int row = 0; row < rows; row++ ) {
+	    for ( int i = rowPointers[row]; i < rowPointers[row + 1]; i++ ) {
+		array[row][columnIndices[i]] = values[i];
+	    }
+	}
+
+	return array;
+    }
+}
@@ -0,0 +1,517 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Arrays;
+
+/**
+ * Sparse vector which stores only non-zero elements. Indices of stored
+ * elements are kept sorted in one array and their values in other array, so
+ * operations with other sparse vectors merge two sorted lists and operations
+ * with dense vectors read only elements at stored indices.
+ * <p>
+ * {@link #get(int)} uses binary search and costs O(log nnz), where nnz is
+ * number of stored elements. {@link #set(int, double)} costs same if
+ * element is already stored, and O(nnz) if element has to be inserted or
+ * removed. Vectors should therefore be filled in order of increasing indices.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class SparseVector extends AbstractVector {
+
+    /**
+     * Dimension of vector
+     */
+    protected final int dimension;
+
+    /**
+     * Sorted indices of stored elements
+     */
+    protected int[] indices;
+
+    /**
+     * Values of stored elements
+     */
+    protected double[] values;
+
+    /**
+     * Number of stored elements
+     */
+    protected int size;
+
+    /**
+     * Creates new vector. All elements of new vector are 0.
+     * 
+     * @param dimension
+     *            dimension of vector
+     */
+    public SparseVector(int dimension) {
+
+	this( dimension, new int[0], new double[0] );
+    }
+
+    /**
+     * Creates new vector from indices and values of non-zero elements. Arrays
+     * are not copied.
+     * 
+     * @param dimension
+     *            dimension of vector
+     * @param indices
+     *            increasing indices of stored elements
+     * @param values
+     *            values of stored elements
+     * @throws IllegalArgumentException
+     *             if arrays have different lengths or indices are not
+     *             increasing indices of vector
+     */
+    public SparseVector(int dimension, int[] indices, double[] values) {
+
+	if ( (dimension < 0) || (indices.length != values.length) ) {
+	    throw new IllegalArgumentException( "wrong sparse structure" );
+	}
+
+	for ( int i = 0, previous = -1; i < indices.length; i++ ) {
+	    if ( (indices[i] <= previous) || (indices[i] >= dimension) ) {
+		throw new IllegalArgumentException( "wrong sparse structure" );
+	    }
+
+	    previous = indices[i];
+	}
+
+	this.dimension = dimension;
+	this.indices = indices;
+	this.values = values;
+	size = indices.length;
+    }
+
+    /**
+     * Creates sparse copy of provided vector. Elements equal to zero are not
+     * stored.
+     * 
+     * @param vector
+     *            vector to be copied
+     * @return new sparse vector
+     */
+    public static SparseVector valueOf( IVector vector ) {
+
+	if ( vector instanceof SparseVector ) {
+	    return (SparseVector) vector.copy();
+	}
+
+	final double[] elements = vector.toArray();
+	int count = 0;
+
+	for ( final double element : elements ) {
+	    if ( element != 0.0 ) {
+		count++;
+	    }
+	}
+
+	final int[] indices = new int[count];
+	final double[] values = new double[count];
+
+	for ( int i = 0, index = 0; i < elements.length; i++ ) {
+	    if ( elements[i] != 0.0 ) {
+		indices[index] = i;
+		values[index++] = elements[i];
+	    }
+	}
+
+	return new SparseVector( elements.length, indices, values );
+    }
+
+    /**
+     * Element getter. Element is found with binary search.
+     * 
+     * @param index
+     *            index of element
+     * @return element at provided index
+     */
+    @Override
+    public double get( int index ) {
+
+	final int position = find( index );
+
+	return position < 0 ? 0.0 : values[position];
+    }
+
+    /**
+     * Element setter. Setting element which is not stored inserts it, and
+     * setting stored element to zero removes it, which moves all stored
+     * elements after it.
+     * 
+     * @param index
+     *            index of element
+     * @param value
+     *            value to be set
+     * @return this vector
+     */
+    @Override
+    public IVector set( int index, double value ) {
+
+	final int position = find( index );
+
+	if ( position >= 0 ) {
+	    if ( value != 0.0 ) {
+		values[position] = value;
+	    } else {
+		System.arraycopy( indices, position + 1, indices, position,
+			size - position - 1 );
+		System.arraycopy( values, position + 1, values, position, size
+			- position - 1 );
+		size--;
+	    }
+	} else if ( value != 0.0 ) {
+	    final int insertion = -(position + 1);
+
+	    if ( size == indices.length ) {
+		final int capacity = Math.max( 8, size + (size >> 1) );
+		indices = Arrays.copyOf( indices, capacity );
+		values = Arrays.copyOf( values, capacity );
+	    }
+
+	    System.arraycopy( indices, insertion, indices, insertion + 1, size
+		    - insertion );
+	    System.arraycopy( values, insertion, values, insertion + 1, size
+		    - insertion );
+	    indices[insertion] = index;
+	    values[insertion] = value;
+	    size++;
+	}
+
+	return this;
+    }
+
+    /**
+     * Finds position of stored element.
+     * 
+     * @param index
+     *            index of element
+     * @return position of element if it is stored, otherwise
+     *         <code>(-(insertion point) - 1)</code>
+     */
+    private int find( int index ) {
+
+	if ( (index < 0) || (index >= dimension) ) {
+	    throw new IndexOutOfBoundsException( String.valueOf( index ) );
+	}
+
+	return Arrays.binarySearch( indices, 0, size, index );
+    }
+
+    /**
+     * Dimension getter.
+     * 
+     * @return dimension of vector
+     */
+    @Override
+    public int getDimension() {
+
+	return dimension;
+    }
+
+    /**
+     * Number of stored elements getter.
+     * 
+     * @return number of stored elements
+     */
+    public int getNonZerosCount() {
+
+	return size;
+    }
+
+    /**
+     * Copies this vector. Changes on copy does not take affect on this vector.
+     * 
+     * @return new vector with same elements
+     */
+    @Override
+    public IVector copy() {
+
+	return new SparseVector( dimension, Arrays.copyOf( indices, size ),
+		Arrays.copyOf( values, size ) );
+    }
+
+    /**
+     * Creates new sparse vector with first n elements of this vector.
+     * 
+     * @param n
+     *            dimension of new vector
+     * @return new vector
+     */
+    @Override
+    public IVector copyPart( int n ) {
+
+	int count = 0;
+	while ( (count < size) && (indices[count] < n) ) {
+	    count++;
+	}
+
+	return new SparseVector( n, Arrays.copyOf( indices, count ),
+		Arrays.copyOf( values, count ) );
+    }
+
+    /**
+     * Returns new instance of this vector. All elements of new instance are 0.
+     * 
+     * @param dimension
+     *            dimension of new vector
+     */
+    @Override
+    public IVector newInstance( int dimension ) {
+
+	return new SparseVector( dimension );
+    }
+
+    /**
+     * Adds provided vector to this vector. Stored elements of both vectors are
+     * merged, so result is sparse vector.
+     * 
+     * @param other
+     *            vector to be added
+     * @return this vector
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are different
+     */
+    @Override
+    public IVector add( IVector other ) throws IncompatibleOperandException {
+
+	if ( dimension != other.getDimension() ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add vector with different dimnesion" );
+	}
+
+	merge( other, 1.0 );
+
+	return this;
+    }
+
+    /**
+     * Subtracts provided vector from this vector. Stored elements of both
+     * vectors are merged, so result is sparse vector.
+     * 
+     * @param other
+     *            vector to be subtracted
+     * @return this vector
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are different
+     */
+    @Override
+    public IVector sub( IVector other ) throws IncompatibleOperandException {
+
+	if ( dimension != other.getDimension() ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot subtract vector with different dimnesion" );
+	}
+
+	merge( other, -1.0 );
+
+	return this;
+    }
+
+    /**
+     * Replaces this vector with this + factor * other. Sums equal to zero are
+     * not stored.
+     * 
+     * @param other
+     *            vector of same dimension
+     * @param factor
+     *            multiple of other vector
+     */
+    private void merge( IVector other, double factor ) {
+
+	final SparseVector second = other instanceof SparseVector
+		? (SparseVector) other : SparseVector.valueOf( other );
+
+	final int[] mergedIndices = new int[size + second.size];
+	final double[] mergedValues = new double[mergedIndices.length];
+	int count = 0;
+	int i = 0;
+	int j = 0;
+
+	while ( (i < size) || (j < second.size) ) {
+	    final int indexI = i < size ? indices[i] : dimension;
+	    final int indexJ = j < second.size ? second.indices[j] : dimension;
+	    double value;
+
+	    if ( indexI < indexJ ) {
+		mergedIndices[count] = indexI;
+		value = values[i++];
+	    } else if ( indexJ < indexI ) {
+		mergedIndices[count] = indexJ;
+		value = factor * second.values[j++];
+	    } else {
+		mergedIndices[count] = indexI;
+		value = values[i++] + (factor * second.values[j++]);
+	    }
+
+	    if ( value != 0.0 ) {
+		mergedValues[count++] = value;
+	    }
+	}
+
+	indices = mergedIndices;
+	values = mergedValues;
+	size = count;
+    }
+
+    /**
+     * Adds multiple of this vector to provided vector. Only stored elements of
+     * this vector are read.
+     * 
+     * @param target
+     *            vector of same dimension to which this vector is added
+     * @param factor
+     *            multiple of this vector
+     */
+    void addTo( IVector target, double factor ) {
+
+	for ( int i = 0; i < size; i++ ) {
+	    target.set( indices[i], target.get( indices[i] )
+		    + (factor * values[i]) );
+	}
+    }
+
+    /**
+     * Multiplies all stored elements of this vector with provided scalar.
+     * 
+     * @param byValue
+     *            scalar for multiplication
+     * @return this vector
+     */
+    @Override
+    public IVector scalarMultiply( double byValue ) {
+
+	if ( byValue == 0.0 ) {
+	    size = 0;
+	    return this;
+	}
+
+	for ( int i = 0; i < size; i++ ) {
+	    values[i] *= byValue;
+	}
+
+	return this;
+    }
+
+    /**
+     * Calculates norm of this vector from stored elements.
+     * 
+     * @return norm of vector
+     */
+    @Override
+    public double norm() {
+
+	double sum = 0.0;
+
+	for ( int i = 0; i < size; i++ ) {
+	    sum += values[i] * values[i];
+	}
+
+	return Math.sqrt( sum );
+    }
+
+    /**
+     * Calculates cosine of angle between this vector and provided vector.
+     * Only stored elements of sparse vectors are checked and multiplied.
+     * 
+     * @param other
+     *            vector
+     * @return cosine of angle between vectors
+     * @throws IncompatibleOperandException
+     *             if vectors have different dimensions, or if this or provided
+     *             vector is nul vector
+     */
+    @Override
+    public double cosine( IVector other ) throws IncompatibleOperandException {
+
+	final double scalarProduct = scalarProduct( other );
+
+	if ( AbstractVector.isNulVector( this, 1e-20 )
+		|| AbstractVector.isNulVector( other, 1e-20 ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot calculate cosine with nul vectors" );
+	}
+
+	return scalarProduct / (norm() * other.norm());
+    }
+
+    /**
+     * Calculates scalar product of this and provided vector. Product with
+     * other sparse vector merges indices of both vectors, and product with any
+     * other vector reads only its elements at indices stored in this vector.
+     * 
+     * @param other
+     *            vector
+     * @return scalar product of vectors
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are not same
+     */
+    @Override
+    public double scalarProduct( IVector other )
+	    throws IncompatibleOperandException {
+
+	if ( dimension != other.getDimension() ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot calculate scalar product of vectors with different dimnesion" );
+	}
+
+	double product = 0.0;
+
+	if ( other instanceof SparseVector ) {
+	    final SparseVector second = (SparseVector) other;
+	    int i = 0;
+	    int j = 0;
+
+	    while ( (i < size) && (j < second.size) ) {
+		if ( indices[i] < second.indices[j] ) {
+		    i++;
+		} else if ( indices[i] > second.indices[j] ) {
+		    j++;
+		} else {
+		    product += values[i++] * second.values[j++];
+		}
+	    }
+	} else {
+	    for ( int i = 0; i < size; i++ ) {
+		product += values[i] * other.get( indices[i] );
+	    }
+	}
+
+	return product;
+    }
+
+    /**
+     * Returns array with elements of vector.
+     * 
+     * @return array of elements
+     */
+    @Override
+    public double[] toArray() {
+
+	final double[] array = new double[dimension];
+
+	for ( int i = 0; i < size; i++ ) {
+	    array[indices[i]] = values[i];
+	}
+
+	return array;
+    }
+
+    /**
+     * Checks if all stored elements are zero within provided tolerance.
+     * 
+     * @param delta
+     *            allowed difference between zero and element
+     * @return true if and only if vector is null-vector
+     */
+    boolean isNul( double delta ) {
+
+	for ( int i = 0; i < size; i++ ) {
+	    if ( Math.abs( values[i] ) > delta ) {
+		return false;
+	    }
+	}
+
+	return true;
+    }
+}
@@ -0,0 +1,311 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * View on elements stored in one array. Element at position (row, col) is
+ * stored at index <code>offset + row * rowStride + col * colStride</code> of
+ * array, so transposed matrix and window on matrix differ only in offset and
+ * strides. Views of this view are new descriptors on same array, so element
+ * of any composition of views is accessed with one index computation. Any
+ * change on view changes array.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class StridedMatrixView extends AbstractMatrix implements
+	ArrayBackedMatrix {
+
+    /**
+     * Array with elements
+     */
+    private final double[] elements;
+
+    /**
+     * Index of element (0, 0) in array
+     */
+    private final int offset;
+
+    /**
+     * Distance between elements of two neighbouring rows in same column
+     */
+    private final int rowStride;
+
+    /**
+     * Distance between two neighbouring elements of same row
+     */
+    private final int colStride;
+
+    /**
+     * Number of rows
+     */
+    private final int rows;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * Creates new view on provided array.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     * @param elements
+     *            array with elements
+     * @param offset
+     *            index of element (0, 0) in array
+     * @param rowStride
+     *            distance between elements of two neighbouring rows in same
+     *            column
+     * @param colStride
+     *            distance between two neighbouring elements of same row
+     * @throws IllegalArgumentException
+     *             if view does not fit in provided array
+     */
+    public StridedMatrixView(int rows, int cols, double[] elements,
+	    int offset, int rowStride, int colStride) {
+
+	if ( (rows < 0) || (cols < 0) || (offset < 0) || (rowStride < 0)
+		|| (colStride < 0) ) {
+	    throw new IllegalArgumentException( "wrong size of elements" );
+	}
+
+	if ( (rows > 0)
+		&& (cols > 0)
+		&& ((offset + ((long) (rows - 1) * rowStride) + ((long) (cols - 1) * colStride)) >= elements.length) ) {
+	    throw new IllegalArgumentException( "wrong size of elements" );
+	}
+
+	this.rows = rows;
+	this.cols = cols;
+	this.elements = elements;
+	this.offset = offset;
+	this.rowStride = rowStride;
+	this.colStride = colStride;
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows
+     */
+    @Override
+    public int getRowsCount() {
+
+	return rows;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns
+     */
+    @Override
+    public int getColsCount() {
+
+	return cols;
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return element at specified row and column
+     */
+    @Override
+    public double get( int row, int col ) {
+
+	if ( (row >= rows) || (col >= cols) || (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	return elements[offset + (row * rowStride) + (col * colStride)];
+    }
+
+    /**
+     * Element setter. Change of element on this view changes array.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return this matrix
+     */
+    @Override
+    public IMatrix set( int row, int col, double value ) {
+
+	if ( (row >= rows) || (col >= cols) || (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	elements[offset + (row * rowStride) + (col * colStride)] = value;
+
+	return this;
+    }
+
+    /**
+     * Copies this matrix. Changes on copy does not take affect on this view.
+     * 
+     * @return new flat matrix with same elements.
+     */
+    @Override
+    public IMatrix copy() {
+
+	return new FlatMatrix( rows, cols, toFlatArray(), true );
+    }
+
+    /**
+     * Returns new instance of this matrix. All elements of new instance are 0.
+     * 
+     * @param rows
+     *            number of rows.
+     * @param cols
+     *            number of columns.
+     */
+    @Override
+    public IMatrix newInstance( int rows, int cols ) {
+
+	return new FlatMatrix( rows, cols );
+    }
+
+    /**
+     * Creates transposed matrix. Live view is view on same array with swapped
+     * strides.
+     * 
+     * @param liveView
+     *            true if changes on transposed matrix should change this
+     *            matrix.
+     * @return transposed matrix
+     */
+    @Override
+    public IMatrix nTranspose( boolean liveView ) {
+
+	final StridedMatrixView transposed = new StridedMatrixView( cols, rows,
+		elements, offset, colStride, rowStride );
+
+	return liveView ? transposed : transposed.copy();
+    }
+
+    /**
+     * Creates matrix without provided row and column. Live view is view on
+     * same array.
+     * 
+     * @param row
+     *            row that is removed
+     * @param col
+     *            column that is removed
+     * @param liveView
+     *            true if changes on new matrix should change this matrix
+     * @return matrix without provided row and column
+     * @throws IndexOutOfBoundsException
+     *             if row or column is not in matrix
+     */
+    @Override
+    public IMatrix subMatrix( int row, int col, boolean liveView ) {
+
+	if ( (row >= rows) || (col >= cols) || (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	final IMatrix view = IndexedMatrixView.view( elements,
+		IndexedMatrixView.offsetsWithout( offset, rowStride, rows, row ),
+		IndexedMatrixView.offsetsWithout( 0, colStride, cols, col ) );
+
+	return liveView ? view : view.copy();
+    }
+
+    /**
+     * Creates vector from matrix with one row or one column. Live view is view
+     * on same array.
+     * 
+     * @param liveView
+     *            true if changes on vector should change this matrix
+     * @return vector with elements of matrix
+     * @throws IncompatibleOperandException
+     *             if matrix has more than one row and more than one column
+     */
+    @Override
+    public IVector toVector( boolean liveView ) {
+
+	final IVector view;
+
+	if ( rows == 1 ) {
+	    view = new StridedVectorView( cols, elements, offset, colStride );
+	} else if ( cols == 1 ) {
+	    view = new StridedVectorView( rows, elements, offset, rowStride );
+	} else {
+	    throw new IncompatibleOperandException(
+		    "Matrix cannot represent vector!" );
+	}
+
+	return liveView ? view : view.copy();
+    }
+
+    /**
+     * Returns array in which elements of matrix are stored. Changes on array
+     * change this matrix.
+     * 
+     * @param row
+     *            row of matrix
+     * @return array with elements
+     */
+    @Override
+    public double[] rowArray( int row ) {
+
+	return elements;
+    }
+
+    /**
+     * Returns index of first element of provided row in array.
+     * 
+     * @param row
+     *            row of matrix
+     * @return index of element (row, 0)
+     */
+    @Override
+    public int rowOffset( int row ) {
+
+	return offset + (row * rowStride);
+    }
+
+    /**
+     * Returns distance between two neighbouring elements of same row.
+     * 
+     * @return distance between elements of row
+     */
+    @Override
+    public int colStride() {
+
+	return colStride;
+    }
+
+    /**
+     * Returns elements of matrix stored row by row in new array.
+     * 
+     * @return elements of matrix
+     */
+    public double[] toFlatArray() {
+
+	final double[] array = new double[rows * cols];
+
+	for ( int row = 0, index = 0; row < rows; row++ ) {
+	    final int first = offset + (row * rowStride);
+
+	    if ( colStride == 1 ) {
+		System.arraycopy( elements, first, array, index, cols );
+		index += cols;
+	    } else {
+		for ( int col = 0; col < cols; col++, index++ ) {
+		    array[index] = elements[first + (col * colStride)];
+		}
+	    }
+	}
+
+	return array;
+    }
+
+}
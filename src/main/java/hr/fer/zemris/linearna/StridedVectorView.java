@@ -0,0 +1,191 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * View on elements stored in one array. Element at index i is stored at index
+ * <code>offset + i * stride</code> of array, so row or column of
+ * {@link StridedMatrixView} is viewed without forwarding calls through
+ * matrix. Any change on view changes array.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class StridedVectorView extends AbstractVector {
+
+    /**
+     * Array with elements
+     */
+    private final double[] elements;
+
+    /**
+     * Index of first element in array
+     */
+    private final int offset;
+
+    /**
+     * Distance between two neighbouring elements in array
+     */
+    private final int stride;
+
+    /**
+     * Dimension of vector
+     */
+    private final int dimension;
+
+    /**
+     * Creates new view on provided array.
+     * 
+     * @param dimension
+     *            dimension of vector
+     * @param elements
+     *            array with elements
+     * @param offset
+     *            index of first element in array
+     * @param stride
+     *            distance between two neighbouring elements in array
+     * @throws IllegalArgumentException
+     *             if view does not fit in provided array
+     */
+    public StridedVectorView(int dimension, double[] elements, int offset,
+	    int stride) {
+
+	if ( (dimension < 0) || (offset < 0) || (stride < 0) ) {
+	    throw new IllegalArgumentException( "wrong size of elements" );
+	}
+
+	if ( (dimension > 0)
+		&& ((offset + ((long) (dimension - 1) * stride)) >= elements.length) ) {
+	    throw new IllegalArgumentException( "wrong size of elements" );
+	}
+
+	this.dimension = dimension;
+	this.elements = elements;
+	this.offset = offset;
+	this.stride = stride;
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param index
+     *            index of element.
+     */
+    @Override
+    public double get( int index ) {
+
+	if ( (index < 0) || (index >= dimension) ) {
+	    throw new IndexOutOfBoundsException( Integer.toString( index ) );
+	}
+
+	return elements[offset + (index * stride)];
+    }
+
+    /**
+     * Element setter. Change of element on this view changes array.
+     * 
+     * @param index
+     *            index of element
+     * @param value
+     *            value to be set.
+     */
+    @Override
+    public IVector set( int index, double value ) {
+
+	if ( (index < 0) || (index >= dimension) ) {
+	    throw new IndexOutOfBoundsException( Integer.toString( index ) );
+	}
+
+	elements[offset + (index * stride)] = value;
+
+	return this;
+    }
+
+    /**
+     * Dimension getter.
+     * 
+     * @return dimension of vector.
+     */
+    @Override
+    public int getDimension() {
+
+	return dimension;
+    }
+
+    /**
+     * Copies this vector. Changes on copy does not take affect on this view.
+     * 
+     * @return new vector with same elements.
+     */
+    @Override
+    public IVector copy() {
+
+	return new Vector( false, true, toArray() );
+    }
+
+    /**
+     * Returns new instance of this vector. All elements of new instance are 0.
+     * 
+     * @param dimension
+     *            dimension of new vector.
+     */
+    @Override
+    public IVector newInstance( int dimension ) {
+
+	return new Vector( new double[dimension] );
+    }
+
+    /**
+     * Creates matrix with one row. Live view is view on same array.
+     * 
+     * @param liveView
+     *            true if changes on this vector are propagated to matrix.
+     * 
+     * @return matrix with one row.
+     */
+    @Override
+    public IMatrix toRowMatrix( boolean liveView ) {
+
+	final StridedMatrixView view = new StridedMatrixView( 1, dimension,
+		elements, offset, 0, stride );
+
+	return liveView ? view : view.copy();
+    }
+
+    /**
+     * Creates matrix with one column. Live view is view on same array.
+     * 
+     * @param liveView
+     *            true if changes on this vector are propagated to matrix.
+     * 
+     * @return matrix with one column.
+     */
+    @Override
+    public IMatrix toColumnMatrix( boolean liveView ) {
+
+	final StridedMatrixView view = new StridedMatrixView( dimension, 1,
+		elements, offset, stride, 0 );
+
+	return liveView ? view : view.copy();
+    }
+
+    /**
+     * Returns array with elements of vector.
+     * 
+     * @return array of elements
+     */
+    @Override
+    public double[] toArray() {
+
+	final double[] array = new double[dimension];
+
+	if ( stride == 1 ) {
+	    System.arraycopy( elements, offset, array, 0, dimension );
+	} else {
+	    for ( int i = 0, index = offset; i < dimension; i++, index += stride ) {
+		array[i] = elements[index];
+	    }
+	}
+
+	return array;
+    }
+
+}
@@ -0,0 +1,182 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Forward and back substitution for triangular systems. Triangular matrix is
+ * n x n matrix stored row by row in array, element (i, j) is stored at index
+ * <code>offset + i * stride + j</code>. Only elements of its triangle are
+ * read. Right hand sides are stored row by row in n x cols array and are
+ * replaced with solutions. Every step updates whole row of right hand sides,
+ * so all of them are solved in one pass over triangular matrix.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+final class Substitution {
+
+    /**
+     * Class has only static methods.
+     */
+    private Substitution() {
+
+    }
+
+    /**
+     * Solves system L * X = B, where L is lower triangular matrix.
+     * 
+     * @param l
+     *            array with lower triangular matrix
+     * @param offset
+     *            index of element (0, 0) in array
+     * @param stride
+     *            distance between first elements of two neighbouring rows
+     * @param n
+     *            dimension of matrix
+     * @param unitDiagonal
+     *            true if diagonal of L should be treated as ones and not read
+     * @param x
+     *            right hand sides, replaced with solutions
+     * @param cols
+     *            number of right hand sides
+     * @throws IncompatibleOperandException
+     *             if there is zero on diagonal of L
+     */
+    static void solveLower( double[] l, int offset, int stride, int n,
+	    boolean unitDiagonal, double[] x, int cols ) {
+
+	for ( int i = 0; i < n; i++ ) {
+	    final int row = offset + (i * stride);
+	    final int target = i * cols;
+
+	    for ( int k = 0; k < i; k++ ) {
+		subtractRow( x, target, k * cols, cols, l[row + k] );
+	    }
+
+	    if ( !unitDiagonal ) {
+		divideRow( x, target, cols, l[row + i] );
+	    }
+	}
+    }
+
+    /**
+     * Solves system U * X = B, where U is upper triangular matrix.
+     * 
+     * @param u
+     *            array with upper triangular matrix
+     * @param offset
+     *            index of element (0, 0) in array
+     * @param stride
+     *            distance between first elements of two neighbouring rows
+     * @param n
+     *            dimension of matrix
+     * @param unitDiagonal
+     *            true if diagonal of U should be treated as ones and not read
+     * @param x
+     *            right hand sides, replaced with solutions
+     * @param cols
+     *            number of right hand sides
+     * @throws IncompatibleOperandException
+     *             if there is zero on diagonal of U
+     */
+    static void solveUpper( double[] u, int offset, int stride, int n,
+	    boolean unitDiagonal, double[] x, int cols ) {
+
+	for ( int i = n - 1; i >= 0; i-- ) {
+	    final int row = offset + (i * stride);
+	    final int target = i * cols;
+
+	    for ( int k = i + 1; k < n; k++ ) {
+		subtractRow( x, target, k * cols, cols, u[row + k] );
+	    }
+
+	    if ( !unitDiagonal ) {
+		divideRow( x, target, cols, u[row + i] );
+	    }
+	}
+    }
+
+    /**
+     * Solves system L^T * X = B, where L is lower triangular matrix. Matrix L
+     * is read row by row, so transposed matrix is never created.
+     * 
+     * @param l
+     *            array with lower triangular matrix
+     * @param offset
+     *            index of element (0, 0) in array
+     * @param stride
+     *            distance between first elements of two neighbouring rows
+     * @param n
+     *            dimension of matrix
+     * @param x
+     *            right hand sides, replaced with solutions
+     * @param cols
+     *            number of right hand sides
+     * @throws IncompatibleOperandException
+     *             if there is zero on diagonal of L
+     */
+    static void solveLowerTransposed( double[] l, int offset, int stride,
+	    int n, double[] x, int cols ) {
+
+	for ( int i = n - 1; i >= 0; i-- ) {
+	    final int row = offset + (i * stride);
+	    final int source = i * cols;
+
+	    divideRow( x, source, cols, l[row + i] );
+
+	    for ( int k = 0; k < i; k++ ) {
+		subtractRow( x, k * cols, source, cols, l[row + k] );
+	    }
+	}
+    }
+
+    /**
+     * Subtracts multiple of one row of right hand sides from another row.
+     * 
+     * @param x
+     *            right hand sides
+     * @param target
+     *            index of first element of changed row
+     * @param source
+     *            index of first element of subtracted row
+     * @param cols
+     *            number of elements in row
+     * @param factor
+     *            multiple of subtracted row
+     */
+    static void subtractRow( double[] x, int target, int source, int cols,
+	    double factor ) {
+
+	if ( factor == 0.0 ) {
+	    return;
+	}
+
+	for ( int j = 0; j < cols; j++ ) {
+	    x[target + j] -= factor * x[source + j];
+	}
+    }
+
+    /**
+     * Divides one row of right hand sides with diagonal element.
+     * 
+     * @param x
+     *            right hand sides
+     * @param target
+     *            index of first element of row
+     * @param cols
+     *            number of elements in row
+     * @param diagonal
+     *            diagonal element
+     * @throws IncompatibleOperandException
+     *             if diagonal element is zero
+     */
+    static void divideRow( double[] x, int target, int cols, double diagonal ) {
+
+	if ( diagonal == 0.0 ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot solve system with singular matrix" );
+	}
+
+	for ( int j = 0; j < cols; j++ ) {
+	    x[target + j] /= diagonal;
+	}
+    }
+}
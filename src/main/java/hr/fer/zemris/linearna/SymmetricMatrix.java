@@ -0,0 +1,654 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Arrays;
+
+/**
+ * Symmetric matrix which stores only its upper triangle. Row i of upper
+ * triangle (elements from column i to n - 1) is stored after row i - 1 in one
+ * array of <code>n * (n + 1) / 2</code> elements, so matrix needs half of
+ * memory of dense matrix. Setting element (i, j) also sets element (j, i).
+ * <p>
+ * Addition, subtraction, scalar multiplication, products and rank-k updates
+ * read and write every stored element once. Systems, inverse and determinant
+ * are calculated with {@link PackedCholeskyDecomposition} if matrix is
+ * positive definite, otherwise with {@link LUDecomposition}. Decomposition is
+ * kept until matrix is changed through its methods, so repeated solves factor
+ * matrix only once. Changes made directly on array provided to constructor
+ * are not detected.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class SymmetricMatrix extends AbstractMatrix {
+
+    /**
+     * Dimension of matrix
+     */
+    protected final int dimension;
+
+    /**
+     * Upper triangle stored row by row
+     */
+    protected final double[] elements;
+
+    /**
+     * Cholesky decomposition of this matrix, <code>null</code> if matrix was
+     * changed after last decomposition
+     */
+    private PackedCholeskyDecomposition cholesky;
+
+    /**
+     * LU decomposition of this matrix if it is not positive definite,
+     * <code>null</code> if matrix was changed after last decomposition
+     */
+    private LUDecomposition lu;
+
+    /**
+     * Creates new symmetric matrix. All elements of new matrix are 0.
+     * 
+     * @param dimension
+     *            dimension of matrix
+     */
+    public SymmetricMatrix(int dimension) {
+
+	this( dimension,
+		new double[(int) (((long) dimension * (dimension + 1)) / 2)] );
+    }
+
+    /**
+     * Creates new symmetric matrix from upper triangle stored row by row.
+     * Array is not copied.
+     * 
+     * @param dimension
+     *            dimension of matrix
+     * @param elements
+     *            upper triangle stored row by row
+     * @throws IllegalArgumentException
+     *             if array has wrong size
+     */
+    public SymmetricMatrix(int dimension, double[] elements) {
+
+	if ( (dimension < 0)
+		|| (elements.length != (((long) dimension * (dimension + 1)) / 2)) ) {
+	    throw new IllegalArgumentException( "wrong size of elements" );
+	}
+
+	this.dimension = dimension;
+	this.elements = elements;
+    }
+
+    /**
+     * Creates symmetric matrix from upper triangle of provided square matrix.
+     * Lower triangle of provided matrix is not read.
+     * 
+     * @param matrix
+     *            square matrix
+     * @return new symmetric matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is not square matrix
+     */
+    public static SymmetricMatrix valueOf( IMatrix matrix ) {
+
+	if ( matrix.getRowsCount() != matrix.getColsCount() ) {
+	    throw new IncompatibleOperandException( "Matrix has to be square" );
+	}
+
+	final int n = matrix.getRowsCount();
+	final SymmetricMatrix symmetric = new SymmetricMatrix( n );
+
+	for ( int row = 0, index = 0; row < n; row++ ) {
+	    for ( int col = row; col < n; col++, index++ ) {
+		symmetric.elements[index] = matrix.get( row, col );
+	    }
+	}
+
+	return symmetric;
+    }
+
+    /**
+     * Calculates index of first stored element of row.
+     * 
+     * @param row
+     *            row of matrix
+     * @return index of element (row, row)
+     */
+    protected int rowStart( int row ) {
+
+	return (int) (((long) row * ((2L * dimension) - row + 1)) / 2);
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows
+     */
+    @Override
+    public int getRowsCount() {
+
+	return dimension;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns
+     */
+    @Override
+    public int getColsCount() {
+
+	return dimension;
+    }
+
+    /**
+     * Element getter. Elements below diagonal are read from upper triangle.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return element at specified row and column
+     */
+    @Override
+    public double get( int row, int col ) {
+
+	if ( (row >= dimension) || (col >= dimension) || (row < 0)
+		|| (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	return row <= col ? elements[rowStart( row ) + (col - row)]
+		: elements[rowStart( col ) + (row - col)];
+    }
+
+    /**
+     * Element setter. Element (col, row) is changed too.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @param value
+     *            new value of element
+     * @return this matrix
+     */
+    @Override
+    public IMatrix set( int row, int col, double value ) {
+
+	if ( (row >= dimension) || (col >= dimension) || (row < 0)
+		|| (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	changed();
+
+	if ( row <= col ) {
+	    elements[rowStart( row ) + (col - row)] = value;
+	} else {
+	    elements[rowStart( col ) + (row - col)] = value;
+	}
+
+	return this;
+    }
+
+    /**
+     * Copies this matrix. Changes on copy does not take affect on this matrix.
+     * 
+     * @return new symmetric matrix with same elements
+     */
+    @Override
+    public IMatrix copy() {
+
+	return new SymmetricMatrix( dimension, elements.clone() );
+    }
+
+    /**
+     * Returns new dense matrix created by {@link LinAlgDefaults}, because
+     * results of generic operations do not have to be symmetric.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     */
+    @Override
+    public IMatrix newInstance( int rows, int cols ) {
+
+	return LinAlgDefaults.defaultMatrix( rows, cols );
+    }
+
+    /**
+     * Creates transposed matrix, which is same as this matrix.
+     * 
+     * @param liveView
+     *            true if changes on transposed matrix should change this
+     *            matrix
+     * @return this matrix if live view is requested, copy otherwise
+     */
+    @Override
+    public IMatrix nTranspose( boolean liveView ) {
+
+	return liveView ? this : copy();
+    }
+
+    /**
+     * Adds provided symmetric matrix to this matrix.
+     * 
+     * @param other
+     *            symmetric matrix to be added
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size, or if provided matrix is not
+     *             symmetric
+     */
+    @Override
+    public IMatrix add( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add matrix with different size!" );
+	}
+
+	addPacked( other, 1.0 );
+
+	return this;
+    }
+
+    /**
+     * Subtracts provided symmetric matrix from this matrix.
+     * 
+     * @param other
+     *            symmetric matrix to be subtracted
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size, or if provided matrix is not
+     *             symmetric
+     */
+    @Override
+    public IMatrix sub( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot subtract matrix with different size!" );
+	}
+
+	addPacked( other, -1.0 );
+
+	return this;
+    }
+
+    /**
+     * Adds multiple of symmetric matrix to upper triangle of this matrix.
+     * 
+     * @param other
+     *            matrix of same size
+     * @param factor
+     *            multiple of other matrix
+     * @throws IncompatibleOperandException
+     *             if provided matrix is not symmetric
+     */
+    private void addPacked( IMatrix other, double factor ) {
+
+	if ( other instanceof SymmetricMatrix ) {
+	    final double[] otherElements = ((SymmetricMatrix) other).elements;
+
+	    changed();
+
+	    for ( int i = 0; i < elements.length; i++ ) {
+		elements[i] += factor * otherElements[i];
+	    }
+
+	    return;
+	}
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    for ( int col = row + 1; col < dimension; col++ ) {
+		if ( other.get( row, col ) != other.get( col, row ) ) {
+		    throw new IncompatibleOperandException(
+			    "Matrix is not symmetric" );
+		}
+	    }
+	}
+
+	changed();
+
+	for ( int row = 0, index = 0; row < dimension; row++ ) {
+	    for ( int col = row; col < dimension; col++, index++ ) {
+		elements[index] += factor * other.get( row, col );
+	    }
+	}
+    }
+
+    /**
+     * Multiplies all stored elements with scalar.
+     * 
+     * @param value
+     *            scalar with which this matrix is multiplied
+     * @return this matrix
+     */
+    @Override
+    public IMatrix scalarMultiply( double value ) {
+
+	changed();
+
+	for ( int i = 0; i < elements.length; i++ ) {
+	    elements[i] *= value;
+	}
+
+	return this;
+    }
+
+    /**
+     * Change this matrix to unit matrix.
+     * 
+     * @return this matrix
+     */
+    @Override
+    public IMatrix makeIdentity() {
+
+	changed();
+	Arrays.fill( elements, 0.0 );
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    elements[rowStart( row )] = 1.0;
+	}
+
+	return this;
+    }
+
+    /**
+     * Multiplies this matrix with provided matrix. Every stored element a(i,
+     * j) is read once and contributes to rows i and j of product.
+     * 
+     * @param other
+     *            matrix to be multiplied
+     * @return new dense matrix with product
+     * @throws IncompatibleOperandException
+     *             if this matrix hasn't number of columns as provided matrix
+     *             rows
+     */
+    @Override
+    public IMatrix nMultiply( IMatrix other ) {
+
+	if ( dimension != other.getRowsCount() ) {
+	    throw new IncompatibleOperandException(
+		    "First matrix must have same number of columns as second matrix rows!" );
+	}
+
+	final int cols = other.getColsCount();
+	final double[] product = multiply( FlatMatrix.valueOf( other ).elements,
+		cols );
+
+	return LinAlgDefaults.defaultMatrix( dimension, cols, product );
+    }
+
+    /**
+     * Multiplies this matrix with column vector. Every stored element is read
+     * once.
+     * 
+     * @param vector
+     *            vector with same dimension as this matrix
+     * @return new vector with product
+     * @throws IncompatibleOperandException
+     *             if vector has not same dimension as this matrix
+     */
+    public IVector nMultiply( IVector vector ) {
+
+	if ( vector.getDimension() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Vector must have same dimension as matrix" );
+	}
+
+	return new Vector( false, true, multiply( vector.toArray(), 1 ) );
+    }
+
+    /**
+     * Multiplies this matrix with dense matrix stored row by row.
+     * 
+     * @param b
+     *            elements of dense matrix stored row by row
+     * @param cols
+     *            number of columns of dense matrix
+     * @return product stored row by row
+     */
+    private double[] multiply( double[] b, int cols ) {
+
+	final double[] c = new double[dimension * cols];
+
+	for ( int i = 0, index = 0; i < dimension; i++ ) {
+	    final int rowI = i * cols;
+
+	    for ( int j = i; j < dimension; j++, index++ ) {
+		final double value = elements[index];
+
+		if ( value == 0.0 ) {
+		    continue;
+		}
+
+		final int rowJ = j * cols;
+
+		for ( int col = 0; col < cols; col++ ) {
+		    c[rowI + col] += value * b[rowJ + col];
+		}
+
+		if ( j != i ) {
+		    for ( int col = 0; col < cols; col++ ) {
+			c[rowJ + col] += value * b[rowI + col];
+		    }
+		}
+	    }
+	}
+
+	return c;
+    }
+
+    /**
+     * Adds alpha * X * X^T to this matrix. Only upper triangle of update is
+     * calculated.
+     * 
+     * @param alpha
+     *            multiple of update
+     * @param x
+     *            matrix with same number of rows as this matrix
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrix X has not same number of rows as this matrix
+     */
+    public SymmetricMatrix rankUpdate( double alpha, IMatrix x ) {
+
+	if ( x.getRowsCount() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Matrix must have same number of rows as symmetric matrix" );
+	}
+
+	rankUpdate( alpha, FlatMatrix.valueOf( x ).elements, x.getColsCount() );
+
+	return this;
+    }
+
+    /**
+     * Adds alpha * x * x^T to this matrix.
+     * 
+     * @param alpha
+     *            multiple of update
+     * @param x
+     *            vector with same dimension as this matrix
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if vector has not same dimension as this matrix
+     */
+    public SymmetricMatrix rankUpdate( double alpha, IVector x ) {
+
+	if ( x.getDimension() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Vector must have same dimension as matrix" );
+	}
+
+	rankUpdate( alpha, x.toArray(), 1 );
+
+	return this;
+    }
+
+    /**
+     * Adds alpha * X * X^T to upper triangle. Element (i, j) of update is
+     * scalar product of rows i and j of X.
+     * 
+     * @param alpha
+     *            multiple of update
+     * @param x
+     *            elements of X stored row by row
+     * @param cols
+     *            number of columns of X
+     */
+    private void rankUpdate( double alpha, double[] x, int cols ) {
+
+	changed();
+
+	for ( int i = 0, index = 0; i < dimension; i++ ) {
+	    final int rowI = i * cols;
+
+	    for ( int j = i; j < dimension; j++, index++ ) {
+		final int rowJ = j * cols;
+		double sum = 0.0;
+
+		for ( int k = 0; k < cols; k++ ) {
+		    sum += x[rowI + k] * x[rowJ + k];
+		}
+
+		elements[index] += alpha * sum;
+	    }
+	}
+    }
+
+    /**
+     * Discards decompositions of this matrix. Called before every change of
+     * stored elements.
+     */
+    private void changed() {
+
+	cholesky = null;
+	lu = null;
+    }
+
+    /**
+     * Decomposes this matrix with Cholesky decomposition. Factor is calculated
+     * in packed storage of this matrix, so no dense copy is made. Decomposition
+     * is calculated once and reused until this matrix is changed.
+     * 
+     * @return Cholesky decomposition of this matrix
+     */
+    public PackedCholeskyDecomposition cholesky() {
+
+	if ( cholesky == null ) {
+	    cholesky = new PackedCholeskyDecomposition( this );
+	}
+
+	return cholesky;
+    }
+
+    /**
+     * Decomposes this matrix with LU decomposition. Used only if matrix is not
+     * positive definite. Decomposition is calculated once and reused until
+     * this matrix is changed.
+     * 
+     * @return LU decomposition of this matrix
+     */
+    private LUDecomposition lu() {
+
+	if ( lu == null ) {
+	    lu = new LUDecomposition( this );
+	}
+
+	return lu;
+    }
+
+    /**
+     * Calculates determinant of matrix. Positive definite matrices are
+     * decomposed with Cholesky decomposition, other with LU decomposition.
+     * 
+     * @return determinant of matrix
+     */
+    @Override
+    public double determinant() {
+
+	if ( cholesky().isPositiveDefinite() ) {
+	    return cholesky.determinant();
+	}
+
+	return lu().determinant();
+    }
+
+    /**
+     * Inverts this matrix. Positive definite matrices are inverted with
+     * Cholesky decomposition, other with LU decomposition.
+     * 
+     * @return inverted matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is singular
+     */
+    @Override
+    public IMatrix nInvert() {
+
+	if ( cholesky().isPositiveDefinite() ) {
+	    return cholesky.inverse();
+	}
+
+	if ( lu().isSingular() ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot inverse singular matrix" );
+	}
+
+	return lu.inverse();
+    }
+
+    /**
+     * Solves system A * X = B. Positive definite systems are solved with
+     * Cholesky decomposition, other with LU decomposition.
+     * 
+     * @param b
+     *            right hand sides of system stored in columns
+     * @return solutions of system stored in columns
+     * @throws IncompatibleOperandException
+     *             if B has not same number of rows as this matrix, or if this
+     *             matrix is singular
+     */
+    @Override
+    public IMatrix solve( IMatrix b ) {
+
+	if ( b.getRowsCount() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Right hand side must have same number of rows as matrix" );
+	}
+
+	if ( cholesky().isPositiveDefinite() ) {
+	    return cholesky.solve( b );
+	}
+
+	return lu().solve( b );
+    }
+
+    /**
+     * Solves system A * x = b. Positive definite systems are solved with
+     * Cholesky decomposition, other with LU decomposition.
+     * 
+     * @param b
+     *            right hand side of system
+     * @return solution of system
+     * @throws IncompatibleOperandException
+     *             if b has not same dimension as this matrix, or if this
+     *             matrix is singular
+     */
+    @Override
+    public IVector solve( IVector b ) {
+
+	if ( b.getDimension() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Right hand side must have same number of rows as matrix" );
+	}
+
+	if ( cholesky().isPositiveDefinite() ) {
+	    return cholesky.solve( b );
+	}
+
+	return lu().solve( b );
+    }
+}
@@ -0,0 +1,515 @@
+package hr.fer.zemris.linearna;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Formatter of matrices and vectors as text with fixed number of digits after
+ * decimal point. Output is same as output of {@link DecimalFormat} with pattern
+ * <code>0.000</code> and decimal separator '.', which was used by
+ * {@link AbstractMatrix#toString(int)} and {@link AbstractVector#toString(int)}.
+ * Elements are rounded half even, and negative elements which are rounded to
+ * zero keep their sign.
+ * <p>
+ * Elements which are far from halfway between two results of rounding are
+ * formatted directly from scaled value, and all other elements are formatted
+ * with {@link DecimalFormat} which is created once for every thread. Text is
+ * collected in small buffer and written to {@link Appendable} in blocks, so
+ * text of whole matrix is never built in memory. Formatters are immutable and
+ * can be shared between threads.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public final class TextFormat {
+
+    /**
+     * Number of formatters which are created in advance
+     */
+    private static final int CACHED = 16;
+
+    /**
+     * Largest precision which is formatted without {@link DecimalFormat}
+     */
+    private static final int MAX_FAST_PRECISION = 15;
+
+    /**
+     * Limit of scaled value which is formatted without {@link DecimalFormat}.
+     * Error of scaled value is then far smaller than
+     * {@link #HALFWAY_DISTANCE}.
+     */
+    private static final double FAST_LIMIT = 0x1p40;
+
+    /**
+     * Smallest distance of scaled value from halfway between two results of
+     * rounding for which result is formatted without {@link DecimalFormat}
+     */
+    private static final double HALFWAY_DISTANCE = 0x1p-8;
+
+    /**
+     * Powers of ten up to 10^{@link #MAX_FAST_PRECISION}
+     */
+    private static final long[] POWERS_OF_TEN = new long[MAX_FAST_PRECISION + 1];
+
+    static {
+	POWERS_OF_TEN[0] = 1;
+
+	for ( int i = 1; i < POWERS_OF_TEN.length; i++ ) {
+	    POWERS_OF_TEN[i] = 10 * POWERS_OF_TEN[i - 1];
+	}
+    }
+
+    /**
+     * Formatters with precisions from 0 to {@link #CACHED} - 1
+     */
+    private static final TextFormat[] INSTANCES = new TextFormat[CACHED];
+
+    static {
+	for ( int i = 0; i < CACHED; i++ ) {
+	    INSTANCES[i] = new TextFormat( i );
+	}
+    }
+
+    /**
+     * Number of characters collected before they are written
+     */
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    /**
+     * Number of digits after decimal point
+     */
+    private final int precision;
+
+    /**
+     * Largest number of characters of one formatted element
+     */
+    private final int maxLength;
+
+    /**
+     * Minus sign
+     */
+    private final char minus;
+
+    /**
+     * Digit zero
+     */
+    private final char zero;
+
+    /**
+     * Text of positive infinity
+     */
+    private final String infinity;
+
+    /**
+     * Text of not a number
+     */
+    private final String nan;
+
+    /**
+     * Formats of elements which cannot be formatted directly, one for every
+     * thread
+     */
+    private final ThreadLocal<DecimalFormat> format = new ThreadLocal<DecimalFormat>() {
+
+	/**
+	 * Creates format of this thread.
+	 * 
+	 * @return new format
+	 */
+	@Override
+	protected DecimalFormat initialValue() {
+
+	    return createFormat();
+	}
+    };
+
+    /**
+     * Buffer of characters which are written to {@link Appendable} in blocks.
+     */
+    private static final class Buffer {
+
+	/**
+	 * Collected characters
+	 */
+	final char[] chars;
+
+	/**
+	 * Number of collected characters
+	 */
+	int length;
+
+	/**
+	 * Destination of characters
+	 */
+	private final Appendable out;
+
+	/**
+	 * Creates new buffer.
+	 * 
+	 * @param out
+	 *            destination of characters
+	 * @param size
+	 *            size of buffer
+	 */
+	Buffer(Appendable out, int size) {
+
+	    this.out = out;
+	    chars = new char[size];
+	}
+
+	/**
+	 * Makes space for provided number of characters. Collected characters
+	 * are written if there is not enough space.
+	 * 
+	 * @param count
+	 *            number of characters
+	 * @throws IOException
+	 *             if characters cannot be written
+	 */
+	void ensure( int count ) throws IOException {
+
+	    if ( (length + count) > chars.length ) {
+		flush();
+	    }
+	}
+
+	/**
+	 * Adds character to buffer. Space has to be ensured before.
+	 * 
+	 * @param c
+	 *            character
+	 */
+	void put( char c ) {
+
+	    chars[length++] = c;
+	}
+
+	/**
+	 * Writes collected characters to destination.
+	 * 
+	 * @throws IOException
+	 *             if characters cannot be written
+	 */
+	void flush() throws IOException {
+
+	    if ( out instanceof StringBuilder ) {
+		((StringBuilder) out).append( chars, 0, length );
+	    } else if ( out instanceof Writer ) {
+		((Writer) out).write( chars, 0, length );
+	    } else {
+		out.append( CharBuffer.wrap( chars, 0, length ) );
+	    }
+
+	    length = 0;
+	}
+    }
+
+    /**
+     * Creates new formatter. Symbols of default locale are used, except of
+     * decimal separator which is always '.'.
+     * 
+     * @param precision
+     *            number of digits after decimal point
+     */
+    private TextFormat(int precision) {
+
+	this.precision = precision;
+
+	final DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+	minus = symbols.getMinusSign();
+	zero = symbols.getZeroDigit();
+	infinity = symbols.getInfinity();
+	nan = symbols.getNaN();
+
+	// sign, all digits of largest double, decimal point and fraction
+	maxLength = Math.max( 1 + 309 + 1 + precision, 1 + Math.max(
+		infinity.length(), nan.length() ) );
+    }
+
+    /**
+     * Returns formatter with provided precision.
+     * 
+     * @param precision
+     *            number of digits after decimal point
+     * @return formatter
+     * @throws IllegalArgumentException
+     *             if precision is negative
+     */
+    public static TextFormat getInstance( int precision ) {
+
+	if ( precision < 0 ) {
+	    throw new IllegalArgumentException( "wrong precision " + precision );
+	}
+
+	if ( precision < CACHED ) {
+	    return INSTANCES[precision];
+	}
+
+	return new TextFormat( precision );
+    }
+
+    /**
+     * Precision getter.
+     * 
+     * @return number of digits after decimal point
+     */
+    public int getPrecision() {
+
+	return precision;
+    }
+
+    /**
+     * Formats one number.
+     * 
+     * @param value
+     *            number to be formatted
+     * @return formatted number
+     */
+    public String format( double value ) {
+
+	final char[] chars = new char[maxLength];
+	return new String( chars, 0, format( value, chars, 0 ) );
+    }
+
+    /**
+     * Formats matrix. Elements are separated with space, every row is
+     * enclosed in brackets and rows are separated with "\r\n".
+     * 
+     * @param matrix
+     *            matrix to be formatted
+     * @return formatted matrix
+     */
+    public String format( IMatrix matrix ) {
+
+	final StringBuilder sb = new StringBuilder( matrix.getRowsCount()
+		* ((matrix.getColsCount() * (precision + 4)) + 5) );
+
+	try {
+	    write( matrix, sb );
+	} catch ( final IOException e ) {
+	    // string builder does not throw exception
+	    throw new IllegalStateException( e );
+	}
+
+	return sb.toString();
+    }
+
+    /**
+     * Formats vector. Elements are separated with space.
+     * 
+     * @param vector
+     *            vector to be formatted
+     * @return formatted vector
+     */
+    public String format( IVector vector ) {
+
+	final StringBuilder sb = new StringBuilder( vector.getDimension()
+		* (precision + 4) );
+
+	try {
+	    write( vector, sb );
+	} catch ( final IOException e ) {
+	    // string builder does not throw exception
+	    throw new IllegalStateException( e );
+	}
+
+	return sb.toString();
+    }
+
+    /**
+     * Writes matrix in same format as {@link #format(IMatrix)}. Elements of
+     * {@link ArrayBackedMatrix} are read directly from array.
+     * 
+     * @param matrix
+     *            matrix to be written
+     * @param out
+     *            destination of text
+     * @throws IOException
+     *             if text cannot be written
+     */
+    public void write( IMatrix matrix, Appendable out ) throws IOException {
+
+	final int rows = matrix.getRowsCount();
+	final int cols = matrix.getColsCount();
+	final Buffer buffer = new Buffer( out, Math.max( BUFFER_SIZE,
+		maxLength + 4 ) );
+
+	final ArrayBackedMatrix source = matrix instanceof ArrayBackedMatrix ? (ArrayBackedMatrix) matrix
+		: null;
+
+	for ( int row = 0; row < rows; row++ ) {
+	    if ( row > 0 ) {
+		buffer.ensure( 2 );
+		buffer.put( '\r' );
+		buffer.put( '\n' );
+	    }
+
+	    buffer.ensure( 2 );
+	    buffer.put( '[' );
+	    buffer.put( ' ' );
+
+	    final double[] array = source == null ? null : source.rowArray( row );
+	    final int offset = source == null ? 0 : source.rowOffset( row );
+	    final int stride = source == null ? 0 : source.colStride();
+
+	    for ( int col = 0; col < cols; col++ ) {
+		final double value = source == null ? matrix.get( row, col )
+			: array[offset + (col * stride)];
+
+		buffer.ensure( maxLength + 1 );
+		buffer.length = format( value, buffer.chars, buffer.length );
+		buffer.put( ' ' );
+	    }
+
+	    buffer.ensure( 1 );
+	    buffer.put( ']' );
+	}
+
+	buffer.flush();
+    }
+
+    /**
+     * Writes vector in same format as {@link #format(IVector)}.
+     * 
+     * @param vector
+     *            vector to be written
+     * @param out
+     *            destination of text
+     * @throws IOException
+     *             if text cannot be written
+     */
+    public void write( IVector vector, Appendable out ) throws IOException {
+
+	final Buffer buffer = new Buffer( out, Math.max( BUFFER_SIZE,
+		maxLength + 1 ) );
+
+	for ( int i = 0, dimension = vector.getDimension(); i < dimension; i++ ) {
+	    buffer.ensure( maxLength + 1 );
+
+	    if ( i > 0 ) {
+		buffer.put( ' ' );
+	    }
+
+	    buffer.length = format( vector.get( i ), buffer.chars, buffer.length );
+	}
+
+	buffer.flush();
+    }
+
+    /**
+     * Formats number to array of characters. Array must have space for
+     * {@link #maxLength} characters.
+     * 
+     * @param value
+     *            number to be formatted
+     * @param chars
+     *            array to which characters are written
+     * @param offset
+     *            index of first written character
+     * @return index after last written character
+     */
+    private int format( double value, char[] chars, int offset ) {
+
+	if ( Double.isNaN( value ) ) {
+	    nan.getChars( 0, nan.length(), chars, offset );
+	    return offset + nan.length();
+	}
+
+	int index = offset;
+
+	if ( Double.doubleToRawLongBits( value ) < 0 ) {
+	    chars[index++] = minus;
+	}
+
+	if ( Double.isInfinite( value ) ) {
+	    infinity.getChars( 0, infinity.length(), chars, index );
+	    return index + infinity.length();
+	}
+
+	if ( precision <= MAX_FAST_PRECISION ) {
+	    final long scale = POWERS_OF_TEN[precision];
+	    final double scaled = Math.abs( value ) * scale;
+
+	    if ( scaled < FAST_LIMIT ) {
+		long digits = (long) scaled;
+		final double fraction = scaled - digits;
+
+		if ( Math.abs( fraction - 0.5 ) > HALFWAY_DISTANCE ) {
+		    if ( fraction > 0.5 ) {
+			digits++;
+		    }
+
+		    index = writeDigits( digits / scale, 1, chars, index );
+		    chars[index++] = '.';
+
+		    return precision == 0 ? index : writeDigits( digits % scale,
+			    precision, chars, index );
+		}
+	    }
+	}
+
+	final String text = format.get().format( value );
+	text.getChars( 0, text.length(), chars, offset );
+
+	return offset + text.length();
+    }
+
+    /**
+     * Writes decimal digits of non negative number, padded with zeros on the
+     * left.
+     * 
+     * @param number
+     *            number to be written
+     * @param minDigits
+     *            smallest number of written digits
+     * @param chars
+     *            array to which digits are written
+     * @param offset
+     *            index of first written digit
+     * @return index after last written digit
+     */
+    private int writeDigits( long number, int minDigits, char[] chars,
+	    int offset ) {
+
+	int length = 1;
+
+	for ( long rest = number / 10; rest > 0; rest /= 10 ) {
+	    length++;
+	}
+
+	length = Math.max( length, minDigits );
+
+	long rest = number;
+
+	for ( int i = (offset + length) - 1; i >= offset; i-- ) {
+	    chars[i] = (char) (zero + (rest % 10));
+	    rest /= 10;
+	}
+
+	return offset + length;
+    }
+
+    /**
+     * Creates format which is used for numbers which cannot be formatted
+     * directly.
+     * 
+     * @return new format
+     */
+    private DecimalFormat createFormat() {
+
+	final StringBuilder pattern = new StringBuilder( precision + 2 );
+	pattern.append( "0." );
+
+	for ( int i = 0; i < precision; i++ ) {
+	    pattern.append( '0' );
+	}
+
+	final DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+	symbols.setDecimalSeparator( '.' );
+
+	return new DecimalFormat( pattern.toString(), symbols );
+    }
+}
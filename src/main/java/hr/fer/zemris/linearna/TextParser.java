@@ -0,0 +1,1057 @@
+package hr.fer.zemris.linearna;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Streaming parser of matrices and vectors written as text. Numbers are
+ * separated with whitespace, and scanned directly from buffer of characters
+ * without creating strings. Numbers whose significant digits fit in 53 bits
+ * and which have small exponent are converted with one correctly rounded
+ * floating point operation, all other numbers are converted with
+ * {@link Double#parseDouble(String)}, so result is always same as result of
+ * {@link Double#parseDouble(String)}.
+ * Invalid numbers throw {@link NumberFormatException}.
+ * <p>
+ * Rows of matrix are separated with new line or '|', and every line contains
+ * one vector. Empty lines are skipped. Shorter rows of matrix are padded with
+ * zeros. Large texts in memory and files are split on line boundaries and
+ * parsed in parallel.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public final class TextParser {
+
+    /**
+     * Number of characters read from reader at once
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Number of characters parsed by one parallel task
+     */
+    private static final int CHUNK_SIZE = 1 << 22;
+
+    /**
+     * Base 2 logarithm of number of bytes of file mapped at once
+     */
+    private static final int SEGMENT_SHIFT = 30;
+
+    /**
+     * Largest mantissa which is exactly representable as double
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Powers of ten which are exactly representable as double
+     */
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4,
+	    1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+	    1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    /**
+     * Numbers parsed from text, grouped in rows.
+     */
+    static final class Rows {
+
+	/**
+	 * Numbers of all rows
+	 */
+	double[] values = new double[16];
+
+	/**
+	 * Number of parsed numbers
+	 */
+	int size;
+
+	/**
+	 * Index of first number after every row
+	 */
+	int[] ends = new int[4];
+
+	/**
+	 * Number of finished rows
+	 */
+	int count;
+
+	/**
+	 * Length of longest row
+	 */
+	int maxLength;
+
+	/**
+	 * Adds number to current row.
+	 * 
+	 * @param value
+	 *            parsed number
+	 */
+	void add( double value ) {
+
+	    if ( size == values.length ) {
+		values = Arrays.copyOf( values, 2 * size );
+	    }
+
+	    values[size++] = value;
+	}
+
+	/**
+	 * Finishes current row. Empty row is not added.
+	 * 
+	 * @return false if row was empty
+	 */
+	boolean endRow() {
+
+	    final int start = count == 0 ? 0 : ends[count - 1];
+
+	    if ( size == start ) {
+		return false;
+	    }
+
+	    if ( count == ends.length ) {
+		ends = Arrays.copyOf( ends, 2 * count );
+	    }
+
+	    ends[count++] = size;
+	    maxLength = Math.max( maxLength, size - start );
+
+	    return true;
+	}
+
+	/**
+	 * Appends all rows of provided rows to this rows.
+	 * 
+	 * @param other
+	 *            rows to be appended
+	 */
+	void append( Rows other ) {
+
+	    if ( (size + other.size) > values.length ) {
+		values = Arrays.copyOf( values,
+			Math.max( size + other.size, 2 * size ) );
+	    }
+
+	    if ( (count + other.count) > ends.length ) {
+		ends = Arrays.copyOf( ends,
+			Math.max( count + other.count, 2 * count ) );
+	    }
+
+	    System.arraycopy( other.values, 0, values, size, other.size );
+
+	    for ( int i = 0; i < other.count; i++ ) {
+		ends[count + i] = size + other.ends[i];
+	    }
+
+	    size += other.size;
+	    count += other.count;
+	    maxLength = Math.max( maxLength, other.maxLength );
+	}
+
+	/**
+	 * Creates matrix from rows. Shorter rows are padded with zeros.
+	 * 
+	 * @return new matrix
+	 */
+	FlatMatrix toMatrix() {
+
+	    final int cols = maxLength;
+
+	    if ( size == (count * cols) ) {
+		return new FlatMatrix( count, cols, size == values.length ? values
+			: Arrays.copyOf( values, size ), true );
+	    }
+
+	    final double[] elements = new double[count * cols];
+
+	    for ( int row = 0, start = 0; row < count; row++ ) {
+		System.arraycopy( values, start, elements, row * cols,
+			ends[row] - start );
+		start = ends[row];
+	    }
+
+	    return new FlatMatrix( count, cols, elements, true );
+	}
+
+	/**
+	 * Creates two dimensional array from rows. Shorter rows are padded with
+	 * zeros.
+	 * 
+	 * @return new array with one array for every row
+	 */
+	double[][] toArray() {
+
+	    final double[][] elements = new double[count][maxLength];
+
+	    for ( int row = 0, start = 0; row < count; row++ ) {
+		System.arraycopy( values, start, elements[row], 0, ends[row]
+			- start );
+		start = ends[row];
+	    }
+
+	    return elements;
+	}
+
+	/**
+	 * Creates one vector from every row.
+	 * 
+	 * @return list of vectors
+	 */
+	List<Vector> toVectors() {
+
+	    final List<Vector> vectors = new ArrayList<>( count );
+
+	    for ( int row = 0, start = 0; row < count; row++ ) {
+		vectors.add( new Vector( false, true, Arrays.copyOfRange( values,
+			start, ends[row] ) ) );
+		start = ends[row];
+	    }
+
+	    return vectors;
+	}
+    }
+
+    /**
+     * Scanner of numbers in buffer of characters, which is refilled from
+     * reader if reader is provided.
+     */
+    private static final class Scanner {
+
+	/**
+	 * Buffer with characters
+	 */
+	private char[] buffer;
+
+	/**
+	 * Index of next character in buffer
+	 */
+	private int position;
+
+	/**
+	 * Index after last character in buffer
+	 */
+	private int limit;
+
+	/**
+	 * Source of characters, <code>null</code> if whole text is in buffer
+	 */
+	private final Reader reader;
+
+	/**
+	 * True if '|' separates rows
+	 */
+	private final boolean pipeSeparatesRows;
+
+	/**
+	 * True if new line separates rows
+	 */
+	private final boolean lineSeparatesRows;
+
+	/**
+	 * Creates scanner of text in buffer.
+	 * 
+	 * @param buffer
+	 *            buffer with text
+	 * @param position
+	 *            index of first character
+	 * @param limit
+	 *            index after last character
+	 * @param reader
+	 *            source of further characters, or <code>null</code>
+	 * @param pipeSeparatesRows
+	 *            true if '|' separates rows
+	 * @param lineSeparatesRows
+	 *            true if new line separates rows
+	 */
+	Scanner(char[] buffer, int position, int limit, Reader reader,
+		boolean pipeSeparatesRows, boolean lineSeparatesRows) {
+
+	    this.buffer = buffer;
+	    this.position = position;
+	    this.limit = limit;
+	    this.reader = reader;
+	    this.pipeSeparatesRows = pipeSeparatesRows;
+	    this.lineSeparatesRows = lineSeparatesRows;
+	}
+
+	/**
+	 * Reads more characters after characters from index <code>keep</code>
+	 * which are moved to start of buffer.
+	 * 
+	 * @param keep
+	 *            index of first character which is kept
+	 * @return index of first kept character after move
+	 * @throws IOException
+	 *             if characters cannot be read
+	 */
+	private int refill( int keep ) throws IOException {
+
+	    final int kept = limit - keep;
+
+	    if ( kept == buffer.length ) {
+		buffer = Arrays.copyOf( buffer, 2 * buffer.length );
+	    }
+
+	    System.arraycopy( buffer, keep, buffer, 0, kept );
+	    position -= keep;
+	    limit = kept;
+
+	    final int read = reader.read( buffer, limit, buffer.length - limit );
+	    if ( read > 0 ) {
+		limit += read;
+	    }
+
+	    return 0;
+	}
+
+	/**
+	 * Checks if there are more characters, and reads them from reader if
+	 * buffer is empty.
+	 * 
+	 * @return true if there are more characters
+	 * @throws IOException
+	 *             if characters cannot be read
+	 */
+	private boolean hasMore() throws IOException {
+
+	    while ( position == limit ) {
+		if ( reader == null ) {
+		    return false;
+		}
+
+		refill( position );
+
+		if ( position == limit ) {
+		    return false;
+		}
+	    }
+
+	    return true;
+	}
+
+	/**
+	 * Parses all numbers to rows.
+	 * 
+	 * @param rows
+	 *            rows to which numbers are added
+	 * @param strict
+	 *            true if rows without numbers should be rejected like in
+	 *            {@link Matrix#parseSimple(String)}, where only empty rows at
+	 *            the end of text are ignored
+	 * @throws IOException
+	 *             if characters cannot be read
+	 * @throws NumberFormatException
+	 *             if text contains invalid number
+	 */
+	void parse( Rows rows, boolean strict ) throws IOException {
+
+	    boolean segmentStarted = false;
+	    boolean emptySegment = false;
+
+	    while ( hasMore() ) {
+		final char c = buffer[position];
+
+		if ( pipeSeparatesRows && (c == '|') ) {
+		    position++;
+
+		    if ( !rows.endRow() && strict ) {
+			if ( segmentStarted ) {
+			    throw new NumberFormatException( "empty String" );
+			}
+
+			emptySegment = true;
+		    }
+
+		    segmentStarted = false;
+		    continue;
+		}
+
+		if ( emptySegment ) {
+		    throw new NumberFormatException( "empty String" );
+		}
+
+		segmentStarted = true;
+
+		if ( lineSeparatesRows && (c == '\n') ) {
+		    position++;
+		    rows.endRow();
+		    continue;
+		}
+
+		if ( isWhitespace( c ) ) {
+		    position++;
+		    continue;
+		}
+
+		int start = position;
+		int end = position + 1;
+
+		while ( true ) {
+		    if ( end == limit ) {
+			if ( reader == null ) {
+			    break;
+			}
+
+			final int offset = end - start;
+			start = refill( start );
+			end = start + offset;
+
+			if ( end == limit ) {
+			    break;
+			}
+		    }
+
+		    final char next = buffer[end];
+
+		    if ( isWhitespace( next ) || (pipeSeparatesRows && (next == '|')) ) {
+			break;
+		    }
+
+		    end++;
+		}
+
+		rows.add( parseNumber( buffer, start, end ) );
+		position = end;
+	    }
+
+	    if ( !rows.endRow() && strict && segmentStarted ) {
+		throw new NumberFormatException( "empty String" );
+	    }
+	}
+    }
+
+    /**
+     * Parallel task which parses one chunk of text.
+     */
+    private static final class ChunkTask extends RecursiveTask<Rows> {
+
+	/**
+	 * Serial version UID
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Text with chunk
+	 */
+	private final Text text;
+
+	/**
+	 * Index of first character of chunk
+	 */
+	private final long from;
+
+	/**
+	 * Index after last character of chunk
+	 */
+	private final long to;
+
+	/**
+	 * True if '|' separates rows
+	 */
+	private final boolean pipeSeparatesRows;
+
+	/**
+	 * Creates new task.
+	 * 
+	 * @param text
+	 *            text with chunk
+	 * @param from
+	 *            index of first character of chunk
+	 * @param to
+	 *            index after last character of chunk
+	 * @param pipeSeparatesRows
+	 *            true if '|' separates rows
+	 */
+	ChunkTask(Text text, long from, long to, boolean pipeSeparatesRows) {
+
+	    this.text = text;
+	    this.from = from;
+	    this.to = to;
+	    this.pipeSeparatesRows = pipeSeparatesRows;
+	}
+
+	/**
+	 * Parses chunk.
+	 * 
+	 * @return rows of chunk
+	 */
+	@Override
+	protected Rows compute() {
+
+	    return parse( new Rows() );
+	}
+
+	/**
+	 * Parses chunk and appends its rows to provided rows.
+	 * 
+	 * @param rows
+	 *            rows to which rows of chunk are added
+	 * @return provided rows
+	 */
+	Rows parse( Rows rows ) {
+
+	    final char[] chars = new char[(int) (to - from)];
+	    text.copy( from, chars );
+
+	    try {
+		new Scanner( chars, 0, chars.length, null, pipeSeparatesRows,
+			true ).parse( rows, false );
+	    } catch ( final IOException e ) {
+		// text in memory is never read
+		throw new IllegalStateException( e );
+	    }
+
+	    return rows;
+	}
+    }
+
+    /**
+     * Text in memory which can be split in chunks.
+     */
+    private abstract static class Text {
+
+	/**
+	 * Returns number of characters.
+	 * 
+	 * @return length of text
+	 */
+	abstract long length();
+
+	/**
+	 * Returns character at provided index.
+	 * 
+	 * @param index
+	 *            index of character
+	 * @return character at index
+	 */
+	abstract char charAt( long index );
+
+	/**
+	 * Copies characters to array.
+	 * 
+	 * @param from
+	 *            index of first character
+	 * @param target
+	 *            array which is filled with characters
+	 */
+	abstract void copy( long from, char[] target );
+    }
+
+    /**
+     * Text in character buffer.
+     */
+    private static final class BufferText extends Text {
+
+	/**
+	 * Buffer with text between its position and limit
+	 */
+	private final CharBuffer buffer;
+
+	/**
+	 * Creates new text.
+	 * 
+	 * @param buffer
+	 *            buffer with text between its position and limit
+	 */
+	BufferText(CharBuffer buffer) {
+
+	    this.buffer = buffer.slice();
+	}
+
+	@Override
+	long length() {
+
+	    return buffer.limit();
+	}
+
+	@Override
+	char charAt( long index ) {
+
+	    return buffer.get( (int) index );
+	}
+
+	@Override
+	void copy( long from, char[] target ) {
+
+	    final CharBuffer duplicate = buffer.duplicate();
+	    duplicate.position( (int) from );
+	    duplicate.get( target );
+	}
+    }
+
+    /**
+     * Text in memory mapped file. Bytes are converted to characters as
+     * ISO-8859-1, which does not change digits and separators of any ASCII
+     * compatible encoding.
+     */
+    private static final class FileText extends Text {
+
+	/**
+	 * Mapped segments of file
+	 */
+	private final MappedByteBuffer[] segments;
+
+	/**
+	 * Size of file
+	 */
+	private final long length;
+
+	/**
+	 * Maps file.
+	 * 
+	 * @param channel
+	 *            channel of file
+	 * @throws IOException
+	 *             if file cannot be mapped
+	 */
+	FileText(FileChannel channel) throws IOException {
+
+	    length = channel.size();
+
+	    final long segmentSize = 1L << SEGMENT_SHIFT;
+	    segments = new MappedByteBuffer[(int) ((length + segmentSize - 1) >>> SEGMENT_SHIFT)];
+
+	    for ( int i = 0; i < segments.length; i++ ) {
+		final long start = (long) i << SEGMENT_SHIFT;
+		segments[i] = channel.map( FileChannel.MapMode.READ_ONLY,
+			start, Math.min( segmentSize, length - start ) );
+	    }
+	}
+
+	@Override
+	long length() {
+
+	    return length;
+	}
+
+	@Override
+	char charAt( long index ) {
+
+	    return (char) (segments[(int) (index >>> SEGMENT_SHIFT)]
+		    .get( (int) (index & ((1L << SEGMENT_SHIFT) - 1)) ) & 0xFF);
+	}
+
+	@Override
+	void copy( long from, char[] target ) {
+
+	    final byte[] bytes = new byte[target.length];
+
+	    for ( int done = 0; done < target.length; ) {
+		final long index = from + done;
+		final ByteBuffer segment = segments[(int) (index >>> SEGMENT_SHIFT)]
+			.duplicate();
+		segment.position( (int) (index & ((1L << SEGMENT_SHIFT) - 1)) );
+
+		final int length = Math.min( segment.remaining(), target.length
+			- done );
+		segment.get( bytes, done, length );
+		done += length;
+	    }
+
+	    for ( int i = 0; i < target.length; i++ ) {
+		target[i] = (char) (bytes[i] & 0xFF);
+	    }
+	}
+    }
+
+    /**
+     * Class has only static methods.
+     */
+    private TextParser() {
+
+    }
+
+    /**
+     * Parses matrix from reader. Reader is read to the end, but not closed.
+     * 
+     * @param reader
+     *            source of text
+     * @return new matrix
+     * @throws IOException
+     *             if text cannot be read
+     * @throws NumberFormatException
+     *             if text contains invalid number
+     */
+    public static FlatMatrix parseMatrix( Reader reader ) throws IOException {
+
+	return parse( reader, true ).toMatrix();
+    }
+
+    /**
+     * Parses matrix from stream of ASCII compatible text. Stream is read to
+     * the end, but not closed.
+     * 
+     * @param stream
+     *            source of text
+     * @return new matrix
+     * @throws IOException
+     *             if text cannot be read
+     * @throws NumberFormatException
+     *             if text contains invalid number
+     */
+    public static FlatMatrix parseMatrix( InputStream stream )
+	    throws IOException {
+
+	return parseMatrix( new InputStreamReader( stream,
+		StandardCharsets.ISO_8859_1 ) );
+    }
+
+    /**
+     * Parses matrix from characters between position and limit of buffer.
+     * Large text is parsed in parallel in common pool. Position of buffer is
+     * not changed.
+     * 
+     * @param text
+     *            buffer with text
+     * @return new matrix
+     * @throws NumberFormatException
+     *             if text contains invalid number
+     */
+    public static FlatMatrix parseMatrix( CharBuffer text ) {
+
+	return parse( new BufferText( text ), true, ForkJoinPool.commonPool() )
+		.toMatrix();
+    }
+
+    /**
+     * Parses matrix from file of ASCII compatible text. File is mapped and
+     * split in chunks on line boundaries, which are parsed in provided pool.
+     * 
+     * @param path
+     *            path of file
+     * @param pool
+     *            pool in which chunks are parsed, or <code>null</code> if
+     *            file should be parsed in current thread
+     * @return new matrix
+     * @throws IOException
+     *             if file cannot be read
+     * @throws NumberFormatException
+     *             if text contains invalid number
+     */
+    public static FlatMatrix parseMatrix( Path path, ForkJoinPool pool )
+	    throws IOException {
+
+	try (FileChannel channel = FileChannel.open( path,
+		StandardOpenOption.READ )) {
+	    return parse( new FileText( channel ), true, pool ).toMatrix();
+	}
+    }
+
+    /**
+     * Parses vectors from reader, one vector from every line. Reader is read
+     * to the end, but not closed.
+     * 
+     * @param reader
+     *            source of text
+     * @return list of vectors
+     * @throws IOException
+     *             if text cannot be read
+     * @throws NumberFormatException
+     *             if text contains invalid number
+     */
+    public static List<Vector> parseVectors( Reader reader ) throws IOException {
+
+	return parse( reader, false ).toVectors();
+    }
+
+    /**
+     * Parses vectors from stream of ASCII compatible text, one vector from
+     * every line. Stream is read to the end, but not closed.
+     * 
+     * @param stream
+     *            source of text
+     * @return list of vectors
+     * @throws IOException
+     *             if text cannot be read
+     * @throws NumberFormatException
+     *             if text contains invalid number
+     */
+    public static List<Vector> parseVectors( InputStream stream )
+	    throws IOException {
+
+	return parseVectors( new InputStreamReader( stream,
+		StandardCharsets.ISO_8859_1 ) );
+    }
+
+    /**
+     * Parses vectors from characters between position and limit of buffer,
+     * one vector from every line. Large text is parsed in parallel in common
+     * pool. Position of buffer is not changed.
+     * 
+     * @param text
+     *            buffer with text
+     * @return list of vectors
+     * @throws NumberFormatException
+     *             if text contains invalid number
+     */
+    public static List<Vector> parseVectors( CharBuffer text ) {
+
+	return parse( new BufferText( text ), false, ForkJoinPool.commonPool() )
+		.toVectors();
+    }
+
+    /**
+     * Parses vectors from file of ASCII compatible text, one vector from
+     * every line. File is mapped and split in chunks on line boundaries,
+     * which are parsed in provided pool.
+     * 
+     * @param path
+     *            path of file
+     * @param pool
+     *            pool in which chunks are parsed, or <code>null</code> if
+     *            file should be parsed in current thread
+     * @return list of vectors
+     * @throws IOException
+     *             if file cannot be read
+     * @throws NumberFormatException
+     *             if text contains invalid number
+     */
+    public static List<Vector> parseVectors( Path path, ForkJoinPool pool )
+	    throws IOException {
+
+	try (FileChannel channel = FileChannel.open( path,
+		StandardOpenOption.READ )) {
+	    return parse( new FileText( channel ), false, pool ).toVectors();
+	}
+    }
+
+    /**
+     * Parses rows of string in same way as {@link Matrix#parseSimple(String)}
+     * or {@link Vector#parseSimple(String)}. Only '|' separates rows, and
+     * empty row or empty string is rejected.
+     * 
+     * @param text
+     *            string with numbers
+     * @param pipeSeparatesRows
+     *            true if '|' separates rows
+     * @return parsed rows
+     * @throws NumberFormatException
+     *             if string contains invalid number or empty row
+     */
+    static Rows parseSimple( String text, boolean pipeSeparatesRows ) {
+
+	final char[] chars = text.toCharArray();
+	final Rows rows = new Rows();
+
+	try {
+	    new Scanner( chars, 0, chars.length, null, pipeSeparatesRows, false )
+		    .parse( rows, true );
+	} catch ( final IOException e ) {
+	    // string is never read
+	    throw new IllegalStateException( e );
+	}
+
+	if ( rows.count == 0 ) {
+	    throw new NumberFormatException( "empty String" );
+	}
+
+	return rows;
+    }
+
+    /**
+     * Parses all rows from reader.
+     * 
+     * @param reader
+     *            source of text
+     * @param pipeSeparatesRows
+     *            true if '|' separates rows
+     * @return parsed rows
+     * @throws IOException
+     *             if text cannot be read
+     */
+    private static Rows parse( Reader reader, boolean pipeSeparatesRows )
+	    throws IOException {
+
+	final Rows rows = new Rows();
+
+	new Scanner( new char[BUFFER_SIZE], 0, 0, reader, pipeSeparatesRows,
+		true ).parse( rows, false );
+
+	return rows;
+    }
+
+    /**
+     * Parses all rows of text in memory. Text is split in chunks which end
+     * with new line, and chunks are parsed in parallel.
+     * 
+     * @param text
+     *            text in memory
+     * @param pipeSeparatesRows
+     *            true if '|' separates rows
+     * @param pool
+     *            pool in which chunks are parsed, or <code>null</code> if
+     *            text should be parsed in current thread. Text is also parsed
+     *            in current thread if pool has only one thread.
+     * @return parsed rows
+     */
+    private static Rows parse( Text text, boolean pipeSeparatesRows,
+	    ForkJoinPool pool ) {
+
+	final long length = text.length();
+	final List<ChunkTask> tasks = new ArrayList<>();
+
+	for ( long from = 0; from < length; ) {
+	    long to = Math.min( from + CHUNK_SIZE, length );
+
+	    while ( (to < length) && (text.charAt( to - 1 ) != '\n') ) {
+		to++;
+	    }
+
+	    if ( (to - from) > Integer.MAX_VALUE ) {
+		throw new NumberFormatException( "Line is too long" );
+	    }
+
+	    tasks.add( new ChunkTask( text, from, to, pipeSeparatesRows ) );
+	    from = to;
+	}
+
+	if ( (pool == null) || (pool.getParallelism() < 2) || (tasks.size() < 2) ) {
+	    final Rows rows = new Rows();
+
+	    for ( final ChunkTask task : tasks ) {
+		task.parse( rows );
+	    }
+
+	    return rows;
+	}
+
+	for ( final ChunkTask task : tasks ) {
+	    pool.execute( task );
+	}
+
+	final Rows rows = new Rows();
+
+	for ( final ForkJoinTask<Rows> task : tasks ) {
+	    rows.append( task.join() );
+	}
+
+	return rows;
+    }
+
+    /**
+     * Checks if character separates numbers. Whitespace is same as in regular
+     * expression <code>\s</code>.
+     * 
+     * @param c
+     *            character
+     * @return true if character is whitespace
+     */
+    private static boolean isWhitespace( char c ) {
+
+	return (c == ' ') || (c == '\t') || (c == '\n') || (c == '\r')
+		|| (c == '\f') || (c == '\u000B');
+    }
+
+    /**
+     * Parses number from characters. Decimal numbers whose mantissa and power
+     * of ten are exactly representable as doubles are converted with one
+     * multiplication or division, which is correctly rounded. All other
+     * numbers are converted with {@link Double#parseDouble(String)}.
+     * 
+     * @param chars
+     *            array with characters
+     * @param start
+     *            index of first character of number
+     * @param end
+     *            index after last character of number
+     * @return parsed number
+     * @throws NumberFormatException
+     *             if characters are not valid number
+     */
+    static double parseNumber( char[] chars, int start, int end ) {
+
+	int i = start;
+	boolean negative = false;
+
+	if ( (i < end) && ((chars[i] == '-') || (chars[i] == '+')) ) {
+	    negative = chars[i] == '-';
+	    i++;
+	}
+
+	long mantissa = 0;
+	int significantDigits = 0;
+	int exponent = 0;
+	boolean hasDigits = false;
+	boolean exact = true;
+
+	for ( ; (i < end) && (chars[i] >= '0') && (chars[i] <= '9'); i++ ) {
+	    hasDigits = true;
+
+	    if ( significantDigits < 18 ) {
+		mantissa = (mantissa * 10) + (chars[i] - '0');
+		significantDigits += mantissa == 0 ? 0 : 1;
+	    } else {
+		exact = false;
+	    }
+	}
+
+	if ( (i < end) && (chars[i] == '.') ) {
+	    for ( i++; (i < end) && (chars[i] >= '0') && (chars[i] <= '9'); i++ ) {
+		hasDigits = true;
+
+		if ( significantDigits < 18 ) {
+		    mantissa = (mantissa * 10) + (chars[i] - '0');
+		    significantDigits += mantissa == 0 ? 0 : 1;
+		    exponent--;
+		} else {
+		    exact = false;
+		}
+	    }
+	}
+
+	if ( hasDigits && (i < end) && ((chars[i] == 'e') || (chars[i] == 'E')) ) {
+	    i++;
+
+	    boolean negativeExponent = false;
+	    if ( (i < end) && ((chars[i] == '-') || (chars[i] == '+')) ) {
+		negativeExponent = chars[i] == '-';
+		i++;
+	    }
+
+	    int value = 0;
+	    boolean hasExponentDigits = false;
+
+	    for ( ; (i < end) && (chars[i] >= '0') && (chars[i] <= '9'); i++ ) {
+		hasExponentDigits = true;
+		value = Math.min( (value * 10) + (chars[i] - '0'), 100000 );
+	    }
+
+	    if ( !hasExponentDigits ) {
+		exact = false;
+	    }
+
+	    exponent += negativeExponent ? -value : value;
+	}
+
+	if ( hasDigits && exact && (i == end) ) {
+	    if ( mantissa == 0 ) {
+		return negative ? -0.0 : 0.0;
+	    }
+
+	    if ( (mantissa <= MAX_EXACT_MANTISSA)
+		    && (Math.abs( exponent ) < POWERS_OF_TEN.length) ) {
+		final double value = exponent >= 0 ? mantissa
+			* POWERS_OF_TEN[exponent] : mantissa
+			/ POWERS_OF_TEN[-exponent];
+
+		return negative ? -value : value;
+	    }
+	}
+
+	return Double.parseDouble( new String( chars, start, end - start ) );
+    }
+}
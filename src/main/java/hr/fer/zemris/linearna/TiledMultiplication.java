@@ -0,0 +1,346 @@
+package hr.fer.zemris.linearna;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Out of core multiplication of matrices which do not have to fit in memory.
+ * Product C = A * B is calculated by square tiles. One tile of C is kept in
+ * memory while tiles of A from its rows and tiles of B from its columns are
+ * read one after another and multiplied with {@link Gemm}, then finished tile
+ * is written to result. Memory used by tiles is bounded by provided budget.
+ * <p>
+ * Tiles of {@link MappedMatrix}, {@link DirectMatrix} and matrices stored in
+ * arrays are copied with bulk reads and writes, tiles of other matrices
+ * element by element. Every element of A is read once for every column of
+ * tiles of C, and every element of B once for every row of tiles of C, so
+ * larger budget means less reading. Engine counts read and written bytes of
+ * last multiplication. Engine is not thread safe.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class TiledMultiplication {
+
+    /**
+     * Number of tiles kept in memory at the same time
+     */
+    private static final int TILES = 3;
+
+    /**
+     * Largest number of bytes used by tiles
+     */
+    private final long memoryBudget;
+
+    /**
+     * Dimension of square tile
+     */
+    private final int tileSize;
+
+    /**
+     * Bytes read in last multiplication
+     */
+    private long bytesRead;
+
+    /**
+     * Bytes written in last multiplication
+     */
+    private long bytesWritten;
+
+    /**
+     * Creates new engine whose tiles use at most provided number of bytes.
+     * 
+     * @param memoryBudget
+     *            largest number of bytes used by tiles
+     * @throws IllegalArgumentException
+     *             if budget is too small for three tiles with one element
+     */
+    public TiledMultiplication(long memoryBudget) {
+
+	if ( memoryBudget < (TILES * Double.BYTES) ) {
+	    throw new IllegalArgumentException( "Memory budget is too small: "
+		    + memoryBudget );
+	}
+
+	this.memoryBudget = memoryBudget;
+	tileSize = (int) Math.min( Integer.MAX_VALUE / 2,
+		(long) Math.sqrt( memoryBudget / (double) (TILES * Double.BYTES) ) );
+    }
+
+    /**
+     * Memory budget getter.
+     * 
+     * @return largest number of bytes used by tiles
+     */
+    public long getMemoryBudget() {
+
+	return memoryBudget;
+    }
+
+    /**
+     * Tile size getter.
+     * 
+     * @return number of rows and columns of one tile
+     */
+    public int getTileSize() {
+
+	return tileSize;
+    }
+
+    /**
+     * Returns number of bytes of elements read from operands in last
+     * multiplication.
+     * 
+     * @return number of read bytes
+     */
+    public long getBytesRead() {
+
+	return bytesRead;
+    }
+
+    /**
+     * Returns number of bytes of elements written to result in last
+     * multiplication.
+     * 
+     * @return number of written bytes
+     */
+    public long getBytesWritten() {
+
+	return bytesWritten;
+    }
+
+    /**
+     * Multiplies matrices and writes product to new memory mapped file.
+     * 
+     * @param a
+     *            first matrix
+     * @param b
+     *            second matrix
+     * @param path
+     *            path of file for product, overwritten if it exists
+     * @return product opened for reading and writing
+     * @throws IOException
+     *             if file cannot be created
+     * @throws IncompatibleOperandException
+     *             if first matrix hasn't number of columns as second matrix
+     *             rows
+     */
+    public MappedMatrix multiply( IMatrix a, IMatrix b, Path path )
+	    throws IOException {
+
+	if ( a.getColsCount() != b.getRowsCount() ) {
+	    throw new IncompatibleOperandException(
+		    "First matrix must have same number of columns as second matrix rows!" );
+	}
+
+	final MappedMatrix c = MappedMatrix.create( path, a.getRowsCount(),
+		b.getColsCount() );
+
+	try {
+	    multiply( a, b, c );
+	} catch ( final RuntimeException e ) {
+	    c.close();
+	    throw e;
+	}
+
+	return c;
+    }
+
+    /**
+     * Multiplies matrices and writes product to provided matrix. Previous
+     * elements of result are overwritten and never read. Tiles of product are
+     * written while tiles of operands are still being read, so result must
+     * not share storage with any operand, neither as same matrix nor as view
+     * on same elements or file.
+     * 
+     * @param a
+     *            first matrix
+     * @param b
+     *            second matrix
+     * @param c
+     *            matrix for product
+     * @return matrix with product
+     * @throws IncompatibleOperandException
+     *             if first matrix hasn't number of columns as second matrix
+     *             rows, or if result has wrong dimensions
+     * @throws IllegalArgumentException
+     *             if result is same matrix as one of operands
+     */
+    public IMatrix multiply( IMatrix a, IMatrix b, IMatrix c ) {
+
+	if ( (c == a) || (c == b) ) {
+	    throw new IllegalArgumentException(
+		    "Result must not be one of operands" );
+	}
+
+	final int rows = a.getRowsCount();
+	final int inner = a.getColsCount();
+	final int cols = b.getColsCount();
+
+	if ( inner != b.getRowsCount() ) {
+	    throw new IncompatibleOperandException(
+		    "First matrix must have same number of columns as second matrix rows!" );
+	}
+
+	if ( (c.getRowsCount() != rows) || (c.getColsCount() != cols) ) {
+	    throw new IncompatibleOperandException(
+		    "Result must have rows of first and columns of second matrix" );
+	}
+
+	bytesRead = 0;
+	bytesWritten = 0;
+
+	final int t = tileSize;
+	final double[] tileA = new double[Math.min( t, rows )
+		* Math.min( t, inner )];
+	final double[] tileB = new double[Math.min( t, inner )
+		* Math.min( t, cols )];
+	final double[] tileC = new double[Math.min( t, rows )
+		* Math.min( t, cols )];
+
+	for ( int i0 = 0; i0 < rows; i0 += t ) {
+	    final int m = Math.min( t, rows - i0 );
+
+	    for ( int j0 = 0; j0 < cols; j0 += t ) {
+		final int n = Math.min( t, cols - j0 );
+		final FlatMatrix blockC = new FlatMatrix( m, n, tileC, 0, n );
+
+		Arrays.fill( tileC, 0, m * n, 0.0 );
+
+		for ( int k0 = 0; k0 < inner; k0 += t ) {
+		    final int k = Math.min( t, inner - k0 );
+
+		    readTile( a, i0, k0, m, k, tileA );
+		    readTile( b, k0, j0, k, n, tileB );
+
+		    Gemm.multiply( new FlatMatrix( m, k, tileA, 0, k ),
+			    new FlatMatrix( k, n, tileB, 0, n ), blockC );
+		}
+
+		writeTile( c, i0, j0, m, n, tileC );
+	    }
+	}
+
+	return c;
+    }
+
+    /**
+     * Reads tile of matrix to array, row by row.
+     * 
+     * @param matrix
+     *            matrix from which tile is read
+     * @param row0
+     *            first row of tile
+     * @param col0
+     *            first column of tile
+     * @param rows
+     *            number of rows of tile
+     * @param cols
+     *            number of columns of tile
+     * @param tile
+     *            array for elements of tile
+     */
+    private void readTile( IMatrix matrix, int row0, int col0, int rows,
+	    int cols, double[] tile ) {
+
+	bytesRead += (long) rows * cols * Double.BYTES;
+
+	if ( (matrix instanceof MappedMatrix)
+		&& !((MappedMatrix) matrix).isColumnMajor() ) {
+	    final MappedMatrix mapped = (MappedMatrix) matrix;
+	    final long width = mapped.getColsCount();
+
+	    for ( int i = 0; i < rows; i++ ) {
+		mapped.read( ((row0 + i) * width) + col0, tile, i * cols, cols );
+	    }
+	} else if ( matrix instanceof MappedMatrix ) {
+	    final MappedMatrix mapped = (MappedMatrix) matrix;
+	    final long height = mapped.getRowsCount();
+	    final double[] column = new double[rows];
+
+	    for ( int j = 0; j < cols; j++ ) {
+		mapped.read( ((col0 + j) * height) + row0, column, 0, rows );
+
+		for ( int i = 0; i < rows; i++ ) {
+		    tile[(i * cols) + j] = column[i];
+		}
+	    }
+	} else if ( matrix instanceof DirectMatrix ) {
+	    final DirectMatrix direct = (DirectMatrix) matrix;
+	    final int width = direct.getColsCount();
+
+	    for ( int i = 0; i < rows; i++ ) {
+		direct.read( ((row0 + i) * width) + col0, tile, i * cols, cols );
+	    }
+	} else if ( (matrix instanceof ArrayBackedMatrix)
+		&& (((ArrayBackedMatrix) matrix).colStride() == 1) ) {
+	    final ArrayBackedMatrix source = (ArrayBackedMatrix) matrix;
+
+	    for ( int i = 0; i < rows; i++ ) {
+		System.arraycopy( source.rowArray( row0 + i ),
+			source.rowOffset( row0 + i ) + col0, tile, i * cols,
+			cols );
+	    }
+	} else {
+	    for ( int i = 0, index = 0; i < rows; i++ ) {
+		for ( int j = 0; j < cols; j++, index++ ) {
+		    tile[index] = matrix.get( row0 + i, col0 + j );
+		}
+	    }
+	}
+    }
+
+    /**
+     * Writes tile stored row by row in array to matrix.
+     * 
+     * @param matrix
+     *            matrix to which tile is written
+     * @param row0
+     *            first row of tile
+     * @param col0
+     *            first column of tile
+     * @param rows
+     *            number of rows of tile
+     * @param cols
+     *            number of columns of tile
+     * @param tile
+     *            array with elements of tile
+     */
+    private void writeTile( IMatrix matrix, int row0, int col0, int rows,
+	    int cols, double[] tile ) {
+
+	bytesWritten += (long) rows * cols * Double.BYTES;
+
+	if ( (matrix instanceof MappedMatrix)
+		&& !((MappedMatrix) matrix).isColumnMajor() ) {
+	    final MappedMatrix mapped = (MappedMatrix) matrix;
+	    final long width = mapped.getColsCount();
+
+	    for ( int i = 0; i < rows; i++ ) {
+		mapped.write( ((row0 + i) * width) + col0, tile, i * cols, cols );
+	    }
+	} else if ( matrix instanceof DirectMatrix ) {
+	    final DirectMatrix direct = (DirectMatrix) matrix;
+	    final int width = direct.getColsCount();
+
+	    for ( int i = 0; i < rows; i++ ) {
+		direct.write( ((row0 + i) * width) + col0, tile, i * cols, cols );
+	    }
+	} else if ( (matrix instanceof ArrayBackedMatrix)
+		&& (((ArrayBackedMatrix) matrix).colStride() == 1) ) {
+	    final ArrayBackedMatrix target = (ArrayBackedMatrix) matrix;
+
+	    for ( int i = 0; i < rows; i++ ) {
+		System.arraycopy( tile, i * cols, target.rowArray( row0 + i ),
+			target.rowOffset( row0 + i ) + col0, cols );
+	    }
+	} else {
+	    for ( int i = 0, index = 0; i < rows; i++ ) {
+		for ( int j = 0; j < cols; j++, index++ ) {
+		    matrix.set( row0 + i, col0 + j, tile[index] );
+		}
+	    }
+	}
+    }
+}
@@ -0,0 +1,650 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Arrays;
+
+/**
+ * Upper or lower triangular square matrix which stores only its triangle. Rows
+ * of triangle are stored one after another in array of
+ * <code>n * (n + 1) / 2</code> elements: row i of upper triangular matrix
+ * contains columns i to n - 1, and row i of lower triangular matrix contains
+ * columns 0 to i. Matrix with unit diagonal has ones on diagonal, and stored
+ * diagonal elements are not used.
+ * <p>
+ * Systems are solved with forward or back substitution in O(n^2) for every
+ * right hand side, in place and without any decomposition. Determinant is
+ * product of diagonal elements.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class TriangularMatrix extends AbstractMatrix {
+
+    /**
+     * Dimension of matrix
+     */
+    protected final int dimension;
+
+    /**
+     * True if matrix is upper triangular, false if lower triangular
+     */
+    protected final boolean upper;
+
+    /**
+     * True if all elements on diagonal are ones
+     */
+    protected final boolean unitDiagonal;
+
+    /**
+     * Triangle stored row by row
+     */
+    protected final double[] elements;
+
+    /**
+     * Creates new triangular matrix. All elements of new matrix are 0, or
+     * ones on diagonal if matrix has unit diagonal.
+     * 
+     * @param dimension
+     *            dimension of matrix
+     * @param upper
+     *            true for upper triangular matrix, false for lower triangular
+     * @param unitDiagonal
+     *            true if matrix has ones on diagonal
+     */
+    public TriangularMatrix(int dimension, boolean upper, boolean unitDiagonal) {
+
+	this( dimension, upper, unitDiagonal,
+		new double[(int) (((long) dimension * (dimension + 1)) / 2)] );
+    }
+
+    /**
+     * Creates new triangular matrix from triangle stored row by row. Array is
+     * not copied.
+     * 
+     * @param dimension
+     *            dimension of matrix
+     * @param upper
+     *            true for upper triangular matrix, false for lower triangular
+     * @param unitDiagonal
+     *            true if matrix has ones on diagonal
+     * @param elements
+     *            triangle stored row by row
+     * @throws IllegalArgumentException
+     *             if array has wrong size
+     */
+    public TriangularMatrix(int dimension, boolean upper,
+	    boolean unitDiagonal, double[] elements) {
+
+	if ( (dimension < 0)
+		|| (elements.length != (((long) dimension * (dimension + 1)) / 2)) ) {
+	    throw new IllegalArgumentException( "wrong size of elements" );
+	}
+
+	this.dimension = dimension;
+	this.upper = upper;
+	this.unitDiagonal = unitDiagonal;
+	this.elements = elements;
+    }
+
+    /**
+     * Creates triangular matrix from triangle of provided square matrix.
+     * Elements outside of triangle are not read, and diagonal is not read if
+     * matrix has unit diagonal.
+     * 
+     * @param matrix
+     *            square matrix
+     * @param upper
+     *            true if upper triangle should be read, false for lower
+     * @param unitDiagonal
+     *            true if new matrix has ones on diagonal
+     * @return new triangular matrix
+     * @throws IncompatibleOperandException
+     *             if matrix is not square matrix
+     */
+    public static TriangularMatrix valueOf( IMatrix matrix, boolean upper,
+	    boolean unitDiagonal ) {
+
+	if ( matrix.getRowsCount() != matrix.getColsCount() ) {
+	    throw new IncompatibleOperandException( "Matrix has to be square" );
+	}
+
+	final int n = matrix.getRowsCount();
+	final TriangularMatrix triangular = new TriangularMatrix( n, upper,
+		unitDiagonal );
+
+	for ( int row = 0; row < n; row++ ) {
+	    final int first = upper ? row : 0;
+	    final int last = upper ? n - 1 : row;
+
+	    for ( int col = first; col <= last; col++ ) {
+		if ( !unitDiagonal || (row != col) ) {
+		    triangular.elements[triangular.index( row, col )] = matrix
+			    .get( row, col );
+		}
+	    }
+	}
+
+	return triangular;
+    }
+
+    /**
+     * Creates triangular matrix from triangle of square matrix stored row by
+     * row in array. Array is not changed.
+     * 
+     * @param a
+     *            array with square matrix
+     * @param offset
+     *            index of element (0, 0) in array
+     * @param stride
+     *            distance between first elements of two neighbouring rows
+     * @param n
+     *            dimension of matrix
+     * @param upper
+     *            true if upper triangle should be read, false for lower
+     * @param unitDiagonal
+     *            true if new matrix has ones on diagonal
+     * @return new triangular matrix
+     */
+    static TriangularMatrix valueOf( double[] a, int offset, int stride,
+	    int n, boolean upper, boolean unitDiagonal ) {
+
+	final TriangularMatrix triangular = new TriangularMatrix( n, upper,
+		unitDiagonal );
+
+	for ( int row = 0, index = 0; row < n; row++ ) {
+	    final int first = upper ? row : 0;
+	    final int length = upper ? n - row : row + 1;
+
+	    System.arraycopy( a, offset + (row * stride) + first,
+		    triangular.elements, index, length );
+	    index += length;
+	}
+
+	return triangular;
+    }
+
+    /**
+     * Calculates index of element inside of triangle in array.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return index of element in array
+     */
+    protected int index( int row, int col ) {
+
+	if ( upper ) {
+	    return (int) ((((long) row * ((2L * dimension) - row + 1)) / 2) + (col - row));
+	}
+
+	return (int) ((((long) row * (row + 1)) / 2) + col);
+    }
+
+    /**
+     * Checks if position is inside of triangle.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return true if element at position is stored
+     */
+    protected boolean inTriangle( int row, int col ) {
+
+	return upper ? col >= row : col <= row;
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows
+     */
+    @Override
+    public int getRowsCount() {
+
+	return dimension;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns
+     */
+    @Override
+    public int getColsCount() {
+
+	return dimension;
+    }
+
+    /**
+     * Checks if matrix is upper triangular.
+     * 
+     * @return true for upper triangular matrix, false for lower triangular
+     */
+    public boolean isUpper() {
+
+	return upper;
+    }
+
+    /**
+     * Checks if matrix has ones on diagonal.
+     * 
+     * @return true if matrix has unit diagonal
+     */
+    public boolean isUnitDiagonal() {
+
+	return unitDiagonal;
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return element at specified row and column
+     */
+    @Override
+    public double get( int row, int col ) {
+
+	if ( (row >= dimension) || (col >= dimension) || (row < 0)
+		|| (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	if ( unitDiagonal && (row == col) ) {
+	    return 1.0;
+	}
+
+	return inTriangle( row, col ) ? elements[index( row, col )] : 0.0;
+    }
+
+    /**
+     * Element setter. Elements outside of triangle can only be set to 0, and
+     * elements on unit diagonal only to 1.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @param value
+     *            new value of element
+     * @return this matrix
+     * @throws UnmodifiableObjectException
+     *             if element outside of triangle or on unit diagonal would be
+     *             changed
+     */
+    @Override
+    public IMatrix set( int row, int col, double value ) {
+
+	if ( get( row, col ) == value ) {
+	    if ( inTriangle( row, col ) && !(unitDiagonal && (row == col)) ) {
+		elements[index( row, col )] = value;
+	    }
+
+	    return this;
+	}
+
+	if ( !inTriangle( row, col ) || (unitDiagonal && (row == col)) ) {
+	    throw new UnmodifiableObjectException( "Element " + row + " "
+		    + col + " of triangular matrix cannot be changed" );
+	}
+
+	elements[index( row, col )] = value;
+
+	return this;
+    }
+
+    /**
+     * Adds provided matrix to this matrix. Provided matrix is checked before
+     * any element is changed, so this matrix is not changed if sum is not
+     * triangular.
+     * 
+     * @param other
+     *            matrix to be added
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     * @throws UnmodifiableObjectException
+     *             if element outside of triangle or on unit diagonal would be
+     *             changed
+     */
+    @Override
+    public IMatrix add( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add matrix with different size!" );
+	}
+
+	checkStructure( other, 1.0 );
+
+	return super.add( other );
+    }
+
+    /**
+     * Subtracts provided matrix from this matrix. Provided matrix is checked
+     * before any element is changed, so this matrix is not changed if
+     * difference is not triangular.
+     * 
+     * @param other
+     *            matrix to be subtracted
+     * @return this matrix
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     * @throws UnmodifiableObjectException
+     *             if element outside of triangle or on unit diagonal would be
+     *             changed
+     */
+    @Override
+    public IMatrix sub( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot subtract matrix with different size!" );
+	}
+
+	checkStructure( other, -1.0 );
+
+	return super.sub( other );
+    }
+
+    /**
+     * Checks that adding multiple of provided matrix does not change elements
+     * outside of triangle or on unit diagonal.
+     * 
+     * @param other
+     *            matrix of same size
+     * @param factor
+     *            multiple of provided matrix
+     * @throws UnmodifiableObjectException
+     *             if element outside of triangle or on unit diagonal would be
+     *             changed
+     */
+    private void checkStructure( IMatrix other, double factor ) {
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    for ( int col = 0; col < dimension; col++ ) {
+		if ( inTriangle( row, col ) && !(unitDiagonal && (row == col)) ) {
+		    continue;
+		}
+
+		final double value = get( row, col );
+
+		if ( (value + (factor * other.get( row, col ))) != value ) {
+		    throw new UnmodifiableObjectException( "Element " + row
+			    + " " + col
+			    + " of triangular matrix cannot be changed" );
+		}
+	    }
+	}
+    }
+
+    /**
+     * Copies this matrix. Changes on copy does not take affect on this matrix.
+     * 
+     * @return new triangular matrix with same elements
+     */
+    @Override
+    public IMatrix copy() {
+
+	return new TriangularMatrix( dimension, upper, unitDiagonal,
+		elements.clone() );
+    }
+
+    /**
+     * Returns new dense matrix created by {@link LinAlgDefaults}, because
+     * results of generic operations do not have to be triangular.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     */
+    @Override
+    public IMatrix newInstance( int rows, int cols ) {
+
+	return LinAlgDefaults.defaultMatrix( rows, cols );
+    }
+
+    /**
+     * Creates transposed matrix. Transposed copy is triangular matrix of
+     * other orientation.
+     * 
+     * @param liveView
+     *            true if changes on transposed matrix should change this
+     *            matrix
+     * @return transposed matrix
+     */
+    @Override
+    public IMatrix nTranspose( boolean liveView ) {
+
+	if ( liveView ) {
+	    return super.nTranspose( true );
+	}
+
+	final TriangularMatrix transposed = new TriangularMatrix( dimension,
+		!upper, unitDiagonal );
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    final int first = upper ? row : 0;
+	    final int last = upper ? dimension - 1 : row;
+
+	    for ( int col = first; col <= last; col++ ) {
+		transposed.elements[transposed.index( col, row )] = elements[index(
+			row, col )];
+	    }
+	}
+
+	return transposed;
+    }
+
+    /**
+     * Multiplies this matrix with provided matrix. Only elements of triangle
+     * are read, so product needs half of operations of dense product.
+     * 
+     * @param other
+     *            matrix to be multiplied
+     * @return new dense matrix with product
+     * @throws IncompatibleOperandException
+     *             if this matrix hasn't number of columns as provided matrix
+     *             rows
+     */
+    @Override
+    public IMatrix nMultiply( IMatrix other ) {
+
+	if ( dimension != other.getRowsCount() ) {
+	    throw new IncompatibleOperandException(
+		    "First matrix must have same number of columns as second matrix rows!" );
+	}
+
+	final int cols = other.getColsCount();
+	final double[] b = FlatMatrix.valueOf( other ).elements;
+	final double[] product = new double[dimension * cols];
+
+	for ( int row = 0; row < dimension; row++ ) {
+	    final int first = upper ? row : 0;
+	    final int last = upper ? dimension - 1 : row;
+	    final int target = row * cols;
+
+	    for ( int k = first; k <= last; k++ ) {
+		final double value = (unitDiagonal && (k == row)) ? 1.0
+			: elements[index( row, k )];
+
+		if ( value == 0.0 ) {
+		    continue;
+		}
+
+		for ( int col = 0, source = k * cols; col < cols; col++ ) {
+		    product[target + col] += value * b[source + col];
+		}
+	    }
+	}
+
+	return LinAlgDefaults.defaultMatrix( dimension, cols, product );
+    }
+
+    /**
+     * Calculates determinant as product of diagonal elements.
+     * 
+     * @return determinant of matrix
+     */
+    @Override
+    public double determinant() {
+
+	if ( unitDiagonal ) {
+	    return 1.0;
+	}
+
+	double determinant = 1.0;
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    determinant *= elements[index( i, i )];
+	}
+
+	return determinant;
+    }
+
+    /**
+     * Inverts this matrix. Inverse of triangular matrix is triangular matrix
+     * of same orientation, calculated by substitution with columns of
+     * identity matrix.
+     * 
+     * @return inverted triangular matrix
+     * @throws IncompatibleOperandException
+     *             if there is zero on diagonal
+     */
+    @Override
+    public IMatrix nInvert() {
+
+	final int n = dimension;
+	final double[] x = new double[n * n];
+
+	for ( int i = 0; i < n; i++ ) {
+	    x[(i * n) + i] = 1.0;
+	}
+
+	try {
+	    solveInPlace( x, 0, n, n );
+	} catch ( final IncompatibleOperandException e ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot inverse singular matrix" );
+	}
+
+	return TriangularMatrix.valueOf( x, 0, n, n, upper, unitDiagonal );
+    }
+
+    /**
+     * Solves system A * x = b with substitution. Does not change this matrix
+     * or vector b.
+     * 
+     * @param b
+     *            right hand side of system
+     * @return solution of system
+     * @throws IncompatibleOperandException
+     *             if b has not same dimension as this matrix, or if there is
+     *             zero on diagonal
+     */
+    @Override
+    public IVector solve( IVector b ) {
+
+	final double[] x = b.toArray();
+	solveInPlace( x );
+
+	return new Vector( false, true, x );
+    }
+
+    /**
+     * Solves system A * X = B with substitution. All columns of B are solved
+     * in one pass over this matrix. Does not change this matrix or matrix B.
+     * 
+     * @param b
+     *            right hand sides of system stored in columns
+     * @return solutions of system stored in columns
+     * @throws IncompatibleOperandException
+     *             if B has not same number of rows as this matrix, or if
+     *             there is zero on diagonal
+     */
+    @Override
+    public IMatrix solve( IMatrix b ) {
+
+	final FlatMatrix x = FlatMatrix.valueOf( b );
+	solveInPlace( x );
+
+	return x;
+    }
+
+    /**
+     * Solves system A * x = b in place.
+     * 
+     * @param x
+     *            right hand side, replaced with solution
+     * @throws IncompatibleOperandException
+     *             if length of array is not same as dimension of this matrix,
+     *             or if there is zero on diagonal
+     */
+    public void solveInPlace( double[] x ) {
+
+	if ( x.length != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Right hand side must have same number of rows as matrix" );
+	}
+
+	solveInPlace( x, 0, 1, 1 );
+    }
+
+    /**
+     * Solves system A * X = B in place, for all columns of B in one pass.
+     * 
+     * @param x
+     *            right hand sides stored in columns, replaced with solutions
+     * @throws IncompatibleOperandException
+     *             if B has not same number of rows as this matrix, or if
+     *             there is zero on diagonal
+     */
+    public void solveInPlace( FlatMatrix x ) {
+
+	if ( x.getRowsCount() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Right hand side must have same number of rows as matrix" );
+	}
+
+	solveInPlace( x.elements, x.offset, x.stride, x.getColsCount() );
+    }
+
+    /**
+     * Solves system with right hand sides stored row by row in array.
+     * 
+     * @param x
+     *            array with right hand sides, replaced with solutions
+     * @param offset
+     *            index of first element of right hand sides
+     * @param stride
+     *            distance between first elements of two neighbouring rows
+     * @param cols
+     *            number of right hand sides
+     * @throws IncompatibleOperandException
+     *             if there is zero on diagonal
+     */
+    private void solveInPlace( double[] x, int offset, int stride, int cols ) {
+
+	final int n = dimension;
+
+	for ( int step = 0; step < n; step++ ) {
+	    final int i = upper ? n - 1 - step : step;
+	    final int target = offset + (i * stride);
+	    final int first = upper ? i + 1 : 0;
+	    final int last = upper ? n : i;
+
+	    for ( int k = first, index = index( i, first ); k < last; k++, index++ ) {
+		Substitution.subtractRow( x, target, offset + (k * stride),
+			cols, elements[index] );
+	    }
+
+	    if ( !unitDiagonal ) {
+		Substitution.divideRow( x, target, cols, elements[index( i, i )] );
+	    }
+	}
+    }
+}
@@ -0,0 +1,232 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Tridiagonal matrix, band matrix with one diagonal below and one diagonal
+ * above main diagonal. Systems with diagonally dominant tridiagonal matrices
+ * are solved with Thomas algorithm in O(n) without pivoting, and all other
+ * systems with banded LU decomposition. Determinant is calculated with
+ * three-term recurrence in O(n).
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class TridiagonalMatrix extends BandMatrix {
+
+    /**
+     * Creates new tridiagonal matrix. All elements of new matrix are 0.
+     * 
+     * @param dimension
+     *            dimension of matrix
+     */
+    public TridiagonalMatrix(int dimension) {
+
+	super( dimension, 1, 1 );
+    }
+
+    /**
+     * Creates new tridiagonal matrix from its diagonals. Arrays are copied.
+     * 
+     * @param lower
+     *            n - 1 elements below main diagonal
+     * @param diagonal
+     *            n elements of main diagonal
+     * @param upper
+     *            n - 1 elements above main diagonal
+     * @throws IllegalArgumentException
+     *             if arrays have wrong lengths
+     */
+    public TridiagonalMatrix(double[] lower, double[] diagonal, double[] upper) {
+
+	super( diagonal.length, 1, 1 );
+
+	final int n = diagonal.length;
+	if ( (n > 0)
+		&& ((lower.length != (n - 1)) || (upper.length != (n - 1))) ) {
+	    throw new IllegalArgumentException( "wrong size of diagonals" );
+	}
+
+	for ( int i = 0; i < n; i++ ) {
+	    band[(i * 3) + 1] = diagonal[i];
+
+	    if ( i > 0 ) {
+		band[i * 3] = lower[i - 1];
+	    }
+	    if ( i < (n - 1) ) {
+		band[(i * 3) + 2] = upper[i];
+	    }
+	}
+    }
+
+    /**
+     * Creates new tridiagonal matrix. All elements of new matrix are 0.
+     * 
+     * @return new tridiagonal matrix
+     */
+    @Override
+    BandMatrix newBand() {
+
+	return new TridiagonalMatrix( dimension );
+    }
+
+    /**
+     * Copies this matrix. Changes on copy does not take affect on this matrix.
+     * 
+     * @return new tridiagonal matrix with same elements
+     */
+    @Override
+    public IMatrix copy() {
+
+	final TridiagonalMatrix copy = new TridiagonalMatrix( dimension );
+	System.arraycopy( band, 0, copy.band, 0, band.length );
+
+	return copy;
+    }
+
+    /**
+     * Calculates determinant with recurrence f(i) = a(i, i) * f(i - 1) - a(i,
+     * i - 1) * a(i - 1, i) * f(i - 2).
+     * 
+     * @return determinant of matrix
+     */
+    @Override
+    public double determinant() {
+
+	double previous = 1.0;
+	double current = 1.0;
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    double next = band[(i * 3) + 1] * current;
+
+	    if ( i > 0 ) {
+		next -= band[i * 3] * band[((i - 1) * 3) + 2] * previous;
+	    }
+
+	    previous = current;
+	    current = next;
+	}
+
+	return current;
+    }
+
+    /**
+     * Solves system A * X = B. Diagonally dominant systems are solved with
+     * Thomas algorithm in O(n) for every column of B, other systems with
+     * {@link BandLUDecomposition}.
+     * 
+     * @param b
+     *            right hand sides of system stored in columns
+     * @return solutions of system stored in columns
+     * @throws IncompatibleOperandException
+     *             if B has not same number of rows as this matrix, or if this
+     *             matrix is singular
+     */
+    @Override
+    public IMatrix solve( IMatrix b ) {
+
+	if ( b.getRowsCount() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Right hand side must have same number of rows as matrix" );
+	}
+
+	if ( !isDiagonallyDominant() ) {
+	    return super.solve( b );
+	}
+
+	final int cols = b.getColsCount();
+	final double[] x = FlatMatrix.valueOf( b ).elements;
+	solveThomas( x, cols );
+
+	return LinAlgDefaults.defaultMatrix( dimension, cols, x );
+    }
+
+    /**
+     * Solves system A * x = b. Diagonally dominant systems are solved with
+     * Thomas algorithm in O(n), other systems with {@link BandLUDecomposition}.
+     * 
+     * @param b
+     *            right hand side of system
+     * @return solution of system
+     * @throws IncompatibleOperandException
+     *             if b has not same dimension as this matrix, or if this
+     *             matrix is singular
+     */
+    @Override
+    public IVector solve( IVector b ) {
+
+	if ( b.getDimension() != dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Right hand side must have same number of rows as matrix" );
+	}
+
+	if ( !isDiagonallyDominant() ) {
+	    return super.solve( b );
+	}
+
+	final double[] x = b.toArray();
+	solveThomas( x, 1 );
+
+	return new Vector( false, true, x );
+    }
+
+    /**
+     * Checks if absolute value of every diagonal element is not less than sum
+     * of absolute values of other elements in its row. Thomas algorithm is
+     * stable for such matrices.
+     * 
+     * @return true if matrix is diagonally dominant
+     */
+    private boolean isDiagonallyDominant() {
+
+	for ( int i = 0; i < dimension; i++ ) {
+	    final double lowerValue = i > 0 ? Math.abs( band[i * 3] ) : 0.0;
+	    final double upperValue = i < (dimension - 1) ? Math
+		    .abs( band[(i * 3) + 2] ) : 0.0;
+
+	    if ( Math.abs( band[(i * 3) + 1] ) < (lowerValue + upperValue) ) {
+		return false;
+	    }
+	}
+
+	return true;
+    }
+
+    /**
+     * Solves system in place with Thomas algorithm. Forward sweep eliminates
+     * diagonal below main diagonal and back substitution uses modified upper
+     * diagonal.
+     * 
+     * @param x
+     *            right hand sides stored row by row, replaced with solutions
+     * @param cols
+     *            number of right hand sides
+     * @throws IncompatibleOperandException
+     *             if zero pivot is found
+     */
+    private void solveThomas( double[] x, int cols ) {
+
+	final int n = dimension;
+	final double[] modifiedUpper = new double[n];
+
+	for ( int i = 0; i < n; i++ ) {
+	    double pivot = band[(i * 3) + 1];
+
+	    if ( i > 0 ) {
+		final double lowerValue = band[i * 3];
+		pivot -= lowerValue * modifiedUpper[i - 1];
+		Substitution.subtractRow( x, i * cols, (i - 1) * cols, cols,
+			lowerValue );
+	    }
+
+	    Substitution.divideRow( x, i * cols, cols, pivot );
+
+	    if ( i < (n - 1) ) {
+		modifiedUpper[i] = band[(i * 3) + 2] / pivot;
+	    }
+	}
+
+	for ( int i = n - 2; i >= 0; i-- ) {
+	    Substitution.subtractRow( x, i * cols, (i + 1) * cols, cols,
+		    modifiedUpper[i] );
+	}
+    }
+}
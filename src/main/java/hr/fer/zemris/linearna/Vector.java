@@ -131,6 +131,174 @@ public class Vector extends AbstractVector {
 	return new Vector( array );
     }
 
+    /**
+     * Adds provided vector to this vector. Elements of other {@link Vector}
+     * are added directly from its array by {@link VectorKernels}.
+     * 
+     * @param other
+     *            vector to be added.
+     * @return this vector
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are different
+     * @throws UnmodifiableObjectException
+     *             if vector is unmodifiable
+     */
+    @Override
+    public IVector add( IVector other ) throws IncompatibleOperandException {
+
+	if ( other instanceof Vector ) {
+	    return addScaled( (Vector) other, 1.0 );
+	}
+
+	return super.add( other );
+    }
+
+    /**
+     * Subtracts provided vector from this vector. Elements of other
+     * {@link Vector} are subtracted directly from its array by
+     * {@link VectorKernels}.
+     * 
+     * @param other
+     *            vector to be subtracted.
+     * @return this vector
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are different
+     * @throws UnmodifiableObjectException
+     *             if vector is unmodifiable
+     */
+    @Override
+    public IVector sub( IVector other ) throws IncompatibleOperandException {
+
+	if ( other instanceof Vector ) {
+	    return addScaled( (Vector) other, -1.0 );
+	}
+
+	return super.sub( other );
+    }
+
+    /**
+     * Adds multiple of other vector to this vector.
+     * 
+     * @param other
+     *            vector of same dimension
+     * @param factor
+     *            multiple of other vector
+     * @return this vector
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are different
+     * @throws UnmodifiableObjectException
+     *             if vector is unmodifiable
+     */
+    private IVector addScaled( Vector other, double factor ) {
+
+	if ( dimension != other.dimension ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add vector with different dimnesion" );
+	}
+
+	checkModifiable();
+	VectorKernels.axpy( factor, other.elements, 0, elements, 0, dimension );
+
+	return this;
+    }
+
+    /**
+     * Multiplies all elements of this vector with provided scalar.
+     * 
+     * @param byValue
+     *            scalar for multiplication
+     * @return this vector
+     * @throws UnmodifiableObjectException
+     *             if vector is unmodifiable
+     */
+    @Override
+    public IVector scalarMultiply( double byValue ) {
+
+	checkModifiable();
+	VectorKernels.scale( elements, 0, byValue, dimension );
+
+	return this;
+    }
+
+    /**
+     * Calculates scalar product of this and provided vector. Product with
+     * other {@link Vector} is calculated directly from arrays by
+     * {@link VectorKernels}.
+     * 
+     * @param other
+     *            vector
+     * @return scalar product of vectors
+     * @throws IncompatibleOperandException
+     *             if dimensions of vectors are not same.
+     */
+    @Override
+    public double scalarProduct( IVector other )
+	    throws IncompatibleOperandException {
+
+	if ( !(other instanceof Vector) ) {
+	    return super.scalarProduct( other );
+	}
+
+	if ( dimension != other.getDimension() ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot calculate scalar product of vectors with different dimnesion" );
+	}
+
+	return VectorKernels.dot( elements, 0, ((Vector) other).elements, 0,
+		dimension );
+    }
+
+    /**
+     * Creates matrix with one row. Live view on modifiable vector is
+     * {@link StridedMatrixView} on array of this vector.
+     * 
+     * @param liveView
+     *            true if changes on this vector are propagated to matrix.
+     * 
+     * @return matrix with one row.
+     */
+    @Override
+    public IMatrix toRowMatrix( boolean liveView ) {
+
+	if ( liveView && !readOnly ) {
+	    return new StridedMatrixView( 1, dimension, elements, 0, 0, 1 );
+	}
+
+	return super.toRowMatrix( liveView );
+    }
+
+    /**
+     * Creates matrix with one column. Live view on modifiable vector is
+     * {@link StridedMatrixView} on array of this vector.
+     * 
+     * @param liveView
+     *            true if changes on this vector are propagated to matrix.
+     * 
+     * @return matrix with one column.
+     */
+    @Override
+    public IMatrix toColumnMatrix( boolean liveView ) {
+
+	if ( liveView && !readOnly ) {
+	    return new StridedMatrixView( dimension, 1, elements, 0, 1, 0 );
+	}
+
+	return super.toColumnMatrix( liveView );
+    }
+
+    /**
+     * Checks if vector can be changed.
+     * 
+     * @throws UnmodifiableObjectException
+     *             if vector is unmodifiable
+     */
+    private void checkModifiable() {
+
+	if ( readOnly && (dimension > 0) ) {
+	    throw new UnmodifiableObjectException( "Vector is unmodifiable" );
+	}
+    }
+
     /**
      * Creates vector from string representation. Elements in string are
      * separated with one or more spaces.
@@ -138,18 +306,15 @@ public class Vector extends AbstractVector {
      * @param vector
      *            string representation of vector.
      * @return parsed vector
+     * @throws NumberFormatException
+     *             if string contains invalid number or no numbers
+     * @see TextParser
      */
     public static Vector parseSimple( String vector ) {
 
-	final String[] values = vector.trim().split( "\\s+" );
-
-	final double[] elements = new double[values.length];
-
-	for ( int i = 0; i < elements.length; i++ ) {
-	    elements[i] = Double.parseDouble( values[i] );
-	}
+	final TextParser.Rows rows = TextParser.parseSimple( vector, false );
 
-	return new Vector( elements );
+	return new Vector( false, true, Arrays.copyOf( rows.values, rows.size ) );
     }
 
     /**
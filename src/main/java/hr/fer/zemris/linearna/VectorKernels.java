@@ -0,0 +1,205 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Loops over arrays which are used by vectors and matrices stored in arrays.
+ * This implementation is used on Java 8 and delegates to
+ * {@link ScalarKernels}. Multi-release jar contains implementation for Java
+ * 17 with same methods, which uses SIMD instructions of
+ * <code>jdk.incubator.vector</code> module when JVM is started with
+ * <code>--add-modules jdk.incubator.vector</code>.
+ * <p>
+ * Vectorized kernels can be disabled with
+ * {@link LinAlgDefaults#setVectorizedKernels(boolean)} or system property
+ * <code>linalg.scalarKernels</code>.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public final class VectorKernels {
+
+    /**
+     * Class has only static methods.
+     */
+    private VectorKernels() {
+
+    }
+
+    /**
+     * Checks if kernels use SIMD instructions. Kernels are never vectorized on
+     * Java 8.
+     * 
+     * @return true if SIMD kernels are available and enabled
+     */
+    public static boolean isVectorized() {
+
+	return false;
+    }
+
+    /**
+     * Calculates scalar product of parts of two arrays. Order of additions is
+     * not specified, so result can differ in last bits between kernels.
+     * 
+     * @param a
+     *            first array
+     * @param aOffset
+     *            index of first element of first array
+     * @param b
+     *            second array
+     * @param bOffset
+     *            index of first element of second array
+     * @param length
+     *            number of multiplied elements
+     * @return scalar product
+     */
+    static double dot( double[] a, int aOffset, double[] b, int bOffset,
+	    int length ) {
+
+	return ScalarKernels.dot( a, aOffset, b, bOffset, length );
+    }
+
+    /**
+     * Calculates scalar product of parts of two arrays in double precision.
+     * 
+     * @param a
+     *            first array
+     * @param aOffset
+     *            index of first element of first array
+     * @param b
+     *            second array
+     * @param bOffset
+     *            index of first element of second array
+     * @param length
+     *            number of multiplied elements
+     * @return scalar product
+     */
+    static double dot( float[] a, int aOffset, float[] b, int bOffset,
+	    int length ) {
+
+	return ScalarKernels.dot( a, aOffset, b, bOffset, length );
+    }
+
+    /**
+     * Adds multiple of part of first array to part of second array.
+     * 
+     * @param factor
+     *            multiple of first array
+     * @param x
+     *            array which is added
+     * @param xOffset
+     *            index of first added element
+     * @param y
+     *            array which is changed
+     * @param yOffset
+     *            index of first changed element
+     * @param length
+     *            number of added elements
+     */
+    static void axpy( double factor, double[] x, int xOffset, double[] y,
+	    int yOffset, int length ) {
+
+	ScalarKernels.axpy( factor, x, xOffset, y, yOffset, length );
+    }
+
+    /**
+     * Adds multiple of part of first array to part of second array.
+     * 
+     * @param factor
+     *            multiple of first array
+     * @param x
+     *            array which is added
+     * @param xOffset
+     *            index of first added element
+     * @param y
+     *            array which is changed
+     * @param yOffset
+     *            index of first changed element
+     * @param length
+     *            number of added elements
+     */
+    static void axpy( float factor, float[] x, int xOffset, float[] y,
+	    int yOffset, int length ) {
+
+	ScalarKernels.axpy( factor, x, xOffset, y, yOffset, length );
+    }
+
+    /**
+     * Adds multiple of part of array of floats to part of array of doubles.
+     * Floats are converted to doubles before multiplication, so sums are
+     * accumulated in double precision without copy of first array.
+     * 
+     * @param factor
+     *            multiple of first array
+     * @param x
+     *            array which is added
+     * @param xOffset
+     *            index of first added element
+     * @param y
+     *            array which is changed
+     * @param yOffset
+     *            index of first changed element
+     * @param length
+     *            number of added elements
+     */
+    static void axpy( double factor, float[] x, int xOffset, double[] y,
+	    int yOffset, int length ) {
+
+	ScalarKernels.axpy( factor, x, xOffset, y, yOffset, length );
+    }
+
+    /**
+     * Multiplies part of array with provided value.
+     * 
+     * @param x
+     *            array which is changed
+     * @param offset
+     *            index of first changed element
+     * @param factor
+     *            scalar
+     * @param length
+     *            number of changed elements
+     */
+    static void scale( double[] x, int offset, double factor, int length ) {
+
+	ScalarKernels.scale( x, offset, factor, length );
+    }
+
+    /**
+     * Multiplies part of array with provided value.
+     * 
+     * @param x
+     *            array which is changed
+     * @param offset
+     *            index of first changed element
+     * @param factor
+     *            scalar
+     * @param length
+     *            number of changed elements
+     */
+    static void scale( float[] x, int offset, float factor, int length ) {
+
+	ScalarKernels.scale( x, offset, factor, length );
+    }
+
+    /**
+     * Multiplies panel of four rows of first matrix, stored column by column,
+     * with panel of four columns of second matrix, stored row by row.
+     * 
+     * @param packedA
+     *            packed block of first matrix
+     * @param aIndex
+     *            index of panel in packed block of first matrix
+     * @param packedB
+     *            packed block of second matrix
+     * @param bIndex
+     *            index of panel in packed block of second matrix
+     * @param depth
+     *            length of panels
+     * @param result
+     *            array in which 4x4 results are stored row by row
+     */
+    static void multiplyPanels( double[] packedA, int aIndex,
+	    double[] packedB, int bIndex, int depth, double[] result ) {
+
+	ScalarKernels.multiplyPanels( packedA, aIndex, packedB, bIndex, depth, result );
+    }
+}
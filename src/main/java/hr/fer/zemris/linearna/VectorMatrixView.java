@@ -88,6 +88,44 @@ public class VectorMatrixView extends AbstractVector {
 	return dimension;
     }
 
+    /**
+     * Creates matrix with one row. Live view is viewed matrix or its
+     * transposed view.
+     * 
+     * @param liveView
+     *            true if changes on this vector are propagated to matrix.
+     * 
+     * @return matrix with one row.
+     */
+    @Override
+    public IMatrix toRowMatrix( boolean liveView ) {
+
+	if ( liveView ) {
+	    return rowMatrix ? matrix : matrix.nTranspose( true );
+	}
+
+	return super.toRowMatrix( liveView );
+    }
+
+    /**
+     * Creates matrix with one column. Live view is viewed matrix or its
+     * transposed view.
+     * 
+     * @param liveView
+     *            true if changes on this vector are propagated to matrix.
+     * 
+     * @return matrix with one column.
+     */
+    @Override
+    public IMatrix toColumnMatrix( boolean liveView ) {
+
+	if ( liveView ) {
+	    return rowMatrix ? matrix.nTranspose( true ) : matrix;
+	}
+
+	return super.toColumnMatrix( liveView );
+    }
+
     /**
      * Copies this vector. Changes on copy does not take affect on this vector
      * or viewed matrix.
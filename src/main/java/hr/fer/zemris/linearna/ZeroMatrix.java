@@ -0,0 +1,273 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Matrix with all elements equal to zero. Only dimensions are stored, and
+ * elements cannot be changed.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class ZeroMatrix extends AbstractMatrix {
+
+    /**
+     * Number of rows
+     */
+    private final int rows;
+
+    /**
+     * Number of columns
+     */
+    private final int cols;
+
+    /**
+     * Creates new zero matrix.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     */
+    public ZeroMatrix(int rows, int cols) {
+
+	if ( (rows < 0) || (cols < 0) ) {
+	    throw new IllegalArgumentException( "wrong dimension" );
+	}
+
+	this.rows = rows;
+	this.cols = cols;
+    }
+
+    /**
+     * Number of rows getter.
+     * 
+     * @return number of rows
+     */
+    @Override
+    public int getRowsCount() {
+
+	return rows;
+    }
+
+    /**
+     * Number of columns getter.
+     * 
+     * @return number of columns
+     */
+    @Override
+    public int getColsCount() {
+
+	return cols;
+    }
+
+    /**
+     * Element getter.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @return 0
+     */
+    @Override
+    public double get( int row, int col ) {
+
+	if ( (row >= rows) || (col >= cols) || (row < 0) || (col < 0) ) {
+	    throw new IndexOutOfBoundsException( row + " " + col );
+	}
+
+	return 0.0;
+    }
+
+    /**
+     * Element setter. Only zeros are accepted.
+     * 
+     * @param row
+     *            row of matrix
+     * @param col
+     *            column of matrix
+     * @param value
+     *            new value of element
+     * @return this matrix
+     * @throws UnmodifiableObjectException
+     *             if value is not zero
+     */
+    @Override
+    public IMatrix set( int row, int col, double value ) {
+
+	if ( get( row, col ) != value ) {
+	    throw new UnmodifiableObjectException(
+		    "Elements of zero matrix cannot be changed" );
+	}
+
+	return this;
+    }
+
+    /**
+     * Copies this matrix.
+     * 
+     * @return new zero matrix
+     */
+    @Override
+    public IMatrix copy() {
+
+	return new ZeroMatrix( rows, cols );
+    }
+
+    /**
+     * Returns new dense matrix created by {@link LinAlgDefaults}.
+     * 
+     * @param rows
+     *            number of rows
+     * @param cols
+     *            number of columns
+     */
+    @Override
+    public IMatrix newInstance( int rows, int cols ) {
+
+	return LinAlgDefaults.defaultMatrix( rows, cols );
+    }
+
+    /**
+     * Creates transposed zero matrix.
+     * 
+     * @param liveView
+     *            ignored, zero matrix cannot be changed
+     * @return new zero matrix with swapped dimensions
+     */
+    @Override
+    public IMatrix nTranspose( boolean liveView ) {
+
+	return new ZeroMatrix( cols, rows );
+    }
+
+    /**
+     * Adds provided matrix to this matrix. Does not change this matrix. Sum is
+     * new matrix of same structure as provided band, scaled identity or zero
+     * matrix, and dense matrix for other matrices.
+     * 
+     * @param other
+     *            matrix to be added
+     * @return new matrix with sum
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     */
+    @Override
+    public IMatrix nAdd( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot add matrix with different size!" );
+	}
+
+	return newSum( other ).add( other );
+    }
+
+    /**
+     * Subtracts provided matrix from this matrix. Does not change this
+     * matrix. Difference has same structure as sum in {@link #nAdd(IMatrix)}.
+     * 
+     * @param other
+     *            matrix to be subtracted
+     * @return new matrix with difference
+     * @throws IncompatibleOperandException
+     *             if matrices have not same size
+     */
+    @Override
+    public IMatrix nSub( IMatrix other ) {
+
+	if ( !AbstractMatrix.sameSize( this, other ) ) {
+	    throw new IncompatibleOperandException(
+		    "Cannot subtract matrix with different size!" );
+	}
+
+	return newSum( other ).sub( other );
+    }
+
+    /**
+     * Creates zero matrix to which provided matrix is added. Structure of new
+     * matrix can hold provided matrix.
+     * 
+     * @param other
+     *            matrix of same size
+     * @return new matrix with all elements 0
+     */
+    private IMatrix newSum( IMatrix other ) {
+
+	if ( other instanceof BandMatrix ) {
+	    return ((BandMatrix) other).newBand();
+	} else if ( other instanceof ScaledIdentityMatrix ) {
+	    return new ScaledIdentityMatrix( rows, 0.0 );
+	} else if ( other instanceof ZeroMatrix ) {
+	    return copy();
+	}
+
+	return newInstance( rows, cols );
+    }
+
+    /**
+     * Multiplies this matrix with provided matrix without reading its
+     * elements. Product is new dense matrix, same as product of any matrix
+     * with zero matrix, so it can be changed.
+     * 
+     * @param other
+     *            matrix to be multiplied
+     * @return new dense matrix with all elements 0
+     * @throws IncompatibleOperandException
+     *             if this matrix hasn't number of columns as provided matrix
+     *             rows
+     */
+    @Override
+    public IMatrix nMultiply( IMatrix other ) {
+
+	if ( cols != other.getRowsCount() ) {
+	    throw new IncompatibleOperandException(
+		    "First matrix must have same number of columns as second matrix rows!" );
+	}
+
+	return newInstance( rows, other.getColsCount() );
+    }
+
+    /**
+     * Multiplying zero matrix with scalar does not change it.
+     * 
+     * @param value
+     *            scalar
+     * @return this matrix
+     */
+    @Override
+    public IMatrix scalarMultiply( double value ) {
+
+	return this;
+    }
+
+    /**
+     * Calculates determinant of square zero matrix.
+     * 
+     * @return 1 for empty matrix, 0 otherwise
+     * @throws IncompatibleOperandException
+     *             if matrix is not square matrix
+     */
+    @Override
+    public double determinant() {
+
+	if ( !isSqareMatrix() ) {
+	    throw new IncompatibleOperandException( "Matrix has to be square" );
+	}
+
+	return rows == 0 ? 1.0 : 0.0;
+    }
+
+    /**
+     * Zero matrix cannot be inverted.
+     * 
+     * @return never returns
+     * @throws IncompatibleOperandException
+     *             always
+     */
+    @Override
+    public IMatrix nInvert() {
+
+	throw new IncompatibleOperandException(
+		"Cannot inverse singular matrix" );
+    }
+}
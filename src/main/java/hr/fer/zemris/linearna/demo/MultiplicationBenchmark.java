@@ -0,0 +1,126 @@
+package hr.fer.zemris.linearna.demo;
+
+import hr.fer.zemris.linearna.FlatMatrix;
+import hr.fer.zemris.linearna.IMatrix;
+import hr.fer.zemris.linearna.LinAlgDefaults;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmark of parallel matrix multiplication. Program multiplies large square
+ * matrices and tall-skinny matrices with pools of 1 to N threads and prints
+ * time and speedup compared with one thread.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public class MultiplicationBenchmark {
+
+	/**
+	 * Number of measured repetitions for every pool
+	 */
+	private static final int REPETITIONS = 3;
+
+	/**
+	 * Main method of program.
+	 * 
+	 * @param args
+	 *            optional maximal number of threads, default is number of
+	 *            available processors
+	 */
+	public static void main(String[] args) {
+
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+		if (args.length > 0) {
+			maxThreads = Integer.parseInt(args[0]);
+		}
+
+		Random random = new Random(42);
+
+		System.out.println("Square 1500x1500 * 1500x1500");
+		benchmark(randomMatrix(random, 1500, 1500),
+				randomMatrix(random, 1500, 1500), maxThreads);
+
+		System.out.println("Tall-skinny 200000x64 * 64x64");
+		benchmark(randomMatrix(random, 200000, 64),
+				randomMatrix(random, 64, 64), maxThreads);
+
+		System.out.println("Tall-skinny transpose 64x200000 * 200000x64");
+		IMatrix tall = randomMatrix(random, 200000, 64);
+		benchmark(tall.nTranspose(false), tall, maxThreads);
+	}
+
+	/**
+	 * Multiplies matrices with pools of 1 to maxThreads threads and prints
+	 * results.
+	 * 
+	 * @param a
+	 *            first matrix
+	 * @param b
+	 *            second matrix
+	 * @param maxThreads
+	 *            maximal number of threads
+	 */
+	private static void benchmark(IMatrix a, IMatrix b, int maxThreads) {
+
+		ForkJoinPool defaultPool = LinAlgDefaults.getMultiplicationPool();
+		double flops = 2.0 * a.getRowsCount() * a.getColsCount()
+				* b.getColsCount();
+		double sequentialTime = 0;
+
+		System.out.println(" threads   time [ms]   GFLOP/s   speedup");
+
+		for (int threads = 1;; threads = Math.min(2 * threads, maxThreads)) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			LinAlgDefaults.setMultiplicationPool(pool);
+
+			// warm up
+			a.nMultiply(b);
+
+			double best = Double.MAX_VALUE;
+			for (int i = 0; i < REPETITIONS; i++) {
+				long start = System.nanoTime();
+				a.nMultiply(b);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+
+			pool.shutdown();
+
+			if (threads == 1) {
+				sequentialTime = best;
+			}
+
+			System.out.printf(" %7d %11.1f %9.2f %9.2f%n", threads,
+					best / 1e6, flops / best, sequentialTime / best);
+
+			if (threads >= maxThreads) {
+				break;
+			}
+		}
+
+		LinAlgDefaults.setMultiplicationPool(defaultPool);
+		System.out.println();
+	}
+
+	/**
+	 * Creates matrix with random elements.
+	 * 
+	 * @param random
+	 *            random generator
+	 * @param rows
+	 *            number of rows
+	 * @param cols
+	 *            number of columns
+	 * @return new matrix
+	 */
+	private static IMatrix randomMatrix(Random random, int rows, int cols) {
+
+		double[] elements = new double[rows * cols];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = random.nextDouble();
+		}
+
+		return new FlatMatrix(rows, cols, elements, true);
+	}
+}
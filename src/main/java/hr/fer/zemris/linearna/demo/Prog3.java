@@ -18,9 +18,9 @@ public class Prog3 {
 	 */
 	public static void main(String[] args) {
 		
-		IMatrix a = Matrix.parseSimple("3 5 | 2 10");
+		Matrix a = Matrix.parseSimple("3 5 | 2 10");
 		IMatrix r = Matrix.parseSimple("2 | 8");
-		IMatrix v = a.nInvert().nMultiply(r);
+		IMatrix v = a.solve(r);
 		
 		System.out.println("3x + 5y = 2");
 		System.out.println("2x +10y = 8");
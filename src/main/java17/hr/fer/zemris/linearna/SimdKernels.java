@@ -0,0 +1,374 @@
+package hr.fer.zemris.linearna;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementations of loops of {@link VectorKernels} with SIMD instructions of
+ * <code>jdk.incubator.vector</code> module. Class can be loaded only if module
+ * is added to JVM.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+final class SimdKernels {
+
+    /**
+     * Widest vectors of doubles supported by processor
+     */
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Vectors of floats with same number of lanes as {@link #DOUBLES}
+     */
+    private static final VectorSpecies<Float> FLOATS = VectorSpecies.of(
+	    float.class, VectorShape.forBitSize( DOUBLES.vectorBitSize() / 2 ) );
+
+    /**
+     * Widest vectors of floats supported by processor
+     */
+    private static final VectorSpecies<Float> ALL_FLOATS = jdk.incubator.vector.FloatVector.SPECIES_PREFERRED;
+
+    /**
+     * Vectors of four doubles, which hold one row of block of results
+     */
+    private static final VectorSpecies<Double> ROW = DoubleVector.SPECIES_256;
+
+    /**
+     * Class has only static methods.
+     */
+    private SimdKernels() {
+
+    }
+
+    /**
+     * Checks if processor has SIMD instructions for doubles. Without them
+     * vectors are emulated and slower than scalar loops.
+     * 
+     * @return true if vectors of doubles have at least two lanes
+     */
+    static boolean isSupported() {
+
+	return DOUBLES.length() >= 2;
+    }
+
+    /**
+     * Checks if block of results of product of panels fits in four vectors.
+     * 
+     * @return true if processor has vectors of four doubles
+     */
+    static boolean hasPanelKernel() {
+
+	return DOUBLES.vectorBitSize() >= ROW.vectorBitSize();
+    }
+
+    /**
+     * Returns number of doubles in one vector.
+     * 
+     * @return number of lanes
+     */
+    static int lanes() {
+
+	return DOUBLES.length();
+    }
+
+    /**
+     * Calculates scalar product of parts of two arrays. Two vectors of partial
+     * sums are used, so fused multiplications and additions do not wait for
+     * each other.
+     * 
+     * @param a
+     *            first array
+     * @param aOffset
+     *            index of first element of first array
+     * @param b
+     *            second array
+     * @param bOffset
+     *            index of first element of second array
+     * @param length
+     *            number of multiplied elements
+     * @return scalar product
+     */
+    static double dot( double[] a, int aOffset, double[] b, int bOffset,
+	    int length ) {
+
+	final int lanes = DOUBLES.length();
+	final int bound = length - (length % (2 * lanes));
+
+	DoubleVector sum0 = DoubleVector.zero( DOUBLES );
+	DoubleVector sum1 = DoubleVector.zero( DOUBLES );
+	int i = 0;
+
+	for ( ; i < bound; i += 2 * lanes ) {
+	    sum0 = DoubleVector.fromArray( DOUBLES, a, aOffset + i ).fma(
+		    DoubleVector.fromArray( DOUBLES, b, bOffset + i ), sum0 );
+	    sum1 = DoubleVector.fromArray( DOUBLES, a, aOffset + i + lanes )
+		    .fma( DoubleVector.fromArray( DOUBLES, b, bOffset + i
+			    + lanes ), sum1 );
+	}
+
+	double sum = sum0.add( sum1 ).reduceLanes( VectorOperators.ADD );
+
+	for ( ; i < length; i++ ) {
+	    sum += a[aOffset + i] * b[bOffset + i];
+	}
+
+	return sum;
+    }
+
+    /**
+     * Calculates scalar product of parts of two arrays in double precision.
+     * Floats are converted to doubles before multiplication.
+     * 
+     * @param a
+     *            first array
+     * @param aOffset
+     *            index of first element of first array
+     * @param b
+     *            second array
+     * @param bOffset
+     *            index of first element of second array
+     * @param length
+     *            number of multiplied elements
+     * @return scalar product
+     */
+    static double dot( float[] a, int aOffset, float[] b, int bOffset,
+	    int length ) {
+
+	final int lanes = DOUBLES.length();
+	final int bound = length - (length % lanes);
+
+	DoubleVector sum = DoubleVector.zero( DOUBLES );
+	int i = 0;
+
+	for ( ; i < bound; i += lanes ) {
+	    final DoubleVector x = (DoubleVector) jdk.incubator.vector.FloatVector
+		    .fromArray( FLOATS, a, aOffset + i ).convertShape(
+			    VectorOperators.F2D, DOUBLES, 0 );
+	    final DoubleVector y = (DoubleVector) jdk.incubator.vector.FloatVector
+		    .fromArray( FLOATS, b, bOffset + i ).convertShape(
+			    VectorOperators.F2D, DOUBLES, 0 );
+
+	    sum = x.fma( y, sum );
+	}
+
+	double result = sum.reduceLanes( VectorOperators.ADD );
+
+	for ( ; i < length; i++ ) {
+	    result += (double) a[aOffset + i] * b[bOffset + i];
+	}
+
+	return result;
+    }
+
+    /**
+     * Adds multiple of part of first array to part of second array. Every
+     * element is rounded after multiplication and after addition, so result
+     * is same as result of scalar kernel.
+     * 
+     * @param factor
+     *            multiple of first array
+     * @param x
+     *            array which is added
+     * @param xOffset
+     *            index of first added element
+     * @param y
+     *            array which is changed
+     * @param yOffset
+     *            index of first changed element
+     * @param length
+     *            number of added elements
+     */
+    static void axpy( double factor, double[] x, int xOffset, double[] y,
+	    int yOffset, int length ) {
+
+	final int lanes = DOUBLES.length();
+	final int bound = length - (length % lanes);
+	int i = 0;
+
+	for ( ; i < bound; i += lanes ) {
+	    DoubleVector.fromArray( DOUBLES, x, xOffset + i ).mul( factor )
+		    .add( DoubleVector.fromArray( DOUBLES, y, yOffset + i ) )
+		    .intoArray( y, yOffset + i );
+	}
+
+	for ( ; i < length; i++ ) {
+	    y[yOffset + i] += factor * x[xOffset + i];
+	}
+    }
+
+    /**
+     * Adds multiple of part of first array to part of second array.
+     * 
+     * @param factor
+     *            multiple of first array
+     * @param x
+     *            array which is added
+     * @param xOffset
+     *            index of first added element
+     * @param y
+     *            array which is changed
+     * @param yOffset
+     *            index of first changed element
+     * @param length
+     *            number of added elements
+     */
+    static void axpy( float factor, float[] x, int xOffset, float[] y,
+	    int yOffset, int length ) {
+
+	final int lanes = ALL_FLOATS.length();
+	final int bound = length - (length % lanes);
+	int i = 0;
+
+	for ( ; i < bound; i += lanes ) {
+	    jdk.incubator.vector.FloatVector
+		    .fromArray( ALL_FLOATS, x, xOffset + i )
+		    .mul( factor )
+		    .add( jdk.incubator.vector.FloatVector.fromArray(
+			    ALL_FLOATS, y, yOffset + i ) )
+		    .intoArray( y, yOffset + i );
+	}
+
+	for ( ; i < length; i++ ) {
+	    y[yOffset + i] += factor * x[xOffset + i];
+	}
+    }
+
+    /**
+     * Adds multiple of part of array of floats to part of array of doubles.
+     * Floats are converted to doubles before multiplication, so sums are
+     * accumulated in double precision without copy of first array.
+     * 
+     * @param factor
+     *            multiple of first array
+     * @param x
+     *            array which is added
+     * @param xOffset
+     *            index of first added element
+     * @param y
+     *            array which is changed
+     * @param yOffset
+     *            index of first changed element
+     * @param length
+     *            number of added elements
+     */
+    static void axpy( double factor, float[] x, int xOffset, double[] y,
+	    int yOffset, int length ) {
+
+	final int lanes = DOUBLES.length();
+	final int bound = length - (length % lanes);
+	int i = 0;
+
+	for ( ; i < bound; i += lanes ) {
+	    ((DoubleVector) jdk.incubator.vector.FloatVector
+		    .fromArray( FLOATS, x, xOffset + i ).convertShape(
+			    VectorOperators.F2D, DOUBLES, 0 )).mul( factor )
+		    .add( DoubleVector.fromArray( DOUBLES, y, yOffset + i ) )
+		    .intoArray( y, yOffset + i );
+	}
+
+	for ( ; i < length; i++ ) {
+	    y[yOffset + i] += factor * x[xOffset + i];
+	}
+    }
+
+    /**
+     * Multiplies part of array with provided value.
+     * 
+     * @param x
+     *            array which is changed
+     * @param offset
+     *            index of first changed element
+     * @param factor
+     *            scalar
+     * @param length
+     *            number of changed elements
+     */
+    static void scale( double[] x, int offset, double factor, int length ) {
+
+	final int lanes = DOUBLES.length();
+	final int bound = length - (length % lanes);
+	int i = 0;
+
+	for ( ; i < bound; i += lanes ) {
+	    DoubleVector.fromArray( DOUBLES, x, offset + i ).mul( factor )
+		    .intoArray( x, offset + i );
+	}
+
+	for ( ; i < length; i++ ) {
+	    x[offset + i] *= factor;
+	}
+    }
+
+    /**
+     * Multiplies part of array with provided value.
+     * 
+     * @param x
+     *            array which is changed
+     * @param offset
+     *            index of first changed element
+     * @param factor
+     *            scalar
+     * @param length
+     *            number of changed elements
+     */
+    static void scale( float[] x, int offset, float factor, int length ) {
+
+	final int lanes = ALL_FLOATS.length();
+	final int bound = length - (length % lanes);
+	int i = 0;
+
+	for ( ; i < bound; i += lanes ) {
+	    jdk.incubator.vector.FloatVector
+		    .fromArray( ALL_FLOATS, x, offset + i ).mul( factor )
+		    .intoArray( x, offset + i );
+	}
+
+	for ( ; i < length; i++ ) {
+	    x[offset + i] *= factor;
+	}
+    }
+
+    /**
+     * Multiplies panel of four rows of first matrix, stored column by column,
+     * with panel of four columns of second matrix, stored row by row. Every
+     * row of 4x4 results is accumulated in one vector of four doubles.
+     * 
+     * @param packedA
+     *            packed block of first matrix
+     * @param aIndex
+     *            index of panel in packed block of first matrix
+     * @param packedB
+     *            packed block of second matrix
+     * @param bIndex
+     *            index of panel in packed block of second matrix
+     * @param depth
+     *            length of panels
+     * @param result
+     *            array in which 4x4 results are stored row by row
+     */
+    static void multiplyPanels( double[] packedA, int aIndex,
+	    double[] packedB, int bIndex, int depth, double[] result ) {
+
+	DoubleVector c0 = DoubleVector.zero( ROW );
+	DoubleVector c1 = DoubleVector.zero( ROW );
+	DoubleVector c2 = DoubleVector.zero( ROW );
+	DoubleVector c3 = DoubleVector.zero( ROW );
+
+	for ( int p = 0, a = aIndex, b = bIndex; p < depth; p++, a += 4, b += 4 ) {
+	    final DoubleVector row = DoubleVector.fromArray( ROW, packedB, b );
+
+	    c0 = row.fma( DoubleVector.broadcast( ROW, packedA[a] ), c0 );
+	    c1 = row.fma( DoubleVector.broadcast( ROW, packedA[a + 1] ), c1 );
+	    c2 = row.fma( DoubleVector.broadcast( ROW, packedA[a + 2] ), c2 );
+	    c3 = row.fma( DoubleVector.broadcast( ROW, packedA[a + 3] ), c3 );
+	}
+
+	c0.intoArray( result, 0 );
+	c1.intoArray( result, 4 );
+	c2.intoArray( result, 8 );
+	c3.intoArray( result, 12 );
+    }
+}
@@ -0,0 +1,279 @@
+package hr.fer.zemris.linearna;
+
+/**
+ * Loops over arrays which are used by vectors and matrices stored in arrays.
+ * This implementation is used on Java 17 and newer. If JVM is started with
+ * <code>--add-modules jdk.incubator.vector</code> and processor has SIMD
+ * instructions, loops over enough elements are calculated by
+ * {@link SimdKernels}, otherwise by {@link ScalarKernels}.
+ * <p>
+ * Vectorized kernels can be disabled with
+ * {@link LinAlgDefaults#setVectorizedKernels(boolean)} or system property
+ * <code>linalg.scalarKernels</code>.
+ *
+ * @author Nikola Sekulić
+ *
+ */
+public final class VectorKernels {
+
+    /**
+     * True if module <code>jdk.incubator.vector</code> is added and processor
+     * has SIMD instructions
+     */
+    private static final boolean AVAILABLE = isAvailable();
+
+    /**
+     * True if product of panels can be calculated by {@link SimdKernels}
+     */
+    private static final boolean PANELS = AVAILABLE
+	    && SimdKernels.hasPanelKernel();
+
+    /**
+     * Smallest number of elements for which SIMD kernel is used
+     */
+    private static final int MIN_LENGTH = AVAILABLE ? 4 * SimdKernels.lanes()
+	    : Integer.MAX_VALUE;
+
+    /**
+     * Class has only static methods.
+     */
+    private VectorKernels() {
+
+    }
+
+    /**
+     * Checks if SIMD kernels can be used. Vector classes are not touched if
+     * module is not added, so this class is usable without module.
+     * 
+     * @return true if module is added and processor has SIMD instructions
+     */
+    private static boolean isAvailable() {
+
+	if ( !ModuleLayer.boot().findModule( "jdk.incubator.vector" )
+		.isPresent() ) {
+	    return false;
+	}
+
+	try {
+	    return SimdKernels.isSupported();
+	} catch ( final LinkageError e ) {
+	    return false;
+	}
+    }
+
+    /**
+     * Checks if kernels use SIMD instructions.
+     * 
+     * @return true if SIMD kernels are available and enabled
+     */
+    public static boolean isVectorized() {
+
+	return AVAILABLE && LinAlgDefaults.isVectorizedKernels();
+    }
+
+    /**
+     * Calculates scalar product of parts of two arrays. Order of additions is
+     * not specified, so result can differ in last bits between kernels.
+     * 
+     * @param a
+     *            first array
+     * @param aOffset
+     *            index of first element of first array
+     * @param b
+     *            second array
+     * @param bOffset
+     *            index of first element of second array
+     * @param length
+     *            number of multiplied elements
+     * @return scalar product
+     */
+    static double dot( double[] a, int aOffset, double[] b, int bOffset,
+	    int length ) {
+
+	if ( (length >= MIN_LENGTH) && LinAlgDefaults.isVectorizedKernels() ) {
+	    return SimdKernels.dot( a, aOffset, b, bOffset, length );
+	}
+
+	return ScalarKernels.dot( a, aOffset, b, bOffset, length );
+    }
+
+    /**
+     * Calculates scalar product of parts of two arrays in double precision.
+     * 
+     * @param a
+     *            first array
+     * @param aOffset
+     *            index of first element of first array
+     * @param b
+     *            second array
+     * @param bOffset
+     *            index of first element of second array
+     * @param length
+     *            number of multiplied elements
+     * @return scalar product
+     */
+    static double dot( float[] a, int aOffset, float[] b, int bOffset,
+	    int length ) {
+
+	if ( (length >= MIN_LENGTH) && LinAlgDefaults.isVectorizedKernels() ) {
+	    return SimdKernels.dot( a, aOffset, b, bOffset, length );
+	}
+
+	return ScalarKernels.dot( a, aOffset, b, bOffset, length );
+    }
+
+    /**
+     * Adds multiple of part of first array to part of second array.
+     * 
+     * @param factor
+     *            multiple of first array
+     * @param x
+     *            array which is added
+     * @param xOffset
+     *            index of first added element
+     * @param y
+     *            array which is changed
+     * @param yOffset
+     *            index of first changed element
+     * @param length
+     *            number of added elements
+     */
+    static void axpy( double factor, double[] x, int xOffset, double[] y,
+	    int yOffset, int length ) {
+
+	if ( (length >= MIN_LENGTH) && LinAlgDefaults.isVectorizedKernels() ) {
+	    SimdKernels.axpy( factor, x, xOffset, y, yOffset, length );
+	    return;
+	}
+
+	ScalarKernels.axpy( factor, x, xOffset, y, yOffset, length );
+    }
+
+    /**
+     * Adds multiple of part of first array to part of second array.
+     * 
+     * @param factor
+     *            multiple of first array
+     * @param x
+     *            array which is added
+     * @param xOffset
+     *            index of first added element
+     * @param y
+     *            array which is changed
+     * @param yOffset
+     *            index of first changed element
+     * @param length
+     *            number of added elements
+     */
+    static void axpy( float factor, float[] x, int xOffset, float[] y,
+	    int yOffset, int length ) {
+
+	if ( (length >= MIN_LENGTH) && LinAlgDefaults.isVectorizedKernels() ) {
+	    SimdKernels.axpy( factor, x, xOffset, y, yOffset, length );
+	    return;
+	}
+
+	ScalarKernels.axpy( factor, x, xOffset, y, yOffset, length );
+    }
+
+    /**
+     * Adds multiple of part of array of floats to part of array of doubles.
+     * Floats are converted to doubles before multiplication, so sums are
+     * accumulated in double precision without copy of first array.
+     * 
+     * @param factor
+     *            multiple of first array
+     * @param x
+     *            array which is added
+     * @param xOffset
+     *            index of first added element
+     * @param y
+     *            array which is changed
+     * @param yOffset
+     *            index of first changed element
+     * @param length
+     *            number of added elements
+     */
+    static void axpy( double factor, float[] x, int xOffset, double[] y,
+	    int yOffset, int length ) {
+
+	if ( (length >= MIN_LENGTH) && LinAlgDefaults.isVectorizedKernels() ) {
+	    SimdKernels.axpy( factor, x, xOffset, y, yOffset, length );
+	    return;
+	}
+
+	ScalarKernels.axpy( factor, x, xOffset, y, yOffset, length );
+    }
+
+    /**
+     * Multiplies part of array with provided value.
+     * 
+     * @param x
+     *            array which is changed
+     * @param offset
+     *            index of first changed element
+     * @param factor
+     *            scalar
+     * @param length
+     *            number of changed elements
+     */
+    static void scale( double[] x, int offset, double factor, int length ) {
+
+	if ( (length >= MIN_LENGTH) && LinAlgDefaults.isVectorizedKernels() ) {
+	    SimdKernels.scale( x, offset, factor, length );
+	    return;
+	}
+
+	ScalarKernels.scale( x, offset, factor, length );
+    }
+
+    /**
+     * Multiplies part of array with provided value.
+     * 
+     * @param x
+     *            array which is changed
+     * @param offset
+     *            index of first changed element
+     * @param factor
+     *            scalar
+     * @param length
+     *            number of changed elements
+     */
+    static void scale( float[] x, int offset, float factor, int length ) {
+
+	if ( (length >= MIN_LENGTH) && LinAlgDefaults.isVectorizedKernels() ) {
+	    SimdKernels.scale( x, offset, factor, length );
+	    return;
+	}
+
+	ScalarKernels.scale( x, offset, factor, length );
+    }
+
+    /**
+     * Multiplies panel of four rows of first matrix, stored column by column,
+     * with panel of four columns of second matrix, stored row by row.
+     * 
+     * @param packedA
+     *            packed block of first matrix
+     * @param aIndex
+     *            index of panel in packed block of first matrix
+     * @param packedB
+     *            packed block of second matrix
+     * @param bIndex
+     *            index of panel in packed block of second matrix
+     * @param depth
+     *            length of panels
+     * @param result
+     *            array in which 4x4 results are stored row by row
+     */
+    static void multiplyPanels( double[] packedA, int aIndex,
+	    double[] packedB, int bIndex, int depth, double[] result ) {
+
+	if ( PANELS && LinAlgDefaults.isVectorizedKernels() ) {
+	    SimdKernels.multiplyPanels( packedA, aIndex, packedB, bIndex, depth, result );
+	    return;
+	}
+
+	ScalarKernels.multiplyPanels( packedA, aIndex, packedB, bIndex, depth, result );
+    }
+}
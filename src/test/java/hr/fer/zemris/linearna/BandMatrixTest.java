@@ -0,0 +1,192 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BandMatrixTest {
+
+    private static BandMatrix randomBand( int n, int lower, int upper,
+	    long seed ) {
+
+	Random random = new Random( seed );
+	BandMatrix matrix = new BandMatrix( n, lower, upper );
+	for ( int i = 0; i < n; i++ ) {
+	    for ( int j = Math.max( 0, i - lower ); j <= Math.min( n - 1, i
+		    + upper ); j++ ) {
+		matrix.set( i, j, random.nextDouble() - 0.5 );
+	    }
+	}
+
+	return matrix;
+    }
+
+    @Test
+    public void testGetAndSet() {
+
+	BandMatrix matrix = new BandMatrix( 4, 1, 2 );
+	matrix.set( 0, 2, 3 ).set( 3, 2, 4 ).set( 3, 0, 0 );
+
+	Assert.assertTrue( "Matrix should have elements inside band", Matrix
+		.parseSimple( "0 0 3 0 | 0 0 0 0 | 0 0 0 0 | 0 0 4 0" ).equals(
+			matrix, 0 ) );
+    }
+
+    @Test( expected = UnmodifiableObjectException.class )
+    public void testSetOutsideBand() {
+
+	new BandMatrix( 4, 1, 2 ).set( 0, 3, 1 );
+    }
+
+    @Test
+    public void testAddOutsideBand() {
+
+	BandMatrix matrix = new BandMatrix( 3, 0, 1 );
+
+	try {
+	    matrix.add( Matrix.parseSimple( "1 1 0 | 0 1 1 | 1 0 1" ) );
+	    Assert.fail( "Sum should not fit in band" );
+	} catch ( UnmodifiableObjectException e ) {
+	    Assert.assertTrue( "Matrix should not be changed", new Matrix( 3, 3 )
+		    .equals( matrix, 0 ) );
+	}
+
+	matrix.sub( Matrix.parseSimple( "1 1 0 | 0 1 1 | 0 0 1" ) );
+	Assert.assertTrue( "Matrix should be minus sum", Matrix.parseSimple(
+		"-1 -1 0 | 0 -1 -1 | 0 0 -1" ).equals( matrix, 0 ) );
+    }
+
+    @Test
+    public void testAddStructured() {
+
+	BandMatrix a = randomBand( 30, 2, 3, 5 );
+	BandMatrix narrow = randomBand( 30, 1, 0, 6 );
+	FlatMatrix expected = FlatMatrix.valueOf( a );
+	expected.add( narrow ).sub( new ScaledIdentityMatrix( 30, 2 ) );
+
+	a.add( narrow ).sub( new ScaledIdentityMatrix( 30, 2 ) )
+		.add( new ZeroMatrix( 30, 30 ) );
+	Assert.assertTrue( "Sum should be same as dense sum", expected.equals(
+		a, 1e-12 ) );
+
+	double element = a.get( 4, 3 );
+	a.sub( new SparseMatrix( 30, 30 ).set( 4, 3, 2 ) );
+	Assert.assertEquals( "Sparse element should be subtracted",
+		element - 2, a.get( 4, 3 ), 1e-12 );
+
+	BandMatrix wide = new BandMatrix( 30, 4, 4 );
+	wide.set( 5, 1, 1 );
+	IMatrix before = a.copy();
+
+	try {
+	    a.add( wide );
+	    Assert.fail( "Sum should not fit in band" );
+	} catch ( UnmodifiableObjectException e ) {
+	    Assert.assertTrue( "Matrix should not be changed",
+		    ((AbstractMatrix) before).equals( a, 0 ) );
+	}
+
+	wide.set( 5, 1, 0 ).set( 5, 4, 1 );
+	a.add( wide );
+	Assert.assertEquals( "Element inside both bands should be added",
+		before.get( 5, 4 ) + 1, a.get( 5, 4 ), 1e-12 );
+    }
+
+    @Test
+    public void testMakeIdentity() {
+
+	IMatrix a = randomBand( 5, 1, 2, 7 ).makeIdentity();
+
+	Assert.assertTrue( "Matrix should be identity",
+		((AbstractMatrix) new Matrix( 5, 5 ).makeIdentity()).equals( a,
+			0 ) );
+    }
+
+    @Test
+    public void testSolveAndDeterminant() {
+
+	BandMatrix a = randomBand( 60, 3, 2, 1 );
+	FlatMatrix dense = FlatMatrix.valueOf( a );
+	IMatrix x = FlatMatrix.valueOf( randomBand( 60, 59, 59, 4 ) )
+		.nMultiply( new FlatMatrix( 60, 3 ).set( 0, 0, 1 )
+			.set( 1, 1, 1 ).set( 2, 2, 1 ) );
+	IMatrix b = dense.nMultiply( x );
+
+	Assert.assertTrue( "Solution should be same as x",
+		((AbstractMatrix) x).equals( a.solve( b ), 1e-9 ) );
+	Assert.assertEquals( "Determinant should be same as dense determinant",
+		new LUDecomposition( dense ).determinant(), a.determinant(),
+		1e-9 * Math.abs( a.determinant() ) );
+    }
+
+    @Test
+    public void testMultiply() {
+
+	BandMatrix a = randomBand( 30, 2, 1, 2 );
+	BandMatrix b = randomBand( 30, 1, 3, 3 );
+	IMatrix expected = FlatMatrix.valueOf( a ).nMultiply( b.copy() );
+
+	IMatrix product = a.nMultiply( b );
+	Assert.assertTrue( "Product of band matrices should be band matrix",
+		product instanceof BandMatrix );
+	Assert.assertTrue( "Band product should be same as dense product",
+		((AbstractMatrix) expected).equals( product, 1e-12 ) );
+
+	IVector vector = Vector.parseSimple( "1 2 3 4 5 6 7 8 9 10 11 12 13 14 15"
+		+ " 16 17 18 19 20 21 22 23 24 25 26 27 28 29 30" );
+	Assert.assertTrue( "Band * vector should be same as dense product",
+		((AbstractVector) a.nMultiply( vector )).equals(
+			FlatMatrix.valueOf( a ).nMultiply(
+				vector.toColumnMatrix( false ) ).toVector( false ),
+			1e-12 ) );
+    }
+
+    @Test
+    public void testTridiagonal() {
+
+	TridiagonalMatrix a = new TridiagonalMatrix( new double[] { 1, 2, 3 },
+		new double[] { 4, 5, 6, 7 }, new double[] { 1, 1, 1 } );
+	FlatMatrix dense = FlatMatrix.valueOf( a );
+	IVector b = Vector.parseSimple( "1 2 3 4" );
+
+	Assert.assertEquals( "Determinant should be same as dense determinant",
+		dense.determinant(), a.determinant(), 1e-9 );
+	Assert.assertTrue( "Thomas solution should be same as dense solution",
+		((AbstractVector) dense.solve( b )).equals( a.solve( b ), 1e-12 ) );
+    }
+
+    @Test
+    public void testTridiagonalWithPivoting() {
+
+	TridiagonalMatrix a = new TridiagonalMatrix( new double[] { 1, 1 },
+		new double[] { 0, 0, 1 }, new double[] { 1, 1 } );
+	IVector b = Vector.parseSimple( "1 2 3" );
+
+	Assert.assertTrue( "Solution should be same as dense solution",
+		((AbstractVector) FlatMatrix.valueOf( a ).solve( b )).equals(
+			a.solve( b ), 1e-12 ) );
+    }
+
+    @Test
+    public void testLargeTridiagonal() {
+
+	int n = 1000000;
+	double[] lower = new double[n - 1];
+	double[] diagonal = new double[n];
+	double[] upper = new double[n - 1];
+	Arrays.fill( lower, -1 );
+	Arrays.fill( diagonal, 2 );
+	Arrays.fill( upper, -1 );
+	diagonal[0] = 1;
+
+	IVector b = new Vector( new double[n] ).set( n - 1, 1 );
+	IVector x = new TridiagonalMatrix( lower, diagonal, upper ).solve( b );
+
+	Assert.assertEquals( "Solution should be all ones", 1.0, x.get( 0 ),
+		1e-6 );
+	Assert.assertEquals( "Solution should be all ones", 1.0,
+		x.get( n - 1 ), 1e-6 );
+    }
+}
@@ -0,0 +1,132 @@
+package hr.fer.zemris.linearna;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BinaryFormatTest {
+
+    private static final Matrix MATRIX = Matrix
+	    .parseSimple( "0.1 -2 3e-300 | 1e300 -0 5 | 0.3333333333333333 7 8" );
+
+    @Test
+    public void testStream() throws IOException {
+
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	BinaryFormat.writeMatrix( MATRIX, bytes );
+	BinaryFormat.writeVector( Vector.parseSimple( "1 0.1 -3" ), bytes );
+
+	Assert.assertEquals( "Data should have headers and elements",
+		(2 * BinaryFormat.HEADER_SIZE) + (12 * 8), bytes.size() );
+
+	ByteArrayInputStream input = new ByteArrayInputStream(
+		bytes.toByteArray() );
+
+	Assert.assertTrue( "Matrix should be same without rounding",
+		BinaryFormat.readMatrix( input ).equals( MATRIX, 0 ) );
+	Assert.assertTrue( "Vector should be same", Arrays.equals(
+		new double[] { 1, 0.1, -3 }, BinaryFormat.readVector( input )
+			.toArray() ) );
+	Assert.assertEquals( "Stream should be read to the end", -1,
+		input.read() );
+    }
+
+    @Test
+    public void testLargeMatrix() throws IOException {
+
+	FlatMatrix matrix = new FlatMatrix( 300, 100 );
+
+	for ( int i = 0; i < 300; i++ ) {
+	    for ( int j = 0; j < 100; j++ ) {
+		matrix.set( i, j, Math.sin( i * j ) );
+	    }
+	}
+
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	BinaryFormat.writeMatrix( matrix.nTranspose( true ), bytes );
+
+	FlatMatrix read = BinaryFormat.readMatrix( new ByteArrayInputStream(
+		bytes.toByteArray() ) );
+
+	Assert.assertTrue( "Matrix should be same",
+		read.equals( matrix.nTranspose( false ), 0 ) );
+    }
+
+    @Test
+    public void testChannelAndMappedFile() throws IOException {
+
+	Path path = Files.createTempFile( "matrix", ".lamx" );
+
+	try {
+	    BinaryFormat.writeMatrix( MATRIX, path );
+
+	    Assert.assertTrue( "Matrix should be same",
+		    BinaryFormat.readMatrix( path ).equals( MATRIX, 0 ) );
+
+	    try (MappedMatrix mapped = MappedMatrix.openReadOnly( path )) {
+		Assert.assertTrue( "Mapped matrix should be same",
+			mapped.equals( MATRIX, 0 ) );
+	    }
+
+	    try (FileChannel channel = FileChannel.open( path,
+		    StandardOpenOption.WRITE, StandardOpenOption.APPEND )) {
+		BinaryFormat.writeVector( Vector.parseSimple( "4 5" ), channel );
+	    }
+
+	    try (FileChannel channel = FileChannel.open( path )) {
+		BinaryFormat.readMatrix( channel );
+
+		Assert.assertEquals( "Second element should be 5", 5.0,
+			BinaryFormat.readVector( channel ).get( 1 ), 0 );
+	    }
+	} finally {
+	    Files.delete( path );
+	}
+    }
+
+    @Test
+    public void testColumnMajorFile() throws IOException {
+
+	Path path = Files.createTempFile( "matrix", ".lamx" );
+
+	try {
+	    try (MappedMatrix mapped = MappedMatrix.create( path, 3, 3, true )) {
+		for ( int i = 0; i < 3; i++ ) {
+		    for ( int j = 0; j < 3; j++ ) {
+			mapped.set( i, j, MATRIX.get( i, j ) );
+		    }
+		}
+	    }
+
+	    Assert.assertTrue( "Matrix should be same",
+		    BinaryFormat.readMatrix( path ).equals( MATRIX, 0 ) );
+	} finally {
+	    Files.delete( path );
+	}
+    }
+
+    @Test( expected = EOFException.class )
+    public void testTruncatedData() throws IOException {
+
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	BinaryFormat.writeMatrix( MATRIX, bytes );
+
+	BinaryFormat.readMatrix( new ByteArrayInputStream( Arrays.copyOf(
+		bytes.toByteArray(), bytes.size() - 1 ) ) );
+    }
+
+    @Test( expected = IOException.class )
+    public void testNotMatrixData() throws IOException {
+
+	BinaryFormat.readMatrix( new ByteArrayInputStream( new byte[64] ) );
+    }
+}
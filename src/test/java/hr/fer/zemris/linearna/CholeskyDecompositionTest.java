@@ -0,0 +1,110 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CholeskyDecompositionTest {
+
+    private static FlatMatrix randomPositiveDefinite( int n, long seed ) {
+
+	Random random = new Random( seed );
+	FlatMatrix a = new FlatMatrix( n, n );
+	for ( int i = 0; i < n; i++ ) {
+	    for ( int j = 0; j < n; j++ ) {
+		a.set( i, j, random.nextDouble() - 0.5 );
+	    }
+	}
+
+	IMatrix gram = a.nMultiply( a.nTranspose( false ) );
+	for ( int i = 0; i < n; i++ ) {
+	    gram.set( i, i, gram.get( i, i ) + 1.0 );
+	}
+
+	return FlatMatrix.valueOf( gram );
+    }
+
+    @Test
+    public void testFactor() {
+
+	IMatrix a = Matrix.parseSimple( "4 12 -16 | 12 37 -43 | -16 -43 98" );
+	IMatrix l = new CholeskyDecomposition( a ).getL();
+
+	Assert.assertTrue( "Factor should be [2 0 0 | 6 1 0 | -8 5 3]",
+		Matrix.parseSimple( "2 0 0 | 6 1 0 | -8 5 3" ).equals( l, 1e-12 ) );
+    }
+
+    @Test
+    public void testDeterminant() {
+
+	CholeskyDecomposition cholesky = new CholeskyDecomposition(
+		Matrix.parseSimple( "4 12 -16 | 12 37 -43 | -16 -43 98" ) );
+
+	Assert.assertEquals( "Determinant should be 36", 36.0,
+		cholesky.determinant(), 1e-9 );
+	Assert.assertEquals( "Logarithm of determinant should be log(36)",
+		Math.log( 36.0 ), cholesky.logDeterminant(), 1e-12 );
+    }
+
+    @Test
+    public void testLargeMatrix() {
+
+	FlatMatrix a = randomPositiveDefinite( 150, 7 );
+	CholeskyDecomposition cholesky = new CholeskyDecomposition( a );
+	IMatrix l = cholesky.getL();
+
+	Assert.assertTrue( "L * L^T should be original matrix",
+		a.equals( l.nMultiply( l.nTranspose( false ) ), 1e-9 ) );
+	Assert.assertEquals( "Logarithm of determinant should match LU",
+		Math.log( new LUDecomposition( a ).determinant() ),
+		cholesky.logDeterminant(), 1e-8 );
+    }
+
+    @Test
+    public void testSolveAndInverse() {
+
+	FlatMatrix a = randomPositiveDefinite( 70, 11 );
+	CholeskyDecomposition cholesky = new CholeskyDecomposition( a );
+	IMatrix identity = new FlatMatrix( 70, 70 ).makeIdentity();
+
+	Assert.assertTrue( "Product should be identity", ((AbstractMatrix) identity)
+		.equals( a.nMultiply( cholesky.inverse() ), 1e-9 ) );
+
+	FlatMatrix x = randomPositiveDefinite( 70, 13 );
+	Assert.assertTrue( "Solution should be same as x", x.equals(
+		cholesky.solve( a.nMultiply( x ) ), 1e-9 ) );
+    }
+
+    @Test
+    public void testInPlace() {
+
+	FlatMatrix a = FlatMatrix.valueOf( Matrix
+		.parseSimple( "4 12 -16 | 12 37 -43 | -16 -43 98" ) );
+	CholeskyDecomposition cholesky = new CholeskyDecomposition( a, true );
+
+	Assert.assertTrue( "Matrix should hold factor in lower triangle",
+		Matrix.parseSimple( "2 12 -16 | 6 1 -43 | -8 5 3" ).equals( a, 0 ) );
+	Assert.assertTrue( "Solution should be [1 2 3]", ((AbstractVector) cholesky
+		.solve( Vector.parseSimple( "-20 -43 192" ) ) ).equals(
+		Vector.parseSimple( "1 2 3" ), 1e-9 ) );
+    }
+
+    @Test
+    public void testNotPositiveDefinite() {
+
+	Assert.assertTrue( "Matrix with negative diagonal is not positive definite",
+		!new CholeskyDecomposition( Matrix.parseSimple( "1 0 | 0 -1" ) )
+			.isPositiveDefinite() );
+	Assert.assertTrue( "Indefinite matrix is not positive definite",
+		!new CholeskyDecomposition( Matrix.parseSimple( "1 2 | 2 1" ) )
+			.isPositiveDefinite() );
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testSolveNotPositiveDefinite() {
+
+	new CholeskyDecomposition( Matrix.parseSimple( "1 2 | 2 1" ) )
+		.solve( Vector.parseSimple( "1 2" ) );
+    }
+}
@@ -0,0 +1,141 @@
+package hr.fer.zemris.linearna;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DirectMatrixTest {
+
+    @Test
+    public void testElements() {
+
+	Matrix heap = Matrix.parseSimple( "1 2 3 | 4 5 6" );
+
+	try (DirectMatrix direct = DirectMatrix.valueOf( heap )) {
+	    Assert.assertTrue( "Matrices should be same",
+		    direct.equals( heap, 0 ) );
+
+	    direct.set( 1, 2, -6 );
+	    Assert.assertEquals( "Element should be changed", -6.0,
+		    direct.get( 1, 2 ), 0 );
+	    Assert.assertEquals( "Heap matrix should not change", 6.0,
+		    heap.get( 1, 2 ), 0 );
+	}
+    }
+
+    @Test
+    public void testArithmetic() {
+
+	Matrix a = Matrix.parseSimple( "1 2 3 | 4 5 6" );
+	Matrix b = Matrix.parseSimple( "1 -1 | 2 0.5 | -3 4" );
+
+	try (DirectMatrix da = DirectMatrix.valueOf( a );
+		DirectMatrix db = DirectMatrix.valueOf( b );
+		DirectMatrix product = (DirectMatrix) da.nMultiply( db );
+		DirectMatrix mixed = (DirectMatrix) da.nMultiply( b );
+		DirectMatrix copy = (DirectMatrix) da.copy()) {
+	    Assert.assertTrue( "Product should be same as heap product",
+		    ((AbstractMatrix) a.nMultiply( b )).equals( product, 1e-12 ) );
+	    Assert.assertTrue( "Product with heap matrix should be same",
+		    ((AbstractMatrix) a.nMultiply( b )).equals( mixed, 1e-12 ) );
+	    Assert.assertEquals( "Determinant should be same", a.nMultiply( b )
+		    .determinant(), product.determinant(), 1e-9 );
+
+	    da.add( copy ).sub( a ).scalarMultiply( 2 );
+	    Assert.assertTrue( "Matrix should be doubled",
+		    da.equals( a.nScalarMultiply( 2 ), 1e-12 ) );
+	}
+    }
+
+    @Test
+    public void testLargeProduct() {
+
+	int n = 70;
+	Matrix a = new Matrix( n, n );
+	Matrix b = new Matrix( n, 3 );
+
+	for ( int i = 0; i < n; i++ ) {
+	    for ( int j = 0; j < n; j++ ) {
+		a.set( i, j, (i * 7 + j * 3) % 11 - 5 );
+	    }
+	    b.set( i, i % 3, i );
+	}
+
+	try (DirectMatrix direct = DirectMatrix.valueOf( a );
+		DirectMatrix product = (DirectMatrix) direct.nMultiply( b )) {
+	    Assert.assertTrue( "Product should be same as heap product",
+		    ((AbstractMatrix) a.nMultiply( b )).equals( product, 1e-9 ) );
+	}
+    }
+
+    @Test
+    public void testDenseTimesDirect() {
+
+	// larger than one tile, so product is accumulated over several tiles
+	int n = 300;
+	Matrix a = new Matrix( 2, n );
+	Matrix b = new Matrix( n, n );
+
+	for ( int i = 0; i < n; i++ ) {
+	    for ( int j = 0; j < n; j++ ) {
+		b.set( i, j, (i * 5 + j * 3) % 13 - 6 );
+	    }
+	    a.set( 0, i, i % 7 );
+	    a.set( 1, i, 1 );
+	}
+
+	try (DirectMatrix direct = DirectMatrix.valueOf( b );
+		DirectMatrix square = (DirectMatrix) direct.nMultiply( direct )) {
+	    IMatrix product = a.nMultiply( direct );
+
+	    Assert.assertTrue( "Product should be dense", product instanceof Matrix );
+	    Assert.assertTrue( "Product should be same as heap product",
+		    ((AbstractMatrix) a.nMultiply( b )).equals( product, 1e-9 ) );
+	    Assert.assertTrue( "Square should be same as heap square",
+		    ((AbstractMatrix) b.nMultiply( b )).equals( square, 1e-9 ) );
+	}
+    }
+
+    @Test
+    public void testVector() {
+
+	Vector heap = Vector.parseSimple( "3 4 0" );
+
+	try (DirectVector a = DirectVector.valueOf( heap );
+		DirectVector b = DirectVector.valueOf( heap )) {
+	    Assert.assertEquals( "Norm should be 5", 5.0, a.norm(), 1e-12 );
+
+	    a.add( b ).sub( heap ).scalarMultiply( -1 );
+	    Assert.assertTrue( "Vector should be negated",
+		    a.equals( heap.nScalarMultiply( -1 ), 0 ) );
+	    Assert.assertEquals( "Scalar product should be -25", -25.0,
+		    a.scalarProduct( b ), 1e-12 );
+	}
+    }
+
+    @Test
+    public void testMemoryAccounting() {
+
+	long before = DirectMemory.getAllocatedBytes();
+	DirectMatrix matrix = new DirectMatrix( 10, 20 );
+	DirectVector vector = new DirectVector( 30 );
+
+	Assert.assertEquals( "Allocated bytes should grow", before + 1840,
+		DirectMemory.getAllocatedBytes() );
+
+	matrix.close();
+	matrix.close();
+	vector.close();
+
+	Assert.assertTrue( "Matrix should be closed", matrix.isClosed() );
+	Assert.assertEquals( "Allocated bytes should be freed", before,
+		DirectMemory.getAllocatedBytes() );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void testClosedMatrix() {
+
+	DirectMatrix matrix = new DirectMatrix( 2, 2 );
+	matrix.close();
+	matrix.get( 0, 0 );
+    }
+}
@@ -0,0 +1,138 @@
+package hr.fer.zemris.linearna;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FlatMatrixTest {
+
+    @Test
+    public void testGetAndSet() {
+
+	double[] elements = {
+		1, 2, 3, 4, 5, 6
+	};
+
+	IMatrix m = new FlatMatrix( 2, 3, elements, true );
+	m.set( 1, 2, 9 );
+
+	Assert.assertEquals( "Element (0, 1) should be 2", 2.0, m.get( 0, 1 ),
+		1e-9 );
+	Assert.assertEquals( "Shallow copy should change array", 9.0,
+		elements[5], 1e-9 );
+    }
+
+    @Test
+    public void testWindowOnArray() {
+
+	double[] elements = {
+		0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11
+	};
+
+	// rows [5 6] and [9 10] of 3x4 matrix stored in elements
+	IMatrix m = new FlatMatrix( 2, 2, elements, 5, 4 );
+
+	Assert.assertTrue( "Matrix should be [5 6 | 9 10]", Matrix
+		.parseSimple( "5 6 | 9 10" ).equals( m, 1e-9 ) );
+
+	IMatrix copy = m.copy();
+	copy.set( 0, 0, -1 );
+
+	Assert.assertEquals( "Copy should not change array", 5.0, elements[5],
+		1e-9 );
+    }
+
+    @Test
+    public void testArithmeticSameAsMatrix() {
+
+	Matrix m1 = Matrix.parseSimple( "1 2 3 | 4 5 6" );
+	Matrix m2 = Matrix.parseSimple( "1 1 | 2 2 | 3 3" );
+
+	IMatrix f1 = FlatMatrix.valueOf( m1 );
+	IMatrix f2 = FlatMatrix.valueOf( m2 );
+
+	Assert.assertTrue( "Products should be same", ((AbstractMatrix) m1
+		.nMultiply( m2 )).equals( f1.nMultiply( f2 ), 1e-9 ) );
+	Assert.assertTrue( "Transposes should be same", ((AbstractMatrix) m1
+		.nTranspose( false )).equals( f1.nTranspose( false ), 1e-9 ) );
+    }
+
+    @Test
+    public void testElementWiseOnWindow() {
+
+	double[] elements = {
+		0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11
+	};
+	IMatrix m = new FlatMatrix( 2, 2, elements, 5, 4 );
+
+	m.add( Matrix.parseSimple( "1 1 | 1 1" ) ).scalarMultiply( 2 );
+	Assert.assertTrue( "Matrix should be [12 14 | 20 22]", Matrix
+		.parseSimple( "12 14 | 20 22" ).equals( m, 0 ) );
+
+	m.sub( new FlatMatrix( 2, 2, new double[] {
+		12, 14, 20, 22
+	}, false ) );
+	Assert.assertTrue( "Matrix should be zero", new Matrix( 2, 2 ).equals(
+		m, 0 ) );
+
+	m.makeIdentity();
+	Assert.assertArrayEquals( "Only window should be changed", new double[] {
+		0, 1, 2, 3, 4, 1, 0, 7, 8, 0, 1, 11
+	}, elements, 0 );
+	Assert.assertTrue( "Transpose view should be equal", ((AbstractMatrix) m)
+		.equals( m.nTranspose( true ), 0 ) );
+	Assert.assertFalse( "Matrices should differ", ((AbstractMatrix) m)
+		.equals( Matrix.parseSimple( "1 0 | 0 1.5" ), 0.1 ) );
+    }
+
+    @Test
+    public void testValueOfBulkCopy() {
+
+	Matrix m = Matrix.parseSimple( "1 0 2 | 0 3 0" );
+
+	Assert.assertTrue( "Sparse matrix should be copied", m.equals(
+		FlatMatrix.valueOf( SparseMatrix.valueOf( m ) ), 0 ) );
+	Assert.assertTrue( "Float matrix should be copied", m.equals(
+		FlatMatrix.valueOf( FloatMatrix.valueOf( m ) ), 0 ) );
+    }
+
+    @Test
+    public void testHashAndEquals() {
+
+	IMatrix m1 = FlatMatrix.valueOf( Matrix.parseSimple( "2.01 2 | 3 45" ) );
+	IMatrix m2 = new FlatMatrix( 2, 2, new double[] {
+		-1, 2.01, 2, -1, 3, 45
+	}, 1, 3 );
+
+	Assert.assertEquals( "Hashes should be equal", m1.hashCode(),
+		m2.hashCode() );
+	Assert.assertTrue( "Matices should be equal", m2.equals( m1 ) );
+	Assert.assertTrue( "Matices should be equal", m1.equals( m1.copy() ) );
+    }
+
+    @Test
+    public void testDefaultMatrixStorage() {
+
+	try {
+	    LinAlgDefaults.setFlatStorage( true );
+	    Assert.assertTrue( "Default matrix should be flat",
+		    LinAlgDefaults.defaultMatrix( 2, 2 ) instanceof FlatMatrix );
+	} finally {
+	    LinAlgDefaults.setFlatStorage( false );
+	}
+
+	Assert.assertTrue( "Default matrix should be Matrix",
+		LinAlgDefaults.defaultMatrix( 2, 2 ) instanceof Matrix );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testWindowOutsideOfArray() {
+
+	new FlatMatrix( 2, 2, new double[5], 2, 2 );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testTooLargeCopy() {
+
+	FlatMatrix.valueOf( new ZeroMatrix( 1 << 16, 1 << 16 ) );
+    }
+}
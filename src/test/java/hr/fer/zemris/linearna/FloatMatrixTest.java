@@ -0,0 +1,173 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FloatMatrixTest {
+
+    private static FlatMatrix random( int rows, int cols, long seed ) {
+
+	Random random = new Random( seed );
+	FlatMatrix matrix = new FlatMatrix( rows, cols );
+
+	for ( int row = 0; row < rows; row++ ) {
+	    for ( int col = 0; col < cols; col++ ) {
+		matrix.set( row, col, (float) random.nextGaussian() );
+	    }
+	}
+
+	return matrix;
+    }
+
+    @Test
+    public void testConversion() {
+
+	Matrix matrix = Matrix.parseSimple( "1 2.5 3 | 4 0.1 -6" );
+	FloatMatrix single = FloatMatrix.valueOf( matrix );
+
+	Assert.assertEquals( "Element should be rounded to float", 0.1f,
+		single.get( 1, 1 ), 0 );
+	Assert.assertTrue( "Matrix should be same", single.toMatrix().equals(
+		matrix, 1e-7 ) );
+	Assert.assertTrue( "Flat copy should be same", FlatMatrix.valueOf(
+		single ).equals( single, 0 ) );
+	Assert.assertEquals( "Converted copy should be equal", single,
+		FloatMatrix.valueOf( single.toMatrix() ) );
+
+	Vector vector = new Vector( 1, 0.1, -3 );
+	FloatVector singleVector = FloatVector.valueOf( vector );
+
+	Assert.assertTrue( "Vector should be same", singleVector.toVector()
+		.equals( vector, 1e-7 ) );
+	Assert.assertTrue( "Float array should be same", Arrays.equals(
+		new float[] { 1, 0.1f, -3 }, singleVector.toFloatArray() ) );
+    }
+
+    @Test
+    public void testArithmetic() {
+
+	FloatMatrix a = FloatMatrix.valueOf( Matrix
+		.parseSimple( "1 2 3 | 4 5 6" ) );
+	FloatMatrix b = FloatMatrix.valueOf( Matrix
+		.parseSimple( "0.5 1 1 | 1 -1 2" ) );
+
+	Assert.assertTrue( "Sum should be calculated", ((FloatMatrix) a.nAdd( b ))
+		.equals( Matrix.parseSimple( "1.5 3 4 | 5 4 8" ), 0 ) );
+	Assert.assertTrue( "Difference should be calculated",
+		((FloatMatrix) a.nSub( b )).equals(
+			Matrix.parseSimple( "0.5 1 2 | 3 6 4" ), 0 ) );
+	Assert.assertTrue( "Scaled matrix should be calculated",
+		((FloatMatrix) a.nScalarMultiply( 2 )).equals(
+			Matrix.parseSimple( "2 4 6 | 8 10 12" ), 0 ) );
+	Assert.assertTrue( "Result should be float matrix",
+		a.nTranspose( false ) instanceof FloatMatrix );
+
+	FloatVector u = new FloatVector( 1, 2, 3 );
+	FloatVector v = new FloatVector( -1, 0.5f, 2 );
+
+	Assert.assertEquals( "Scalar product should be calculated", 6.0,
+		u.scalarProduct( v ), 0 );
+	Assert.assertEquals( "Norm should be calculated", Math.sqrt( 14 ),
+		u.norm(), 1e-15 );
+	Assert.assertTrue( "Sum should be calculated", ((FloatVector) u.nAdd( v ))
+		.equals( new Vector( 0, 2.5, 5 ), 0 ) );
+	Assert.assertTrue( "Product with vector should be calculated", a
+		.multiply( u ).equals( new Vector( 14, 32 ), 0 ) );
+    }
+
+    @Test
+    public void testMultiply() {
+
+	FlatMatrix a = random( 70, 300, 1 );
+	FlatMatrix b = random( 300, 50, 2 );
+
+	IMatrix expected = a.nMultiply( b );
+	FloatMatrix product = (FloatMatrix) FloatMatrix.valueOf( a ).nMultiply(
+		FloatMatrix.valueOf( b ) );
+
+	Assert.assertTrue( "Product should be same as double product",
+		product.equals( expected, 1e-5 ) );
+	Assert.assertTrue( "Product with double matrix should be same",
+		((AbstractMatrix) FloatMatrix.valueOf( a ).nMultiply( b )).equals(
+			expected, 1e-5 ) );
+    }
+
+    @Test
+    public void testParallelMultiply() {
+
+	FloatMatrix a = FloatMatrix.valueOf( random( 200, 150, 3 ) );
+	FloatMatrix b = FloatMatrix.valueOf( random( 150, 120, 4 ) );
+
+	IMatrix sequential = a.nMultiply( b );
+
+	ForkJoinPool pool = new ForkJoinPool( 4 );
+	ForkJoinPool defaultPool = LinAlgDefaults.getMultiplicationPool();
+	long defaultThreshold = LinAlgDefaults.getParallelThreshold();
+
+	try {
+	    LinAlgDefaults.setMultiplicationPool( pool );
+	    LinAlgDefaults.setParallelThreshold( 0 );
+
+	    Assert.assertEquals( "Parallel product should be same", sequential,
+		    a.nMultiply( b ) );
+	} finally {
+	    LinAlgDefaults.setMultiplicationPool( defaultPool );
+	    LinAlgDefaults.setParallelThreshold( defaultThreshold );
+	    pool.shutdown();
+	}
+    }
+
+    @Test
+    public void testDoubleAccumulation() {
+
+	float[] elements = new float[10000000];
+	Arrays.fill( elements, 0.1f );
+
+	FloatVector vector = new FloatVector( true, elements );
+	float sum = 0;
+
+	for ( float element : elements ) {
+	    sum += element * 1.0f;
+	}
+
+	double expected = 0.1f * (double) elements.length;
+
+	Assert.assertTrue( "Float sum should lose precision",
+		Math.abs( sum - expected ) > 1e3 );
+	Assert.assertEquals( "Scalar product should be accurate",
+		expected * 0.1f, vector.scalarProduct( vector ), 1e-4 );
+	Assert.assertEquals( "Norm should be accurate",
+		Math.sqrt( expected * 0.1f ), vector.norm(), 1e-7 );
+    }
+
+    @Test
+    public void testAccumulationOverPanels() {
+
+	// column spans several panels; every panel adds less than half of
+	// spacing of floats around 1e8, so it is lost if rounded after panel
+	int length = 40000;
+	float[] a = new float[length];
+	float[] b = new float[length];
+
+	Arrays.fill( a, 1.0f );
+	Arrays.fill( b, 2e-4f );
+	b[0] = 1e8f;
+
+	double expected = 1e8 + ((length - 1) * (double) 2e-4f);
+	IMatrix product = new FloatMatrix( 1, length, a, true )
+		.nMultiply( new FloatMatrix( length, 1, b, true ) );
+
+	Assert.assertEquals( "Product should be rounded once", (float) expected,
+		product.get( 0, 0 ), 0 );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testTooLargeMatrix() {
+
+	new FloatMatrix( 1 << 16, 1 << 16 );
+    }
+}
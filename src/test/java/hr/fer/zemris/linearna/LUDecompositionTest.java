@@ -0,0 +1,90 @@
+package hr.fer.zemris.linearna;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LUDecompositionTest {
+
+    @Test
+    public void testDeterminant() {
+
+	LUDecomposition lu = new LUDecomposition(
+		Matrix.parseSimple( "2 3 5 | 7 11 13 | 17 19 23" ) );
+
+	Assert.assertEquals( "Determinant should be -78", -78.0,
+		lu.determinant(), 1e-9 );
+	Assert.assertEquals( "Determinant should not change", -78.0,
+		lu.determinant(), 1e-9 );
+    }
+
+    @Test
+    public void testSolveVector() {
+
+	LUDecomposition lu = new LUDecomposition(
+		Matrix.parseSimple( "3 5 | 2 10" ) );
+	IVector x = lu.solve( Vector.parseSimple( "2 8" ) );
+
+	Assert.assertTrue( "Solution should be [-1 1]", ((AbstractVector) x)
+		.equals( Vector.parseSimple( "-1 1" ), 1e-9 ) );
+    }
+
+    @Test
+    public void testSolveManyRightHandSides() {
+
+	IMatrix a = Matrix.parseSimple( "0 2 1 | 1 1 1 | 4 -1 3" );
+	IMatrix x = Matrix.parseSimple( "1 0 2 1 | -1 3 0.5 0 | 2 2 2 -3" );
+	IMatrix b = a.nMultiply( x );
+
+	IMatrix solution = new LUDecomposition( a ).solve( b );
+
+	Assert.assertTrue( "Solution should be same as x",
+		((AbstractMatrix) x).equals( solution, 1e-9 ) );
+    }
+
+    @Test
+    public void testInverse() {
+
+	IMatrix a = Matrix.parseSimple( "1 2 3 4 | 2 3 5 7 | 11 13 17 19"
+		+ "| 23 29 31 37" );
+	IMatrix inverse = new LUDecomposition( a ).inverse();
+	IMatrix identity = a.copy().makeIdentity();
+
+	Assert.assertTrue( "Product should be identity",
+		((AbstractMatrix) identity).equals( a.nMultiply( inverse ), 1e-9 ) );
+    }
+
+    @Test
+    public void testSingularMatrix() {
+
+	LUDecomposition lu = new LUDecomposition(
+		Matrix.parseSimple( "1 2 3 | 2 3 4 | 3 4 5" ) );
+
+	Assert.assertTrue( "Matrix should be singular", lu.isSingular() );
+	Assert.assertEquals( "Determinant should be 0", 0.0, lu.determinant(),
+		0.0 );
+    }
+
+    @Test
+    public void testBadlyScaledMatrixIsNotSingular() {
+
+	LUDecomposition lu = new LUDecomposition(
+		Matrix.parseSimple( "1e20 0 | 0 1e-20" ) );
+
+	Assert.assertTrue( "Matrix should not be singular", !lu.isSingular() );
+	Assert.assertEquals( "Determinant should be 1", 1.0, lu.determinant(),
+		1e-12 );
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testSolveSingular() {
+
+	new LUDecomposition( Matrix.parseSimple( "0 1 3 | 0 2 6 | 7 7 7" ) )
+		.solve( Vector.parseSimple( "1 2 3" ) );
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testNonSquareMatrix() {
+
+	new LUDecomposition( new Matrix( 2, 3 ) );
+    }
+}
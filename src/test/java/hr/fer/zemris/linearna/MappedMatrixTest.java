@@ -0,0 +1,145 @@
+package hr.fer.zemris.linearna;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MappedMatrixTest {
+
+    private static final Matrix MATRIX = Matrix
+	    .parseSimple( "1 2 3 4 5 6 7 | -1 -2 -3 -4 -5 -6 -7 | 0 0.5 0 0.25 0 1e10 0"
+		    + "| 9 8 7 6 5 4 3 | 1 1 2 3 5 8 13" );
+
+    private static void fill( IMatrix target ) {
+
+	for ( int i = 0; i < MATRIX.getRowsCount(); i++ ) {
+	    for ( int j = 0; j < MATRIX.getColsCount(); j++ ) {
+		target.set( i, j, MATRIX.get( i, j ) );
+	    }
+	}
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+
+	Path path = Files.createTempFile( "matrix", ".lamx" );
+
+	try {
+	    try (MappedMatrix matrix = MappedMatrix.create( path, 5, 7 )) {
+		fill( matrix );
+	    }
+
+	    Assert.assertEquals( "File should have header and elements",
+		    BinaryFormat.HEADER_SIZE + (35 * 8), Files.size( path ) );
+
+	    try (MappedMatrix matrix = MappedMatrix.openReadOnly( path )) {
+		Assert.assertTrue( "Matrix should be read only",
+			matrix.isReadOnly() );
+		Assert.assertTrue( "Matrix should be same",
+			matrix.equals( MATRIX, 0 ) );
+		Assert.assertTrue( "Copy should be same",
+			MATRIX.equals( matrix.copy(), 0 ) );
+	    }
+
+	    try (MappedMatrix matrix = MappedMatrix.openReadWrite( path )) {
+		matrix.set( 4, 6, 21 );
+	    }
+
+	    try (MappedMatrix matrix = MappedMatrix.openReadOnly( path )) {
+		Assert.assertEquals( "Change should be written", 21.0,
+			matrix.get( 4, 6 ), 0 );
+	    }
+	} finally {
+	    Files.delete( path );
+	}
+    }
+
+    @Test
+    public void testColumnMajorChunks() throws IOException {
+
+	Path path = Files.createTempFile( "matrix", ".lamx" );
+
+	try {
+	    try (MappedMatrix matrix = MappedMatrix.create( path, 5, 7, true, 3 )) {
+		fill( matrix );
+
+		Assert.assertTrue( "Matrix should be column major",
+			matrix.isColumnMajor() );
+	    }
+
+	    try (MappedMatrix matrix = MappedMatrix.open( path, true, 2 )) {
+		Assert.assertTrue( "Matrix should be same",
+			matrix.equals( MATRIX, 0 ) );
+		Assert.assertTrue( "Copy should be same",
+			MATRIX.equals( FlatMatrix.valueOf( matrix ), 0 ) );
+	    }
+
+	    try (MappedMatrix matrix = MappedMatrix.open( path, true, 3 )) {
+		Assert.assertTrue( "Product should be same",
+			((AbstractMatrix) MATRIX.nMultiply( MATRIX
+				.nTranspose( false ) )).equals(
+				matrix.nMultiply( matrix.nTranspose( true ) ),
+				1e-9 ) );
+	    }
+	} finally {
+	    Files.delete( path );
+	}
+    }
+
+    @Test
+    public void testReadOnly() throws IOException {
+
+	Path path = Files.createTempFile( "matrix", ".lamx" );
+
+	try {
+	    MappedMatrix.create( path, 2, 2 ).close();
+
+	    try (MappedMatrix matrix = MappedMatrix.openReadOnly( path )) {
+		matrix.set( 0, 0, 1 );
+		Assert.fail( "Read only matrix should not be changed" );
+	    } catch ( UnmodifiableObjectException e ) {
+		// expected
+	    }
+	} finally {
+	    Files.delete( path );
+	}
+    }
+
+    @Test
+    public void testClosed() throws IOException {
+
+	Path path = Files.createTempFile( "matrix", ".lamx" );
+
+	try {
+	    MappedMatrix matrix = MappedMatrix.create( path, 2, 2 );
+	    matrix.close();
+
+	    Assert.assertTrue( "Matrix should be closed", matrix.isClosed() );
+
+	    try {
+		matrix.get( 0, 0 );
+		Assert.fail( "Closed matrix should not be read" );
+	    } catch ( IllegalStateException e ) {
+		// expected
+	    }
+	} finally {
+	    Files.delete( path );
+	}
+    }
+
+    @Test( expected = IOException.class )
+    public void testNotMatrixFile() throws IOException {
+
+	Path path = Files.createTempFile( "matrix", ".lamx" );
+
+	try {
+	    Files.write( path, new byte[100] );
+	    MappedMatrix.openReadOnly( path );
+	} finally {
+	    Files.delete( path );
+	}
+    }
+}
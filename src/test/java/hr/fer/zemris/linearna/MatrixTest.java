@@ -1,5 +1,7 @@
 package hr.fer.zemris.linearna;
 
+import java.util.Random;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -251,4 +253,24 @@ public class MatrixTest {
 	Assert.assertTrue( "Matices should be equal", m1.equals( m2 ) );
 	Assert.assertTrue( "Matices should be equal", m1.equals( m1 ) );
     }
+
+    @Test
+    public void testInverseOfLargeMatrix() {
+
+	int n = 200;
+	IMatrix m = new Matrix( n, n );
+	Random random = new Random( 7 );
+
+	for ( int row = 0; row < n; row++ ) {
+	    for ( int col = 0; col < n; col++ ) {
+		m.set( row, col, random.nextDouble() + (row == col ? n : 0) );
+	    }
+	}
+
+	IMatrix identity = m.copy().makeIdentity();
+
+	Assert.assertTrue( "Product with inverse should be identity",
+		((AbstractMatrix) identity).equals( m.nMultiply( m.nInvert() ),
+			1e-9 ) );
+    }
 }
@@ -0,0 +1,127 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MultiplicationTest {
+
+    private static double[][] randomArray( Random random, int rows, int cols ) {
+
+	double[][] array = new double[rows][cols];
+
+	for ( int row = 0; row < rows; row++ ) {
+	    for ( int col = 0; col < cols; col++ ) {
+		array[row][col] = random.nextDouble() - 0.5;
+	    }
+	}
+
+	return array;
+    }
+
+    private static double[][] multiply( double[][] a, double[][] b ) {
+
+	double[][] c = new double[a.length][b[0].length];
+
+	for ( int row = 0; row < a.length; row++ ) {
+	    for ( int col = 0; col < b[0].length; col++ ) {
+		for ( int i = 0; i < b.length; i++ ) {
+		    c[row][col] += a[row][i] * b[i][col];
+		}
+	    }
+	}
+
+	return c;
+    }
+
+    private static void assertProduct( int m, int k, int n ) {
+
+	Random random = new Random( (m * 31) + (k * 17) + n );
+	double[][] a = randomArray( random, m, k );
+	double[][] b = randomArray( random, k, n );
+
+	IMatrix expected = new Matrix( m, n, multiply( a, b ), false );
+
+	IMatrix m1 = new Matrix( m, k, a, false );
+	IMatrix m2 = FlatMatrix.valueOf( new Matrix( k, n, b, false ) );
+
+	Assert.assertTrue( "Product of " + m + "x" + k + " and " + k + "x" + n
+		+ " matrices is wrong", ((AbstractMatrix) expected).equals(
+		m1.nMultiply( m2 ), 1e-9 ) );
+	Assert.assertTrue( "Product of " + m + "x" + k + " and " + k + "x" + n
+		+ " matrices is wrong", ((AbstractMatrix) expected).equals(
+		FlatMatrix.valueOf( m1 ).nMultiply( m2.copy() ), 1e-9 ) );
+    }
+
+    @Test
+    public void testSmallProducts() {
+
+	assertProduct( 1, 1, 1 );
+	assertProduct( 3, 5, 7 );
+	assertProduct( 16, 16, 16 );
+    }
+
+    @Test
+    public void testBlockedProducts() {
+
+	assertProduct( 101, 37, 103 );
+	assertProduct( 97, 300, 5 );
+	assertProduct( 5, 300, 97 );
+	assertProduct( 200, 513, 130 );
+    }
+
+    @Test
+    public void testProductOfWindows() {
+
+	Random random = new Random( 42 );
+	double[][] a = randomArray( random, 50, 60 );
+
+	double[] elements = new double[100 * 120];
+	for ( int row = 0; row < 50; row++ ) {
+	    System.arraycopy( a[row], 0, elements, 7 + (row * 120), 60 );
+	}
+
+	IMatrix window = new FlatMatrix( 50, 60, elements, 7, 120 );
+	IMatrix matrix = new Matrix( 50, 60, a, false );
+
+	Assert.assertTrue( "Product of window should be same as product of "
+		+ "matrix", ((AbstractMatrix) matrix.nMultiply( matrix
+		.nTranspose( false ) )).equals( window.nMultiply( window
+		.nTranspose( false ) ), 1e-9 ) );
+    }
+
+    @Test
+    public void testProductWithView() {
+
+	IMatrix m1 = Matrix.parseSimple( "1 2 | 3 4 | 5 6" );
+	IMatrix m2 = m1.nTranspose( true );
+
+	Assert.assertTrue( "Product with view should use generic algorithm",
+		Matrix.parseSimple( "5 11 17 | 11 25 39 | 17 39 61" ).equals(
+			m1.nMultiply( m2 ), 1e-9 ) );
+    }
+
+    @Test
+    public void testParallelProducts() {
+
+	ForkJoinPool pool = new ForkJoinPool( 4 );
+	ForkJoinPool defaultPool = LinAlgDefaults.getMultiplicationPool();
+	long defaultThreshold = LinAlgDefaults.getParallelThreshold();
+
+	try {
+	    LinAlgDefaults.setMultiplicationPool( pool );
+	    LinAlgDefaults.setParallelThreshold( 0 );
+
+	    assertProduct( 150, 150, 150 );
+	    assertProduct( 2000, 30, 7 );
+	    assertProduct( 6, 40, 1500 );
+	    assertProduct( 3, 3, 3 );
+	} finally {
+	    LinAlgDefaults.setMultiplicationPool( defaultPool );
+	    LinAlgDefaults.setParallelThreshold( defaultThreshold );
+	    pool.shutdown();
+	}
+    }
+}
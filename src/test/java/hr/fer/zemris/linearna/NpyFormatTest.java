@@ -0,0 +1,148 @@
+package hr.fer.zemris.linearna;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NpyFormatTest {
+
+    private static final Matrix MATRIX = Matrix
+	    .parseSimple( "1 2 3 | 4 5.5 -6" );
+
+    private static byte[] npy( String dictionary, ByteOrder order,
+	    float... elements ) {
+
+	ByteBuffer buffer = ByteBuffer.allocate(
+		10 + dictionary.length() + (elements.length * 4) ).order(
+		ByteOrder.LITTLE_ENDIAN );
+
+	buffer.put( (byte) 0x93 ).put( "NUMPY".getBytes( StandardCharsets.US_ASCII ) )
+		.put( (byte) 1 ).put( (byte) 0 )
+		.putShort( (short) dictionary.length() )
+		.put( dictionary.getBytes( StandardCharsets.US_ASCII ) );
+	buffer.order( order );
+
+	for ( float element : elements ) {
+	    buffer.putFloat( element );
+	}
+
+	return buffer.array();
+    }
+
+    @Test
+    public void testHeader() throws IOException {
+
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	NpyFormat.writeMatrix( MATRIX, bytes );
+
+	String header = new String( bytes.toByteArray(), 10, 118,
+		StandardCharsets.US_ASCII );
+
+	Assert.assertEquals( "Array should have header and elements",
+		128 + (6 * 8), bytes.size() );
+	Assert.assertTrue( "Header should be dictionary of NumPy",
+		header.startsWith( "{'descr': '<f8', 'fortran_order': False, "
+			+ "'shape': (2, 3), }  " ) );
+	Assert.assertTrue( "Header should end with new line",
+		header.endsWith( " \n" ) );
+	Assert.assertTrue( "Matrix should be same", NpyFormat.readMatrix(
+		new ByteArrayInputStream( bytes.toByteArray() ) ).equals( MATRIX,
+		0 ) );
+    }
+
+    @Test
+    public void testFortranOrderFloat32() throws IOException {
+
+	byte[] bytes = npy(
+		"{'descr': '>f4', 'fortran_order': True, 'shape': (2, 3), }\n",
+		ByteOrder.BIG_ENDIAN, 1, 4, 2, 5.5f, 3, -6 );
+
+	Assert.assertTrue( "Matrix should be same", NpyFormat.readMatrix(
+		new ByteArrayInputStream( bytes ) ).equals( MATRIX, 0 ) );
+    }
+
+    @Test
+    public void testVector() throws IOException {
+
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	NpyFormat.writeVector( Vector.parseSimple( "0.5 -1 2" ), bytes, true );
+
+	Vector vector = NpyFormat.readVector( new ByteArrayInputStream( bytes
+		.toByteArray() ) );
+
+	Assert.assertTrue( "Vector should be same",
+		vector.equals( Vector.parseSimple( "0.5 -1 2" ), 0 ) );
+	Assert.assertTrue( "Vector should be read as column",
+		NpyFormat.readMatrix( new ByteArrayInputStream( bytes
+			.toByteArray() ) ).equals(
+			Matrix.parseSimple( "0.5 | -1 | 2" ), 0 ) );
+    }
+
+    @Test
+    public void testArchive() throws IOException {
+
+	Map<String, IMatrix> arrays = new LinkedHashMap<>();
+	arrays.put( "weights", MATRIX );
+	arrays.put( "bias", Matrix.parseSimple( "1 | 2" ) );
+
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	NpyFormat.writeArchive( arrays, bytes );
+
+	Map<String, FlatMatrix> read = NpyFormat
+		.readArchive( new ByteArrayInputStream( bytes.toByteArray() ) );
+
+	Assert.assertEquals( "Archive should have two arrays", 2, read.size() );
+	Assert.assertTrue( "Weights should be same",
+		read.get( "weights" ).equals( MATRIX, 0 ) );
+	Assert.assertEquals( "Bias should be same", 2.0,
+		read.get( "bias" ).get( 1, 0 ), 0 );
+    }
+
+    @Test
+    public void testMap() throws IOException {
+
+	Path path = Files.createTempFile( "matrix", ".npy" );
+
+	try {
+	    NpyFormat.writeMatrix( MATRIX, path );
+
+	    try (MappedMatrix mapped = NpyFormat.map( path )) {
+		Assert.assertTrue( "Mapped matrix should be read only",
+			mapped.isReadOnly() );
+		Assert.assertTrue( "Mapped matrix should be same",
+			mapped.equals( MATRIX, 0 ) );
+	    }
+	} finally {
+	    Files.delete( path );
+	}
+    }
+
+    @Test( expected = IOException.class )
+    public void testUnsupportedType() throws IOException {
+
+	NpyFormat.readMatrix( new ByteArrayInputStream( npy(
+		"{'descr': '<i4', 'fortran_order': False, 'shape': (1,), }\n",
+		ByteOrder.LITTLE_ENDIAN, 0 ) ) );
+    }
+
+    @Test
+    public void testBufferSizeOfHugeArray() {
+
+	Assert.assertEquals( "Buffer should fit small array", 80, NpyFormat
+		.bufferSize( 10, 8 ) );
+	Assert.assertEquals( "Buffer of 2 GB array should not overflow",
+		1 << 16, NpyFormat.bufferSize( 1 << 28, 8 ) );
+	Assert.assertEquals( "Buffer of 4 GB array should not overflow",
+		1 << 16, NpyFormat.bufferSize( 1 << 29, 8 ) );
+    }
+}
@@ -0,0 +1,100 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QRDecompositionTest {
+
+    private static FlatMatrix randomMatrix( int rows, int cols, long seed ) {
+
+	Random random = new Random( seed );
+	FlatMatrix matrix = new FlatMatrix( rows, cols );
+	for ( int i = 0; i < rows; i++ ) {
+	    for ( int j = 0; j < cols; j++ ) {
+		matrix.set( i, j, random.nextDouble() - 0.5 );
+	    }
+	}
+
+	return matrix;
+    }
+
+    @Test
+    public void testFactors() {
+
+	IMatrix a = randomMatrix( 120, 90, 3 );
+	QRDecomposition qr = new QRDecomposition( a );
+	IMatrix q = qr.getQ();
+	IMatrix r = qr.getR();
+
+	Assert.assertTrue( "Q * R should be original matrix",
+		((AbstractMatrix) a).equals( q.nMultiply( r ), 1e-12 ) );
+	Assert.assertTrue( "Columns of Q should be orthonormal",
+		((AbstractMatrix) new FlatMatrix( 90, 90 ).makeIdentity()).equals(
+			q.nTranspose( false ).nMultiply( q ), 1e-12 ) );
+
+	for ( int i = 1; i < 90; i++ ) {
+	    for ( int j = 0; j < i; j++ ) {
+		Assert.assertEquals( "R should be upper triangular", 0.0,
+			r.get( i, j ), 0.0 );
+	    }
+	}
+    }
+
+    @Test
+    public void testWideMatrix() {
+
+	IMatrix a = randomMatrix( 40, 70, 5 );
+	QRDecomposition qr = new QRDecomposition( a );
+
+	Assert.assertTrue( "Q * R should be original matrix",
+		((AbstractMatrix) a).equals( qr.getQ().nMultiply( qr.getR() ),
+			1e-12 ) );
+	Assert.assertTrue( "Wide matrix does not have full column rank",
+		!qr.isFullRank() );
+    }
+
+    @Test
+    public void testExactSolution() {
+
+	IMatrix a = Matrix.parseSimple( "1 1 | 1 2 | 1 3" );
+	IVector x = new QRDecomposition( a ).solve( Vector.parseSimple( "3 5 7" ) );
+
+	Assert.assertTrue( "Solution should be [1 2]", ((AbstractVector) x)
+		.equals( Vector.parseSimple( "1 2" ), 1e-12 ) );
+    }
+
+    @Test
+    public void testLeastSquares() {
+
+	IMatrix a = Matrix.parseSimple( "1 0 | 1 1 | 1 2 | 1 3" );
+	IVector x = new QRDecomposition( a ).solve( Vector.parseSimple( "1 2 2 4" ) );
+
+	Assert.assertTrue( "Solution should be [0.9 0.9]", ((AbstractVector) x)
+		.equals( Vector.parseSimple( "0.9 0.9" ), 1e-12 ) );
+    }
+
+    @Test
+    public void testLeastSquaresResidualIsOrthogonal() {
+
+	IMatrix a = randomMatrix( 200, 50, 9 );
+	IMatrix b = randomMatrix( 200, 3, 10 );
+	IMatrix x = new QRDecomposition( a ).solve( b );
+	IMatrix residual = b.nSub( a.nMultiply( x ) );
+
+	Assert.assertTrue( "A^T * (b - A * x) should be zero",
+		((AbstractMatrix) new FlatMatrix( 50, 3 )).equals( a.nTranspose(
+			false ).nMultiply( residual ), 1e-12 ) );
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testRankDeficient() {
+
+	QRDecomposition qr = new QRDecomposition(
+		Matrix.parseSimple( "1 2 | 2 4 | 3 6" ) );
+
+	Assert.assertTrue( "Matrix should be rank deficient", !qr.isFullRank() );
+	qr.solve( Vector.parseSimple( "1 2 3" ) );
+    }
+}
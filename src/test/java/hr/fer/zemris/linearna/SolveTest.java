@@ -0,0 +1,73 @@
+package hr.fer.zemris.linearna;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SolveTest {
+
+    private static void assertSolves( String matrix, String x ) {
+
+	Matrix a = Matrix.parseSimple( matrix );
+	Matrix expected = Matrix.parseSimple( x );
+	IMatrix b = a.nMultiply( expected );
+
+	Assert.assertTrue( "Solution should be " + x,
+		expected.equals( a.solve( b ), 1e-9 ) );
+	Assert.assertTrue( "Matrix should not change",
+		Matrix.parseSimple( matrix ).equals( a, 0 ) );
+    }
+
+    @Test
+    public void testSolveGeneral() {
+
+	assertSolves( "0 2 1 | 1 1 1 | 4 -1 3", "1 0 | -1 3 | 2 2" );
+    }
+
+    @Test
+    public void testSolveTriangular() {
+
+	assertSolves( "2 0 0 | 1 3 0 | -1 4 5", "1 2 | 3 4 | 5 6" );
+	assertSolves( "2 1 -1 | 0 3 4 | 0 0 5", "1 2 | 3 4 | 5 6" );
+    }
+
+    @Test
+    public void testSolvePositiveDefinite() {
+
+	assertSolves( "4 2 -2 | 2 10 4 | -2 4 9", "1 2 3 | 4 5 6 | 7 8 9" );
+    }
+
+    @Test
+    public void testSolveSymmetricIndefinite() {
+
+	assertSolves( "1 2 0 | 2 1 3 | 0 3 1", "1 | -2 | 0.5" );
+    }
+
+    @Test
+    public void testSolveVector() {
+
+	Matrix a = Matrix.parseSimple( "3 5 | 2 10" );
+	IVector x = a.solve( Vector.parseSimple( "2 8" ) );
+
+	Assert.assertTrue( "Solution should be [-1 1]", ((AbstractVector) x)
+		.equals( Vector.parseSimple( "-1 1" ), 1e-9 ) );
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testSolveSingular() {
+
+	Matrix.parseSimple( "0 1 3 | 0 2 6 | 7 7 7" ).solve(
+		Vector.parseSimple( "1 2 3" ) );
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testSolveSingularTriangular() {
+
+	Matrix.parseSimple( "1 0 | 2 0" ).solve( Vector.parseSimple( "1 2" ) );
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testSolveWrongDimension() {
+
+	Matrix.parseSimple( "1 2 | 3 4" ).solve( Vector.parseSimple( "1 2 3" ) );
+    }
+}
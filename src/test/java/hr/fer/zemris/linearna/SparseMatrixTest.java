@@ -0,0 +1,117 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SparseMatrixTest {
+
+    private static Matrix randomSparse( int rows, int cols, double density,
+	    long seed ) {
+
+	Random random = new Random( seed );
+	Matrix matrix = new Matrix( rows, cols );
+	for ( int i = 0; i < rows; i++ ) {
+	    for ( int j = 0; j < cols; j++ ) {
+		if ( random.nextDouble() < density ) {
+		    matrix.set( i, j, random.nextInt( 19 ) - 9 );
+		}
+	    }
+	}
+
+	return matrix;
+    }
+
+    @Test
+    public void testGetAndSet() {
+
+	SparseMatrix matrix = new SparseMatrix( 3, 4 );
+	matrix.set( 1, 3, 5 ).set( 1, 0, 2 ).set( 2, 2, 7 ).set( 1, 3, 6 );
+
+	Assert.assertEquals( "Three elements should be stored", 3,
+		matrix.getNonZerosCount() );
+	Assert.assertEquals( "Element should be 6", 6.0, matrix.get( 1, 3 ), 0 );
+	Assert.assertEquals( "Element should be 0", 0.0, matrix.get( 0, 1 ), 0 );
+	Assert.assertTrue( "Matrix should be same as dense matrix", Matrix
+		.parseSimple( "0 0 0 0 | 2 0 0 6 | 0 0 7 0" ).equals( matrix, 0 ) );
+
+	matrix.set( 1, 0, 0 );
+	Assert.assertEquals( "Zero should not be stored", 2,
+		matrix.getNonZerosCount() );
+	Assert.assertEquals( "Element should be 7", 7.0, matrix.get( 2, 2 ), 0 );
+    }
+
+    @Test
+    public void testCsrArrays() {
+
+	SparseMatrix matrix = new SparseMatrix( 2, 3, new int[] { 0, 2, 3 },
+		new int[] { 0, 2, 1 }, new double[] { 1, 2, 3 } );
+
+	Assert.assertTrue( "Matrix should be [1 0 2 | 0 3 0]", Matrix
+		.parseSimple( "1 0 2 | 0 3 0" ).equals( matrix, 0 ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testUnsortedColumns() {
+
+	new SparseMatrix( 1, 3, new int[] { 0, 2 }, new int[] { 2, 1 },
+		new double[] { 1, 2 } );
+    }
+
+    @Test
+    public void testTranspose() {
+
+	Matrix dense = randomSparse( 30, 20, 0.1, 1 );
+	IMatrix transposed = SparseMatrix.valueOf( dense ).nTranspose( false );
+
+	Assert.assertTrue( "Transposed matrix should be sparse",
+		transposed instanceof SparseMatrix );
+	Assert.assertTrue( "Transposed matrices should be same",
+		((AbstractMatrix) dense.nTranspose( false )).equals( transposed, 0 ) );
+    }
+
+    @Test
+    public void testMultiply() {
+
+	Matrix a = randomSparse( 40, 30, 0.1, 2 );
+	Matrix b = randomSparse( 30, 25, 0.1, 3 );
+	IMatrix expected = a.nMultiply( b );
+
+	IMatrix sparseProduct = SparseMatrix.valueOf( a ).nMultiply(
+		SparseMatrix.valueOf( b ) );
+	Assert.assertTrue( "Product of sparse matrices should be sparse",
+		sparseProduct instanceof SparseMatrix );
+	Assert.assertTrue( "Sparse * sparse should be same as dense product",
+		((AbstractMatrix) expected).equals( sparseProduct, 0 ) );
+	Assert.assertTrue( "Sparse * dense should be same as dense product",
+		((AbstractMatrix) expected).equals(
+			SparseMatrix.valueOf( a ).nMultiply( b ), 0 ) );
+	Assert.assertTrue( "Dense * sparse should be same as dense product",
+		((AbstractMatrix) expected).equals(
+			a.nMultiply( SparseMatrix.valueOf( b ) ), 0 ) );
+    }
+
+    @Test
+    public void testAddAndSub() {
+
+	Matrix a = randomSparse( 20, 20, 0.2, 4 );
+	Matrix b = randomSparse( 20, 20, 0.2, 5 );
+	IMatrix sum = a.nAdd( b );
+
+	Assert.assertTrue( "Sparse + sparse should be same as dense sum",
+		((AbstractMatrix) sum).equals( SparseMatrix.valueOf( a ).nAdd(
+			SparseMatrix.valueOf( b ) ), 0 ) );
+	Assert.assertTrue( "Dense + sparse should be same as dense sum",
+		((AbstractMatrix) sum).equals(
+			a.nAdd( SparseMatrix.valueOf( b ) ), 0 ) );
+	Assert.assertTrue( "Sparse - sparse should be same as dense difference",
+		((AbstractMatrix) a.nSub( b )).equals( SparseMatrix.valueOf( a )
+			.nSub( SparseMatrix.valueOf( b ) ), 0 ) );
+
+	SparseMatrix difference = SparseMatrix.valueOf( a );
+	difference.sub( a );
+	Assert.assertEquals( "Difference with itself should have no elements",
+		0, difference.getNonZerosCount() );
+    }
+}
@@ -0,0 +1,86 @@
+package hr.fer.zemris.linearna;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SparseVectorTest {
+
+    @Test
+    public void testGetAndSet() {
+
+	SparseVector vector = new SparseVector( 1000000 );
+	vector.set( 500000, 3 ).set( 7, 1 ).set( 999999, 2 ).set( 7, 4 );
+
+	Assert.assertEquals( "Three elements should be stored", 3,
+		vector.getNonZerosCount() );
+	Assert.assertEquals( "Element should be 4", 4.0, vector.get( 7 ), 0 );
+	Assert.assertEquals( "Element should be 0", 0.0, vector.get( 8 ), 0 );
+
+	vector.set( 500000, 0 );
+	Assert.assertEquals( "Zero should not be stored", 2,
+		vector.getNonZerosCount() );
+	Assert.assertEquals( "Element should be 2", 2.0, vector.get( 999999 ),
+		0 );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testUnsortedIndices() {
+
+	new SparseVector( 5, new int[] { 3, 1 }, new double[] { 1, 2 } );
+    }
+
+    @Test
+    public void testScalarProduct() {
+
+	SparseVector a = new SparseVector( 6, new int[] { 0, 2, 5 },
+		new double[] { 1, 2, 3 } );
+	SparseVector b = new SparseVector( 6, new int[] { 1, 2, 5 },
+		new double[] { 4, 5, 6 } );
+	Vector dense = Vector.parseSimple( "1 2 3 4 5 6" );
+
+	Assert.assertEquals( "Sparse product should be 28", 28.0,
+		a.scalarProduct( b ), 0 );
+	Assert.assertEquals( "Sparse * dense product should be 25", 25.0,
+		a.scalarProduct( dense ), 0 );
+	Assert.assertEquals( "Dense * sparse product should be 25", 25.0,
+		dense.scalarProduct( a ), 0 );
+	Assert.assertEquals( "Norm should be sqrt(14)", Math.sqrt( 14 ),
+		a.norm(), 1e-12 );
+	Assert.assertEquals( "Cosine should be same as for dense vectors",
+		Vector.parseSimple( "1 0 2 0 0 3" ).cosine(
+			Vector.parseSimple( "0 4 5 0 0 6" ) ), a.cosine( b ), 1e-12 );
+    }
+
+    @Test
+    public void testAddAndSub() {
+
+	SparseVector a = new SparseVector( 5, new int[] { 0, 2 }, new double[] {
+		1, 2 } );
+	SparseVector b = new SparseVector( 5, new int[] { 2, 4 }, new double[] {
+		-2, 3 } );
+
+	IVector sum = a.nAdd( b );
+	Assert.assertTrue( "Sum should be [1 0 0 0 3]", ((AbstractVector) sum)
+		.equals( Vector.parseSimple( "1 0 0 0 3" ), 0 ) );
+	Assert.assertEquals( "Cancelled element should not be stored", 2,
+		((SparseVector) sum).getNonZerosCount() );
+
+	IVector difference = Vector.parseSimple( "1 1 1 1 1" ).sub( b );
+	Assert.assertTrue( "Difference should be [1 1 3 1 -2]",
+		((AbstractVector) difference).equals(
+			Vector.parseSimple( "1 1 3 1 -2" ), 0 ) );
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testCosineWithNulVector() {
+
+	new SparseVector( 3 ).cosine( Vector.parseSimple( "1 2 3" ) );
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testCosineWithAlmostNulVector() {
+
+	new SparseVector( 3 ).set( 1, 1e-30 ).cosine(
+		Vector.parseSimple( "1 2 3" ) );
+    }
+}
@@ -0,0 +1,142 @@
+package hr.fer.zemris.linearna;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StructuredMatrixTest {
+
+    @Test
+    public void testDiagonalProducts() {
+
+	DiagonalMatrix d = new DiagonalMatrix( 2, 3 );
+	Matrix a = Matrix.parseSimple( "1 2 | 3 4" );
+
+	Assert.assertTrue( "D * A should scale rows", Matrix.parseSimple(
+		"2 4 | 9 12" ).equals( d.nMultiply( a ), 0 ) );
+	Assert.assertTrue( "A * D should scale columns", Matrix.parseSimple(
+		"2 6 | 6 12" ).equals( a.nMultiply( d ), 0 ) );
+
+	IMatrix square = d.nMultiply( d );
+	Assert.assertTrue( "D * D should be [4 0 | 0 9]", Matrix.parseSimple(
+		"4 0 | 0 9" ).equals( square, 0 ) );
+
+	square.set( 0, 1, 1 );
+	Assert.assertEquals( "D * D should be mutable", 1.0,
+		square.get( 0, 1 ), 0 );
+    }
+
+    @Test
+    public void testDiagonalInverse() {
+
+	DiagonalMatrix d = new DiagonalMatrix( 2, -4, 0.5 );
+
+	Assert.assertEquals( "Determinant should be -4", -4.0,
+		d.determinant(), 0 );
+	Assert.assertTrue( "Inverse should be diagonal",
+		d.nInvert() instanceof DiagonalMatrix );
+	Assert.assertTrue( "Inverse should be [0.5 -0.25 2]", Matrix
+		.parseSimple( "0.5 0 0 | 0 -0.25 0 | 0 0 2" ).equals(
+			d.nInvert(), 0 ) );
+	Assert.assertTrue( "Solution should be [1 1 1]",
+		((AbstractVector) d.solve( Vector.parseSimple( "2 -4 0.5" ) ))
+			.equals( Vector.parseSimple( "1 1 1" ), 1e-12 ) );
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testSingularDiagonal() {
+
+	new DiagonalMatrix( 1, 0 ).nInvert();
+    }
+
+    @Test
+    public void testAddStructured() {
+
+	Matrix a = Matrix.parseSimple( "1 2 | 3 4" );
+
+	a.add( new DiagonalMatrix( 1, 2 ) ).sub( new ScaledIdentityMatrix( 2, 3 ) )
+		.add( new ZeroMatrix( 2, 2 ) );
+	Assert.assertTrue( "Matrix should be [-1 2 | 3 3]", Matrix.parseSimple(
+		"-1 2 | 3 3" ).equals( a, 0 ) );
+    }
+
+    @Test
+    public void testAddDiagonals() {
+
+	DiagonalMatrix d = new DiagonalMatrix( 1, 2, 3 );
+
+	d.add( new DiagonalMatrix( 4, 5, 6 ) ).sub( new DiagonalMatrix( 1, 1, 1 ) );
+	Assert.assertTrue( "Sum should be diagonal [4 6 8]", Matrix.parseSimple(
+		"4 0 0 | 0 6 0 | 0 0 8" ).equals( d, 0 ) );
+    }
+
+    @Test
+    public void testNewSums() {
+
+	Matrix a = Matrix.parseSimple( "1 2 | 3 4" );
+	ScaledIdentityMatrix identity = new ScaledIdentityMatrix( 2 );
+
+	IMatrix sum = new ZeroMatrix( 2, 2 ).nAdd( identity );
+	Assert.assertTrue( "Z + I should be I", Matrix.parseSimple( "1 0 | 0 1" )
+		.equals( sum, 0 ) );
+	Assert.assertTrue( "S + A should be dense", Matrix.parseSimple(
+		"4 2 | 3 7" ).equals( new ScaledIdentityMatrix( 2, 3 ).nAdd( a ),
+		0 ) );
+	Assert.assertTrue( "D - A should be dense", Matrix.parseSimple(
+		"1 -2 | -3 -1" ).equals( new DiagonalMatrix( 2, 3 ).nSub( a ), 0 ) );
+	Assert.assertTrue( "Z - A should be -A", Matrix.parseSimple(
+		"-1 -2 | -3 -4" ).equals( new ZeroMatrix( 2, 2 ).nSub( a ), 0 ) );
+
+	IMatrix band = new DiagonalMatrix( 1, 2 ).nAdd( new TridiagonalMatrix(
+		new double[] { 5 }, new double[] { 1, 1 }, new double[] { 6 } ) );
+	Assert.assertTrue( "D + T should be tridiagonal",
+		band instanceof TridiagonalMatrix );
+	Assert.assertTrue( "D + T should be [2 6 | 5 3]", Matrix.parseSimple(
+		"2 6 | 5 3" ).equals( band, 0 ) );
+	Assert.assertTrue( "S - D should be diagonal", identity
+		.nSub( new DiagonalMatrix( 1, 2 ) ) instanceof DiagonalMatrix );
+    }
+
+    @Test
+    public void testScaledIdentity() {
+
+	ScaledIdentityMatrix s = new ScaledIdentityMatrix( 3, 2 );
+	Matrix a = Matrix.parseSimple( "1 2 3 | 4 5 6 | 7 8 9" );
+
+	Assert.assertTrue( "S * A should be 2 * A", ((AbstractMatrix) a
+		.nScalarMultiply( 2 )).equals( s.nMultiply( a ), 0 ) );
+	Assert.assertTrue( "A * S should be 2 * A", ((AbstractMatrix) a
+		.nScalarMultiply( 2 )).equals( a.nMultiply( s ), 0 ) );
+	Assert.assertEquals( "S * S should be mutable", 1.0, s.nMultiply( s )
+		.set( 0, 1, 1 ).get( 0, 1 ), 0 );
+	Assert.assertEquals( "Determinant should be 8", 8.0, s.determinant(), 0 );
+	Assert.assertEquals( "Inverse should have 0.5 on diagonal", 0.5, s
+		.nInvert().get( 1, 1 ), 0 );
+
+	s.add( new ScaledIdentityMatrix( 3 ) );
+	Assert.assertEquals( "Sum should have 3 on diagonal", 3.0,
+		s.get( 2, 2 ), 0 );
+    }
+
+    @Test( expected = UnmodifiableObjectException.class )
+    public void testScaledIdentityIsUnmodifiable() {
+
+	new ScaledIdentityMatrix( 3 ).set( 0, 1, 1 );
+    }
+
+    @Test
+    public void testZeroMatrix() {
+
+	ZeroMatrix z = new ZeroMatrix( 2, 3 );
+	Matrix a = Matrix.parseSimple( "1 2 | 3 4" );
+
+	IMatrix product = z.nMultiply( new Matrix( 3, 4 ) );
+	Assert.assertTrue( "Z * B should be zero", new Matrix( 2, 4 ).equals(
+		product, 0 ) );
+	Assert.assertEquals( "Z * B should be mutable", 1.0, product.set( 1, 3,
+		1 ).get( 1, 3 ), 0 );
+	Assert.assertTrue( "A * Z should be zero", new Matrix( 2, 3 ).equals(
+		a.nMultiply( z ), 0 ) );
+	Assert.assertEquals( "Determinant should be 0", 0.0, new ZeroMatrix(
+		2, 2 ).determinant(), 0 );
+    }
+}
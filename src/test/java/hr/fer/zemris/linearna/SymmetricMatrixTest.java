@@ -0,0 +1,110 @@
+package hr.fer.zemris.linearna;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SymmetricMatrixTest {
+
+    @Test
+    public void testSetMirrors() {
+
+	SymmetricMatrix matrix = new SymmetricMatrix( 3 );
+	matrix.set( 0, 2, 5 ).set( 2, 1, 7 ).set( 1, 1, 3 );
+
+	Assert.assertTrue( "Matrix should be symmetric", Matrix.parseSimple(
+		"0 0 5 | 0 3 7 | 5 7 0" ).equals( matrix, 0 ) );
+	Assert.assertEquals( "Six elements should be stored", 6,
+		matrix.elements.length );
+    }
+
+    @Test
+    public void testMultiply() {
+
+	SymmetricMatrix a = SymmetricMatrix.valueOf( TestMatrices.randomMatrix(
+		40, 40, 1 ) );
+	FlatMatrix b = TestMatrices.randomMatrix( 40, 7, 2 );
+	IMatrix expected = FlatMatrix.valueOf( a ).nMultiply( b );
+
+	Assert.assertTrue( "Product should be same as dense product",
+		((AbstractMatrix) expected).equals( a.nMultiply( b ), 1e-12 ) );
+
+	IVector vector = TestMatrices.randomMatrix( 40, 1, 6 ).toVector( false );
+	Assert.assertTrue( "Matrix * vector should be same as dense product",
+		((AbstractVector) a.nMultiply( vector )).equals( FlatMatrix
+			.valueOf( a ).nMultiply( vector.toColumnMatrix( false ) )
+			.toVector( false ), 1e-12 ) );
+    }
+
+    @Test
+    public void testRankUpdate() {
+
+	FlatMatrix x = TestMatrices.randomMatrix( 30, 5, 3 );
+	SymmetricMatrix a = new SymmetricMatrix( 30 ).rankUpdate( 2.0, x );
+	IMatrix expected = x.nMultiply( x.nTranspose( false ) ).scalarMultiply(
+		2.0 );
+
+	Assert.assertTrue( "Update should be 2 * X * X^T",
+		((AbstractMatrix) expected).equals( a, 1e-12 ) );
+    }
+
+    @Test
+    public void testAddAndScale() {
+
+	SymmetricMatrix a = SymmetricMatrix.valueOf( Matrix
+		.parseSimple( "1 2 | 2 3" ) );
+	a.add( Matrix.parseSimple( "1 1 | 1 1" ) ).scalarMultiply( 2 );
+
+	Assert.assertTrue( "Matrix should be [4 6 | 6 8]", Matrix.parseSimple(
+		"4 6 | 6 8" ).equals( a, 0 ) );
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testAddNotSymmetric() {
+
+	new SymmetricMatrix( 2 ).add( Matrix.parseSimple( "1 2 | 3 4" ) );
+    }
+
+    @Test
+    public void testSolve() {
+
+	FlatMatrix x = TestMatrices.randomMatrix( 50, 50, 4 );
+	SymmetricMatrix a = new SymmetricMatrix( 50 ).rankUpdate( 1.0, x );
+	IMatrix b = TestMatrices.randomMatrix( 50, 2, 5 );
+
+	Assert.assertTrue( "Cholesky should succeed",
+		a.cholesky().isPositiveDefinite() );
+	Assert.assertTrue( "A * solution should be b", ((AbstractMatrix) b)
+		.equals( a.nMultiply( a.solve( b ) ), 1e-8 ) );
+
+	SymmetricMatrix indefinite = SymmetricMatrix.valueOf( Matrix
+		.parseSimple( "1 2 | 2 1" ) );
+	Assert.assertTrue( "Indefinite system should be solved with LU",
+		((AbstractVector) indefinite.solve( Vector.parseSimple( "3 3" ) ))
+			.equals( Vector.parseSimple( "1 1" ), 1e-12 ) );
+    }
+
+    @Test
+    public void testPackedCholesky() {
+
+	SymmetricMatrix a = SymmetricMatrix.valueOf( Matrix
+		.parseSimple( "4 2 2 | 2 5 3 | 2 3 6" ) );
+	PackedCholeskyDecomposition cholesky = a.cholesky();
+
+	Assert.assertTrue( "U^T * U should be A", ((AbstractMatrix) a).equals(
+		cholesky.getU().nTranspose( false ).nMultiply( cholesky.getU() ),
+		1e-12 ) );
+	Assert.assertEquals( "Determinant should be same as with LU",
+		new LUDecomposition( a ).determinant(), a.determinant(), 1e-12 );
+	Assert.assertTrue( "A * inverse should be I", Matrix.parseSimple(
+		"1 0 0 | 0 1 0 | 0 0 1" ).equals( a.nMultiply( a.nInvert() ),
+		1e-12 ) );
+	Assert.assertSame( "Decomposition should be reused", cholesky,
+		a.cholesky() );
+
+	a.set( 0, 1, 5 );
+	Assert.assertFalse( "Changed matrix should not be positive definite", a
+		.cholesky().isPositiveDefinite() );
+	Assert.assertEquals( "Determinant should be calculated with LU",
+		new LUDecomposition( a ).determinant(), a.determinant(), 1e-12 );
+    }
+}
@@ -0,0 +1,26 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Random;
+
+/**
+ * Random matrices shared by tests of structured matrices.
+ */
+final class TestMatrices {
+
+    private TestMatrices() {
+
+    }
+
+    static FlatMatrix randomMatrix( int rows, int cols, long seed ) {
+
+	Random random = new Random( seed );
+	FlatMatrix matrix = new FlatMatrix( rows, cols );
+	for ( int i = 0; i < rows; i++ ) {
+	    for ( int j = 0; j < cols; j++ ) {
+		matrix.set( i, j, random.nextDouble() - 0.5 );
+	    }
+	}
+
+	return matrix;
+    }
+}
@@ -0,0 +1,159 @@
+package hr.fer.zemris.linearna;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TextFormatTest {
+
+    private static DecimalFormat decimalFormat( int precision ) {
+
+	StringBuilder pattern = new StringBuilder( "0." );
+
+	for ( int i = 0; i < precision; i++ ) {
+	    pattern.append( '0' );
+	}
+
+	DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+	symbols.setDecimalSeparator( '.' );
+
+	return new DecimalFormat( pattern.toString(), symbols );
+    }
+
+    @Test
+    public void testSameAsDecimalFormat() {
+
+	double[] values = { 0, -0.0, -1e-4, -0.4, 0.5, -0.5, 1.5, 2.5, 0.125,
+		0.135, 1.0005, 2.675, 1e23, 123456789.5, 0.1 + 0.2, 1e-320,
+		4.35, 1e12, 1099511627775.5, Double.MAX_VALUE, -Double.MIN_VALUE,
+		Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+
+	Random random = new Random( 3 );
+
+	for ( int precision = 0; precision <= 17; precision++ ) {
+	    DecimalFormat expected = decimalFormat( precision );
+	    TextFormat format = TextFormat.getInstance( precision );
+
+	    for ( double value : values ) {
+		Assert.assertEquals( "Value " + value + " with precision "
+			+ precision, expected.format( value ), format
+			.format( value ) );
+	    }
+
+	    for ( int i = 0; i < 20000; i++ ) {
+		double value = random.nextGaussian()
+			* Math.pow( 10, random.nextInt( 30 ) - 12 );
+
+		if ( (i % 4) == 0 ) {
+		    // ties and values close to ties
+		    value = (random.nextInt( 20000 ) - 10000)
+			    / Math.pow( 2, random.nextInt( 12 ) );
+		}
+
+		Assert.assertEquals( "Value " + value + " with precision "
+			+ precision, expected.format( value ), format
+			.format( value ) );
+	    }
+	}
+    }
+
+    @Test
+    public void testMatrix() throws IOException {
+
+	Matrix matrix = Matrix.parseSimple( "1 -2.5 3.14159 | -0.0001 5e10 6" );
+
+	String expected = "[ 1.000 -2.500 3.142 ]\r\n[ -0.000 50000000000.000 6.000 ]";
+
+	Assert.assertEquals( "Matrix should be formatted", expected,
+		matrix.toString() );
+	Assert.assertEquals( "Matrix view should be formatted same", expected,
+		new MatrixTransposeView( matrix.nTranspose( true ) ).toString() );
+
+	StringWriter writer = new StringWriter();
+	TextFormat.getInstance( 3 ).write( matrix, writer );
+
+	Assert.assertEquals( "Written matrix should be same", expected,
+		writer.toString() );
+    }
+
+    @Test
+    public void testVector() throws IOException {
+
+	Vector vector = new Vector( 1, -2.5, 1.0 / 3 );
+
+	Assert.assertEquals( "Vector should be formatted", "1.000 -2.500 0.333",
+		vector.toString() );
+	Assert.assertEquals( "Vector should be formatted with precision 0",
+		"1. -2. 0.", vector.toString( 0 ) );
+
+	StringWriter writer = new StringWriter();
+	TextFormat.getInstance( 1 ).write( vector, writer );
+
+	Assert.assertEquals( "Written vector should be same", "1.0 -2.5 0.3",
+		writer.toString() );
+    }
+
+    @Test
+    public void testLargeMatrix() throws IOException {
+
+	Random random = new Random( 5 );
+	FlatMatrix matrix = new FlatMatrix( 300, 200 );
+	DecimalFormat decimalFormat = decimalFormat( 4 );
+	StringBuilder expected = new StringBuilder();
+
+	for ( int row = 0; row < 300; row++ ) {
+	    expected.append( row == 0 ? "[ " : "\r\n[ " );
+
+	    for ( int col = 0; col < 200; col++ ) {
+		matrix.set( row, col, random.nextGaussian() * 1000 );
+		expected.append( decimalFormat.format( matrix.get( row, col ) ) )
+			.append( ' ' );
+	    }
+
+	    expected.append( ']' );
+	}
+
+	final StringBuilder out = new StringBuilder();
+
+	// appendable which is neither writer nor string builder
+	TextFormat.getInstance( 4 ).write( matrix, new Appendable() {
+
+	    @Override
+	    public Appendable append( CharSequence csq ) {
+
+		out.append( csq );
+		return this;
+	    }
+
+	    @Override
+	    public Appendable append( CharSequence csq, int start, int end ) {
+
+		out.append( csq, start, end );
+		return this;
+	    }
+
+	    @Override
+	    public Appendable append( char c ) {
+
+		out.append( c );
+		return this;
+	    }
+	} );
+
+	Assert.assertEquals( "Written matrix should be same",
+		expected.toString(), out.toString() );
+	Assert.assertEquals( "Formatted matrix should be same",
+		expected.toString(), matrix.toString( 4 ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testNegativePrecision() {
+
+	new Vector( 1, 2 ).toString( -1 );
+    }
+}
@@ -0,0 +1,189 @@
+package hr.fer.zemris.linearna;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TextParserTest {
+
+    private static double parse( String number ) {
+
+	return TextParser.parseNumber( number.toCharArray(), 0, number.length() );
+    }
+
+    @Test
+    public void testNumbers() {
+
+	String[] numbers = { "0", "-0", "-0.0", "+1", "1.", ".5", "007.250",
+		"1e10", "1E-5", "-2.5e+3", "0.1", "0.3", "123456789012345678",
+		"1234567890123456789012", "9007199254740993", "1e22", "1e23",
+		"1e-22", "2.2250738585072014E-308", "4.9e-324", "1.7976931348623157e308",
+		"1e400", "NaN", "-Infinity", "0x1p3", "1.5d", "0e99999" };
+
+	for ( String number : numbers ) {
+	    Assert.assertEquals( "Number " + number + " should be parsed",
+		    Double.doubleToLongBits( Double.parseDouble( number ) ),
+		    Double.doubleToLongBits( parse( number ) ) );
+	}
+
+	Random random = new Random( 42 );
+
+	for ( int i = 0; i < 100000; i++ ) {
+	    String number = Double.toString( random.nextDouble() * Math.pow( 10,
+		    random.nextInt( 40 ) - 20 ) );
+	    String rounded = String.format( "%.6f", random.nextGaussian() );
+
+	    Assert.assertEquals( "Number " + number + " should be parsed",
+		    Double.parseDouble( number ), parse( number ), 0 );
+	    Assert.assertEquals( "Number " + rounded + " should be parsed",
+		    Double.parseDouble( rounded ), parse( rounded ), 0 );
+	}
+    }
+
+    @Test
+    public void testInvalidNumbers() {
+
+	String[] numbers = { "", "-", ".", "e5", "1e", "1e+", "1..2", "1-2",
+		"abc", "|" };
+
+	for ( String number : numbers ) {
+	    try {
+		parse( number );
+		Assert.fail( "Number " + number + " should be rejected" );
+	    } catch ( NumberFormatException e ) {
+		// expected
+	    }
+	}
+    }
+
+    @Test
+    public void testReader() throws IOException {
+
+	StringBuilder text = new StringBuilder();
+
+	for ( int i = 0; i < 20000; i++ ) {
+	    text.append( i ).append( ".125 -" ).append( i ).append( "e-3\t" )
+		    .append( i % 7 ).append( "\r\n" );
+
+	    if ( (i % 1000) == 0 ) {
+		text.append( "\n  \n" );
+	    }
+	}
+
+	// reader returns few characters at once, so numbers cross buffers
+	Reader reader = new StringReader( text.toString() ) {
+
+	    @Override
+	    public int read( char[] buffer, int offset, int length )
+		    throws IOException {
+
+		return super.read( buffer, offset, Math.min( length, 7 ) );
+	    }
+	};
+
+	List<Vector> vectors = TextParser.parseVectors( reader );
+
+	Assert.assertEquals( "All lines should be parsed", 20000, vectors.size() );
+
+	for ( int i = 0; i < vectors.size(); i += 997 ) {
+	    Assert.assertTrue( "Vector should be same", vectors.get( i ).equals(
+		    new Vector( i + 0.125, -i * 1e-3, i % 7 ), 0 ) );
+	}
+
+	FlatMatrix matrix = TextParser.parseMatrix( new StringReader(
+		"1 2 3 | 4\n5 6\n\n7" ) );
+
+	Assert.assertTrue( "Shorter rows should be padded", matrix.equals(
+		Matrix.parseSimple( "1 2 3 | 4 0 0 | 5 6 0 | 7 0 0" ), 0 ) );
+    }
+
+    @Test
+    public void testParallel() throws IOException {
+
+	Random random = new Random( 7 );
+	StringBuilder text = new StringBuilder();
+
+	for ( int i = 0; i < 200000; i++ ) {
+	    for ( int j = 0; j < 4; j++ ) {
+		text.append( random.nextGaussian() ).append( ' ' );
+	    }
+
+	    text.append( '\n' );
+	}
+
+	FlatMatrix sequential = TextParser.parseMatrix( new StringReader( text
+		.toString() ) );
+	FlatMatrix parallel = TextParser.parseMatrix( CharBuffer.wrap( text ) );
+
+	Assert.assertEquals( "All rows should be parsed", 200000,
+		sequential.getRowsCount() );
+	Assert.assertEquals( "Parallel parsing should give same matrix",
+		sequential, parallel );
+
+	Path path = Files.createTempFile( "vectors", ".txt" );
+
+	try {
+	    Files.write( path, text.toString().getBytes( StandardCharsets.US_ASCII ) );
+
+	    ForkJoinPool pool = new ForkJoinPool( 4 );
+	    List<Vector> vectors = TextParser.parseVectors( path, pool );
+	    pool.shutdown();
+
+	    Assert.assertEquals( "All vectors should be parsed", 200000,
+		    vectors.size() );
+	    Assert.assertEquals( "Vector should be same as row",
+		    new Vector( sequential.toArray()[123456] ), vectors.get( 123456 ) );
+	    Assert.assertEquals( "Sequential parsing of file should be same",
+		    parallel, TextParser.parseMatrix( path, null ) );
+	} finally {
+	    Files.delete( path );
+	}
+    }
+
+    @Test
+    public void testParseSimple() {
+
+	Assert.assertTrue( "Matrix should be parsed", Matrix.parseSimple(
+		"  1 2\t3|4 5 6 |\n7 8 9||" ).equals(
+		new Matrix( 3, 3, new double[][] { { 1, 2, 3 }, { 4, 5, 6 },
+			{ 7, 8, 9 } }, true ), 0 ) );
+	Assert.assertTrue( "Shorter rows should be padded", Matrix.parseSimple(
+		"1 | 2 3" ).equals(
+		new Matrix( 2, 2, new double[][] { { 1, 0 }, { 2, 3 } }, true ),
+		0 ) );
+	Assert.assertTrue( "Vector should be parsed", Vector.parseSimple(
+		" -1.5\t2e2 \n 3 " ).equals( new Vector( -1.5, 200, 3 ), 0 ) );
+
+	String[] invalid = { "", "1 || 2", "| 1", "1 | ", "1 | x" };
+
+	for ( String matrix : invalid ) {
+	    try {
+		Matrix.parseSimple( matrix );
+		Assert.fail( "Matrix " + matrix + " should be rejected" );
+	    } catch ( NumberFormatException e ) {
+		// expected
+	    }
+	}
+
+	String[] invalidVectors = { "", "  ", "1 | 2", "1 x" };
+
+	for ( String vector : invalidVectors ) {
+	    try {
+		Vector.parseSimple( vector );
+		Assert.fail( "Vector " + vector + " should be rejected" );
+	    } catch ( NumberFormatException e ) {
+		// expected
+	    }
+	}
+    }
+}
@@ -0,0 +1,107 @@
+package hr.fer.zemris.linearna;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TiledMultiplicationTest {
+
+    private static Matrix matrix( int rows, int cols, int seed ) {
+
+	Matrix m = new Matrix( rows, cols );
+
+	for ( int i = 0; i < rows; i++ ) {
+	    for ( int j = 0; j < cols; j++ ) {
+		m.set( i, j, ((i * 31) + (j * 17) + seed) % 13 - 6 );
+	    }
+	}
+
+	return m;
+    }
+
+    @Test
+    public void testTileSize() {
+
+	Assert.assertEquals( "Tile should have 4 rows", 4,
+		new TiledMultiplication( 3 * 8 * 16 ).getTileSize() );
+	Assert.assertEquals( "Tile should have 4 rows", 4,
+		new TiledMultiplication( 3 * 8 * 24 ).getTileSize() );
+    }
+
+    @Test
+    public void testHeapMatrices() {
+
+	Matrix a = matrix( 11, 7, 1 );
+	Matrix b = matrix( 7, 13, 2 );
+	TiledMultiplication engine = new TiledMultiplication( 3 * 8 * 9 );
+
+	IMatrix c = engine.multiply( a, b, new Matrix( 11, 13 ) );
+
+	Assert.assertTrue( "Product should be same as in memory product",
+		((AbstractMatrix) a.nMultiply( b )).equals( c, 0 ) );
+    }
+
+    @Test
+    public void testIoVolume() {
+
+	int n = 12;
+	TiledMultiplication engine = new TiledMultiplication( 3 * 8 * 16 );
+
+	engine.multiply( matrix( n, n, 1 ), matrix( n, n, 2 ),
+		new FlatMatrix( n, n ) );
+
+	Assert.assertEquals( "A and B should be read once for every tile",
+		2L * n * n * (n / 4) * 8, engine.getBytesRead() );
+	Assert.assertEquals( "C should be written once", (long) n * n * 8,
+		engine.getBytesWritten() );
+    }
+
+    @Test
+    public void testMappedMatrices() throws IOException {
+
+	Path pathA = Files.createTempFile( "a", ".lamx" );
+	Path pathC = Files.createTempFile( "c", ".lamx" );
+	Matrix a = matrix( 9, 10, 3 );
+	Matrix b = matrix( 10, 6, 4 );
+
+	try {
+	    try (MappedMatrix mappedA = MappedMatrix.create( pathA, 9, 10, true )) {
+		for ( int i = 0; i < 9; i++ ) {
+		    for ( int j = 0; j < 10; j++ ) {
+			mappedA.set( i, j, a.get( i, j ) );
+		    }
+		}
+	    }
+
+	    try (MappedMatrix mappedA = MappedMatrix.openReadOnly( pathA );
+		    DirectMatrix directB = DirectMatrix.valueOf( b );
+		    MappedMatrix c = new TiledMultiplication( 3 * 8 * 16 )
+			    .multiply( mappedA, directB, pathC )) {
+		Assert.assertTrue( "Product should be same as in memory product",
+			((AbstractMatrix) a.nMultiply( b )).equals( c, 0 ) );
+	    }
+	} finally {
+	    Files.delete( pathA );
+	    Files.delete( pathC );
+	}
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testWrongResult() {
+
+	new TiledMultiplication( 1 << 20 ).multiply( new Matrix( 2, 3 ),
+		new Matrix( 3, 4 ), new Matrix( 2, 3 ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testResultSameAsOperand() {
+
+	IMatrix a = Matrix.parseSimple( "1 2 | 3 4" );
+
+	new TiledMultiplication( 1 << 20 ).multiply( a, Matrix
+		.parseSimple( "1 0 | 0 1" ), a );
+    }
+}
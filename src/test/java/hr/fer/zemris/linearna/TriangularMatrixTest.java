@@ -0,0 +1,135 @@
+package hr.fer.zemris.linearna;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TriangularMatrixTest {
+
+    private static final Matrix LOWER = Matrix
+	    .parseSimple( "2 0 0 | 1 3 0 | -1 4 5" );
+
+    private static final Matrix UPPER = Matrix
+	    .parseSimple( "2 1 -1 | 0 3 4 | 0 0 5" );
+
+    @Test
+    public void testStorage() {
+
+	TriangularMatrix lower = TriangularMatrix.valueOf( LOWER, false, false );
+	TriangularMatrix upper = TriangularMatrix.valueOf( UPPER, true, false );
+
+	Assert.assertTrue( "Lower matrix should be same",
+		lower.equals( LOWER, 0 ) );
+	Assert.assertTrue( "Upper matrix should be same",
+		upper.equals( UPPER, 0 ) );
+	Assert.assertTrue( "Transposed matrix should be upper",
+		((TriangularMatrix) lower.nTranspose( false )).isUpper() );
+	Assert.assertTrue( "Transposed matrix should be same",
+		((AbstractMatrix) LOWER.nTranspose( false )).equals(
+			lower.nTranspose( false ), 0 ) );
+    }
+
+    @Test
+    public void testUnitDiagonal() {
+
+	TriangularMatrix unit = TriangularMatrix.valueOf( LOWER, false, true );
+
+	Assert.assertEquals( "Diagonal should be 1", 1.0, unit.get( 2, 2 ), 0 );
+	Assert.assertEquals( "Determinant should be 1", 1.0,
+		unit.determinant(), 0 );
+
+	IVector x = Vector.parseSimple( "1 2 3" );
+	IVector b = unit.nMultiply( x.toColumnMatrix( false ) ).toVector( false );
+
+	Assert.assertTrue( "Solution should be [1 2 3]",
+		((AbstractVector) x).equals( unit.solve( b ), 1e-12 ) );
+    }
+
+    @Test
+    public void testDeterminant() {
+
+	Assert.assertEquals( "Determinant should be 30", 30.0, TriangularMatrix
+		.valueOf( UPPER, true, false ).determinant(), 0 );
+    }
+
+    @Test
+    public void testSolve() {
+
+	IMatrix x = Matrix.parseSimple( "1 2 | 3 4 | 5 6" );
+
+	for ( Matrix a : new Matrix[] { LOWER, UPPER } ) {
+	    TriangularMatrix triangular = TriangularMatrix.valueOf( a,
+		    a == UPPER, false );
+	    IMatrix b = a.nMultiply( x );
+
+	    Assert.assertTrue( "Product should be same as dense product",
+		    ((AbstractMatrix) b).equals( triangular.nMultiply( x ), 1e-12 ) );
+	    Assert.assertTrue( "Solution should be same as x",
+		    ((AbstractMatrix) x).equals( triangular.solve( b ), 1e-12 ) );
+
+	    FlatMatrix inPlace = FlatMatrix.valueOf( b );
+	    triangular.solveInPlace( inPlace );
+
+	    Assert.assertTrue( "Solution in place should be same as x",
+		    inPlace.equals( x, 1e-12 ) );
+	}
+    }
+
+    @Test
+    public void testInverse() {
+
+	TriangularMatrix lower = TriangularMatrix.valueOf( LOWER, false, false );
+	IMatrix inverse = lower.nInvert();
+
+	Assert.assertTrue( "Inverse should be lower triangular",
+		!((TriangularMatrix) inverse).isUpper() );
+	Assert.assertTrue( "Product should be identity",
+		((AbstractMatrix) LOWER.copy().makeIdentity()).equals(
+			LOWER.nMultiply( inverse ), 1e-12 ) );
+    }
+
+    @Test
+    public void testFactors() {
+
+	IMatrix a = Matrix.parseSimple( "0 2 1 | 1 1 1 | 4 -1 3" );
+	LUDecomposition lu = new LUDecomposition( a );
+	int[] pivot = lu.getPivot();
+	IMatrix product = lu.getL().nMultiply( lu.getU() );
+
+	for ( int i = 0; i < 3; i++ ) {
+	    for ( int j = 0; j < 3; j++ ) {
+		Assert.assertEquals( "Product of factors should be P * A",
+			a.get( pivot[i], j ), product.get( i, j ), 1e-12 );
+	    }
+	}
+    }
+
+    @Test( expected = UnmodifiableObjectException.class )
+    public void testSetOutsideOfTriangle() {
+
+	new TriangularMatrix( 3, true, false ).set( 2, 0, 1 );
+    }
+
+    @Test
+    public void testAddNotTriangular() {
+
+	TriangularMatrix matrix = new TriangularMatrix( 2, true, false );
+
+	try {
+	    matrix.add( Matrix.parseSimple( "1 2 | 3 4" ) );
+	    Assert.fail( "Sum should not be triangular" );
+	} catch ( UnmodifiableObjectException e ) {
+	    Assert.assertTrue( "Matrix should not be changed", new Matrix( 2, 2 )
+		    .equals( matrix, 0 ) );
+	}
+
+	matrix.sub( Matrix.parseSimple( "1 2 | 0 4" ) );
+	Assert.assertTrue( "Matrix should be [-1 -2 | 0 -4]", Matrix
+		.parseSimple( "-1 -2 | 0 -4" ).equals( matrix, 0 ) );
+    }
+
+    @Test( expected = IncompatibleOperandException.class )
+    public void testSolveSingular() {
+
+	new TriangularMatrix( 2, true, false ).solve( Vector.parseSimple( "1 2" ) );
+    }
+}
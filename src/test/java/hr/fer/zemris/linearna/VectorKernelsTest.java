@@ -0,0 +1,126 @@
+package hr.fer.zemris.linearna;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VectorKernelsTest {
+
+    private static double[] random( int length, Random random ) {
+
+	double[] array = new double[length];
+
+	for ( int i = 0; i < length; i++ ) {
+	    array[i] = random.nextGaussian();
+	}
+
+	return array;
+    }
+
+    @Test
+    public void testDot() {
+
+	Random random = new Random( 1 );
+
+	for ( int length = 0; length < 200; length += 7 ) {
+	    double[] a = random( length + 3, random );
+	    double[] b = random( length + 5, random );
+	    float[] fa = new float[a.length];
+	    float[] fb = new float[b.length];
+
+	    for ( int i = 0; i < fa.length; i++ ) {
+		fa[i] = (float) a[i];
+	    }
+	    for ( int i = 0; i < fb.length; i++ ) {
+		fb[i] = (float) b[i];
+	    }
+
+	    Assert.assertEquals( "Scalar product of length " + length,
+		    ScalarKernels.dot( a, 3, b, 5, length ),
+		    VectorKernels.dot( a, 3, b, 5, length ), 1e-12 );
+	    Assert.assertEquals( "Float scalar product of length " + length,
+		    ScalarKernels.dot( fa, 2, fb, 1, length ),
+		    VectorKernels.dot( fa, 2, fb, 1, length ), 1e-12 );
+	}
+    }
+
+    @Test
+    public void testAxpyAndScale() {
+
+	Random random = new Random( 2 );
+
+	for ( int length = 0; length < 200; length += 13 ) {
+	    double[] x = random( length + 1, random );
+	    double[] expected = random( length + 2, random );
+	    double[] y = expected.clone();
+
+	    ScalarKernels.axpy( 0.3, x, 1, expected, 2, length );
+	    VectorKernels.axpy( 0.3, x, 1, y, 2, length );
+	    ScalarKernels.scale( expected, 1, -1.7, length );
+	    VectorKernels.scale( y, 1, -1.7, length );
+
+	    Assert.assertArrayEquals( "Result should be same as scalar",
+		    expected, y, 0 );
+	}
+    }
+
+    @Test
+    public void testPanels() {
+
+	Random random = new Random( 3 );
+	double[] a = random( 4 * 300, random );
+	double[] b = random( 4 * 300, random );
+	double[] expected = new double[16];
+	double[] result = new double[16];
+
+	ScalarKernels.multiplyPanels( a, 0, b, 0, 300, expected );
+	VectorKernels.multiplyPanels( a, 0, b, 0, 300, result );
+
+	Assert.assertArrayEquals( "Block should be same as scalar", expected,
+		result, 1e-12 );
+    }
+
+    @Test
+    public void testScalarSwitch() {
+
+	boolean vectorized = LinAlgDefaults.isVectorizedKernels();
+	FlatMatrix a = new FlatMatrix( 100, 100 );
+	a.makeIdentity();
+	IMatrix expected = a.nMultiply( a );
+
+	try {
+	    LinAlgDefaults.setVectorizedKernels( false );
+
+	    Assert.assertFalse( "Kernels should be scalar",
+		    VectorKernels.isVectorized() );
+	    Assert.assertEquals( "Scalar product should be same", expected,
+		    a.nMultiply( a ) );
+	} finally {
+	    LinAlgDefaults.setVectorizedKernels( vectorized );
+	}
+    }
+
+    @Test
+    public void testVector() {
+
+	Vector u = new Vector( 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14,
+		15, 16, 17 );
+	Vector v = (Vector) u.nScalarMultiply( 2 );
+
+	Assert.assertEquals( "Scalar product should be calculated", 2 * 1785,
+		u.scalarProduct( v ), 0 );
+	Assert.assertTrue( "Difference should be calculated",
+		Arrays.equals( v.nSub( u ).toArray(), u.toArray() ) );
+	Assert.assertTrue( "Sum should be calculated",
+		Arrays.equals( u.nAdd( u ).toArray(), v.toArray() ) );
+
+	try {
+	    new Vector( true, false, 1, 2 ).add( new Vector( 1, 2 ) );
+	    Assert.fail( "Unmodifiable vector should not be changed" );
+	} catch ( UnmodifiableObjectException e ) {
+	    // expected
+	}
+    }
+}
@@ -133,4 +133,91 @@ public class ViewTest {
 		"Matrix m3 should be instace of MatrixSubMatrixView",
 		m3 instanceof MatrixSubMatrixView );
     }
+
+    @Test
+    public void testStridedViewComposition() {
+
+	double[] elements = {
+		0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11
+	};
+	FlatMatrix m = new FlatMatrix( 3, 4, elements, true );
+	Matrix expected = Matrix.parseSimple( "0 1 2 3 | 4 5 6 7 | 8 9 10 11" );
+
+	IMatrix t = m.nTranspose( true );
+	Assert.assertTrue( "Transpose should be strided view",
+		t instanceof StridedMatrixView );
+	Assert.assertTrue( "Transposes should be same", ((AbstractMatrix) t)
+		.equals( expected.nTranspose( false ), 0 ) );
+
+	IMatrix corner = t.nTranspose( true ).subMatrix( 0, 0, true );
+	Assert.assertTrue( "Corner should be strided view",
+		corner instanceof StridedMatrixView );
+	Assert.assertTrue( "Corners should be same", ((AbstractMatrix) corner)
+		.equals( expected.subMatrix( 0, 0, false ), 0 ) );
+
+	IMatrix inner = t.subMatrix( 1, 1, true ).nTranspose( true );
+	Assert.assertTrue( "Inner view should be indexed view",
+		inner instanceof IndexedMatrixView );
+	Assert.assertTrue( "Inner views should be same",
+		((AbstractMatrix) inner).equals( expected.nTranspose( false )
+			.subMatrix( 1, 1, false ).nTranspose( false ), 0 ) );
+
+	inner.set( 1, 2, -1 );
+	Assert.assertEquals( "View should change array", -1, elements[11], 0 );
+    }
+
+    @Test
+    public void testStridedVectorView() {
+
+	double[] elements = {
+		0, 1, 2, 3, 4, 5
+	};
+	IMatrix column = new FlatMatrix( 3, 2, elements, true ).nTranspose( true )
+		.subMatrix( 0, 0, true ).nTranspose( true );
+	IVector v = column.toVector( true );
+
+	Assert.assertTrue( "Column should be strided vector",
+		v instanceof StridedVectorView );
+	Assert.assertTrue( "Vector should be [3 5]", ((AbstractVector) v)
+		.equals( Vector.parseSimple( "3 5" ), 0 ) );
+
+	v.toRowMatrix( true ).set( 0, 1, -1 );
+	Assert.assertEquals( "Row matrix should change array", -1, elements[5],
+		0 );
+
+	Vector u = Vector.parseSimple( "1 2 3" );
+	u.toColumnMatrix( true ).nTranspose( true ).set( 0, 2, 4 );
+	Assert.assertEquals( "View should change vector", 4, u.get( 2 ), 0 );
+    }
+
+    @Test
+    public void testCollapsedGenericViews() {
+
+	Matrix m = Matrix.parseSimple( "1 2 3 | 4 5 6 | 7 8 9" );
+	IMatrix t = m.nTranspose( true );
+
+	Assert.assertSame( "Transpose of transpose should be matrix", m, t
+		.nTranspose( true ) );
+
+	IMatrix sub = m.subMatrix( 0, 0, true ).subMatrix( 1, 0, true );
+	Assert.assertTrue( "Views should not stack",
+		sub instanceof MatrixSubMatrixView );
+	Assert.assertTrue( "Submatrix should be [6]", Matrix.parseSimple( "6" )
+		.equals( sub, 0 ) );
+	Assert.assertTrue( "Submatrix of transpose should be same",
+		((AbstractMatrix) t.subMatrix( 2, 0, true )).equals( m
+			.nTranspose( false ).subMatrix( 2, 0, false ), 0 ) );
+    }
+
+    @Test
+    public void testProductOfStridedViews() {
+
+	FlatMatrix m = FlatMatrix.valueOf( Matrix
+		.parseSimple( "1 2 3 | 4 5 6 | 7 8 10" ) );
+	IMatrix product = m.nTranspose( true ).subMatrix( 2, 2, true )
+		.nMultiply( m.subMatrix( 0, 0, true ) );
+
+	Assert.assertTrue( "Product should be calculated", Matrix.parseSimple(
+		"37 46 | 50 62" ).equals( product, 1e-12 ) );
+    }
 }